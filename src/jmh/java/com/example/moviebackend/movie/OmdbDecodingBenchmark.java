@@ -0,0 +1,101 @@
+package com.example.moviebackend.movie;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes OMDb response bodies the ways MovieService has: reading the body into a String and parsing it into a
+ * tree and then again into the result, parsing the stream into a tree and binding the tree, and binding the
+ * stream in a single pass with {@link OmdbDecoder}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OmdbDecodingBenchmark {
+
+    private static final String MOVIE = "{\"Title\":\"Inception\",\"Year\":\"2010\",\"Rated\":\"PG-13\",\"Released\":\"16 Jul 2010\","
+            + "\"Runtime\":\"148 min\",\"Genre\":\"Action, Adventure, Sci-Fi\",\"Director\":\"Christopher Nolan\","
+            + "\"Writer\":\"Christopher Nolan\",\"Actors\":\"Leonardo DiCaprio, Joseph Gordon-Levitt, Elliot Page\","
+            + "\"Plot\":\"A thief who steals corporate secrets through the use of dream-sharing technology is given the inverse task "
+            + "of planting an idea into the mind of a C.E.O., but his tragic past may doom the project and his team to disaster.\","
+            + "\"Language\":\"English, Japanese, French\",\"Country\":\"United States, United Kingdom\","
+            + "\"Awards\":\"Won 4 Oscars. 159 wins & 220 nominations total\","
+            + "\"Poster\":\"https://m.media-amazon.com/images/M/MV5BMjAxMzY3NjcxNF5BMl5BanBnXkFtZTcwNTI5OTM0Mw@@._V1_SX300.jpg\","
+            + "\"Ratings\":[{\"Source\":\"Internet Movie Database\",\"Value\":\"8.8/10\"},{\"Source\":\"Rotten Tomatoes\",\"Value\":\"87%\"},"
+            + "{\"Source\":\"Metacritic\",\"Value\":\"74/100\"}],\"Metascore\":\"74\",\"imdbRating\":\"8.8\",\"imdbVotes\":\"2,404,364\","
+            + "\"imdbID\":\"tt1375666\",\"Type\":\"movie\",\"DVD\":\"07 Dec 2010\",\"BoxOffice\":\"$292,587,330\",\"Production\":\"N/A\","
+            + "\"Website\":\"N/A\",\"Response\":\"True\"}";
+
+    private static final String SEARCH_PAGE;
+
+    static {
+        StringBuilder json = new StringBuilder("{\"Search\":[");
+        String[][] hits = {
+                {"Batman Begins", "2005", "tt0372784"}, {"The Batman", "2022", "tt1877830"}, {"Batman v Superman: Dawn of Justice", "2016", "tt2975590"},
+                {"Batman", "1989", "tt0096895"}, {"Batman Returns", "1992", "tt0103776"}, {"Batman & Robin", "1997", "tt0118688"},
+                {"Batman Forever", "1995", "tt0112462"}, {"The Lego Batman Movie", "2017", "tt4116284"},
+                {"Batman: The Animated Series", "1992–1995", "tt0103359"}, {"Batman: Under the Red Hood", "2010", "tt1569923"}};
+        for(int i = 0; i < hits.length; i++){
+            json.append(i == 0 ? "" : ",").append("{\"Title\":\"").append(hits[i][0]).append("\",\"Year\":\"").append(hits[i][1])
+                    .append("\",\"imdbID\":\"").append(hits[i][2]).append("\",\"Type\":\"movie\",\"Poster\":\"")
+                    .append(i % 3 == 2 ? "N/A" : "https://m.media-amazon.com/images/M/MV5BOTY4YjI2N2MtYmFlMC00ZjcyLTg3YjEtMDQyM2ZjYzQ5YWFkXkEyXkFqcGdeQXVyMTQxNzMzNDI@._V1_SX300.jpg")
+                    .append("\"}");
+        }
+        SEARCH_PAGE = json.append("],\"totalResults\":\"593\",\"Response\":\"True\"}").toString();
+    }
+
+    private static final String ERROR = "{\"Response\":\"False\",\"Error\":\"Incorrect IMDb ID.\"}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Param({"movie", "search", "error"})
+    private String payload;
+
+    private byte[] body;
+    private Class<? extends OmdbResponse> type;
+
+    @Setup
+    public void setUp(){
+        String json = "movie".equals(payload) ? MOVIE : "search".equals(payload) ? SEARCH_PAGE : ERROR;
+        body = json.getBytes(StandardCharsets.UTF_8);
+        type = "search".equals(payload) ? MovieAPIResponse.class : MovieEntity.class;
+    }
+
+    @Benchmark
+    public Object stringThenTreeThenBind() throws IOException {
+        String json = new String(new ByteArrayInputStream(body).readAllBytes(), StandardCharsets.UTF_8);
+        JsonNode responseJson = objectMapper.readTree(json);
+        if(responseJson.has("Error")){
+            return responseJson.get("Error").asText();
+        }
+        return objectMapper.readValue(json, type);
+    }
+
+    @Benchmark
+    public Object treeThenBind() throws IOException {
+        JsonNode responseJson = objectMapper.readTree(new ByteArrayInputStream(body));
+        if(responseJson.has("Error")){
+            return responseJson.get("Error").asText();
+        }
+        return objectMapper.treeToValue(responseJson, type);
+    }
+
+    @Benchmark
+    public Object singlePass() throws IOException {
+        OmdbResponse response = OmdbDecoder.decode(new ByteArrayInputStream(body), type);
+        return response.getError() != null ? response.getError() : response;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.moviebackend.movie;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Reads movie detail responses back from an {@link OmdbResponseStore} on disk and decodes them, the per-movie
+ * cost of rebuilding the movies table in replay mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OmdbResponseStoreBenchmark {
+
+    private static final String MOVIE = "{\"Title\":\"Movie %d\",\"Year\":\"2010\",\"Rated\":\"PG-13\",\"Released\":\"16 Jul 2010\","
+            + "\"Runtime\":\"148 min\",\"Genre\":\"Action, Adventure, Sci-Fi\",\"Director\":\"Christopher Nolan\","
+            + "\"Writer\":\"Christopher Nolan\",\"Actors\":\"Leonardo DiCaprio, Joseph Gordon-Levitt, Elliot Page\","
+            + "\"Plot\":\"A thief who steals corporate secrets through the use of dream-sharing technology is given the inverse task "
+            + "of planting an idea into the mind of a C.E.O.\",\"Language\":\"English, Japanese, French\","
+            + "\"Country\":\"United States, United Kingdom\",\"Awards\":\"Won 4 Oscars. 159 wins & 220 nominations total\","
+            + "\"Poster\":\"https://m.media-amazon.com/images/M/MV5BMjAxMzY3NjcxNF5BMl5BanBnXkFtZTcwNTI5OTM0Mw@@._V1_SX300.jpg\","
+            + "\"Ratings\":[{\"Source\":\"Internet Movie Database\",\"Value\":\"8.8/10\"}],\"Metascore\":\"74\","
+            + "\"imdbRating\":\"8.8\",\"imdbVotes\":\"2,404,364\",\"imdbID\":\"tt%07d\",\"Type\":\"movie\",\"DVD\":\"N/A\","
+            + "\"BoxOffice\":\"$292,587,330\",\"Production\":\"N/A\",\"Website\":\"N/A\",\"Response\":\"True\"}";
+
+    @Param({"10000"})
+    private int movies;
+
+    private Path directory;
+    private OmdbResponseStore store;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("omdb-responses");
+        OmdbResponseStore recorder = new OmdbResponseStore(directory, OmdbResponseStore.Mode.RECORD, Duration.ofDays(1),
+                64 << 20, 0.5, Clock.systemUTC());
+        for(int i = 0; i < movies; i++){
+            recorder.put("i=tt" + i, String.format(MOVIE, i, i).getBytes(StandardCharsets.UTF_8));
+        }
+        recorder.close();
+        store = new OmdbResponseStore(directory, OmdbResponseStore.Mode.REPLAY, Duration.ofDays(1), 64 << 20, 0.5, Clock.systemUTC());
+        store.keys();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.close();
+        try(Stream<Path> files = Files.walk(directory)){
+            for(Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator){
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public MovieEntity lookupAndDecode() throws IOException {
+        byte[] body = store.lookup("i=tt" + ThreadLocalRandom.current().nextInt(movies));
+        return OmdbDecoder.decode(new ByteArrayInputStream(body), MovieEntity.class);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.moviebackend.movie;
+
+import com.example.moviebackend.common.http.HttpClientConfig;
+import com.example.moviebackend.common.http.HttpClientMetrics;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a paginated title search against a local fake OMDb server that answers every request after a fixed
+ * latency, walking the pages one at a time (fan-out 1) versus requesting them concurrently.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class OmdbSearchBenchmark {
+
+    private static final int PAGE_SIZE = 10;
+    private static final int MAX_IN_FLIGHT = 8;
+
+    @Param({"1", "4", "8"})
+    private int fanOut;
+
+    @Param({"20"})
+    private int latencyMillis;
+
+    @Param({"200"})
+    private int totalResults;
+
+    private HttpServer server;
+    private OmdbClient omdbClient;
+    private MovieService movieService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            String query = exchange.getRequestURI().getQuery();
+            int page = Integer.parseInt(query.substring(query.lastIndexOf('=') + 1));
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = searchPage(page).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try(OutputStream out = exchange.getResponseBody()){
+                out.write(body);
+            }
+        });
+        server.start();
+
+        String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+        PoolingHttpClientConnectionManager connectionManager = HttpClientConfig.connectionManager(MAX_IN_FLIGHT + 1, MAX_IN_FLIGHT + 1);
+        omdbClient = new OmdbClient(HttpClientConfig.httpClient(connectionManager, new HttpClientMetrics(connectionManager),
+                1000, 5000, 30000), connectionManager,
+                new OmdbQuota(null, Integer.MAX_VALUE, Integer.MAX_VALUE, Clock.systemUTC()),
+                new OmdbResponseStore(null, OmdbResponseStore.Mode.OFF, Duration.ZERO, 0, 0, Clock.systemUTC()),
+                baseUrl, MAX_IN_FLIGHT, 1000, 5000, 10000);
+        movieService = new MovieService(null, null, null, null, null, null, null, null, null, null, null, null, null,
+                omdbClient, null, null);
+        MovieService.configureApi(baseUrl, "benchmark");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        omdbClient.shutdown();
+        server.stop(0);
+    }
+
+    private String searchPage(int page){
+        StringBuilder json = new StringBuilder("{\"Search\":[");
+        int first = (page - 1) * PAGE_SIZE;
+        for(int i = first; i < Math.min(first + PAGE_SIZE, totalResults); i++){
+            json.append(i == first ? "" : ",")
+                    .append("{\"Title\":\"Movie ").append(i).append("\",\"imdbID\":\"tt").append(i).append("\"}");
+        }
+        return json.append("],\"totalResults\":\"").append(totalResults).append("\",\"Response\":\"True\"}").toString();
+    }
+
+    @Benchmark
+    public List<SimilarMovieEntity> search(){
+        return movieService.searchMovies("movie", fanOut);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.moviebackend.movie.search;
+
+import com.example.moviebackend.movie.MovieEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic catalog of made-up movie titles for the search benchmarks.
+ */
+final class SyntheticTitles {
+
+    private static final String[] WORDS = {
+            "the", "dark", "knight", "man", "iron", "star", "wars", "return", "of", "king", "lord", "rings",
+            "batman", "begins", "night", "day", "love", "story", "city", "lost", "last", "first", "house",
+            "river", "mountain", "storm", "shadow", "fire", "ice", "blood", "ghost", "dream", "war", "peace",
+            "summer", "winter", "big", "little", "secret", "life", "death", "game", "road", "home", "island",
+            "amélie", "café", "señor", "île", "être", "über", "zoë", "noël", "mañana", "déjà", "vu"
+    };
+
+    private SyntheticTitles(){
+    }
+
+    static List<MovieEntity> movies(int count){
+        Random random = new Random(42);
+        List<MovieEntity> movies = new ArrayList<>(count);
+        for(int i = 0; i < count; i++){
+            MovieEntity movie = new MovieEntity();
+            movie.setImdbID("tt" + i);
+            movie.setTitle(title(random));
+            movie.setImdbVotes(String.valueOf(random.nextInt(1_000_000)));
+            movies.add(movie);
+        }
+        return movies;
+    }
+
+    private static String title(Random random){
+        StringBuilder title = new StringBuilder();
+        int words = 1 + random.nextInt(5);
+        for(int i = 0; i < words; i++){
+            String word = WORDS[random.nextInt(WORDS.length)];
+            if(i > 0){
+                title.append(' ');
+            }
+            title.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+        }
+        return title.toString();
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.moviebackend.movie.search;
+
+import com.example.moviebackend.movie.MovieCatalogChangedEvent;
+import com.example.moviebackend.movie.MovieEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the trigram title index with the {@code LIKE %keyword%} query it replaced, on an in-memory H2
+ * table of synthetic titles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TitleSearchBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int titles;
+
+    @Param({"batman", "man", "deja vu"})
+    private String keyword;
+
+    private TitleSearchIndex titleSearchIndex;
+    private Connection connection;
+    private PreparedStatement like;
+    private PreparedStatement lowerLike;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        List<MovieEntity> movies = SyntheticTitles.movies(titles);
+
+        titleSearchIndex = new TitleSearchIndex();
+        titleSearchIndex.onCatalogChanged(new MovieCatalogChangedEvent(movies));
+
+        connection = DriverManager.getConnection("jdbc:h2:mem:titles" + titles);
+        try(Statement statement = connection.createStatement()){
+            statement.execute("CREATE TABLE movies (imdbid VARCHAR(255) PRIMARY KEY, title VARCHAR(255))");
+        }
+        try(PreparedStatement insert = connection.prepareStatement("INSERT INTO movies VALUES (?, ?)")){
+            for(int i = 0; i < movies.size(); i++){
+                insert.setString(1, movies.get(i).getImdbID());
+                insert.setString(2, movies.get(i).getTitle());
+                insert.addBatch();
+                if(i % 10_000 == 9_999){
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        like = connection.prepareStatement("SELECT imdbid, title FROM movies WHERE title LIKE ?");
+        lowerLike = connection.prepareStatement("SELECT imdbid, title FROM movies WHERE LOWER(title) LIKE ?");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    /**
+     * The query of {@code MovieRepository.findByKeyword}, case sensitive.
+     */
+    @Benchmark
+    public void likeQuery(Blackhole blackhole) throws SQLException {
+        like.setString(1, "%" + keyword + "%");
+        consume(like, blackhole);
+    }
+
+    /**
+     * The closest SQL equivalent of the index, case insensitive but still accent sensitive.
+     */
+    @Benchmark
+    public void lowerLikeQuery(Blackhole blackhole) throws SQLException {
+        lowerLike.setString(1, "%" + keyword.toLowerCase() + "%");
+        consume(lowerLike, blackhole);
+    }
+
+    @Benchmark
+    public List<MovieEntity> trigramIndex(){
+        return titleSearchIndex.search(keyword, Integer.MAX_VALUE);
+    }
+
+    private static void consume(PreparedStatement query, Blackhole blackhole) throws SQLException {
+        try(ResultSet resultSet = query.executeQuery()){
+            while(resultSet.next()){
+                blackhole.consume(resultSet.getString(1));
+                blackhole.consume(resultSet.getString(2));
+            }
+        }
+    }
+}
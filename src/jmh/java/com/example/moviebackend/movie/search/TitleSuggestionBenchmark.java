@@ -0,0 +1,67 @@
+package com.example.moviebackend.movie.search;
+
+import com.example.moviebackend.movie.MovieEntity;
+import com.example.moviebackend.movie.OmdbValues;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures autocomplete lookups against the suggestion trie, reporting its estimated footprint next to the timings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TitleSuggestionBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int titles;
+
+    @Param({"b", "batman b", "deja vu m"})
+    private String prefix;
+
+    private SuggestionTrie trie;
+    private long nodes;
+    private long kibibytes;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        List<SuggestionTrie.Entry> entries = new ArrayList<>(titles);
+        for(MovieEntity movie : SyntheticTitles.movies(titles)){
+            entries.add(new SuggestionTrie.Entry(movie.getImdbID(), movie.getTitle(),
+                    OmdbValues.parseCount(movie.getImdbVotes())));
+        }
+        trie = SuggestionTrie.build(entries, 10);
+        nodes = trie.nodeCount();
+        kibibytes = trie.footprintBytes() / 1024;
+    }
+
+    @Benchmark
+    public List<TitleSuggestion> lookup(Footprint footprint){
+        // JMH resets the counters as each iteration starts, two stores per lookup keep them set
+        footprint.nodes = nodes;
+        footprint.kibibytes = kibibytes;
+        return trie.lookup(prefix, 10);
+    }
+
+    /**
+     * The nodes of the trie and its estimated size, reported as secondary results of every iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long nodes;
+        public long kibibytes;
+    }
+}
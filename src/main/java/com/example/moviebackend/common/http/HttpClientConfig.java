@@ -0,0 +1,95 @@
+package com.example.moviebackend.common.http;
+
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The pooled HTTP client shared by all outbound calls: OMDb through {@code OmdbClient} and Google through the
+ * {@link RestTemplate}. Connections are kept alive and reused, idle and expired ones are evicted in the
+ * background, and every request is timed by {@link HttpClientMetrics}.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Value("${http.client.max-total:50}")
+    private int maxTotal;
+
+    @Value("${http.client.max-per-route:10}")
+    private int maxPerRoute;
+
+    @Value("${http.client.connect-timeout-ms:2000}")
+    private int connectTimeoutMillis;
+
+    @Value("${http.client.read-timeout-ms:5000}")
+    private int readTimeoutMillis;
+
+    @Value("${http.client.keep-alive-ms:30000}")
+    private long keepAliveMillis;
+
+    @Bean(destroyMethod = "shutdown")
+    public PoolingHttpClientConnectionManager connectionManager(){
+        return connectionManager(maxTotal, maxPerRoute);
+    }
+
+    @Bean
+    public HttpClientMetrics httpClientMetrics(PoolingHttpClientConnectionManager connectionManager){
+        return new HttpClientMetrics(connectionManager);
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient httpClient(PoolingHttpClientConnectionManager connectionManager, HttpClientMetrics metrics){
+        return httpClient(connectionManager, metrics, connectTimeoutMillis, readTimeoutMillis, keepAliveMillis);
+    }
+
+    @Bean
+    public RestTemplate restTemplate(CloseableHttpClient httpClient){
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+    }
+
+    public static PoolingHttpClientConnectionManager connectionManager(int maxTotal, int maxPerRoute){
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        // check pooled connections the server may have closed before reusing them
+        connectionManager.setValidateAfterInactivity(2000);
+        return connectionManager;
+    }
+
+    /**
+     * Builds a client on the given pool, used by the Spring bean and by tests and benchmarks that need a
+     * client of their own.
+     */
+    public static CloseableHttpClient httpClient(PoolingHttpClientConnectionManager connectionManager, HttpClientMetrics metrics,
+                                                 int connectTimeoutMillis, int readTimeoutMillis, long keepAliveMillis){
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeoutMillis)
+                .setSocketTimeout(readTimeoutMillis)
+                .setConnectionRequestTimeout(connectTimeoutMillis)
+                .build();
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                // honour the server's Keep-Alive header, but never keep a connection longer than keepAliveMillis
+                .setKeepAliveStrategy((response, context) -> {
+                    long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAliveMillis) : keepAliveMillis;
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(keepAliveMillis, TimeUnit.MILLISECONDS)
+                .addInterceptorFirst((HttpRequestInterceptor) metrics)
+                .addInterceptorLast((HttpResponseInterceptor) metrics)
+                .build();
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.moviebackend.common.http;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/http")
+public class HttpClientController {
+
+    private final HttpClientMetrics httpClientMetrics;
+
+    public HttpClientController(HttpClientMetrics httpClientMetrics){
+        this.httpClientMetrics = httpClientMetrics;
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<HttpClientMetrics.Stats> getHttpClientStats(){
+        return ResponseEntity.ok(httpClientMetrics.stats());
+    }
+}
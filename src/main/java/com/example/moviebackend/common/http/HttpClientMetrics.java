@@ -0,0 +1,145 @@
+package com.example.moviebackend.common.http;
+
+import lombok.Getter;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpCoreContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency and connection pool metrics of the shared HTTP client.
+ * Registered as the first request and last response interceptor, so the latency of a request runs from before
+ * it waits for a pooled connection until its response headers arrive. Every attempt counts as a request, so a
+ * retried request counts twice; requests without a response are failed (connect and read timeouts, aborts) or
+ * still in flight.
+ */
+public class HttpClientMetrics implements HttpRequestInterceptor, HttpResponseInterceptor {
+
+    private static final String START_NANOS = HttpClientMetrics.class.getName() + ".start";
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final Map<String, HostMetrics> hosts = new ConcurrentHashMap<>();
+
+    public HttpClientMetrics(PoolingHttpClientConnectionManager connectionManager){
+        this.connectionManager = connectionManager;
+    }
+
+    @Override
+    public void process(HttpRequest request, HttpContext context){
+        context.setAttribute(START_NANOS, System.nanoTime());
+        host(context).requests.increment();
+    }
+
+    @Override
+    public void process(HttpResponse response, HttpContext context){
+        Object start = context.getAttribute(START_NANOS);
+        if(start instanceof Long){
+            host(context).record(System.nanoTime() - (Long) start);
+        }
+    }
+
+    private HostMetrics host(HttpContext context){
+        Object target = context.getAttribute(HttpCoreContext.HTTP_TARGET_HOST);
+        String host = target instanceof HttpHost ? ((HttpHost) target).toHostString() : "unknown";
+        return hosts.computeIfAbsent(host, key -> new HostMetrics());
+    }
+
+    /**
+     * Returns the current pool occupancy, per route and in total, and the latency per host.
+     */
+    public Stats stats(){
+        List<RouteStats> routes = new ArrayList<>();
+        for(HttpRoute route : connectionManager.getRoutes()){
+            routes.add(new RouteStats(route.getTargetHost().toHostString(), connectionManager.getStats(route)));
+        }
+        List<HostStats> latencies = new ArrayList<>();
+        hosts.forEach((host, metrics) -> latencies.add(new HostStats(host, metrics)));
+        return new Stats(new RouteStats("total", connectionManager.getTotalStats()), routes, latencies);
+    }
+
+    private static final class HostMetrics {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder responses = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        void record(long nanos){
+            responses.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+    }
+
+    /**
+     * Snapshot of the client metrics.
+     */
+    @Getter
+    public static class Stats {
+        private final RouteStats pool;
+        private final List<RouteStats> routes;
+        private final List<HostStats> hosts;
+
+        Stats(RouteStats pool, List<RouteStats> routes, List<HostStats> hosts){
+            this.pool = pool;
+            this.routes = routes;
+            this.hosts = hosts;
+        }
+    }
+
+    /**
+     * Connection pool occupancy; a route is saturated when all its connections are leased and requests wait.
+     */
+    @Getter
+    public static class RouteStats {
+        private final String route;
+        private final int leased;
+        private final int pending;
+        private final int available;
+        private final int max;
+        private final double saturation;
+
+        RouteStats(String route, PoolStats stats){
+            this.route = route;
+            this.leased = stats.getLeased();
+            this.pending = stats.getPending();
+            this.available = stats.getAvailable();
+            this.max = stats.getMax();
+            this.saturation = max == 0 ? 0 : (double) leased / max;
+        }
+    }
+
+    /**
+     * Request counts and latency to the response headers for a host; {@code failures} includes requests in flight.
+     */
+    @Getter
+    public static class HostStats {
+        private final String host;
+        private final long requests;
+        private final long failures;
+        private final double meanMillis;
+        private final double maxMillis;
+
+        HostStats(String host, HostMetrics metrics){
+            long responses = metrics.responses.sum();
+            this.host = host;
+            this.requests = metrics.requests.sum();
+            this.failures = Math.max(0, requests - responses);
+            this.meanMillis = responses == 0 ? 0 : metrics.totalNanos.sum() / (double) responses / TimeUnit.MILLISECONDS.toNanos(1);
+            this.maxMillis = metrics.maxNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+}
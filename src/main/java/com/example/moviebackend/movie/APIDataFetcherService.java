@@ -1,22 +1,27 @@
 package com.example.moviebackend.movie;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
-import java.util.ArrayList;
-import java.util.Iterator;
+import java.io.IOException;
 import java.util.List;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 /**
  * This class is responsible for fetching movie data from an API and saving it to a database.
- * It uses a ScheduledExecutorService to schedule tasks that fetch the data at fixed intervals.
+ * It uses a ScheduledExecutorService to schedule tasks that fetch the data at fixed intervals, crawling the
+ * search words in the order of the {@link CrawlQueue}: the {@link CrawlFrontier} in the units {@link CrawlWorkUnits}
+ * leases to this instance, so several instances can crawl side by side, and ahead of it the extensions of words
+ * that found many new movies per request.
+ * Requests are paced by the {@link OmdbQuota}; when the quota is used up the crawler pauses until it resets
+ * and then retries the word it was working on. A word whose search fails on the network is retried the same way,
+ * a word failing otherwise is recorded as having yielded nothing and skipped.
  */
 
 @Service
@@ -27,90 +32,77 @@ public class APIDataFetcherService {
     @Autowired
     private MovieService movieService;
 
-    private final Iterator<String> iterator;
+    private final OmdbQuota omdbQuota;
+
+    private final CrawlQueue crawlQueue;
+
+    @Value("${omdb.crawler.initial-delay-ms:60000}")
+    private long initialDelayMillis = 60000;
+
+    @Value("${omdb.crawler.delay-ms:1000}")
+    private long delayMillis = 1000;
 
     private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
-    private ScheduledFuture<?> scheduledFuture;
 
 
     /**
      * Constructs a new APIDataFetcherService with the given MovieService.
      *
      * @param movieService the MovieService to use for fetching and saving movie data
+     * @param omdbQuota the OMDb quota the fetches draw from
+     * @param crawlQueue the search words to crawl, in order, and the yield recorded for them
      */
-    public APIDataFetcherService(MovieService movieService) {
+    public APIDataFetcherService(MovieService movieService, OmdbQuota omdbQuota, CrawlQueue crawlQueue) {
         this.movieService = movieService;
-        List<String> permutations = generatePermutations();
-        String lastPermutation = PermutationTracker.readLastPermutation();
-        logger.info("Last permutation used: " + lastPermutation);
-        int startIndex = lastPermutation != null ? permutations.indexOf(lastPermutation) + 1 : 0;
-        iterator = permutations.listIterator(startIndex);
-        logger.info("Starting from permutation: " + permutations.get(startIndex));
+        this.omdbQuota = omdbQuota;
+        this.crawlQueue = crawlQueue;
     }
     @PostConstruct
     public void startFetching() {
-        int fetchInterval = 6000; // replace with your fetch interval
-        this.scheduledFuture = this.scheduler.scheduleAtFixedRate(this::fetchData, 6000, fetchInterval, TimeUnit.MINUTES);
+        // the quota paces the requests, so the next word can start as soon as one is done
+        this.scheduler.scheduleWithFixedDelay(this::fetchData, initialDelayMillis, delayMillis, TimeUnit.MILLISECONDS);
     }
 
      void fetchData() {
+        if(omdbQuota.isExhausted()){
+            return;
+        }
+        // The word the last fetch left off at, until every word was crawled or is leased elsewhere
+        String next = crawlQueue.current();
+        if(next == null){
+            return;
+        }
         logger.info("Fetching data from API...");
 
         try {
-            // Check if there is a next permutation
-            if(iterator.hasNext()){
-                String next = iterator.next();
-                logger.info("Fetching data using permutation: " + next);
-                // Fetch data from API using the next permutation
-                List<MovieEntity> movies = movieService.getMoviesList(next);
-                logger.info("Fetched " + movies.size() + " movies");
-                // Add data to database
-                for(MovieEntity movie : movies){
-                    //check if the movie already exists in the database
-                    if(movieService.findByImdbID(movie.getImdbID()) != null){
-                        continue;
-                    }
-                    movieService.saveMovie(movie);
-                    logger.info("Saved movie: " + movie.getTitle());
-                }
-                // Save the last permutation that was used
-                PermutationTracker.writeLastPermutation(next);
-            }
+            logger.info("Fetching data using permutation: " + next);
+            // Fetch data from API using the next permutation
+            MovieService.CrawlResult result = movieService.crawl(next);
+            logger.info("Fetched " + result.getMovies().size() + " movies");
+            // Add the movies that are not in the database yet, in one batch
+            List<MovieEntity> saved = movieService.saveNewMovies(result.getMovies());
+            logger.info("Saved " + saved.size() + " new movies");
+            // Checkpoint the progress and what the word yielded
+            crawlQueue.advance(result.getTotalResults(), result.getRequests(), saved.size());
         } catch (MovieService.RequestLimitReachedException e) {
-            this.scheduledFuture.cancel(true); // This will stop the scheduled task
-            logger.info("Request limit reached. Stopping scheduled task.");
+            logger.info("Request limit reached. Pausing until " + omdbQuota.resetAt() + ", then retrying permutation " + next);
         } catch (Exception e) {
+            if(isTransient(e)){
+                logger.warning("Error fetching data from API, retrying permutation " + next + ": " + e.getMessage());
+                return;
+            }
             logger.severe("Error fetching data from API: " + e.getMessage());
+            crawlQueue.skip();
         }
     }
 
-    /**
-     * Generates all possible permutations of a given length using the English alphabet.
-     *
-     * @return a list of all possible permutations
-     */
-    public List<String> generatePermutations(){
-        int totalCharacters = 26; // 26 letters
-        int wordLength = 3;
-        List<String> permutations = new ArrayList<>();
-
-        // Generate all possible permutations
-        logger.info("Generating permutations...");
-        for(int i = 0; i < Math.pow(totalCharacters, wordLength); i++){
-            StringBuilder permutation = new StringBuilder();
-            int temp = i;
-
-            // Construct the permutation by converting the number to base 'totalCharacters'
-            for(int j = 0; j < wordLength; j++){
-                char character = (char) ('a' + temp % totalCharacters);
-                permutation.insert(0, character);
-                temp /= totalCharacters;
+    // A failure reading from OMDb, as opposed to a body that cannot be decoded or a bug, which would fail again
+    private static boolean isTransient(Throwable e){
+        for(Throwable cause = e; cause != null; cause = cause.getCause()){
+            if(cause instanceof IOException){
+                return !(cause instanceof JsonProcessingException);
             }
-
-            permutations.add(permutation.toString());
         }
-        logger.info("Generated " + permutations.size() + " permutations");
-
-        return permutations;
+        return false;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,49 @@
+package com.example.moviebackend.movie;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Transient;
+
+/**
+ * How far the crawl keyspace has been handed out in work units, see {@link CrawlFrontier}.
+ */
+@Entity(name = "crawl_checkpoint")
+@Getter
+@Setter
+public class CrawlCheckpointEntity implements Persistable<String> {
+
+    @Id
+    @Column(name = "id")
+    private String id;
+
+    // index of the first word not in any work unit yet
+    @Column(name = "next_index")
+    private long nextIndex;
+
+    // the last word handed out, to find the position again if the keyspace configuration changed
+    @Column(name = "last_word")
+    private String lastWord;
+
+    // Set for a checkpoint created here, so saving inserts it and fails on one another instance created
+    // meanwhile, instead of merging over the position that instance has moved since
+    @Transient
+    private boolean newCheckpoint;
+
+    @Override
+    public boolean isNew(){
+        return newCheckpoint;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markStored(){
+        newCheckpoint = false;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.moviebackend.movie;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface CrawlCheckpointRepository extends JpaRepository<CrawlCheckpointEntity, String> {
+
+    // creates the checkpoint on its own, so losing the race to create it does not roll back the unit claim around it
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    <S extends CrawlCheckpointEntity> S saveAndFlush(S entity);
+
+    // compare-and-set move of the allocation cursor, updates nothing if another instance moved it first
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE crawl_checkpoint c SET c.nextIndex = :nextIndex, c.lastWord = :lastWord WHERE c.id = :id AND c.nextIndex = :expected")
+    int allocate(@Param("id") String id, @Param("expected") long expected, @Param("nextIndex") long nextIndex,
+                 @Param("lastWord") String lastWord);
+}
@@ -0,0 +1,235 @@
+package com.example.moviebackend.movie;
+
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The search words the crawler walks through, in order: the configured seed words, then every word of
+ * {@code min-word-length} to {@code max-word-length} letters a-z in alphabetical order. Words are computed
+ * from their index on demand, so the keyspace costs no memory. The keyspace is handed out in ranges to
+ * {@link CrawlWorkUnits}, and how far it has been handed out is kept in the database, shared by all instances.
+ * A checkpoint left in {@code last_permutation.txt} by earlier versions is taken over on first use.
+ */
+@Component
+public class CrawlFrontier {
+
+    private static final Logger logger = LoggerFactory.getLogger(CrawlFrontier.class);
+    private static final String CHECKPOINT_ID = "omdb";
+    private static final int LETTERS = 26;
+    private static final int MAX_WORD_LENGTH = 13; // 26^13 still fits a long
+
+    private final CrawlCheckpointRepository repository;
+    private final List<String> seeds;
+    private final Map<String, Integer> seedIndex = new HashMap<>();
+    private final int minWordLength;
+    private final int maxWordLength;
+    private final long size;
+    private final Path legacyCheckpoint;
+
+    public CrawlFrontier(CrawlCheckpointRepository repository,
+                         @Value("${omdb.crawler.seeds:}") List<String> seeds,
+                         @Value("${omdb.crawler.min-word-length:3}") int minWordLength,
+                         @Value("${omdb.crawler.max-word-length:3}") int maxWordLength,
+                         @Value("${omdb.crawler.legacy-checkpoint:last_permutation.txt}") String legacyCheckpoint){
+        if(minWordLength < 1 || maxWordLength < minWordLength || maxWordLength > MAX_WORD_LENGTH){
+            throw new IllegalArgumentException("word lengths must satisfy 1 <= min <= max <= " + MAX_WORD_LENGTH);
+        }
+        this.repository = repository;
+        this.seeds = new ArrayList<>();
+        for(String seed : seeds){
+            String word = seed.trim().toLowerCase(Locale.ROOT);
+            if(!word.isEmpty() && !seedIndex.containsKey(word)){
+                seedIndex.put(word, this.seeds.size());
+                this.seeds.add(word);
+            }
+        }
+        this.minWordLength = minWordLength;
+        this.maxWordLength = maxWordLength;
+        long size = this.seeds.size();
+        for(int length = minWordLength; length <= maxWordLength; length++){
+            size += pow(length);
+        }
+        this.size = size;
+        this.legacyCheckpoint = legacyCheckpoint.isEmpty() ? null : Path.of(legacyCheckpoint);
+    }
+
+    /**
+     * The number of words in the keyspace.
+     */
+    public long size(){
+        return size;
+    }
+
+    /**
+     * Returns the word at an index of the keyspace.
+     *
+     * @param index the index, from 0 to {@link #size()} exclusive
+     */
+    public String word(long index){
+        if(index < 0 || index >= size){
+            throw new IndexOutOfBoundsException("index " + index + " outside a keyspace of " + size);
+        }
+        if(index < seeds.size()){
+            return seeds.get((int) index);
+        }
+        long offset = index - seeds.size();
+        int length = minWordLength;
+        while(offset >= pow(length)){
+            offset -= pow(length);
+            length++;
+        }
+        // the offset in base 26, most significant letter first
+        char[] word = new char[length];
+        for(int i = length - 1; i >= 0; i--){
+            word[i] = (char) ('a' + offset % LETTERS);
+            offset /= LETTERS;
+        }
+        return new String(word);
+    }
+
+    /**
+     * Returns the index of a word, or -1 if it is not in the keyspace.
+     */
+    public long indexOf(String word){
+        Integer seed = seedIndex.get(word);
+        if(seed != null){
+            return seed;
+        }
+        if(word.length() < minWordLength || word.length() > maxWordLength){
+            return -1;
+        }
+        long index = seeds.size();
+        for(int length = minWordLength; length < word.length(); length++){
+            index += pow(length);
+        }
+        long offset = 0;
+        for(int i = 0; i < word.length(); i++){
+            char letter = word.charAt(i);
+            if(letter < 'a' || letter > 'z'){
+                return -1;
+            }
+            offset = offset * LETTERS + (letter - 'a');
+        }
+        return index + offset;
+    }
+
+    /**
+     * Hands out the next range of up to {@code maxWords} words nobody has been given yet, or returns null once
+     * the whole keyspace was handed out. The position is moved with a compare-and-set in the database, so
+     * instances sharing it never get overlapping ranges.
+     */
+    public Range allocate(int maxWords){
+        while(true){
+            CrawlCheckpointEntity checkpoint = checkpoint();
+            long start = checkpoint.getNextIndex();
+            if(checkpoint.getLastWord() != null){
+                long index = indexOf(checkpoint.getLastWord());
+                if(index >= 0 && index + 1 != start){
+                    logger.info("Crawl keyspace changed, resuming after " + checkpoint.getLastWord());
+                    start = index + 1;
+                }
+            }
+            if(start >= size){
+                return null;
+            }
+            long end = Math.min(size, start + maxWords);
+            if(repository.allocate(CHECKPOINT_ID, checkpoint.getNextIndex(), end, word(end - 1)) == 1){
+                return new Range(start, end);
+            }
+            // another instance moved the position in between
+        }
+    }
+
+    public Stats stats(){
+        long position = Math.min(checkpoint().getNextIndex(), size);
+        return new Stats(position, size, position < size ? word(position) : null);
+    }
+
+    // The checkpoint as stored, created on first use from the legacy file if there is one
+    private CrawlCheckpointEntity checkpoint(){
+        CrawlCheckpointEntity checkpoint = repository.findById(CHECKPOINT_ID).orElse(null);
+        if(checkpoint != null){
+            return checkpoint;
+        }
+        checkpoint = new CrawlCheckpointEntity();
+        checkpoint.setId(CHECKPOINT_ID);
+        String lastWord = readLegacyCheckpoint();
+        checkpoint.setLastWord(lastWord);
+        checkpoint.setNextIndex(lastWord == null ? 0 : Math.max(0, indexOf(lastWord) + 1));
+        checkpoint.setNewCheckpoint(true);
+        try {
+            repository.saveAndFlush(checkpoint);
+            logger.info("Crawl frontier starting at " + checkpoint.getNextIndex() + " of " + size);
+            return checkpoint;
+        } catch (DataIntegrityViolationException e) {
+            // another instance created it first
+            return repository.findById(CHECKPOINT_ID).orElseThrow(() -> e);
+        }
+    }
+
+    private String readLegacyCheckpoint(){
+        if(legacyCheckpoint == null || !Files.isRegularFile(legacyCheckpoint)){
+            return null;
+        }
+        try {
+            String lastWord = Files.readString(legacyCheckpoint, StandardCharsets.UTF_8).trim();
+            logger.info("Taking over the crawl checkpoint " + lastWord + " from " + legacyCheckpoint);
+            return lastWord.isEmpty() ? null : lastWord;
+        } catch (IOException e) {
+            logger.error("Error reading legacy crawl checkpoint " + legacyCheckpoint, e);
+            return null;
+        }
+    }
+
+    private static long pow(int length){
+        long pow = 1;
+        for(int i = 0; i < length; i++){
+            pow *= LETTERS;
+        }
+        return pow;
+    }
+
+    /**
+     * The words from {@code start} inclusive to {@code end} exclusive.
+     */
+    @Getter
+    public static class Range {
+        private final long start;
+        private final long end;
+
+        Range(long start, long end){
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * How far the keyspace has been handed out, and the first word not handed out yet.
+     */
+    @Getter
+    public static class Stats {
+        private final long position;
+        private final long size;
+        private final String next;
+
+        Stats(long position, long size, String next){
+            this.position = position;
+            this.size = size;
+            this.next = next;
+        }
+    }
+}
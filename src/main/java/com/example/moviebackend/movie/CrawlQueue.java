@@ -0,0 +1,263 @@
+package com.example.moviebackend.movie;
+
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Orders the crawl by yield, the new movies a search word finds per OMDb request. The yield of every word crawled
+ * is recorded in the database. A word that found at least {@code expansion.min-new-movies} new movies queues its
+ * extensions by one letter, up to {@code expansion.max-length} letters, with its yield as their priority; words
+ * that found nothing new are not extended. Queued words are crawled highest priority first for as long as they
+ * promise more than the words of the {@link CrawlFrontier} have yielded on average, the frontier is crawled in
+ * order otherwise. Instances sharing the database claim a queued word with a compare-and-set under a lease of
+ * {@code lease-ms}, and pass over frontier words already crawled as an extension.
+ */
+@Component
+public class CrawlQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(CrawlQueue.class);
+    private static final int CLAIM_CANDIDATES = 10;
+
+    private final CrawlWorkUnits workUnits;
+    private final PrefixYieldRepository repository;
+    private final int minNewMovies;
+    private final int maxLength;
+    private final long leaseMillis;
+    private final Clock clock;
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "crawl-queue-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // the queued word claimed and being crawled, null while crawling the frontier
+    private String expansion;
+
+    @Autowired
+    public CrawlQueue(CrawlWorkUnits workUnits, PrefixYieldRepository repository,
+                      @Value("${omdb.crawler.expansion.min-new-movies:1}") int minNewMovies,
+                      @Value("${omdb.crawler.expansion.max-length:5}") int maxLength,
+                      @Value("${omdb.crawler.lease-ms:60000}") long leaseMillis){
+        this(workUnits, repository, minNewMovies, maxLength, leaseMillis, Clock.systemUTC());
+    }
+
+    CrawlQueue(CrawlWorkUnits workUnits, PrefixYieldRepository repository, int minNewMovies, int maxLength,
+               long leaseMillis, Clock clock){
+        if(minNewMovies < 1 || maxLength < 1){
+            throw new IllegalArgumentException("minimum new movies and maximum length must be positive");
+        }
+        if(leaseMillis < 3){
+            // the heartbeat extends the lease every third of it
+            throw new IllegalArgumentException("lease must be at least 3 ms: " + leaseMillis);
+        }
+        this.workUnits = workUnits;
+        this.repository = repository;
+        this.minNewMovies = minNewMovies;
+        this.maxLength = maxLength;
+        this.leaseMillis = leaseMillis;
+        this.clock = clock;
+    }
+
+    @PostConstruct
+    public void startHeartbeat(){
+        long interval = leaseMillis / 3;
+        heartbeat.scheduleAtFixedRate(this::heartbeat, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        heartbeat.shutdownNow();
+    }
+
+    /**
+     * The word to crawl next: the queued word promising the highest yield if it beats the frontier's, else the
+     * next word of the frontier, or null once both are done. It stays the same until {@link #advance} or
+     * {@link #skip()} is called, so a crawl that was interrupted is retried.
+     */
+    public synchronized String current(){
+        long now = clock.millis();
+        if(expansion != null){
+            if(repository.claim(expansion, workUnits.instanceId(), now + leaseMillis, now) == 1){
+                return expansion;
+            }
+            logger.warn("Lost the claim on queued crawl word " + expansion + " to another instance");
+            expansion = null;
+        }
+        String next = workUnits.current();
+        // words crawled already as the extension of a shorter one
+        while(next != null && repository.countCrawled(next) > 0){
+            workUnits.advance();
+            next = workUnits.current();
+        }
+        // until the frontier has a yield, it is crawled first; once it is done, any queued word is worth crawling
+        double frontierYield = next == null
+                ? -1 : newMoviesPerRequest(repository.totals(false).get(0), Double.POSITIVE_INFINITY);
+        for(PrefixYieldEntity queued : repository.findClaimable(now, PageRequest.of(0, CLAIM_CANDIDATES))){
+            if(queued.getPriority() <= frontierYield){
+                break;
+            }
+            if(repository.claim(queued.getPrefix(), workUnits.instanceId(), now + leaseMillis, now) == 1){
+                expansion = queued.getPrefix();
+                return expansion;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Records what crawling the current word yielded, queues its extensions if it was productive, and moves on.
+     *
+     * @param totalResults the results OMDb has for the word
+     * @param requests     the OMDb requests made for it
+     * @param newMovies    the movies it found that were not stored yet
+     */
+    public synchronized void advance(int totalResults, int requests, int newMovies){
+        String crawled = expansion != null ? expansion : workUnits.current();
+        if(crawled == null){
+            return;
+        }
+        record(crawled, totalResults, requests, newMovies);
+        if(newMovies >= minNewMovies && requests > 0 && crawled.length() < maxLength){
+            expand(crawled, newMovies / (double) requests);
+        }
+        if(expansion != null){
+            expansion = null;
+        } else {
+            workUnits.advance();
+        }
+    }
+
+    /**
+     * Moves on from a word that could not be crawled, recording it as having yielded nothing.
+     */
+    public void skip(){
+        advance(0, 0, 0);
+    }
+
+    /**
+     * Extends the claim on the queued word being crawled, if any.
+     */
+    void heartbeat(){
+        String claimed;
+        synchronized(this){
+            claimed = expansion;
+        }
+        if(claimed == null){
+            return;
+        }
+        try {
+            long now = clock.millis();
+            repository.claim(claimed, workUnits.instanceId(), now + leaseMillis, now);
+        } catch (RuntimeException e) {
+            logger.error("Error extending the claim on queued crawl word " + claimed, e);
+        }
+    }
+
+    /**
+     * The yield of the frontier and of the queued words so far, and the most productive words.
+     *
+     * @param top how many of the most productive words to include
+     */
+    public Stats stats(int top){
+        Object[] frontier = repository.totals(false).get(0);
+        Object[] expansions = repository.totals(true).get(0);
+        return new Stats(((Number) frontier[0]).longValue(), newMoviesPerRequest(frontier, 0),
+                ((Number) expansions[0]).longValue(), newMoviesPerRequest(expansions, 0),
+                repository.countQueued(), repository.findMostProductive(PageRequest.of(0, top)));
+    }
+
+    private void record(String prefix, int totalResults, int requests, int newMovies){
+        long now = clock.millis();
+        if(repository.record(prefix, totalResults, requests, newMovies, now) == 1){
+            return;
+        }
+        PrefixYieldEntity row = new PrefixYieldEntity();
+        row.setPrefix(prefix);
+        row.setTotalResults(totalResults);
+        row.setRequests(requests);
+        row.setNewMovies(newMovies);
+        row.setCrawledAt(now);
+        row.setNewPrefix(true);
+        try {
+            repository.save(row);
+        } catch (DataIntegrityViolationException e) {
+            // another instance queued the word meanwhile
+            repository.record(prefix, totalResults, requests, newMovies, now);
+        }
+    }
+
+    // Queues the extensions of a word by one letter that are neither queued nor crawled yet
+    private void expand(String prefix, double priority){
+        List<String> extensions = new ArrayList<>();
+        for(char letter = 'a'; letter <= 'z'; letter++){
+            extensions.add(prefix + letter);
+        }
+        extensions.removeAll(repository.findExisting(extensions));
+        List<PrefixYieldEntity> rows = new ArrayList<>(extensions.size());
+        for(String extension : extensions){
+            PrefixYieldEntity row = new PrefixYieldEntity();
+            row.setPrefix(extension);
+            row.setExpansion(true);
+            row.setPriority(priority);
+            row.setNewPrefix(true);
+            rows.add(row);
+        }
+        try {
+            repository.saveAll(rows);
+        } catch (DataIntegrityViolationException e) {
+            // another instance queued or crawled some of them meanwhile, queue the others one at a time
+            for(PrefixYieldEntity row : rows){
+                row.setNewPrefix(true);
+                try {
+                    repository.save(row);
+                } catch (DataIntegrityViolationException duplicate) {
+                    // stored already
+                }
+            }
+        }
+    }
+
+    // New movies per request of a (words, new movies, requests) total
+    private static double newMoviesPerRequest(Object[] total, double none){
+        long requests = ((Number) total[2]).longValue();
+        return requests == 0 ? none : ((Number) total[1]).longValue() / (double) requests;
+    }
+
+    /**
+     * How many words were crawled from the frontier and as extensions, the new movies per request each yielded,
+     * the words queued, and the most productive words crawled.
+     */
+    @Getter
+    public static class Stats {
+        private final long frontierWords;
+        private final double frontierYield;
+        private final long expansionWords;
+        private final double expansionYield;
+        private final long queued;
+        private final List<PrefixYieldEntity> mostProductive;
+
+        Stats(long frontierWords, double frontierYield, long expansionWords, double expansionYield, long queued,
+              List<PrefixYieldEntity> mostProductive){
+            this.frontierWords = frontierWords;
+            this.frontierYield = frontierYield;
+            this.expansionWords = expansionWords;
+            this.expansionYield = expansionYield;
+            this.queued = queued;
+            this.mostProductive = mostProductive;
+        }
+    }
+}
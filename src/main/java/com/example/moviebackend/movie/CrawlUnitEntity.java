@@ -0,0 +1,39 @@
+package com.example.moviebackend.movie;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * A range of the crawl keyspace that one instance at a time works through under a lease, see {@link CrawlWorkUnits}.
+ */
+@Entity(name = "crawl_units")
+@Getter
+@Setter
+public class CrawlUnitEntity {
+
+    // the index of the first word of the range
+    @Id
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "end_index")
+    private long endIndex;
+
+    // index of the next word to crawl in the range
+    @Column(name = "next_index")
+    private long nextIndex;
+
+    // the instance holding the lease, null once released
+    @Column(name = "owner")
+    private String owner;
+
+    @Column(name = "lease_expires_at")
+    private long leaseExpiresAt;
+
+    @Column(name = "completed")
+    private boolean completed;
+}
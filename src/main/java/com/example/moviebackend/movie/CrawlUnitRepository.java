@@ -0,0 +1,46 @@
+package com.example.moviebackend.movie;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface CrawlUnitRepository extends JpaRepository<CrawlUnitEntity, Long> {
+
+    // unfinished units nobody holds a live lease on, lowest first
+    @Query("SELECT u.id FROM crawl_units u WHERE u.completed = false AND (u.owner IS NULL OR u.leaseExpiresAt < :now) ORDER BY u.id")
+    List<Long> findClaimable(@Param("now") long now, Pageable pageable);
+
+    // compare-and-set claim, updates nothing if another instance claimed the unit first
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE crawl_units u SET u.owner = :owner, u.leaseExpiresAt = :expiresAt "
+            + "WHERE u.id = :id AND u.completed = false AND (u.owner IS NULL OR u.leaseExpiresAt < :now)")
+    int claim(@Param("id") long id, @Param("owner") String owner, @Param("expiresAt") long expiresAt, @Param("now") long now);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE crawl_units u SET u.nextIndex = :nextIndex, u.leaseExpiresAt = :expiresAt WHERE u.id = :id AND u.owner = :owner")
+    int progress(@Param("id") long id, @Param("owner") String owner, @Param("nextIndex") long nextIndex, @Param("expiresAt") long expiresAt);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE crawl_units u SET u.completed = true, u.nextIndex = u.endIndex, u.owner = NULL WHERE u.id = :id AND u.owner = :owner")
+    int complete(@Param("id") long id, @Param("owner") String owner);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE crawl_units u SET u.leaseExpiresAt = :expiresAt WHERE u.owner = :owner AND u.completed = false")
+    int heartbeat(@Param("owner") String owner, @Param("expiresAt") long expiresAt);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE crawl_units u SET u.owner = NULL WHERE u.owner = :owner AND u.completed = false")
+    int release(@Param("owner") String owner);
+}
@@ -0,0 +1,202 @@
+package com.example.moviebackend.movie;
+
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Clock;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splits the crawl between the instances sharing a database. Each instance works through one unit at a time,
+ * a range of {@code unit-size} words of the {@link CrawlFrontier}, under a lease it claims in the database with a
+ * compare-and-set, so no two instances crawl the same word. The lease is extended by a heartbeat every third of
+ * {@code lease-ms} and with every word crawled; a unit whose lease expired, because its instance died, is taken
+ * over by the next instance looking for work and resumed where its progress was recorded. A new unit is inserted
+ * in the transaction that moves the frontier past it, so a range is never handed out without its unit.
+ */
+@Component
+public class CrawlWorkUnits {
+
+    private static final Logger logger = LoggerFactory.getLogger(CrawlWorkUnits.class);
+    private static final int CLAIM_CANDIDATES = 10;
+
+    private final CrawlFrontier frontier;
+    private final CrawlUnitRepository repository;
+    private final String instanceId;
+    private final int unitSize;
+    private final long leaseMillis;
+    private final Clock clock;
+    private final TransactionTemplate transactions;
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "crawl-lease-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private CrawlUnitEntity unit;
+
+    @Autowired
+    public CrawlWorkUnits(CrawlFrontier frontier, CrawlUnitRepository repository,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${omdb.crawler.instance-id:}") String instanceId,
+                          @Value("${omdb.crawler.unit-size:100}") int unitSize,
+                          @Value("${omdb.crawler.lease-ms:60000}") long leaseMillis){
+        this(frontier, repository, transactionManager, instanceId.isEmpty() ? defaultInstanceId() : instanceId,
+                unitSize, leaseMillis, Clock.systemUTC());
+    }
+
+    CrawlWorkUnits(CrawlFrontier frontier, CrawlUnitRepository repository, PlatformTransactionManager transactionManager,
+                   String instanceId, int unitSize, long leaseMillis, Clock clock){
+        if(unitSize < 1 || leaseMillis < 3){
+            throw new IllegalArgumentException("unit size and lease must be positive");
+        }
+        this.frontier = frontier;
+        this.repository = repository;
+        this.instanceId = instanceId;
+        this.unitSize = unitSize;
+        this.leaseMillis = leaseMillis;
+        this.clock = clock;
+        this.transactions = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void startHeartbeat(){
+        long interval = leaseMillis / 3;
+        heartbeat.scheduleAtFixedRate(this::heartbeat, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Releases the unit held so another instance can take it over without waiting for the lease to expire.
+     */
+    @PreDestroy
+    public void shutdown(){
+        heartbeat.shutdownNow();
+        repository.release(instanceId);
+    }
+
+    /**
+     * Identifies this instance in leases and claims.
+     */
+    public String instanceId(){
+        return instanceId;
+    }
+
+    /**
+     * The word to crawl next, claiming a unit if none is held, or null once every unit is done or held by
+     * another instance. It stays the same until {@link #advance()} is called, so a crawl that was interrupted is
+     * retried.
+     */
+    public synchronized String current(){
+        if(unit == null){
+            unit = claim();
+        }
+        return unit == null ? null : frontier.word(unit.getNextIndex());
+    }
+
+    /**
+     * Marks the current word crawled, recording the progress in the unit and extending its lease. If another
+     * instance has taken the unit over meanwhile, it is given up.
+     */
+    public synchronized void advance(){
+        if(unit == null){
+            return;
+        }
+        long next = unit.getNextIndex() + 1;
+        boolean done = next >= unit.getEndIndex();
+        int updated = done
+                ? repository.complete(unit.getId(), instanceId)
+                : repository.progress(unit.getId(), instanceId, next, clock.millis() + leaseMillis);
+        if(updated == 0){
+            logger.warn("Lost the lease on crawl unit " + unit.getId() + " to another instance");
+            unit = null;
+        } else if(done) {
+            unit = null;
+        } else {
+            unit.setNextIndex(next);
+        }
+    }
+
+    /**
+     * Extends the lease on the unit held.
+     */
+    void heartbeat(){
+        try {
+            repository.heartbeat(instanceId, clock.millis() + leaseMillis);
+        } catch (RuntimeException e) {
+            logger.error("Error extending crawl lease", e);
+        }
+    }
+
+    public synchronized Stats stats(){
+        return unit == null
+                ? new Stats(instanceId, null, null, null)
+                : new Stats(instanceId, unit.getId(), unit.getEndIndex(), frontier.word(unit.getNextIndex()));
+    }
+
+    // An unfinished unit whose lease expired, lowest first, else a new one from the frontier
+    private CrawlUnitEntity claim(){
+        long now = clock.millis();
+        for(Long id : repository.findClaimable(now, PageRequest.of(0, CLAIM_CANDIDATES))){
+            if(repository.claim(id, instanceId, now + leaseMillis, now) == 1){
+                CrawlUnitEntity claimed = repository.findById(id).orElseThrow();
+                logger.info("Took over crawl unit " + id + " at " + claimed.getNextIndex());
+                return claimed;
+            }
+        }
+        // the frontier only moves if the unit is inserted, so an instance dying in between loses no range
+        return transactions.execute(status -> {
+            CrawlFrontier.Range range = frontier.allocate(unitSize);
+            if(range == null){
+                return null;
+            }
+            CrawlUnitEntity unit = new CrawlUnitEntity();
+            unit.setId(range.getStart());
+            unit.setEndIndex(range.getEnd());
+            unit.setNextIndex(range.getStart());
+            unit.setOwner(instanceId);
+            unit.setLeaseExpiresAt(now + leaseMillis);
+            return repository.save(unit);
+        });
+    }
+
+    private static String defaultInstanceId(){
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * This instance and the unit it holds, if any.
+     */
+    @Getter
+    public static class Stats {
+        private final String instanceId;
+        private final Long unitStart;
+        private final Long unitEnd;
+        private final String next;
+
+        Stats(String instanceId, Long unitStart, Long unitEnd, String next){
+            this.instanceId = instanceId;
+            this.unitStart = unitStart;
+            this.unitEnd = unitEnd;
+            this.next = next;
+        }
+    }
+}
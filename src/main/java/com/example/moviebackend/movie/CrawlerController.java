@@ -0,0 +1,91 @@
+package com.example.moviebackend.movie;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/crawler")
+public class CrawlerController {
+
+    private static final int MAX_TOP_PREFIXES = 500;
+
+    private final OmdbQuota omdbQuota;
+    private final KnownMovieFilter knownMovieFilter;
+    private final CrawlFrontier crawlFrontier;
+    private final CrawlWorkUnits crawlWorkUnits;
+    private final OmdbResponseStore omdbResponseStore;
+    private final OmdbReplay omdbReplay;
+    private final MovieRefresher movieRefresher;
+    private final CrawlQueue crawlQueue;
+
+    public CrawlerController(OmdbQuota omdbQuota, KnownMovieFilter knownMovieFilter, CrawlFrontier crawlFrontier,
+                             CrawlWorkUnits crawlWorkUnits, OmdbResponseStore omdbResponseStore, OmdbReplay omdbReplay,
+                             MovieRefresher movieRefresher, CrawlQueue crawlQueue){
+        this.omdbQuota = omdbQuota;
+        this.knownMovieFilter = knownMovieFilter;
+        this.crawlFrontier = crawlFrontier;
+        this.crawlWorkUnits = crawlWorkUnits;
+        this.omdbResponseStore = omdbResponseStore;
+        this.omdbReplay = omdbReplay;
+        this.movieRefresher = movieRefresher;
+        this.crawlQueue = crawlQueue;
+    }
+
+    @GetMapping("/quota")
+    public ResponseEntity<OmdbQuota.Stats> getQuota(){
+        return ResponseEntity.ok(omdbQuota.stats());
+    }
+
+    @GetMapping("/known-movies")
+    public ResponseEntity<KnownMovieFilter.Stats> getKnownMovieStats(){
+        return ResponseEntity.ok(knownMovieFilter.stats());
+    }
+
+    @GetMapping("/frontier")
+    public ResponseEntity<CrawlFrontier.Stats> getFrontier(){
+        return ResponseEntity.ok(crawlFrontier.stats());
+    }
+
+    @GetMapping("/lease")
+    public ResponseEntity<CrawlWorkUnits.Stats> getLease(){
+        return ResponseEntity.ok(crawlWorkUnits.stats());
+    }
+
+    @GetMapping("/prefix-yields")
+    public ResponseEntity<CrawlQueue.Stats> getPrefixYields(@RequestParam(defaultValue = "20") int top){
+        return ResponseEntity.ok(crawlQueue.stats(Math.max(1, Math.min(top, MAX_TOP_PREFIXES))));
+    }
+
+    @GetMapping("/response-store")
+    public ResponseEntity<OmdbResponseStore.Stats> getResponseStore(){
+        return ResponseEntity.ok(omdbResponseStore.stats());
+    }
+
+    @GetMapping("/refresh")
+    public ResponseEntity<MovieRefresher.Stats> getRefresh(){
+        return ResponseEntity.ok(movieRefresher.stats());
+    }
+
+    @GetMapping("/replay")
+    public ResponseEntity<OmdbReplay.Status> getReplay(){
+        return ResponseEntity.ok(omdbReplay.status());
+    }
+
+    // starts a replay in the background, its progress is at GET /crawler/replay
+    @PostMapping("/replay")
+    public ResponseEntity<OmdbReplay.Status> replay(@AuthenticationPrincipal Integer userId){
+        if(!omdbReplay.isAdmin(userId)){
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if(omdbResponseStore.mode() != OmdbResponseStore.Mode.REPLAY || !omdbReplay.start()){
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(omdbReplay.status());
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(omdbReplay.status());
+    }
+}
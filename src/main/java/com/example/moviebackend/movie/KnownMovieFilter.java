@@ -0,0 +1,75 @@
+package com.example.moviebackend.movie;
+
+import com.example.moviebackend.movie.index.MovieIndex;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drops the search hits whose details need not be fetched from OMDb because the movie is stored already.
+ * Neighbouring search prefixes return heavily overlapping hits, so without it most detail calls of a crawl
+ * fetch movies that are then discarded. Hits are checked against the in-memory {@link MovieIndex} first and the
+ * rest with one query, which also covers movies stored before the index has loaded.
+ */
+@Component
+public class KnownMovieFilter {
+
+    private final MovieIndex movieIndex;
+    private final MovieRepository movieRepository;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+
+    public KnownMovieFilter(MovieIndex movieIndex, MovieRepository movieRepository){
+        this.movieIndex = movieIndex;
+        this.movieRepository = movieRepository;
+    }
+
+    /**
+     * Returns the hits for movies that are not stored, each imdbID once, in the order of the hits.
+     *
+     * @param similarMovies the search hits
+     */
+    public List<SimilarMovieEntity> unknown(List<SimilarMovieEntity> similarMovies){
+        Map<String, SimilarMovieEntity> candidates = new LinkedHashMap<>();
+        for(SimilarMovieEntity movie : similarMovies){
+            if(!movieIndex.contains(movie.getImdbID())){
+                candidates.putIfAbsent(movie.getImdbID(), movie);
+            }
+        }
+        if(!candidates.isEmpty()){
+            Set<String> stored = new HashSet<>(movieRepository.findExistingImdbIDs(candidates.keySet()));
+            candidates.keySet().removeAll(stored);
+        }
+
+        hits.add(similarMovies.size());
+        skipped.add(similarMovies.size() - candidates.size());
+        return new ArrayList<>(candidates.values());
+    }
+
+    public Stats stats(){
+        return new Stats(hits.sum(), skipped.sum());
+    }
+
+    /**
+     * Search hits seen and the detail calls, each one request of the OMDb quota, saved by skipping known movies.
+     */
+    @Getter
+    public static class Stats {
+        private final long hits;
+        private final long skippedDetailCalls;
+        private final double skippedRatio;
+
+        Stats(long hits, long skippedDetailCalls){
+            this.hits = hits;
+            this.skippedDetailCalls = skippedDetailCalls;
+            this.skippedRatio = hits == 0 ? 0 : (double) skippedDetailCalls / hits;
+        }
+    }
+}
@@ -10,11 +10,13 @@ import java.util.List;
 @Getter
 @Setter
 @JsonIgnoreProperties(ignoreUnknown = true)
-public class MovieAPIResponse {
+public class MovieAPIResponse implements OmdbResponse {
     @JsonProperty("Search")
     private List<SimilarMovieEntity> Search;
     @JsonProperty("totalResults")
     private String totalResults;
     @JsonProperty("Response")
     private String Response;
+    @JsonProperty("Error")
+    private String Error;
 }
@@ -0,0 +1,19 @@
+package com.example.moviebackend.movie;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Published whenever movies are added to or updated in the catalog.
+ * In-memory structures built over the catalog listen to this event to stay up to date.
+ */
+@Getter
+public class MovieCatalogChangedEvent {
+
+    private final List<MovieEntity> movies;
+
+    public MovieCatalogChangedEvent(List<MovieEntity> movies){
+        this.movies = movies;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.moviebackend.movie;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Loads the movie catalog once at startup and publishes it so the in-memory indexes can be built.
+ * Movies saved before the typed columns and signatures existed were filled in by {@link MovieColumnsBackfill}.
+ */
+@Component
+public class MovieCatalogLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(MovieCatalogLoader.class);
+
+    private final MovieRepository movieRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public MovieCatalogLoader(MovieRepository movieRepository, ApplicationEventPublisher eventPublisher){
+        this.movieRepository = movieRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadCatalog(){
+        long start = System.currentTimeMillis();
+        List<MovieEntity> movies = movieRepository.findAllWithRatings();
+        eventPublisher.publishEvent(new MovieCatalogChangedEvent(movies));
+        logger.info("Loaded " + movies.size() + " movies into the catalog in " + (System.currentTimeMillis() - start) + " ms");
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.moviebackend.movie;
+
+import com.example.moviebackend.movie.index.MinHash;
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.migration.Context;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Fills in the typed columns and MinHash signatures of the movies saved before they existed, as a Flyway migration,
+ * so it runs once per database, under Flyway's lock, before the application reads the movies. The columns are
+ * added first if the table predates them, as Hibernate only adds them after the migrations ran. Movies are read
+ * and written in chunks of {@value #CHUNK_SIZE} that commit on their own, so a backfill cut short resumes with the
+ * movies still missing their columns.
+ */
+@Component
+public class MovieColumnsBackfill implements JavaMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(MovieColumnsBackfill.class);
+    static final int CHUNK_SIZE = 500;
+    // as Hibernate would create them
+    private static final List<String> COLUMNS = List.of(
+            "minhash BYTEA",
+            "year_start INTEGER",
+            "imdb_rating_value REAL",
+            "imdb_votes_count BIGINT",
+            "runtime_minutes INTEGER",
+            "metascore_value INTEGER",
+            "box_office_amount BIGINT",
+            "has_poster BOOLEAN");
+    private static final String SELECT_MISSING = "SELECT imdb_id, year, imdb_rating, imdb_votes, runtime, metascore,"
+            + " box_office, poster, actors, director, writer, genre FROM movies"
+            + " WHERE (has_poster IS NULL OR minhash IS NULL) AND imdb_id > ? ORDER BY imdb_id LIMIT " + CHUNK_SIZE;
+    private static final String UPDATE = "UPDATE movies SET year_start = ?, imdb_rating_value = ?, imdb_votes_count = ?,"
+            + " runtime_minutes = ?, metascore_value = ?, box_office_amount = ?, has_poster = ?, minhash = ?"
+            + " WHERE imdb_id = ?";
+
+    @Override
+    public MigrationVersion getVersion(){
+        return MigrationVersion.fromVersion("2");
+    }
+
+    @Override
+    public String getDescription(){
+        return "backfill movie typed columns and signatures";
+    }
+
+    @Override
+    public Integer getChecksum(){
+        return null;
+    }
+
+    @Override
+    public boolean isUndo(){
+        return false;
+    }
+
+    @Override
+    public boolean isBaselineMigration(){
+        return false;
+    }
+
+    // every chunk commits on its own
+    @Override
+    public boolean canExecuteInTransaction(){
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        if(!moviesTableExists(connection)){
+            // a new database, Hibernate creates the table with the columns
+            return;
+        }
+        try(Statement statement = connection.createStatement()){
+            for(String column : COLUMNS){
+                statement.execute("ALTER TABLE movies ADD COLUMN IF NOT EXISTS " + column);
+            }
+        }
+        long start = System.currentTimeMillis();
+        int backfilled = 0;
+        String after = "";
+        try(PreparedStatement select = connection.prepareStatement(SELECT_MISSING);
+            PreparedStatement update = connection.prepareStatement(UPDATE)){
+            while(true){
+                select.setString(1, after);
+                int chunk = 0;
+                try(ResultSet rows = select.executeQuery()){
+                    while(rows.next()){
+                        MovieEntity movie = movie(rows);
+                        OmdbValues.normalise(movie);
+                        bind(update, movie);
+                        update.addBatch();
+                        after = movie.getImdbID();
+                        chunk++;
+                    }
+                }
+                if(chunk == 0){
+                    break;
+                }
+                update.executeBatch();
+                if(!connection.getAutoCommit()){
+                    connection.commit();
+                }
+                backfilled += chunk;
+            }
+        }
+        logger.info("Backfilled the typed columns and signatures of " + backfilled + " movies in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private static boolean moviesTableExists(Connection connection) throws SQLException {
+        try(ResultSet tables = connection.getMetaData().getTables(connection.getCatalog(), connection.getSchema(), null,
+                new String[]{"TABLE"})){
+            while(tables.next()){
+                if(tables.getString("TABLE_NAME").toLowerCase(Locale.ROOT).equals("movies")){
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // The OMDb values the typed columns and the signature are derived from
+    private static MovieEntity movie(ResultSet row) throws SQLException {
+        MovieEntity movie = new MovieEntity();
+        movie.setImdbID(row.getString("imdb_id"));
+        movie.setYear(row.getString("year"));
+        movie.setImdbRating(row.getString("imdb_rating"));
+        movie.setImdbVotes(row.getString("imdb_votes"));
+        movie.setRuntime(row.getString("runtime"));
+        movie.setMetascore(row.getString("metascore"));
+        movie.setBoxOffice(row.getString("box_office"));
+        movie.setPoster(row.getString("poster"));
+        movie.setActors(row.getString("actors"));
+        movie.setDirector(row.getString("director"));
+        movie.setWriter(row.getString("writer"));
+        movie.setGenre(row.getString("genre"));
+        return movie;
+    }
+
+    private static void bind(PreparedStatement update, MovieEntity movie) throws SQLException {
+        update.setObject(1, movie.getYearStart(), Types.INTEGER);
+        update.setObject(2, movie.getImdbRatingValue(), Types.REAL);
+        update.setObject(3, movie.getImdbVotesCount(), Types.BIGINT);
+        update.setObject(4, movie.getRuntimeMinutes(), Types.INTEGER);
+        update.setObject(5, movie.getMetascoreValue(), Types.INTEGER);
+        update.setObject(6, movie.getBoxOfficeAmount(), Types.BIGINT);
+        update.setBoolean(7, movie.getHasPoster());
+        update.setBytes(8, MinHash.encode(MinHash.signature(movie)));
+        update.setString(9, movie.getImdbID());
+    }
+}
@@ -1,6 +1,11 @@
 package com.example.moviebackend.movie;
 
 import com.example.moviebackend.common.dto.ErrorMessage;
+import com.example.moviebackend.movie.dto.MovieFilterDTO;
+import com.example.moviebackend.movie.index.FacetIndex;
+import com.example.moviebackend.movie.recommendation.RecommendationCache;
+import com.example.moviebackend.movie.search.TitleSuggester;
+import com.example.moviebackend.movie.search.TitleSuggestion;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
@@ -22,23 +27,63 @@ public class MovieController {
     }
 
     @GetMapping("/{title}")
-    public ResponseEntity<List<MovieEntity>> searchMovies(@PathVariable String title){
-        var searchedMovie = movieService.getAllMovies(title);
+    public ResponseEntity<List<MovieEntity>> searchMovies(@PathVariable String title,
+                                                          @RequestParam(defaultValue = "false") boolean fuzzy,
+                                                          @RequestParam(defaultValue = "1") int maxEdits){
+        var searchedMovie = fuzzy ? movieService.getAllMoviesFuzzy(title, maxEdits) : movieService.getAllMovies(title);
         return ResponseEntity.ok(searchedMovie);
     }
 
+    @GetMapping("/suggest")
+    public ResponseEntity<List<TitleSuggestion>> suggestTitles(@RequestParam String prefix,
+                                                               @RequestParam(defaultValue = "" + MovieService.DEFAULT_SUGGESTIONS) int limit){
+        return ResponseEntity.ok(movieService.suggestTitles(prefix, limit));
+    }
+
+    @GetMapping("/suggest/stats")
+    public ResponseEntity<TitleSuggester.Stats> getTitleSuggestionStats(){
+        return ResponseEntity.ok(movieService.getTitleSuggestionStats());
+    }
+
+    @GetMapping("/filter")
+    public ResponseEntity<FacetIndex.Result> filterMovies(MovieFilterDTO filter){
+        return ResponseEntity.ok(movieService.filterMovies(filter));
+    }
+
     @GetMapping("/year")
-    public ResponseEntity<List<MovieEntity>> filterMoviesByYear(){
-        var searchedMovie = movieService.filterMoviesByYear();
+    public ResponseEntity<List<MovieEntity>> filterMoviesByYear(@RequestParam(defaultValue = "0") int offset,
+                                                                @RequestParam(defaultValue = "" + MovieService.DEFAULT_LATEST_RELEASES) int limit){
+        var searchedMovie = movieService.filterMoviesByYear(offset, limit);
         return ResponseEntity.ok(searchedMovie);
     }
 
     @GetMapping("/similar/{imdbID}")
-    public ResponseEntity<List<MovieEntity>> getMovie(@PathVariable String imdbID){
-        var searchedMovie = movieService.getRecommendedMovies(imdbID);
+    public ResponseEntity<List<MovieEntity>> getMovie(@PathVariable String imdbID,
+                                                      @RequestParam(defaultValue = "0") int offset,
+                                                      @RequestParam(defaultValue = "" + MovieService.DEFAULT_RECOMMENDATIONS) int limit){
+        var searchedMovie = movieService.getRecommendedMovies(imdbID, offset, limit);
+        return ResponseEntity.ok(searchedMovie);
+    }
+
+    @GetMapping("/similar/{imdbID}/people")
+    public ResponseEntity<List<MovieEntity>> getMoviesWithOverlappingPeople(@PathVariable String imdbID,
+                                                                            @RequestParam(defaultValue = "" + MovieService.DEFAULT_RECOMMENDATIONS) int limit){
+        var searchedMovie = movieService.getMoviesWithOverlappingPeople(imdbID, limit);
         return ResponseEntity.ok(searchedMovie);
     }
 
+    @GetMapping("/similar/{imdbID}/favourites")
+    public ResponseEntity<List<MovieEntity>> getCoFavouriteMovies(@PathVariable String imdbID,
+                                                                  @RequestParam(defaultValue = "" + MovieService.DEFAULT_RECOMMENDATIONS) int limit){
+        var searchedMovie = movieService.getCoFavouriteMovies(imdbID, limit);
+        return ResponseEntity.ok(searchedMovie);
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<RecommendationCache.Stats> getRecommendationCacheStats(){
+        return ResponseEntity.ok(movieService.getRecommendationCacheStats());
+    }
+
     //save favourite movie
     @PostMapping("/favourite/{imdbID}")
     public ResponseEntity<String> saveFavouriteMovie(@PathVariable String imdbID, @AuthenticationPrincipal Integer userId){
@@ -1,15 +1,25 @@
 package com.example.moviebackend.movie;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.data.domain.Persistable;
 
 import javax.persistence.*;
 import java.util.List;
 @Entity(name = "movies")
+@Table(name = "movies", indexes = {
+        @Index(name = "idx_movies_year_start", columnList = "year_start"),
+        @Index(name = "idx_movies_imdb_rating_value", columnList = "imdb_rating_value"),
+        @Index(name = "idx_movies_imdb_votes_count", columnList = "imdb_votes_count"),
+        @Index(name = "idx_movies_runtime_minutes", columnList = "runtime_minutes"),
+        @Index(name = "idx_movies_has_poster_year_start", columnList = "has_poster, year_start"),
+        @Index(name = "idx_movies_last_fetched_at", columnList = "last_fetched_at")
+})
 @Getter
 @Setter
-public class MovieEntity {
+public class MovieEntity implements Persistable<String>, OmdbResponse {
     @Id
     @Column(name = "imdbID")
     @JsonProperty("imdbID")
@@ -115,4 +125,76 @@ public class MovieEntity {
     @Column(name = "Response")
     @JsonProperty("Response")
     private String response;
+
+    // MinHash signature over actors, directors, writers and genres, see MinHash
+    @Column(name = "minhash", length = 256)
+    @JsonIgnore
+    private byte[] minHashSignature;
+
+    // Typed copies of the OMDb strings above, filled in by OmdbValues.normalise, null when OMDb has no value
+    @Column(name = "year_start")
+    @JsonIgnore
+    private Integer yearStart;
+
+    @Column(name = "imdb_rating_value")
+    @JsonIgnore
+    private Float imdbRatingValue;
+
+    @Column(name = "imdb_votes_count")
+    @JsonIgnore
+    private Long imdbVotesCount;
+
+    @Column(name = "runtime_minutes")
+    @JsonIgnore
+    private Integer runtimeMinutes;
+
+    @Column(name = "metascore_value")
+    @JsonIgnore
+    private Integer metascoreValue;
+
+    @Column(name = "box_office_amount")
+    @JsonIgnore
+    private Long boxOfficeAmount;
+
+    @Column(name = "has_poster")
+    @JsonIgnore
+    private Boolean hasPoster;
+
+    // When the details were last fetched from OMDb, in epoch millis, null for movies stored before it was kept
+    @Column(name = "last_fetched_at")
+    @JsonIgnore
+    private Long lastFetchedAt;
+
+    // Until when an instance holds the movie to refresh it, in epoch millis, null while nobody does
+    @Column(name = "refresh_claimed_until")
+    @JsonIgnore
+    private Long refreshClaimedUntil;
+
+    // Set by the batch ingest for movies it checked are not stored, so saving persists them without a merge SELECT
+    @Transient
+    @JsonIgnore
+    private boolean newMovie;
+
+    // The error OMDb reported instead of the movie, read but neither stored nor written out
+    @Transient
+    @JsonProperty(value = "Error", access = JsonProperty.Access.WRITE_ONLY)
+    private String error;
+
+    @Override
+    @JsonIgnore
+    public String getId(){
+        return imdbID;
+    }
+
+    @Override
+    @JsonIgnore
+    public boolean isNew(){
+        return newMovie;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markStored(){
+        newMovie = false;
+    }
 }
\ No newline at end of file
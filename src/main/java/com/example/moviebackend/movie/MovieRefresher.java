@@ -0,0 +1,306 @@
+package com.example.moviebackend.movie;
+
+import com.example.moviebackend.movie.index.MovieCatalog;
+import com.example.moviebackend.movie.index.MovieCatalogSnapshot;
+import com.example.moviebackend.user.UserRepository;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fetches stored movies from OMDb again once their details are older than {@code stale-after-days}, so values
+ * that keep moving after a release, such as imdbRating, imdbVotes and BoxOffice, do not go stale. Refreshes use
+ * at most {@code quota-share} of the daily {@link OmdbQuota}, counted in the shared quota state and spread over
+ * runs every {@code interval-ms}. The stale movies worth most are refreshed first: recent releases, titles many
+ * users favourited and records missing many values, as weighted by {@code weights}. They are scored among a pool
+ * the database picks, the latest releases and the most favourited of the stale movies, so a run reads a bounded
+ * number of rows however many are stale. A movie is claimed with a compare-and-set for {@code retry-after-ms}
+ * before a refresh is reserved, so instances sharing the database never refresh it twice, and its last fetch time
+ * only moves once OMDb answered: a refresh that could not reach OMDb is retried when the claim lapses, a movie OMDb
+ * rejected waits until it is stale again. It is only written back when a value changed.
+ */
+@Component
+public class MovieRefresher {
+
+    private static final Logger logger = LoggerFactory.getLogger(MovieRefresher.class);
+    private static final long DAY_MILLIS = Duration.ofDays(1).toMillis();
+    // candidates per refresh a run may use, the spares cover movies another instance claimed first
+    private static final int CANDIDATES_PER_REFRESH = 2;
+    // stale movies the database picks by each of recency and favourites for a run to score
+    private static final int CANDIDATE_POOL = 100;
+
+    private final MovieRepository movieRepository;
+    private final UserRepository userRepository;
+    private final MovieCatalog movieCatalog;
+    private final MovieService movieService;
+    private final OmdbQuota omdbQuota;
+    private final OmdbResponseStore omdbResponseStore;
+    private final double quotaShare;
+    private final long staleAfterMillis;
+    private final long retryAfterMillis;
+    private final long intervalMillis;
+    private final long initialDelayMillis;
+    private final double recencyWeight;
+    private final double favouritesWeight;
+    private final double missingWeight;
+    private final Clock clock;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "movie-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final LongAdder changed = new LongAdder();
+    private final LongAdder unchanged = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private volatile int stale = -1;
+
+    @Autowired
+    public MovieRefresher(MovieRepository movieRepository, UserRepository userRepository, MovieCatalog movieCatalog,
+                          MovieService movieService, OmdbQuota omdbQuota, OmdbResponseStore omdbResponseStore,
+                          @Value("${omdb.refresh.quota-share:0.2}") double quotaShare,
+                          @Value("${omdb.refresh.stale-after-days:30}") long staleAfterDays,
+                          @Value("${omdb.refresh.retry-after-ms:3600000}") long retryAfterMillis,
+                          @Value("${omdb.refresh.interval-ms:600000}") long intervalMillis,
+                          @Value("${omdb.refresh.initial-delay-ms:120000}") long initialDelayMillis,
+                          @Value("${omdb.refresh.weights.recency:3.0}") double recencyWeight,
+                          @Value("${omdb.refresh.weights.favourites:1.0}") double favouritesWeight,
+                          @Value("${omdb.refresh.weights.missing:2.0}") double missingWeight){
+        this(movieRepository, userRepository, movieCatalog, movieService, omdbQuota, omdbResponseStore, quotaShare,
+                Duration.ofDays(staleAfterDays), Duration.ofMillis(retryAfterMillis), intervalMillis, initialDelayMillis,
+                recencyWeight, favouritesWeight, missingWeight, Clock.systemUTC());
+    }
+
+    MovieRefresher(MovieRepository movieRepository, UserRepository userRepository, MovieCatalog movieCatalog,
+                   MovieService movieService, OmdbQuota omdbQuota, OmdbResponseStore omdbResponseStore,
+                   double quotaShare, Duration staleAfter, Duration retryAfter, long intervalMillis, long initialDelayMillis,
+                   double recencyWeight, double favouritesWeight, double missingWeight, Clock clock){
+        if(quotaShare < 0 || quotaShare > 1 || intervalMillis < 1){
+            throw new IllegalArgumentException("quota share must be from 0 to 1 and the interval positive");
+        }
+        this.movieRepository = movieRepository;
+        this.userRepository = userRepository;
+        this.movieCatalog = movieCatalog;
+        this.movieService = movieService;
+        this.omdbQuota = omdbQuota;
+        this.omdbResponseStore = omdbResponseStore;
+        this.quotaShare = quotaShare;
+        this.staleAfterMillis = staleAfter.toMillis();
+        this.retryAfterMillis = retryAfter.toMillis();
+        this.intervalMillis = intervalMillis;
+        this.initialDelayMillis = initialDelayMillis;
+        this.recencyWeight = recencyWeight;
+        this.favouritesWeight = favouritesWeight;
+        this.missingWeight = missingWeight;
+        this.clock = clock;
+    }
+
+    @PostConstruct
+    public void start(){
+        if(quotaShare > 0){
+            scheduler.scheduleWithFixedDelay(this::refresh, initialDelayMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Refreshes the stale movies worth most, as many as this run's part of the refresh share allows. Nothing is
+     * refreshed while replaying stored responses or once the quota is used up.
+     */
+    void refresh(){
+        if(omdbResponseStore.mode() == OmdbResponseStore.Mode.REPLAY || omdbQuota.isExhausted()){
+            return;
+        }
+        try {
+            long now = clock.millis();
+            long cutoff = now - staleAfterMillis;
+            stale = (int) Math.min(Integer.MAX_VALUE, movieRepository.countStale(cutoff, now));
+            if(stale == 0){
+                return;
+            }
+            int perRun = perRun(omdbQuota.stats().getDailyLimit());
+            int limit = perRun * CANDIDATES_PER_REFRESH;
+            Pageable pool = PageRequest.of(0, Math.max(CANDIDATE_POOL, limit));
+            Set<String> pooled = new LinkedHashSet<>(movieRepository.findStaleImdbIDs(cutoff, now, pool));
+            for(Object[] row : userRepository.countFavouritesOfStale(cutoff, now, pool)){
+                pooled.add((String) row[0]);
+            }
+            List<String> candidates = mostValuable(pooled, favourites(pooled), movieCatalog.snapshot(),
+                    Year.now(clock).getValue(), limit);
+            long claimedUntil = now + retryAfterMillis;
+            int refreshed = 0;
+            for(String imdbID : candidates){
+                if(refreshed == perRun){
+                    break;
+                }
+                if(movieRepository.claimRefresh(imdbID, now, cutoff, claimedUntil) == 0){
+                    // another instance refreshed or claimed it meanwhile
+                    continue;
+                }
+                if(!omdbQuota.tryReserveRefresh(quotaShare)){
+                    movieRepository.releaseRefresh(imdbID, claimedUntil);
+                    break;
+                }
+                refresh(imdbID, claimedUntil);
+                refreshed++;
+            }
+        } catch (MovieService.RequestLimitReachedException e) {
+            logger.info("OMDb quota used up, refreshing again after " + omdbQuota.resetAt());
+        } catch (RuntimeException e) {
+            logger.error("Error refreshing movies", e);
+        }
+    }
+
+    /**
+     * The refreshes a run may make: its part of the daily refresh share, rounded up so a small share still
+     * refreshes. The share itself is enforced by {@link OmdbQuota#tryReserveRefresh(double)}.
+     */
+    int perRun(int dailyLimit){
+        return Math.max(1, (int) Math.ceil(quotaShare * dailyLimit * intervalMillis / DAY_MILLIS));
+    }
+
+    /**
+     * Picks the stale movies worth refreshing most, highest score first, ties by imdbID.
+     *
+     * @param staleImdbIDs the movies due for a refresh to pick from
+     * @param favourites   how many users favourited each movie
+     * @param snapshot     the catalog, for the years and values of the movies
+     * @param currentYear  the year releases are recent against
+     * @param limit        the most movies to pick
+     */
+    List<String> mostValuable(Collection<String> staleImdbIDs, Map<String, Long> favourites, MovieCatalogSnapshot snapshot,
+                              int currentYear, int limit){
+        Comparator<Candidate> worth = Comparator.comparingDouble((Candidate candidate) -> candidate.score)
+                .thenComparing(candidate -> candidate.imdbID, Comparator.reverseOrder());
+        // the least valuable pick on top, to be replaced by a better candidate
+        PriorityQueue<Candidate> picks = new PriorityQueue<>(limit + 1, worth);
+        for(String imdbID : staleImdbIDs){
+            Candidate candidate = new Candidate(imdbID, score(imdbID, favourites, snapshot, currentYear));
+            if(picks.size() < limit){
+                picks.add(candidate);
+            } else if(worth.compare(candidate, picks.peek()) > 0){
+                picks.poll();
+                picks.add(candidate);
+            }
+        }
+        List<Candidate> sorted = new ArrayList<>(picks);
+        sorted.sort(worth.reversed());
+        List<String> imdbIDs = new ArrayList<>(sorted.size());
+        for(Candidate candidate : sorted){
+            imdbIDs.add(candidate.imdbID);
+        }
+        return imdbIDs;
+    }
+
+    // Recency decays with the years since release, favourites count logarithmically, and the missing values
+    // count as the share of OMDb values that are "N/A"; a movie not in the catalog yet scores by favourites only
+    private double score(String imdbID, Map<String, Long> favourites, MovieCatalogSnapshot snapshot, int currentYear){
+        double score = favouritesWeight * Math.log1p(favourites.getOrDefault(imdbID, 0L));
+        int row = snapshot.row(imdbID);
+        if(row >= 0){
+            int year = snapshot.year(row);
+            if(year > 0){
+                score += recencyWeight / (1 + Math.max(0, currentYear - year));
+            }
+            score += missingWeight * OmdbValues.missingShare(snapshot.movie(row));
+        }
+        return score;
+    }
+
+    private Map<String, Long> favourites(Collection<String> imdbIDs){
+        Map<String, Long> favourites = new HashMap<>();
+        for(Object[] row : userRepository.countFavourites(imdbIDs)){
+            favourites.put((String) row[0], ((Number) row[1]).longValue());
+        }
+        return favourites;
+    }
+
+    // A movie that could not be fetched keeps its claim until it lapses, and is retried then. One OMDb answered
+    // with an error is marked fetched, so it does not spend the share every retry-after-ms.
+    private void refresh(String imdbID, long claimedUntil){
+        try {
+            MovieEntity fetched = movieService.fetchMovieDetails(imdbID);
+            if(fetched == null){
+                failed.increment();
+                movieRepository.markFetched(imdbID, clock.millis());
+                return;
+            }
+            if(movieService.updateIfChanged(fetched)){
+                changed.increment();
+            } else {
+                unchanged.increment();
+            }
+            movieRepository.markFetched(imdbID, clock.millis());
+        } catch (IOException e) {
+            failed.increment();
+            logger.error("Error refreshing movie " + imdbID, e);
+        } catch (MovieService.RequestLimitReachedException e) {
+            // refreshed first thing once the quota resets
+            movieRepository.releaseRefresh(imdbID, claimedUntil);
+            throw e;
+        }
+    }
+
+    public Stats stats(){
+        return new Stats(stale, perRun(omdbQuota.stats().getDailyLimit()), changed.sum(), unchanged.sum(), failed.sum());
+    }
+
+    private static final class Candidate {
+        private final String imdbID;
+        private final double score;
+
+        Candidate(String imdbID, double score){
+            this.imdbID = imdbID;
+            this.score = score;
+        }
+    }
+
+    /**
+     * Movies due for a refresh at the last run, -1 before the first, and the outcome of the refreshes made since
+     * the start.
+     */
+    @Getter
+    public static class Stats {
+        private final int stale;
+        private final int perRun;
+        private final long changed;
+        private final long unchanged;
+        private final long failed;
+
+        Stats(int stale, int perRun, long changed, long unchanged, long failed){
+            this.stale = stale;
+            this.perRun = perRun;
+            this.changed = changed;
+            this.unchanged = unchanged;
+            this.failed = failed;
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package com.example.moviebackend.movie;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,8 +22,50 @@ public interface MovieRepository extends JpaRepository<MovieEntity, Integer> {
     @Query("SELECT m FROM movies m WHERE m.title LIKE %:keyword%")
     List<MovieEntity> findByKeyword(@Param("keyword") String keyword);
 
-    // filter movies which have come after certain year
-    @Query("SELECT m FROM movies m WHERE m.year >= :year")
-    List<MovieEntity> findByYear(@Param("year") String year);
+    // load every movie together with its ratings so the in-memory catalog can be serialised outside a session
+    @Query("SELECT DISTINCT m FROM movies m LEFT JOIN FETCH m.ratings")
+    List<MovieEntity> findAllWithRatings();
+
+    @Query("SELECT m FROM movies m WHERE m.imdbID IN :imdbIDs")
+    List<MovieEntity> findByImdbIDs(@Param("imdbIDs") Collection<String> imdbIDs);
+
+    // the imdbIDs among the given ones that are already stored, to ingest a batch with a single existence check
+    @Query("SELECT m.imdbID FROM movies m WHERE m.imdbID IN :imdbIDs")
+    List<String> findExistingImdbIDs(@Param("imdbIDs") Collection<String> imdbIDs);
+
+    // filter movies with a poster released since a year, best rated first, on the typed columns
+    @Query("SELECT m FROM movies m WHERE m.yearStart >= :year AND m.hasPoster = true ORDER BY m.imdbRatingValue DESC NULLS LAST, m.imdbID")
+    List<MovieEntity> findByYear(@Param("year") int year, Pageable pageable);
+
+    // movies last fetched before the cutoff, or never since the time was kept, due for a refresh, latest releases first
+    @Query("SELECT m.imdbID FROM movies m WHERE (m.lastFetchedAt IS NULL OR m.lastFetchedAt < :cutoff)"
+            + " AND (m.refreshClaimedUntil IS NULL OR m.refreshClaimedUntil < :now)"
+            + " ORDER BY m.yearStart DESC NULLS LAST, m.imdbID")
+    List<String> findStaleImdbIDs(@Param("cutoff") long cutoff, @Param("now") long now, Pageable pageable);
+
+    @Query("SELECT COUNT(m) FROM movies m WHERE (m.lastFetchedAt IS NULL OR m.lastFetchedAt < :cutoff)"
+            + " AND (m.refreshClaimedUntil IS NULL OR m.refreshClaimedUntil < :now)")
+    long countStale(@Param("cutoff") long cutoff, @Param("now") long now);
+
+    // compare-and-set: claims a stale movie nobody holds until the given time, so only one instance refreshes it
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE movies m SET m.refreshClaimedUntil = :until WHERE m.imdbID = :imdbID"
+            + " AND (m.lastFetchedAt IS NULL OR m.lastFetchedAt < :cutoff)"
+            + " AND (m.refreshClaimedUntil IS NULL OR m.refreshClaimedUntil < :now)")
+    int claimRefresh(@Param("imdbID") String imdbID, @Param("now") long now, @Param("cutoff") long cutoff,
+                     @Param("until") long until);
+
+    // gives up a claim that was not used, unless it lapsed and another instance holds the movie now
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE movies m SET m.refreshClaimedUntil = NULL WHERE m.imdbID = :imdbID AND m.refreshClaimedUntil = :until")
+    int releaseRefresh(@Param("imdbID") String imdbID, @Param("until") long until);
+
+    // records a refresh that fetched the movie, ending the claim
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE movies m SET m.lastFetchedAt = :fetchedAt, m.refreshClaimedUntil = NULL WHERE m.imdbID = :imdbID")
+    int markFetched(@Param("imdbID") String imdbID, @Param("fetchedAt") long fetchedAt);
 
 }
@@ -1,23 +1,42 @@
 package com.example.moviebackend.movie;
 
+import com.example.moviebackend.movie.dto.MovieFilterDTO;
+import com.example.moviebackend.movie.index.FacetIndex;
+import com.example.moviebackend.movie.index.LatestReleasesRanking;
+import com.example.moviebackend.movie.index.MovieCatalog;
+import com.example.moviebackend.movie.index.MinHash;
+import com.example.moviebackend.movie.index.MinHashIndex;
+import com.example.moviebackend.movie.index.MovieIndex;
+import com.example.moviebackend.movie.recommendation.CoFavouriteIndex;
+import com.example.moviebackend.movie.recommendation.RecommendationCache;
+import com.example.moviebackend.movie.recommendation.RecommendationEngine;
+import com.example.moviebackend.movie.recommendation.ScoredMovie;
+import com.example.moviebackend.movie.search.FuzzyTitleIndex;
+import com.example.moviebackend.movie.search.TitleSearchIndex;
+import com.example.moviebackend.movie.search.TitleSuggester;
+import com.example.moviebackend.movie.search.TitleSuggestion;
 import com.example.moviebackend.user.UserService;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.apache.http.HttpEntity;
-import org.apache.http.HttpResponse;
-import org.apache.http.client.HttpClient;
+import lombok.Getter;
 import org.apache.http.client.methods.HttpGet;
-import org.apache.http.impl.client.HttpClients;
-import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.annotation.PostConstruct;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
 
 /**
  * Service class for managing movies.
@@ -26,22 +45,53 @@ import java.util.List;
 public class MovieService {
 
     private static final Logger logger = LoggerFactory.getLogger(MovieService.class);
-    private static final ObjectMapper objectMapper = new ObjectMapper();
+    public static final int DEFAULT_RECOMMENDATIONS = 20;
+    public static final int MAX_RECOMMENDATIONS = 100;
+    // pages beyond this are not served, the engine keeps offset + limit movies while scoring
+    public static final int MAX_RECOMMENDATION_OFFSET = 10_000;
+    public static final int DEFAULT_SUGGESTIONS = 10;
+    public static final int DEFAULT_LATEST_RELEASES = 50;
+    public static final int MAX_LATEST_RELEASES = 500;
+    public static final int MAX_LATEST_RELEASES_OFFSET = 10_000;
+    private static final float MIN_PEOPLE_OVERLAP = 0.1f;
+    // imdbIDs checked for existence per query when ingesting a batch
+    private static final int EXISTENCE_CHECK_CHUNK = 500;
 
     private final MovieRepository movieRepository;
 
-    private final HttpClient client = HttpClients.createDefault();
+    private final OmdbClient omdbClient;
+    private final KnownMovieFilter knownMovieFilter;
     private final UserService userService;
+    private final MovieIndex movieIndex;
+    private final RecommendationEngine recommendationEngine;
+    private final RecommendationCache recommendationCache;
+    private final MovieCatalog movieCatalog;
+    private final MinHashIndex minHashIndex;
+    private final CoFavouriteIndex coFavouriteIndex;
+    private final TitleSearchIndex titleSearchIndex;
+    private final TitleSuggester titleSuggester;
+    private final FuzzyTitleIndex fuzzyTitleIndex;
+    private final FacetIndex facetIndex;
+    private final LatestReleasesRanking latestReleasesRanking;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Value("${api.secret}")
     private String apiKey;
+    @Value("${omdb.base-url:http://www.omdbapi.com/}")
+    private String baseUrl;
+    @Value("${omdb.search-fan-out:4}")
+    private int searchFanOut = 4;
     public static String API_KEY;
     private static String API_URL;
 
     @PostConstruct
     public void init(){
-        API_KEY = this.apiKey;
-        API_URL = "http://www.omdbapi.com/?apikey=" + API_KEY;
+        configureApi(baseUrl, apiKey);
+    }
+
+    static void configureApi(String baseUrl, String apiKey){
+        API_KEY = apiKey;
+        API_URL = baseUrl + "?apikey=" + API_KEY;
     }
 
     /**
@@ -49,90 +99,213 @@ public class MovieService {
      *
      * @param movieRepository The repository for accessing movie data.
      * @param userService     The service for managing users.
+     * @param movieIndex      The in-memory inverted index over the catalog.
+     * @param recommendationEngine The engine scoring similar movies.
+     * @param recommendationCache  The cache of recommendation results.
+     * @param movieCatalog    The columnar snapshot of the catalog.
+     * @param minHashIndex    The LSH index over cast and crew.
+     * @param coFavouriteIndex The index of movies favourited together.
+     * @param titleSearchIndex The trigram index over movie titles.
+     * @param titleSuggester  The prefix tree serving title autocomplete.
+     * @param fuzzyTitleIndex The typo tolerant index over title words.
+     * @param facetIndex      The bitmap index used for filtering.
+     * @param latestReleasesRanking The precomputed ranking of the latest releases.
+     * @param omdbClient      The client used to call the OMDb API.
+     * @param knownMovieFilter The filter skipping detail calls for stored movies.
+     * @param eventPublisher  The publisher used to announce catalog changes.
      */
-    public MovieService(MovieRepository movieRepository, UserService userService){
+    public MovieService(MovieRepository movieRepository, UserService userService, MovieIndex movieIndex,
+                        RecommendationEngine recommendationEngine, RecommendationCache recommendationCache,
+                        MovieCatalog movieCatalog,
+                        MinHashIndex minHashIndex, CoFavouriteIndex coFavouriteIndex,
+                        TitleSearchIndex titleSearchIndex, TitleSuggester titleSuggester,
+                        FuzzyTitleIndex fuzzyTitleIndex, FacetIndex facetIndex,
+                        LatestReleasesRanking latestReleasesRanking, OmdbClient omdbClient,
+                        KnownMovieFilter knownMovieFilter, ApplicationEventPublisher eventPublisher){
         this.movieRepository = movieRepository;
         this.userService = userService;
+        this.movieIndex = movieIndex;
+        this.recommendationEngine = recommendationEngine;
+        this.recommendationCache = recommendationCache;
+        this.movieCatalog = movieCatalog;
+        this.minHashIndex = minHashIndex;
+        this.coFavouriteIndex = coFavouriteIndex;
+        this.titleSearchIndex = titleSearchIndex;
+        this.titleSuggester = titleSuggester;
+        this.fuzzyTitleIndex = fuzzyTitleIndex;
+        this.facetIndex = facetIndex;
+        this.latestReleasesRanking = latestReleasesRanking;
+        this.omdbClient = omdbClient;
+        this.knownMovieFilter = knownMovieFilter;
+        this.eventPublisher = eventPublisher;
     }
 
+    /**
+     * Finds the movies whose title contains the keyword, ignoring case and accents.
+     * Exact title matches come first, then prefix, word start and other substring matches,
+     * each ordered by imdbVotes.
+     *
+     * @param keyword The text to look for in the title.
+     * @return The matching movies, best match first.
+     */
     public List<MovieEntity> getAllMovies(String keyword){
-        return movieRepository.findByKeyword(keyword);
+        if(titleSearchIndex.size() == 0){
+            // the catalog has not been loaded yet
+            return movieRepository.findByKeyword(keyword);
+        }
+        return titleSearchIndex.search(keyword, Integer.MAX_VALUE);
     }
 
-    //write method to give movie recommendation
-    public List<MovieEntity> getRecommendedMovies(String imdbID){
-        MovieEntity movieEntity = movieRepository.findByImdbID(imdbID).orElse(null);
-        if(movieEntity == null){
-            throw new MovieNotFoundException(imdbID);
+    /**
+     * Finds the movies whose title words are within a few typos of the keyword words,
+     * so "godfathr" still finds "The Godfather".
+     *
+     * @param keyword  The possibly misspelled title.
+     * @param maxEdits The maximum number of edits per word, 1 or 2.
+     * @return The matching movies, closest first, then by imdbVotes.
+     */
+    public List<MovieEntity> getAllMoviesFuzzy(String keyword, int maxEdits){
+        if(fuzzyTitleIndex.size() == 0){
+            // the catalog has not been loaded yet
+            return movieRepository.findByKeyword(keyword);
         }
+        int edits = Math.max(1, Math.min(FuzzyTitleIndex.MAX_EDITS, maxEdits));
+        return fuzzyTitleIndex.search(keyword, edits);
+    }
 
-        logger.info("MovieEntity: " + movieEntity);
-        List<MovieEntity> recommendedMovies = new ArrayList<>();
-        List<MovieEntity> allMovies = movieRepository.findAll();
-        String genre = movieEntity.getGenre();
-        String imdbRatingStr = movieEntity.getImdbRating();
-        float imdbRating = "N/A".equals(imdbRatingStr) ? -1.0f : Float.parseFloat(imdbRatingStr);
-        String director = movieEntity.getDirector();
-        String writer = movieEntity.getWriter();
-        String language = movieEntity.getLanguage();
-        String actors = movieEntity.getActors();
-        logger.info("imdbRating: " + imdbRating + " genre: " + genre + " director: " + director + " writer: " + writer + " language: " + language + " actors: " + actors);
+    /**
+     * Filters movies on any combination of genre, language, country, type, rated, year range and rating range,
+     * for example comedies in English released 2015-2020 rated at least 7.
+     *
+     * @param filter The filter criteria and the requested page.
+     * @return The number of matching movies, the page ordered by imdbVotes and the counts of every facet value.
+     */
+    public FacetIndex.Result filterMovies(MovieFilterDTO filter){
+        filter.setOffset(Math.max(0, filter.getOffset()));
+        filter.setLimit(Math.max(1, Math.min(MAX_RECOMMENDATIONS, filter.getLimit())));
+        return facetIndex.filter(filter);
+    }
 
-        float lowerBound = imdbRating - 2.0f; // 2 less than the current movie's rating
-        float upperBound = imdbRating + 2.0f; // 2 more than the current movie's rating
+    /**
+     * Suggests the most popular titles starting with the typed prefix, for autocomplete.
+     *
+     * @param prefix The typed text.
+     * @param limit  The maximum number of suggestions.
+     * @return The suggested titles and their imdbIDs, most popular first.
+     */
+    public List<TitleSuggestion> suggestTitles(String prefix, int limit){
+        return titleSuggester.suggest(prefix, Math.max(0, limit));
+    }
 
-        for(MovieEntity movie : allMovies){
-            // Skip the given movie
-            if(movie.getImdbID().equals(imdbID)){
-                logger.info("Skipping movie with ID " + imdbID);
-                continue;
-            }
+    public TitleSuggester.Stats getTitleSuggestionStats(){
+        return titleSuggester.stats();
+    }
 
-            String movieImdbRatingStr = movie.getImdbRating();
-            float movieImdbRating = "N/A".equals(movieImdbRatingStr) ? -1.0f : Float.parseFloat(movieImdbRatingStr);
-            if((!"N/A".equals(genre) && movie.getGenre().contains(genre))
-                    || (!"N/A".equals(director) && movie.getDirector().contains(director))
-                    || (!"N/A".equals(writer) && movie.getWriter().contains(writer))
-                    && (!"N/A".equals(language) && movie.getLanguage().contains(language))
-                    && (!"N/A".equals(actors) && movie.getActors().contains(actors))
-                    && (imdbRating != -1.0f && movieImdbRating >= lowerBound && movieImdbRating <= upperBound)){
-                recommendedMovies.add(movie);
-            }
+    /**
+     * Recommends movies similar to the given one.
+     * Movies sharing a genre, director, writer, actor or language are scored by the recommendation engine
+     * and only the requested page of the best scored movies is kept. Pages are cached until the catalog
+     * changes in a way that can affect them.
+     *
+     * @param imdbID The IMDb ID of the movie.
+     * @param offset The number of best movies to skip.
+     * @param limit  The maximum number of movies to return.
+     * @return The recommended movies, best first.
+     */
+    public List<MovieEntity> getRecommendedMovies(String imdbID, int offset, int limit){
+        offset = Math.min(Math.max(0, offset), MAX_RECOMMENDATION_OFFSET);
+        limit = Math.min(Math.max(1, limit), MAX_RECOMMENDATIONS);
+        RecommendationCache.Key key = new RecommendationCache.Key(imdbID, offset, limit);
+        List<MovieEntity> cached = recommendationCache.get(key);
+        if(cached != null){
+            return cached;
         }
+        long generation = recommendationCache.generation();
 
-        recommendedMovies.sort(Comparator.comparing(MovieEntity::getYear).reversed());
-        recommendedMovies.removeIf(movie -> movie.getPoster() == null || "N/A".equals(movie.getPoster()));
+        MovieEntity movieEntity = movieIndex.get(imdbID);
+        if(movieEntity == null){
+            movieEntity = movieRepository.findByImdbID(imdbID).orElseThrow(() -> new MovieNotFoundException(imdbID));
+        }
+        logger.info("Recommending movies for " + imdbID + " (offset " + offset + ", limit " + limit + ")");
 
+        List<ScoredMovie> scoredMovies = recommendationEngine.recommend(movieEntity, offset, limit);
+        List<MovieEntity> recommendedMovies = new ArrayList<>(scoredMovies.size());
+        for(ScoredMovie scoredMovie : scoredMovies){
+            recommendedMovies.add(scoredMovie.getMovie());
+        }
+        recommendedMovies = List.copyOf(recommendedMovies);
+        recommendationCache.put(key, recommendedMovies, generation);
         return recommendedMovies;
     }
 
-    // List movies of the latest year from now
-    public List<MovieEntity> filterMoviesByYear(){
-        int currentYear = java.time.Year.now().getValue() - 2;
-        logger.info("currentYear: " + currentYear);
-        List<MovieEntity> movieEntities = movieRepository.findByYear(currentYear + "");
-
-        // Remove movies which don't have a poster
-        movieEntities.removeIf(movie -> movie.getPoster() == null || "N/A".equals(movie.getPoster()));
-
-        // Sort movies first which have imdb and in highest first order
-        // Movies with imdb as N/A are put at the end
-        movieEntities.sort((movie1, movie2) -> {
-            String rating1 = movie1.getImdbRating();
-            String rating2 = movie2.getImdbRating();
-
-            if("N/A".equals(rating1) && "N/A".equals(rating2)){
-                return 0;
-            } else if("N/A".equals(rating1)){
-                return 1;
-            } else if("N/A".equals(rating2)){
-                return -1;
-            } else {
-                return Float.compare(Float.parseFloat(rating2), Float.parseFloat(rating1));
+    public RecommendationCache.Stats getRecommendationCacheStats(){
+        return recommendationCache.stats();
+    }
+
+    /**
+     * Finds movies with overlapping cast and crew: the movies whose actors, directors, writers and genres
+     * are estimated to overlap the most with the given movie, answered from the LSH buckets.
+     *
+     * @param imdbID The IMDb ID of the movie.
+     * @param limit  The maximum number of movies to return.
+     * @return The overlapping movies, most overlapping first.
+     */
+    public List<MovieEntity> getMoviesWithOverlappingPeople(String imdbID, int limit){
+        if(!movieIndex.contains(imdbID)){
+            throw new MovieNotFoundException(imdbID);
+        }
+        limit = Math.min(Math.max(1, limit), MAX_RECOMMENDATIONS);
+
+        List<MovieEntity> movies = new ArrayList<>();
+        for(String similar : minHashIndex.similar(imdbID, MIN_PEOPLE_OVERLAP, limit)){
+            MovieEntity movie = movieIndex.get(similar);
+            if(movie != null){
+                movies.add(movie);
             }
-        });
+        }
+        return movies;
+    }
 
-        return movieEntities;
+    /**
+     * Finds the movies that users who favourited the given movie also favourited.
+     *
+     * @param imdbID The IMDb ID of the movie.
+     * @param limit  The maximum number of movies to return.
+     * @return The co-favourited movies, most often co-favourited first.
+     */
+    public List<MovieEntity> getCoFavouriteMovies(String imdbID, int limit){
+        limit = Math.min(Math.max(1, limit), MAX_RECOMMENDATIONS);
+        List<MovieEntity> movies = new ArrayList<>();
+        for(String neighbour : coFavouriteIndex.neighbours(imdbID)){
+            MovieEntity movie = movieIndex.get(neighbour);
+            if(movie != null){
+                movies.add(movie);
+                if(movies.size() == limit){
+                    break;
+                }
+            }
+        }
+        return movies;
+    }
+
+    /**
+     * Lists the movies released since two years ago that have a poster, highest imdbRating first.
+     * Movies without a rating are put at the end. The ranking is computed once per catalog change,
+     * so a request only slices out the page.
+     *
+     * @param offset The number of movies to skip, at most {@value #MAX_LATEST_RELEASES_OFFSET}.
+     * @param limit  The maximum number of movies to return.
+     * @return The latest movies.
+     */
+    public List<MovieEntity> filterMoviesByYear(int offset, int limit){
+        int from = Math.min(Math.max(0, offset), MAX_LATEST_RELEASES_OFFSET);
+        int size = Math.max(1, Math.min(MAX_LATEST_RELEASES, limit));
+        if(movieCatalog.snapshot().size() == 0){
+            // the catalog has not been loaded yet, let the database sort on the typed columns
+            List<MovieEntity> movies = movieRepository.findByYear(latestReleasesRanking.sinceYear(), PageRequest.of(0, from + size));
+            return movies.subList(Math.min(from, movies.size()), movies.size());
+        }
+        return latestReleasesRanking.page(from, size);
     }
 
     /**
@@ -142,55 +315,75 @@ public class MovieService {
      * @return A list of similar movies.
      */
     public List<SimilarMovieEntity> searchMovies(String title){
+        return searchMovies(title, searchFanOut);
+    }
+
+    /**
+     * Retrieves similar movies based on title. The first page reveals the total number of results, the remaining
+     * pages are then requested with at most {@code fanOut} in flight and merged in page order. The merge stops at
+     * the first page OMDb rejects, as walking the pages one at a time would.
+     *
+     * @param title  The title of the movie
+     * @param fanOut The maximum number of pages requested at once, 1 walks the pages one at a time.
+     * @return A list of similar movies.
+     */
+    List<SimilarMovieEntity> searchMovies(String title, int fanOut){
+        return search(title, fanOut).hits;
+    }
+
+    private Search search(String title, int fanOut){
+        MovieAPIResponse firstPage;
+        try {
+            firstPage = fetchSearchPage(title, 1);
+        } catch (IOException e) {
+            logger.error("Error fetching movie with ID " + title, e);
+            throw new RuntimeException(e);
+        }
         List<SimilarMovieEntity> allMovies = new ArrayList<>();
-        int page = 1;
-
-        while (true) {
-            String url = API_URL + "&s=" + title + "&page=" + page;
-
-            HttpGet request = httpGet(url);
-            try {
-                HttpResponse response = client.execute(request);
-                HttpEntity entity = response.getEntity();
-                String responseString = EntityUtils.toString(entity, "UTF-8");
-
-                // Check if the response contains an error message
-                JsonNode responseJson = objectMapper.readTree(responseString);
-                if (responseJson.has("Error")) {
-                    String errorMessage = responseJson.get("Error").asText();
-                    if("Request limit reached!".equals(errorMessage)){
-                        logger.error("API request limit reached!");
-                        throw new RequestLimitReachedException();
-                    }
-                    else {
-                        logger.error("Error fetching movie with ID " + title + ": " + responseJson.get("Error").asText());
-                    }
-                    break;
-                }
-                MovieAPIResponse movies = objectMapper.readValue(responseString, MovieAPIResponse.class);
-
-                allMovies.addAll(movies.getSearch());
-                logger.info("API URL: " + url);
-                logger.info("Fetched " + allMovies.size() + " movies");
-                // If the total results is more than the size of the search list, increment the page number and continue fetching
-                if (Integer.parseInt(movies.getTotalResults()) > allMovies.size()) {
-                    page++;
-                } else {
-                    break;
-                }
+        if(firstPage == null){
+            return new Search(allMovies, 0, 1);
+        }
+        allMovies.addAll(firstPage.getSearch());
+        int pageSize = allMovies.size();
+        int totalResults = Integer.parseInt(firstPage.getTotalResults());
+        if(pageSize == 0 || totalResults <= pageSize){
+            return new Search(allMovies, totalResults, 1);
+        }
 
-            } catch(MovieService.RequestLimitReachedException e) {
-                throw e;
-            }
-            catch (Exception e) {
-                logger.error("Error fetching movie with ID " + title, e);
-                throw new RuntimeException(e);
-            } finally {
-                request.releaseConnection();
+        int pages = (totalResults + pageSize - 1) / pageSize;
+        List<Callable<MovieAPIResponse>> fetches = new ArrayList<>(pages - 1);
+        for(int page = 2; page <= pages; page++){
+            int current = page;
+            fetches.add(() -> fetchSearchPage(title, current));
+        }
+        for(MovieAPIResponse movies : omdbClient.invokeAll(fetches, fanOut)){
+            if(movies == null){
+                break;
             }
+            allMovies.addAll(movies.getSearch());
         }
+        logger.info("Fetched " + allMovies.size() + " movies");
+        return new Search(allMovies, totalResults, pages);
+    }
 
-        return allMovies;
+    /**
+     * Fetches a page of search results from OMDb.
+     *
+     * @param title The title to search for.
+     * @param page  The page, starting at 1.
+     * @return The page, or null if OMDb reports an error for it.
+     */
+    MovieAPIResponse fetchSearchPage(String title, int page) throws IOException {
+        String url = API_URL + "&s=" + title + "&page=" + page;
+        MovieAPIResponse response = omdbClient.execute(httpGet(url), MovieAPIResponse.class);
+
+        // Check if the response contains an error message
+        if (response.getError() != null) {
+            logger.error("Error fetching movie with ID " + title + ": " + response.getError());
+            return null;
+        }
+        logger.info("API URL: " + url);
+        return response;
     }
 
     public String convertRuntime(String runtime){
@@ -207,55 +400,64 @@ public class MovieService {
         }
     }
 
+    /**
+     * Searches OMDb for the title and fetches the details of every hit that is not stored yet, at most
+     * {@code omdb.max-in-flight} at a time. Hits OMDb reports an error for, or that fail or time out, are skipped.
+     *
+     * @param title The title to search for.
+     * @return The movies that are not stored yet, in the order of the search hits.
+     * @throws RequestLimitReachedException if the quota is used up, after the outstanding calls are cancelled
+     */
     public List<MovieEntity> getMoviesList(String title){
-        List<SimilarMovieEntity> similarMovies = searchMovies(title);
-        List<MovieEntity> movies = new ArrayList<>();
+        return crawl(title).getMovies();
+    }
 
+    /**
+     * Like {@link #getMoviesList(String)}, also reporting how many results OMDb has for the title and how many
+     * requests were made for them, so the crawler can measure the yield of a search word.
+     *
+     * @param title The title to search for.
+     * @return The movies that are not stored yet, with the totals of the search.
+     * @throws RequestLimitReachedException if the quota is used up, after the outstanding calls are cancelled
+     */
+    public CrawlResult crawl(String title){
+        Search search = search(title, searchFanOut);
+        List<SimilarMovieEntity> similarMovies = knownMovieFilter.unknown(search.hits);
+        List<Callable<MovieEntity>> fetches = new ArrayList<>(similarMovies.size());
         for(SimilarMovieEntity movie : similarMovies){
             String imdbID = movie.getImdbID();
-            String url = API_URL + "&i=" + imdbID;
-
-            HttpGet request = httpGet(url);
-            try {
-                HttpResponse response = client.execute(request);
-                HttpEntity entity = response.getEntity();
-                String responseString = EntityUtils.toString(entity, "UTF-8");
-
-                JsonNode responseJson = objectMapper.readTree(responseString);
-                if (responseJson.has("Error")){
-                    String errorMessage = responseJson.get("Error").asText();
-                    if("Request limit reached!".equals(errorMessage)){
-                        logger.error("API request limit reached!");
-                        throw new RequestLimitReachedException();
-                    }
-                    else {
-                        logger.error("Error fetching movie with ID " + imdbID + ": " + errorMessage);
-                        continue;
-                    }
-                }
+            fetches.add(() -> fetchMovieDetails(imdbID));
+        }
 
-                var movieEntity = objectMapper.readValue(responseString, MovieEntity.class);
-                //convert move runtime into h and minutes
-                if(movieEntity.getRuntime().contains("N/A")){
-                    movies.add(movieEntity);
-                    continue;
-                }
-                String convertedRuntime = convertRuntime(movieEntity.getRuntime());
-                movieEntity.setRuntime(convertedRuntime);
+        List<MovieEntity> movies = new ArrayList<>(fetches.size());
+        for(MovieEntity movieEntity : omdbClient.invokeAll(fetches)){
+            if(movieEntity != null){
                 movies.add(movieEntity);
-
-            } catch (MovieService.RequestLimitReachedException e) {
-                throw e;
-            }
-            catch (Exception e) {
-                logger.error("Error fetching movie with ID " + imdbID, e);
-                throw new RuntimeException(e);
-            } finally {
-                request.releaseConnection();
             }
         }
+        return new CrawlResult(movies, search.totalResults, search.requests + fetches.size());
+    }
 
-        return movies;
+    /**
+     * Fetches the details of a movie from OMDb.
+     *
+     * @param imdbID The IMDb ID of the movie.
+     * @return The movie, or null if OMDb reports an error for it.
+     */
+    MovieEntity fetchMovieDetails(String imdbID) throws IOException {
+        MovieEntity movieEntity = omdbClient.execute(httpGet(API_URL + "&i=" + imdbID), MovieEntity.class);
+
+        if (movieEntity.getError() != null){
+            logger.error("Error fetching movie with ID " + imdbID + ": " + movieEntity.getError());
+            return null;
+        }
+
+        //convert move runtime into h and minutes
+        if(OmdbValues.isPresent(movieEntity.getRuntime())){
+            movieEntity.setRuntime(convertRuntime(movieEntity.getRuntime()));
+        }
+        movieEntity.setLastFetchedAt(System.currentTimeMillis());
+        return movieEntity;
     }
 
     /**
@@ -269,7 +471,125 @@ public class MovieService {
     }
 
     public void saveMovie(MovieEntity movieEntity){
+        OmdbValues.normalise(movieEntity);
+        movieEntity.setMinHashSignature(MinHash.encode(MinHash.signature(movieEntity)));
         movieRepository.save(movieEntity);
+        eventPublisher.publishEvent(new MovieCatalogChangedEvent(List.of(movieEntity)));
+    }
+
+    /**
+     * Saves the movies that are not stored yet as one batch. A single query finds which imdbIDs are stored, the
+     * others are inserted together with their ratings using JDBC batching, and the catalog is notified once.
+     *
+     * @param movies The movies to ingest, duplicates are saved once.
+     * @return The movies that were new and saved.
+     */
+    public List<MovieEntity> saveNewMovies(List<MovieEntity> movies){
+        Map<String, MovieEntity> byImdbID = new LinkedHashMap<>();
+        for(MovieEntity movieEntity : movies){
+            byImdbID.putIfAbsent(movieEntity.getImdbID(), movieEntity);
+        }
+        if(byImdbID.isEmpty()){
+            return List.of();
+        }
+
+        List<String> imdbIDs = new ArrayList<>(byImdbID.keySet());
+        for(int from = 0; from < imdbIDs.size(); from += EXISTENCE_CHECK_CHUNK){
+            List<String> chunk = imdbIDs.subList(from, Math.min(from + EXISTENCE_CHECK_CHUNK, imdbIDs.size()));
+            for(String stored : movieRepository.findExistingImdbIDs(chunk)){
+                byImdbID.remove(stored);
+            }
+        }
+        List<MovieEntity> newMovies = new ArrayList<>(byImdbID.values());
+        if(newMovies.isEmpty()){
+            return newMovies;
+        }
+
+        for(MovieEntity movieEntity : newMovies){
+            OmdbValues.normalise(movieEntity);
+            movieEntity.setMinHashSignature(MinHash.encode(MinHash.signature(movieEntity)));
+            movieEntity.setNewMovie(true);
+        }
+        movieRepository.saveAll(newMovies);
+        eventPublisher.publishEvent(new MovieCatalogChangedEvent(newMovies));
+        return newMovies;
+    }
+
+    /**
+     * Writes the details of a stored movie fetched again over it, if any OMDb value or rating changed, or the
+     * typed columns or signature derived from them differ from the stored ones, and notifies the catalog.
+     * Unchanged movies are not written.
+     *
+     * The catalog is notified once the transaction commits.
+     *
+     * @param fetched The movie as fetched again, normalised here.
+     * @return Whether the stored movie changed.
+     */
+    @Transactional
+    public boolean updateIfChanged(MovieEntity fetched){
+        MovieEntity stored = movieRepository.findByImdbID(fetched.getImdbID()).orElse(null);
+        if(stored == null || !copyIfChanged(fetched, stored)){
+            return false;
+        }
+        movieRepository.save(stored);
+        publishAfterCommit(new MovieCatalogChangedEvent(List.of(stored)));
+        return true;
+    }
+
+    /**
+     * Writes the details of several stored movies fetched again over them, as {@link #updateIfChanged(MovieEntity)}
+     * does, reading them with one query and notifying the catalog once for all of them after the commit.
+     *
+     * @param fetched The movies as fetched again, normalised here. Movies not stored are skipped.
+     * @return The stored movies that changed.
+     */
+    @Transactional
+    public List<MovieEntity> updateChanged(List<MovieEntity> fetched){
+        Map<String, MovieEntity> storedById = new HashMap<>();
+        for(MovieEntity stored : movieRepository.findByImdbIDs(fetched.stream().map(MovieEntity::getImdbID).toList())){
+            storedById.put(stored.getImdbID(), stored);
+        }
+        List<MovieEntity> changed = new ArrayList<>();
+        for(MovieEntity movieEntity : fetched){
+            MovieEntity stored = storedById.get(movieEntity.getImdbID());
+            if(stored != null && copyIfChanged(movieEntity, stored)){
+                changed.add(stored);
+            }
+        }
+        if(!changed.isEmpty()){
+            movieRepository.saveAll(changed);
+            publishAfterCommit(new MovieCatalogChangedEvent(changed));
+        }
+        return changed;
+    }
+
+    // Copies a movie fetched again over the stored one if it differs from it, once both are mapped the same way
+    private boolean copyIfChanged(MovieEntity fetched, MovieEntity stored){
+        // derived as a new movie's would be, so a movie stored under an older mapping is mapped again
+        OmdbValues.normalise(fetched);
+        fetched.setMinHashSignature(MinHash.encode(MinHash.signature(fetched)));
+        if(OmdbValues.sameContent(stored, fetched) && OmdbValues.sameTypedValues(stored, fetched)
+                && Arrays.equals(stored.getMinHashSignature(), fetched.getMinHashSignature())){
+            return false;
+        }
+        OmdbValues.copyContent(fetched, stored);
+        OmdbValues.normalise(stored);
+        stored.setMinHashSignature(fetched.getMinHashSignature());
+        return true;
+    }
+
+    // The catalog views must not see a change that is rolled back, so within a transaction it waits for the commit
+    private void publishAfterCommit(MovieCatalogChangedEvent event){
+        if(!TransactionSynchronizationManager.isSynchronizationActive()){
+            eventPublisher.publishEvent(event);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit(){
+                eventPublisher.publishEvent(event);
+            }
+        });
     }
 
     public MovieEntity findByImdbID(String imdbID){
@@ -290,16 +610,19 @@ public class MovieService {
             user.setLstMovie(new ArrayList<>());
         }
         List<MovieEntity> lstMovies = user.getLstMovie();
+        List<String> otherFavourites = new ArrayList<>(lstMovies.size());
         for(MovieEntity movie : lstMovies){
             if(movie.getImdbID().equals(imdbID)){
                 return;
             }
+            otherFavourites.add(movie.getImdbID());
         }
 
         MovieEntity savedMovie = findByImdbID(imdbID);
         logger.info("Saved movie: " + savedMovie);
         user.getLstMovie().add(savedMovie);
         userService.save(user);
+        coFavouriteIndex.favouriteAdded(imdbID, otherFavourites);
     }
 
     /**
@@ -332,14 +655,53 @@ public class MovieService {
 
         List<MovieEntity> lstMovies = user.getLstMovie();
         logger.info("lstMovies: " + lstMovies);
+        boolean removed = false;
         for(MovieEntity movie : lstMovies){
             if(movie.getImdbID().equals(imdbID)){
                 lstMovies.remove(movie);
+                removed = true;
                 break;
             }
         }
         user.setLstMovie(lstMovies);
         userService.save(user);
+
+        if(removed){
+            List<String> otherFavourites = new ArrayList<>(lstMovies.size());
+            for(MovieEntity movie : lstMovies){
+                otherFavourites.add(movie.getImdbID());
+            }
+            coFavouriteIndex.favouriteRemoved(imdbID, otherFavourites);
+        }
+    }
+
+    // The hits of a search, the results OMDb reported and the pages requested
+    private static final class Search {
+        private final List<SimilarMovieEntity> hits;
+        private final int totalResults;
+        private final int requests;
+
+        Search(List<SimilarMovieEntity> hits, int totalResults, int requests){
+            this.hits = hits;
+            this.totalResults = totalResults;
+            this.requests = requests;
+        }
+    }
+
+    /**
+     * The movies a search word found that are not stored yet, the results OMDb has for it and the requests made.
+     */
+    @Getter
+    public static class CrawlResult {
+        private final List<MovieEntity> movies;
+        private final int totalResults;
+        private final int requests;
+
+        public CrawlResult(List<MovieEntity> movies, int totalResults, int requests){
+            this.movies = movies;
+            this.totalResults = totalResults;
+            this.requests = requests;
+        }
     }
 
     //Movie not found Exception
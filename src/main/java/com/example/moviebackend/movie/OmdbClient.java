@@ -0,0 +1,260 @@
+package com.example.moviebackend.movie;
+
+import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HTTP access to the OMDb API with bounded parallelism.
+ * Calls run on a fixed pool of {@code omdb.max-in-flight} threads over the shared pooled client, whose OMDb route
+ * is sized to match. Every request takes a token from the {@link OmdbQuota} first, has connect and read timeouts
+ * plus a hard deadline after which it is aborted, and its response is decoded straight from the connection stream
+ * by the {@link OmdbDecoder}.
+ * When OMDb reports that the daily quota is used up, the quota is marked exhausted, every outstanding request is
+ * aborted and the calls still queued are cancelled.
+ */
+@Component
+public class OmdbClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(OmdbClient.class);
+    private static final String REQUEST_LIMIT_REACHED = "Request limit reached!";
+    private static final byte[] NOT_STORED = "{\"Response\":\"False\",\"Error\":\"Not in the response store\"}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final CloseableHttpClient client;
+    private final OmdbQuota quota;
+    private final OmdbResponseStore store;
+    private final RequestConfig requestConfig;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService deadlines = Executors.newSingleThreadScheduledExecutor(daemonThreads("omdb-deadline"));
+    private final long requestTimeoutMillis;
+    private final Set<HttpGet> inFlight = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public OmdbClient(CloseableHttpClient client, PoolingHttpClientConnectionManager connectionManager, OmdbQuota quota,
+                      OmdbResponseStore store,
+                      @Value("${omdb.base-url:http://www.omdbapi.com/}") String baseUrl,
+                      @Value("${omdb.max-in-flight:8}") int maxInFlight,
+                      @Value("${omdb.connect-timeout-ms:2000}") int connectTimeoutMillis,
+                      @Value("${omdb.read-timeout-ms:5000}") int readTimeoutMillis,
+                      @Value("${omdb.request-timeout-ms:10000}") long requestTimeoutMillis){
+        // one more connection than workers so a search page never waits behind the detail calls
+        connectionManager.setMaxPerRoute(route(baseUrl), maxInFlight + 1);
+        connectionManager.setMaxTotal(Math.max(connectionManager.getMaxTotal(), maxInFlight + 1));
+        this.client = client;
+        this.quota = quota;
+        this.store = store;
+        this.requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeoutMillis)
+                .setSocketTimeout(readTimeoutMillis)
+                .setConnectionRequestTimeout(connectTimeoutMillis)
+                .build();
+        this.executor = Executors.newFixedThreadPool(maxInFlight, daemonThreads("omdb-fetch"));
+        this.requestTimeoutMillis = requestTimeoutMillis;
+    }
+
+    private static HttpRoute route(String baseUrl){
+        URI uri = URI.create(baseUrl);
+        int port = uri.getPort() > 0 ? uri.getPort() : "https".equals(uri.getScheme()) ? 443 : 80;
+        return new HttpRoute(new HttpHost(uri.getHost(), port, uri.getScheme()));
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        executor.shutdownNow();
+        deadlines.shutdownNow();
+    }
+
+    /**
+     * Executes a GET request once the quota allows it and decodes the response body while it streams in.
+     * Depending on the {@link OmdbResponseStore} mode the response is served from the store instead, or written
+     * to it; when replaying, a response that is not stored is answered with an OMDb error.
+     *
+     * @param request the request
+     * @param type    the type to decode the body to
+     * @return the decoded body, with its error set if OMDb reported one
+     * @throws IOException if the request fails, times out or is aborted, or the body is not of the type
+     * @throws MovieService.RequestLimitReachedException if the quota is used up, by our count or OMDb's
+     */
+    public <T extends OmdbResponse> T execute(HttpGet request, Class<T> type) throws IOException {
+        String key = OmdbResponseStore.key(request.getURI());
+        byte[] stored = store.lookup(key);
+        if(stored != null){
+            return OmdbDecoder.decode(new ByteArrayInputStream(stored), type);
+        }
+        if(store.mode() == OmdbResponseStore.Mode.REPLAY){
+            return OmdbDecoder.decode(new ByteArrayInputStream(NOT_STORED), type);
+        }
+        try {
+            quota.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for the OMDb quota");
+        }
+        if(request.getConfig() == null){
+            request.setConfig(requestConfig);
+        }
+        inFlight.add(request);
+        ScheduledFuture<?> deadline = deadlines.schedule(request::abort, requestTimeoutMillis, TimeUnit.MILLISECONDS);
+        try(CloseableHttpResponse response = client.execute(request);
+            InputStream body = response.getEntity().getContent()){
+            // a body that is kept is copied aside as the decoder reads it
+            RecordingInputStream recording = store.mode() == OmdbResponseStore.Mode.RECORD
+                    ? new RecordingInputStream(body) : null;
+            T decoded = OmdbDecoder.decode(recording != null ? recording : body, type);
+            if(REQUEST_LIMIT_REACHED.equals(decoded.getError())){
+                quota.exhausted();
+                throw new MovieService.RequestLimitReachedException();
+            }
+            if(recording != null){
+                store.put(key, recording.recorded());
+            }
+            return decoded;
+        } finally {
+            deadline.cancel(false);
+            inFlight.remove(request);
+            request.releaseConnection();
+        }
+    }
+
+    /**
+     * Runs the calls with at most {@code omdb.max-in-flight} at a time and returns their results in order.
+     *
+     * @see #invokeAll(List, int)
+     */
+    public <T> List<T> invokeAll(List<Callable<T>> calls){
+        return invokeAll(calls, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Runs the calls with at most {@code parallelism} (and never more than {@code omdb.max-in-flight}) at a time
+     * and returns their results in order. A call failing with an other exception is logged and yields null.
+     *
+     * @param calls       the calls, typically wrapping {@link #execute(HttpGet, Class)}
+     * @param parallelism the maximum number of these calls submitted at once
+     * @return the result of each call, in the order of the calls
+     * @throws MovieService.RequestLimitReachedException if a call reports that the quota is used up,
+     *                                                   after the remaining calls are cancelled
+     */
+    public <T> List<T> invokeAll(List<Callable<T>> calls, int parallelism){
+        if(parallelism < 1){
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        // a sliding window in call order: call i + parallelism is submitted once call i is done
+        List<Future<T>> futures = new ArrayList<>(calls.size());
+        int window = Math.min(parallelism, calls.size());
+        for(int i = 0; i < window; i++){
+            futures.add(executor.submit(calls.get(i)));
+        }
+
+        List<T> results = new ArrayList<>(calls.size());
+        try {
+            for(int i = 0; i < calls.size(); i++){
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    if(e.getCause() instanceof MovieService.RequestLimitReachedException){
+                        cancel(futures);
+                        throw (MovieService.RequestLimitReachedException) e.getCause();
+                    }
+                    logger.error("OMDb call failed", e.getCause());
+                    results.add(null);
+                }
+                if(futures.size() < calls.size()){
+                    futures.add(executor.submit(calls.get(futures.size())));
+                }
+            }
+        } catch (InterruptedException e) {
+            cancel(futures);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        return results;
+    }
+
+    // The quota is shared by every caller, so every outstanding request is aborted, not only this batch's
+    private void cancel(List<? extends Future<?>> futures){
+        for(Future<?> future : futures){
+            future.cancel(true);
+        }
+        for(HttpGet request : inFlight){
+            request.abort();
+        }
+    }
+
+    // Copies every byte read from the body, so it can be stored without being buffered before decoding
+    private static final class RecordingInputStream extends InputStream {
+        private final InputStream body;
+        private final ByteArrayOutputStream copy = new ByteArrayOutputStream(4096);
+
+        RecordingInputStream(InputStream body){
+            this.body = body;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = body.read();
+            if(b >= 0){
+                copy.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = body.read(buffer, offset, length);
+            if(read > 0){
+                copy.write(buffer, offset, read);
+            }
+            return read;
+        }
+
+        // The whole body, including what the decoder left unread after the JSON value
+        byte[] recorded() throws IOException {
+            transferTo(OutputStream.nullOutputStream());
+            return copy.toByteArray();
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String name){
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.moviebackend.movie;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decodes OMDb response bodies in a single pass over the stream. The target types bind the "Error" field
+ * themselves, see {@link OmdbResponse}, so the error envelope is detected while the result is bound rather than
+ * by parsing the body into a tree first. "N/A", OMDb's marker for a missing value, is read as null.
+ */
+public final class OmdbDecoder {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new SimpleModule().addDeserializer(String.class, new NotAvailableAsNull()));
+    private static final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>(Map.of(
+            MovieEntity.class, objectMapper.readerFor(MovieEntity.class),
+            MovieAPIResponse.class, objectMapper.readerFor(MovieAPIResponse.class)));
+
+    private OmdbDecoder(){
+    }
+
+    /**
+     * Binds a response body to the given type while it streams in.
+     *
+     * @param body the response body, left open
+     * @param type the result type
+     * @return the result, with {@link OmdbResponse#getError()} set if OMDb reported an error
+     * @throws IOException if the body cannot be read or is not a JSON object of the type
+     */
+    public static <T extends OmdbResponse> T decode(InputStream body, Class<T> type) throws IOException {
+        return readers.computeIfAbsent(type, objectMapper::readerFor).readValue(body);
+    }
+
+    private static final class NotAvailableAsNull extends StdScalarDeserializer<String> {
+        private static final long serialVersionUID = 1L;
+
+        NotAvailableAsNull(){
+            super(String.class);
+        }
+
+        @Override
+        public String deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            String value = StringDeserializer.instance.deserialize(p, ctxt);
+            return OmdbValues.NOT_AVAILABLE.equals(value) ? null : value;
+        }
+    }
+}
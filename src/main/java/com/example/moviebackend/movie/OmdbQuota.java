@@ -0,0 +1,222 @@
+package com.example.moviebackend.movie;
+
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.function.Supplier;
+
+/**
+ * Token bucket modelling the daily OMDb quota, shared by every request {@link OmdbClient} sends.
+ * Tokens refill at {@code daily-limit} per day so requests are paced evenly across the day, with up to
+ * {@code burst} sent back to back. Once {@code daily-limit} requests were made on a day, or OMDb reports the
+ * quota used up, requests are refused until the quota resets at midnight in {@code zone}.
+ * The state is persisted so a restart neither forgets the requests made today nor starts with a full burst.
+ * Instances sharing the database share the quota: the state is read afresh for every request and written with
+ * an optimistic lock, retrying when another instance updated it in between.
+ */
+@Component
+public class OmdbQuota {
+
+    private static final Logger logger = LoggerFactory.getLogger(OmdbQuota.class);
+    private static final String QUOTA_ID = "omdb";
+    private static final int MAX_ATTEMPTS = 10;
+
+    private final OmdbQuotaRepository repository;
+    private final int dailyLimit;
+    private final int burst;
+    private final double tokensPerMilli;
+    private final Clock clock;
+    private OmdbQuotaEntity state;
+
+    @Autowired
+    public OmdbQuota(OmdbQuotaRepository repository,
+                     @Value("${omdb.quota.daily-limit:1000}") int dailyLimit,
+                     @Value("${omdb.quota.burst:20}") int burst,
+                     @Value("${omdb.quota.zone:UTC}") String zone){
+        this(repository, dailyLimit, burst, Clock.system(ZoneId.of(zone)));
+    }
+
+    /**
+     * @param repository where the state is kept, null to keep it in memory only
+     * @param clock      the clock, in the zone the quota resets in
+     */
+    OmdbQuota(OmdbQuotaRepository repository, int dailyLimit, int burst, Clock clock){
+        if(dailyLimit < 1 || burst < 1){
+            throw new IllegalArgumentException("daily limit and burst must be positive");
+        }
+        this.repository = repository;
+        this.dailyLimit = dailyLimit;
+        this.burst = burst;
+        this.tokensPerMilli = dailyLimit / (double) Duration.ofDays(1).toMillis();
+        this.clock = clock;
+    }
+
+    /**
+     * Takes a token for a request, waiting until it is due.
+     *
+     * @throws MovieService.RequestLimitReachedException if the quota is used up until it resets
+     * @throws InterruptedException                      if interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+        long waitMillis = reserve();
+        if(waitMillis > 0){
+            Thread.sleep(waitMillis);
+        }
+    }
+
+    /**
+     * Takes a token for a request and returns how long to wait before sending it. Tokens can be reserved ahead
+     * of the refill, so concurrent callers queue up one refill interval apart.
+     *
+     * @throws MovieService.RequestLimitReachedException if the quota is used up until it resets
+     */
+    synchronized long reserve(){
+        return update(() -> {
+            OmdbQuotaEntity state = state();
+            if(state.getUsed() >= dailyLimit){
+                throw new MovieService.RequestLimitReachedException();
+            }
+            long now = clock.millis();
+            state.setTokens(Math.min(burst, state.getTokens() + (now - state.getRefilledAt()) * tokensPerMilli) - 1);
+            state.setRefilledAt(now);
+            state.setUsed(state.getUsed() + 1);
+            save(state);
+            return state.getTokens() >= 0 ? 0L : (long) Math.ceil(-state.getTokens() / tokensPerMilli);
+        });
+    }
+
+    /**
+     * Counts a request towards the share of the daily limit set aside for refreshing stored movies, shared by
+     * every instance. The request itself still takes its token when it is sent.
+     *
+     * @param share the share of the daily limit refreshes may use, from 0 to 1
+     * @return false if that share was used up today, or the quota as a whole
+     */
+    public synchronized boolean tryReserveRefresh(double share){
+        int refreshLimit = (int) (share * dailyLimit);
+        return update(() -> {
+            OmdbQuotaEntity state = state();
+            if(state.getRefreshed() >= refreshLimit || state.getUsed() >= dailyLimit){
+                return false;
+            }
+            state.setRefreshed(state.getRefreshed() + 1);
+            save(state);
+            return true;
+        });
+    }
+
+    /**
+     * Records that OMDb reported the quota used up, refusing requests until it resets.
+     */
+    public synchronized void exhausted(){
+        update(() -> {
+            OmdbQuotaEntity state = state();
+            if(state.getUsed() < dailyLimit){
+                logger.warn("OMDb quota used up after " + state.getUsed() + " requests, pausing until " + resetAt(state));
+                state.setUsed(dailyLimit);
+                save(state);
+            }
+            return null;
+        });
+    }
+
+    public synchronized boolean isExhausted(){
+        return state().getUsed() >= dailyLimit;
+    }
+
+    /**
+     * The requests left until the quota resets.
+     */
+    public synchronized int remaining(){
+        return Math.max(0, dailyLimit - state().getUsed());
+    }
+
+    /**
+     * When the current quota window ends.
+     */
+    public synchronized Instant resetAt(){
+        return resetAt(state());
+    }
+
+    public synchronized Stats stats(){
+        OmdbQuotaEntity state = state();
+        return new Stats(dailyLimit, state.getUsed(), Math.max(0, dailyLimit - state.getUsed()), state.getRefreshed(),
+                resetAt(state));
+    }
+
+    private Instant resetAt(OmdbQuotaEntity state){
+        return state.getWindowStart().plusDays(1).atStartOfDay(clock.getZone()).toInstant();
+    }
+
+    // Runs a read-modify-write of the state, again if another instance wrote it in between
+    private <T> T update(Supplier<T> change){
+        for(int attempt = 1; ; attempt++){
+            try {
+                return change.get();
+            } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+                if(attempt == MAX_ATTEMPTS){
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // The state for the current window, read from the database on every use, or kept in memory without one,
+    // and reset when the day changes
+    private OmdbQuotaEntity state(){
+        if(state == null || repository != null){
+            state = repository == null ? null : repository.findById(QUOTA_ID).orElse(null);
+            if(state == null){
+                state = new OmdbQuotaEntity();
+                state.setId(QUOTA_ID);
+                state.setWindowStart(LocalDate.now(clock));
+                state.setTokens(burst);
+                state.setRefilledAt(clock.millis());
+            }
+        }
+        LocalDate today = LocalDate.now(clock);
+        if(!today.equals(state.getWindowStart())){
+            state.setWindowStart(today);
+            state.setUsed(0);
+            state.setRefreshed(0);
+        }
+        return state;
+    }
+
+    private void save(OmdbQuotaEntity state){
+        if(repository != null){
+            repository.save(state);
+        }
+    }
+
+    /**
+     * Snapshot of the quota.
+     */
+    @Getter
+    public static class Stats {
+        private final int dailyLimit;
+        private final int used;
+        private final int remaining;
+        private final int refreshed;
+        private final Instant resetAt;
+
+        Stats(int dailyLimit, int used, int remaining, int refreshed, Instant resetAt){
+            this.dailyLimit = dailyLimit;
+            this.used = used;
+            this.remaining = remaining;
+            this.refreshed = refreshed;
+            this.resetAt = resetAt;
+        }
+    }
+}
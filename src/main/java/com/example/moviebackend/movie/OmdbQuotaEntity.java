@@ -0,0 +1,46 @@
+package com.example.moviebackend.movie;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Version;
+import java.time.LocalDate;
+
+/**
+ * Persisted state of the OMDb quota, see {@link OmdbQuota}.
+ */
+@Entity(name = "omdb_quota")
+@Getter
+@Setter
+public class OmdbQuotaEntity {
+
+    @Id
+    @Column(name = "id")
+    private String id;
+
+    // the day the requests in used were made on, in the quota zone
+    @Column(name = "window_start")
+    private LocalDate windowStart;
+
+    @Column(name = "used")
+    private int used;
+
+    // negative while requests wait for tokens reserved ahead of time
+    @Column(name = "tokens")
+    private double tokens;
+
+    @Column(name = "refilled_at")
+    private long refilledAt;
+
+    // how many of the used requests refreshed stored movies, defaulted for the row of an earlier version
+    @Column(name = "refreshed", columnDefinition = "integer default 0 not null")
+    private int refreshed;
+
+    // instances sharing the quota update it optimistically; defaulted so the row of an earlier version gets one
+    @Version
+    @Column(name = "version", columnDefinition = "bigint default 0 not null")
+    private long version;
+}
@@ -0,0 +1,8 @@
+package com.example.moviebackend.movie;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OmdbQuotaRepository extends JpaRepository<OmdbQuotaEntity, String> {
+}
@@ -0,0 +1,194 @@
+package com.example.moviebackend.movie;
+
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ingests every movie held by the {@link OmdbResponseStore} again, for instance into an emptied {@code movies}
+ * table after the mapping of OMDb data changed. The detail responses go through
+ * {@link MovieService#fetchMovieDetails(String)} exactly as crawled ones do, but are served from the store, so it
+ * runs at disk speed and spends no quota; it is only allowed in replay mode, where nothing can reach OMDb.
+ * Movies stored already are mapped again through {@link MovieService#updateChanged(List)}, so a changed
+ * mapping reaches the existing rows as well, and only the rows it changes are written. The catalog is notified
+ * once per batch. A replay runs in the background, one at a time, and only the users listed in
+ * {@code admin-user-ids} may start one.
+ */
+@Service
+public class OmdbReplay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OmdbReplay.class);
+    private static final String DETAIL_KEY_PREFIX = "i=";
+    private static final int BATCH_SIZE = 500;
+
+    private final OmdbResponseStore store;
+    private final OmdbClient omdbClient;
+    private final MovieService movieService;
+    private final Set<Integer> adminUserIds;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "omdb-replay");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Result lastResult;
+
+    public OmdbReplay(OmdbResponseStore store, OmdbClient omdbClient, MovieService movieService,
+                      @Value("${omdb.replay.admin-user-ids:}") List<Integer> adminUserIds){
+        this.store = store;
+        this.omdbClient = omdbClient;
+        this.movieService = movieService;
+        this.adminUserIds = Set.copyOf(adminUserIds);
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        executor.shutdownNow();
+    }
+
+    /**
+     * Whether a user may start a replay.
+     */
+    public boolean isAdmin(Integer userId){
+        return userId != null && adminUserIds.contains(userId);
+    }
+
+    /**
+     * Starts ingesting the stored movies in the background, unless a replay is running already.
+     *
+     * @return whether a replay was started
+     * @throws IllegalStateException if the store is not in replay mode
+     */
+    public boolean start(){
+        requireReplayMode();
+        if(!running.compareAndSet(false, true)){
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    lastResult = ingestStoredMovies();
+                } catch (RuntimeException e) {
+                    logger.error("Error replaying stored OMDb responses", e);
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+            throw e;
+        }
+        return true;
+    }
+
+    public Status status(){
+        return new Status(running.get(), lastResult);
+    }
+
+    /**
+     * Maps every stored detail response to a movie, in batches, saving the ones that are not stored yet and
+     * updating the stored ones that map differently now.
+     *
+     * @throws IllegalStateException if the store is not in replay mode
+     */
+    Result ingestStoredMovies(){
+        requireReplayMode();
+        long start = System.nanoTime();
+        List<String> imdbIDs = new ArrayList<>();
+        for(String key : store.keys()){
+            if(key.startsWith(DETAIL_KEY_PREFIX) && key.indexOf('&') < 0){
+                imdbIDs.add(key.substring(DETAIL_KEY_PREFIX.length()));
+            }
+        }
+        imdbIDs.sort(null);
+
+        int mapped = 0;
+        int saved = 0;
+        int updated = 0;
+        for(int from = 0; from < imdbIDs.size(); from += BATCH_SIZE){
+            List<Callable<MovieEntity>> fetches = new ArrayList<>();
+            for(String imdbID : imdbIDs.subList(from, Math.min(from + BATCH_SIZE, imdbIDs.size()))){
+                fetches.add(() -> movieService.fetchMovieDetails(imdbID));
+            }
+            List<MovieEntity> movies = new ArrayList<>(fetches.size());
+            for(MovieEntity movieEntity : omdbClient.invokeAll(fetches)){
+                if(movieEntity != null){
+                    movies.add(movieEntity);
+                }
+            }
+            mapped += movies.size();
+            Set<String> newImdbIDs = new HashSet<>();
+            for(MovieEntity movieEntity : movieService.saveNewMovies(movies)){
+                newImdbIDs.add(movieEntity.getImdbID());
+            }
+            saved += newImdbIDs.size();
+            List<MovieEntity> stored = new ArrayList<>(movies.size());
+            for(MovieEntity movieEntity : movies){
+                if(!newImdbIDs.contains(movieEntity.getImdbID())){
+                    stored.add(movieEntity);
+                }
+            }
+            if(!stored.isEmpty()){
+                updated += movieService.updateChanged(stored).size();
+            }
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        logger.info("Replayed " + imdbIDs.size() + " stored movies in " + millis + " ms, saved " + saved
+                + ", updated " + updated);
+        return new Result(imdbIDs.size(), mapped, saved, updated, millis);
+    }
+
+    private void requireReplayMode(){
+        if(store.mode() != OmdbResponseStore.Mode.REPLAY){
+            throw new IllegalStateException("Stored responses are only ingested in replay mode");
+        }
+    }
+
+    /**
+     * Whether a replay is running, and the result of the last one to finish, null before the first.
+     */
+    @Getter
+    public static class Status {
+        private final boolean running;
+        private final Result last;
+
+        Status(boolean running, Result last){
+            this.running = running;
+            this.last = last;
+        }
+    }
+
+    /**
+     * Stored detail responses, those that mapped to a movie, the movies saved, the stored ones updated and how
+     * long it took.
+     */
+    @Getter
+    public static class Result {
+        private final int stored;
+        private final int mapped;
+        private final int saved;
+        private final int updated;
+        private final long millis;
+
+        Result(int stored, int mapped, int saved, int updated, long millis){
+            this.stored = stored;
+            this.mapped = mapped;
+            this.saved = saved;
+            this.updated = updated;
+            this.millis = millis;
+        }
+    }
+}
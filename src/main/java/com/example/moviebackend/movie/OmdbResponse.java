@@ -0,0 +1,13 @@
+package com.example.moviebackend.movie;
+
+/**
+ * A response body of the OMDb API. OMDb answers with HTTP 200 either way and reports failures, such as an
+ * unknown title or a used up quota, in an "Error" field of the same object.
+ */
+public interface OmdbResponse {
+
+    /**
+     * The error OMDb reported instead of the result, or null on success.
+     */
+    String getError();
+}
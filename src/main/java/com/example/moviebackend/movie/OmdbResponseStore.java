@@ -0,0 +1,500 @@
+package com.example.moviebackend.movie;
+
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the raw body of every OMDb response on disk so the data can be mapped again without spending quota.
+ * Responses are appended gzip compressed to segment files of up to {@code segment-bytes} in {@code directory},
+ * keyed by the request's query without the API key, and the latest response per key wins. The index of where
+ * each response is lives in memory and is rebuilt by scanning the segments on first use; a record cut short by a
+ * crash is dropped then. Whenever the store moves on to a new segment, the full segments holding less than
+ * {@code compact-below} of responses that are still the latest for their key are compacted in the background:
+ * their live records are appended again and the segment file is deleted.
+ * In {@code record} mode {@link OmdbClient} serves responses younger than {@code ttl-hours} from the store and
+ * fetches and appends the others; in {@code replay} mode every request is served from the store, whatever its
+ * age, and nothing is sent to OMDb.
+ */
+@Component
+public class OmdbResponseStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(OmdbResponseStore.class);
+    private static final String SEGMENT_PREFIX = "responses-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    // key length, fetched at, body length and checksum around the key and body
+    private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES + Integer.BYTES + Long.BYTES;
+
+    public enum Mode { OFF, RECORD, REPLAY }
+
+    private final Path directory;
+    private final Mode mode;
+    private final long ttlMillis;
+    private final long segmentBytes;
+    private final double compactBelow;
+    private final Clock clock;
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+    // by segment number, the last one is appended to; numbers of compacted segments are not reused
+    private final NavigableMap<Integer, FileChannel> segments = new TreeMap<>();
+    // bytes of the records in each segment that are still the latest for their key
+    private final Map<Integer, Long> liveBytes = new HashMap<>();
+    private final Object compaction = new Object();
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "omdb-store-compaction");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder compacted = new LongAdder();
+    private volatile boolean open;
+
+    @Autowired
+    public OmdbResponseStore(@Value("${omdb.store.directory:omdb-responses}") String directory,
+                             @Value("${omdb.store.mode:record}") String mode,
+                             @Value("${omdb.store.ttl-hours:168}") long ttlHours,
+                             @Value("${omdb.store.segment-bytes:67108864}") long segmentBytes,
+                             @Value("${omdb.store.compact-below:0.5}") double compactBelow){
+        this(Path.of(directory), Mode.valueOf(mode.toUpperCase(Locale.ROOT)), Duration.ofHours(ttlHours), segmentBytes,
+                compactBelow, Clock.systemUTC());
+    }
+
+    OmdbResponseStore(Path directory, Mode mode, Duration ttl, long segmentBytes, double compactBelow, Clock clock){
+        if(compactBelow < 0 || compactBelow > 1){
+            throw new IllegalArgumentException("compact-below must be from 0 to 1: " + compactBelow);
+        }
+        this.directory = directory;
+        this.mode = mode;
+        this.ttlMillis = ttl.toMillis();
+        this.segmentBytes = segmentBytes;
+        this.compactBelow = compactBelow;
+        this.clock = clock;
+    }
+
+    public Mode mode(){
+        return mode;
+    }
+
+    /**
+     * The key a request is stored under: its query without the API key, so responses survive a new key or base URL.
+     */
+    public static String key(URI uri){
+        String query = uri.getRawQuery();
+        if(query == null){
+            return "";
+        }
+        return Stream.of(query.split("&"))
+                .filter(parameter -> !parameter.isEmpty() && !parameter.startsWith("apikey="))
+                .collect(Collectors.joining("&"));
+    }
+
+    /**
+     * Returns the stored body for a key if this mode may serve it: any stored body when replaying, one younger
+     * than the TTL when recording, never when off.
+     */
+    public byte[] lookup(String key){
+        if(mode == Mode.OFF){
+            return null;
+        }
+        ensureOpen();
+        while(true){
+            Location location = index.get(key);
+            if(location == null || (mode == Mode.RECORD && clock.millis() - location.fetchedAt > ttlMillis)){
+                misses.increment();
+                return null;
+            }
+            byte[] body = read(location);
+            if(body != null){
+                hits.increment();
+                return body;
+            }
+            // compacted while it was read, the index holds its new location
+        }
+    }
+
+    /**
+     * Appends a response body, replacing what was stored for the key.
+     */
+    public void put(String key, byte[] body){
+        if(mode == Mode.OFF){
+            return;
+        }
+        ensureOpen();
+        byte[] compressed = gzip(body);
+        long fetchedAt = clock.millis();
+        synchronized(this){
+            try {
+                append(key, compressed, fetchedAt);
+                writes.increment();
+            } catch (IOException e) {
+                // the response was fetched all the same, only its copy is lost
+                logger.error("Error writing to the OMDb response store in " + directory, e);
+            }
+        }
+    }
+
+    // Appends a record to the last segment, moving on to a new one when it is full, and indexes it
+    private void append(String key, byte[] compressed, long fetchedAt) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(keyBytes);
+        crc.update(compressed);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + keyBytes.length + compressed.length)
+                .putInt(keyBytes.length).put(keyBytes).putLong(fetchedAt).putInt(compressed.length)
+                .putLong(crc.getValue()).put(compressed)
+                .flip();
+        Map.Entry<Integer, FileChannel> last = segments.lastEntry();
+        int number = last.getKey();
+        FileChannel segment = last.getValue();
+        if(segment.size() > 0 && segment.size() + record.remaining() > segmentBytes){
+            number++;
+            segment = openSegment(number);
+            if(!compactor.isShutdown()){
+                compactor.execute(this::compact);
+            }
+        }
+        long position = segment.size();
+        int length = record.remaining();
+        while(record.hasRemaining()){
+            segment.write(record, position + record.position());
+        }
+        index(key, new Location(number, position + HEADER_BYTES + keyBytes.length, compressed.length, fetchedAt, length));
+    }
+
+    // Points a key at a record, the record it replaces is no longer live
+    private void index(String key, Location location){
+        Location previous = index.put(key, location);
+        if(previous != null){
+            liveBytes.merge(previous.segment, -(long) previous.recordLength, Long::sum);
+        }
+        liveBytes.merge(location.segment, (long) location.recordLength, Long::sum);
+    }
+
+    /**
+     * Compacts the full segments holding less than {@code compact-below} of live records: their live records are
+     * appended to the last segment and the segment file is deleted. The records are written again with their
+     * original fetch time, and a crash in between leaves two copies of which the later one is loaded.
+     */
+    public void compact(){
+        if(mode == Mode.OFF){
+            return;
+        }
+        ensureOpen();
+        synchronized(compaction){
+            List<Integer> sparse = new ArrayList<>();
+            synchronized(this){
+                for(Map.Entry<Integer, FileChannel> entry : segments.headMap(segments.lastKey()).entrySet()){
+                    try {
+                        long size = entry.getValue().size();
+                        if(liveBytes.getOrDefault(entry.getKey(), 0L) < size * compactBelow){
+                            sparse.add(entry.getKey());
+                        }
+                    } catch (IOException e) {
+                        // closed
+                    }
+                }
+            }
+            for(int number : sparse){
+                try {
+                    compact(number);
+                } catch (IOException e) {
+                    logger.error("Error compacting OMDb response store segment " + number + " in " + directory, e);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void compact(int number) throws IOException {
+        long live = 0;
+        for(Map.Entry<String, Location> entry : index.entrySet()){
+            Location location = entry.getValue();
+            if(location.segment != number){
+                continue;
+            }
+            byte[] compressed = readCompressed(location);
+            synchronized(this){
+                // a response put meanwhile replaced it
+                if(compressed != null && index.get(entry.getKey()) == location){
+                    append(entry.getKey(), compressed, location.fetchedAt);
+                    live += location.recordLength;
+                }
+            }
+        }
+        synchronized(this){
+            FileChannel segment = segments.remove(number);
+            liveBytes.remove(number);
+            segment.close();
+            Files.delete(segmentFile(number));
+        }
+        compacted.increment();
+        logger.info("Compacted OMDb response store segment " + number + ", kept " + live + " bytes");
+    }
+
+    /**
+     * The keys of every stored response.
+     */
+    public Set<String> keys(){
+        if(mode == Mode.OFF){
+            return Set.of();
+        }
+        ensureOpen();
+        return Set.copyOf(index.keySet());
+    }
+
+    public Stats stats(){
+        long bytes = 0;
+        synchronized(this){
+            for(FileChannel segment : segments.values()){
+                try {
+                    bytes += segment.size();
+                } catch (IOException e) {
+                    // closed
+                }
+            }
+        }
+        return new Stats(mode, index.size(), segments.size(), bytes, hits.sum(), misses.sum(), writes.sum(),
+                compacted.sum());
+    }
+
+    @PreDestroy
+    public void close(){
+        compactor.shutdownNow();
+        synchronized(compaction){
+            closeSegments();
+        }
+    }
+
+    private synchronized void closeSegments(){
+        for(FileChannel segment : segments.values()){
+            try {
+                segment.close();
+            } catch (IOException e) {
+                logger.warn("Error closing OMDb response store segment", e);
+            }
+        }
+        segments.clear();
+        liveBytes.clear();
+        index.clear();
+        open = false;
+    }
+
+    private void ensureOpen(){
+        if(!open){
+            synchronized(this){
+                if(!open){
+                    try {
+                        load();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Error opening the OMDb response store in " + directory, e);
+                    }
+                    open = true;
+                }
+            }
+        }
+    }
+
+    // Indexes the existing segments in order, so later responses for a key replace earlier ones
+    private void load() throws IOException {
+        Files.createDirectories(directory);
+        List<Integer> numbers;
+        try(Stream<Path> files = Files.list(directory)){
+            numbers = files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        if(numbers.isEmpty()){
+            numbers.add(0);
+        }
+        for(int number : numbers){
+            FileChannel segment = openSegment(number);
+            long end = scan(number, segment);
+            if(end < segment.size()){
+                logger.warn("Dropping " + (segment.size() - end) + " bytes of an incomplete record from OMDb response store segment " + number);
+                segment.truncate(end);
+            }
+        }
+        logger.info("OMDb response store in " + directory + " holds " + index.size() + " responses, mode " + mode);
+    }
+
+    private FileChannel openSegment(int number) throws IOException {
+        FileChannel segment = FileChannel.open(segmentFile(number), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        segments.put(number, segment);
+        return segment;
+    }
+
+    private Path segmentFile(int number){
+        return directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    // Returns the end of the last complete record
+    private long scan(int number, FileChannel segment) throws IOException {
+        long position = 0;
+        long size = segment.size();
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+        while(position < size){
+            try {
+                int keyLength = readFully(segment, header.clear(), position).getInt();
+                if(keyLength < 0 || position + HEADER_BYTES + keyLength > size){
+                    return position;
+                }
+                ByteBuffer rest = readFully(segment, ByteBuffer.allocate(keyLength + Long.BYTES + Integer.BYTES + Long.BYTES),
+                        position + Integer.BYTES);
+                byte[] keyBytes = new byte[keyLength];
+                rest.get(keyBytes);
+                long fetchedAt = rest.getLong();
+                int bodyLength = rest.getInt();
+                long checksum = rest.getLong();
+                long bodyOffset = position + HEADER_BYTES + keyLength;
+                if(bodyLength < 0 || bodyOffset + bodyLength > size){
+                    return position;
+                }
+                ByteBuffer body = readFully(segment, ByteBuffer.allocate(bodyLength), bodyOffset);
+                CRC32 crc = new CRC32();
+                crc.update(keyBytes);
+                crc.update(body);
+                if(crc.getValue() != checksum){
+                    return position;
+                }
+                index(new String(keyBytes, StandardCharsets.UTF_8),
+                        new Location(number, bodyOffset, bodyLength, fetchedAt, HEADER_BYTES + keyLength + bodyLength));
+                position = bodyOffset + bodyLength;
+            } catch (EOFException e) {
+                return position;
+            }
+        }
+        return position;
+    }
+
+    // The body at a location, or null if its segment was compacted meanwhile
+    private byte[] read(Location location){
+        try {
+            byte[] compressed = readCompressed(location);
+            if(compressed == null){
+                return null;
+            }
+            try(GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))){
+                return in.readAllBytes();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading from the OMDb response store in " + directory, e);
+        }
+    }
+
+    private byte[] readCompressed(Location location) throws IOException {
+        FileChannel segment;
+        synchronized(this){
+            segment = segments.get(location.segment);
+        }
+        if(segment == null){
+            return null;
+        }
+        try {
+            return readFully(segment, ByteBuffer.allocate(location.length), location.offset).array();
+        } catch (ClosedChannelException e) {
+            return null;
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while(buffer.hasRemaining()){
+            if(channel.read(buffer, position + buffer.position()) < 0){
+                throw new EOFException();
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static byte[] gzip(byte[] body){
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length / 3 + 32);
+        try(GZIPOutputStream out = new GZIPOutputStream(bytes)){
+            out.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static final class Location {
+        private final int segment;
+        private final long offset;
+        private final int length;
+        private final long fetchedAt;
+        private final int recordLength;
+
+        Location(int segment, long offset, int length, long fetchedAt, int recordLength){
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.fetchedAt = fetchedAt;
+            this.recordLength = recordLength;
+        }
+    }
+
+    /**
+     * Size of the store, how often it answered and how many segments were compacted.
+     */
+    @Getter
+    public static class Stats {
+        private final Mode mode;
+        private final int responses;
+        private final int segments;
+        private final long bytes;
+        private final long hits;
+        private final long misses;
+        private final long writes;
+        private final long compacted;
+
+        Stats(Mode mode, int responses, int segments, long bytes, long hits, long misses, long writes, long compacted){
+            this.mode = mode;
+            this.responses = responses;
+            this.segments = segments;
+            this.bytes = bytes;
+            this.hits = hits;
+            this.misses = misses;
+            this.writes = writes;
+            this.compacted = compacted;
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.example.moviebackend.movie;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Helpers for reading the string values returned by the OMDb API.
+ * OMDb uses "N/A" for missing values and comma separated lists for multi valued fields.
+ */
+public final class OmdbValues {
+
+    public static final String NOT_AVAILABLE = "N/A";
+    public static final float NO_RATING = -1.0f;
+
+    private static final Pattern YEAR = Pattern.compile("\\d{4}");
+    private static final Pattern HOURS = Pattern.compile("(\\d+)\\s*h");
+    private static final Pattern MINUTES = Pattern.compile("(\\d+)\\s*min");
+    // the OMDb strings of a movie besides its imdbID and ratings
+    private static final List<Function<MovieEntity, String>> CONTENT = List.of(
+            MovieEntity::getTitle, MovieEntity::getYear, MovieEntity::getRated, MovieEntity::getReleased,
+            MovieEntity::getRuntime, MovieEntity::getGenre, MovieEntity::getDirector, MovieEntity::getWriter,
+            MovieEntity::getActors, MovieEntity::getPlot, MovieEntity::getLanguage, MovieEntity::getCountry,
+            MovieEntity::getAwards, MovieEntity::getPoster, MovieEntity::getMetascore, MovieEntity::getImdbRating,
+            MovieEntity::getImdbVotes, MovieEntity::getType, MovieEntity::getDvd, MovieEntity::getBoxOffice,
+            MovieEntity::getProduction, MovieEntity::getWebsite, MovieEntity::getTotalSeasons);
+
+    private OmdbValues(){
+    }
+
+    /**
+     * Checks whether an OMDb value is present.
+     *
+     * @param value the raw OMDb value
+     * @return false for null, blank or "N/A" values
+     */
+    public static boolean isPresent(String value){
+        return value != null && !value.isBlank() && !NOT_AVAILABLE.equals(value);
+    }
+
+    /**
+     * Parses an imdbRating value such as "7.8".
+     *
+     * @param value the raw OMDb value
+     * @return the rating, or {@link #NO_RATING} if it is missing or malformed
+     */
+    public static float parseRating(String value){
+        if(!isPresent(value)){
+            return NO_RATING;
+        }
+        try {
+            return Float.parseFloat(value);
+        } catch (NumberFormatException e) {
+            return NO_RATING;
+        }
+    }
+
+    /**
+     * Parses a Year value such as "2015" or "2015–2020" (series), using the first year.
+     *
+     * @param value the raw OMDb value
+     * @return the year, or 0 if it is missing or malformed
+     */
+    public static int parseYear(String value){
+        if(!isPresent(value)){
+            return 0;
+        }
+        Matcher matcher = YEAR.matcher(value);
+        return matcher.find() ? Integer.parseInt(matcher.group()) : 0;
+    }
+
+    /**
+     * Parses a Runtime value, either as returned by OMDb ("135 min") or as converted by
+     * {@link MovieService#convertRuntime(String)} ("2h 15min").
+     *
+     * @param value the raw or converted runtime
+     * @return the runtime in minutes, or -1 if it is missing or malformed
+     */
+    public static int parseRuntimeMinutes(String value){
+        if(!isPresent(value)){
+            return -1;
+        }
+        Matcher hours = HOURS.matcher(value);
+        Matcher minutes = MINUTES.matcher(value);
+        boolean hasHours = hours.find();
+        boolean hasMinutes = minutes.find();
+        if(!hasHours && !hasMinutes){
+            return -1;
+        }
+        return (hasHours ? Integer.parseInt(hours.group(1)) * 60 : 0) + (hasMinutes ? Integer.parseInt(minutes.group(1)) : 0);
+    }
+
+    /**
+     * Parses a number with thousands separators or a currency sign, such as imdbVotes ("1,234,567")
+     * or BoxOffice ("$12,345").
+     *
+     * @param value the raw OMDb value
+     * @return the number, or -1 if it is missing or malformed
+     */
+    public static long parseCount(String value){
+        if(!isPresent(value)){
+            return -1;
+        }
+        String digits = value.replaceAll("[^0-9]", "");
+        if(digits.isEmpty() || digits.length() > 18){
+            return -1;
+        }
+        return Long.parseLong(digits);
+    }
+
+    /**
+     * Splits a comma separated OMDb list ("Action, Crime, Drama") into lower-cased tokens.
+     *
+     * @param value the raw OMDb value
+     * @return the tokens, empty if the value is missing
+     */
+    public static List<String> tokenize(String value){
+        if(!isPresent(value)){
+            return Collections.emptyList();
+        }
+        List<String> tokens = new ArrayList<>();
+        for(String part : value.split(",")){
+            String token = part.trim().toLowerCase(Locale.ROOT);
+            if(!token.isEmpty() && !"n/a".equals(token)){
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Fills in the typed columns of a movie from its OMDb strings, using null for missing values.
+     *
+     * @param movie the movie
+     */
+    public static void normalise(MovieEntity movie){
+        int year = parseYear(movie.getYear());
+        float rating = parseRating(movie.getImdbRating());
+        long votes = parseCount(movie.getImdbVotes());
+        int runtime = parseRuntimeMinutes(movie.getRuntime());
+        long metascore = parseCount(movie.getMetascore());
+        long boxOffice = parseCount(movie.getBoxOffice());
+        movie.setYearStart(year == 0 ? null : year);
+        movie.setImdbRatingValue(rating == NO_RATING ? null : rating);
+        movie.setImdbVotesCount(votes < 0 ? null : votes);
+        movie.setRuntimeMinutes(runtime < 0 ? null : runtime);
+        movie.setMetascoreValue(metascore < 0 || metascore > 100 ? null : (int) metascore);
+        movie.setBoxOfficeAmount(boxOffice < 0 ? null : boxOffice);
+        movie.setHasPoster(isPresent(movie.getPoster()));
+    }
+
+    /**
+     * Checks whether a movie has been normalised, movies saved before the typed columns existed have not.
+     *
+     * @param movie the movie
+     * @return true if the typed columns are filled in
+     */
+    public static boolean isNormalised(MovieEntity movie){
+        return movie.getHasPoster() != null;
+    }
+
+    /**
+     * Returns the imdbRating of a movie, from the typed column once it is normalised.
+     *
+     * @param movie the movie
+     * @return the rating, or {@link #NO_RATING} if it is missing
+     */
+    public static float rating(MovieEntity movie){
+        if(isNormalised(movie)){
+            return movie.getImdbRatingValue() == null ? NO_RATING : movie.getImdbRatingValue();
+        }
+        return parseRating(movie.getImdbRating());
+    }
+
+    /**
+     * Returns the first release year of a movie, from the typed column once it is normalised.
+     *
+     * @param movie the movie
+     * @return the year, or 0 if it is missing
+     */
+    public static int year(MovieEntity movie){
+        if(isNormalised(movie)){
+            return movie.getYearStart() == null ? 0 : movie.getYearStart();
+        }
+        return parseYear(movie.getYear());
+    }
+
+    /**
+     * Returns the imdbVotes of a movie, from the typed column once it is normalised.
+     *
+     * @param movie the movie
+     * @return the number of votes, or -1 if it is missing
+     */
+    public static long votes(MovieEntity movie){
+        if(isNormalised(movie)){
+            return movie.getImdbVotesCount() == null ? -1 : movie.getImdbVotesCount();
+        }
+        return parseCount(movie.getImdbVotes());
+    }
+
+    /**
+     * Returns the runtime of a movie in minutes, from the typed column once it is normalised.
+     *
+     * @param movie the movie
+     * @return the runtime, or -1 if it is missing
+     */
+    public static int runtimeMinutes(MovieEntity movie){
+        if(isNormalised(movie)){
+            return movie.getRuntimeMinutes() == null ? -1 : movie.getRuntimeMinutes();
+        }
+        return parseRuntimeMinutes(movie.getRuntime());
+    }
+
+    /**
+     * Checks whether a movie has a usable poster.
+     *
+     * @param movie the movie
+     * @return true if the poster is present
+     */
+    public static boolean hasPoster(MovieEntity movie){
+        if(isNormalised(movie)){
+            return movie.getHasPoster();
+        }
+        return isPresent(movie.getPoster());
+    }
+
+    /**
+     * Checks whether two movies hold the same OMDb values and ratings, counting a value missing alike whether it
+     * is null or "N/A".
+     *
+     * @param movie the stored movie
+     * @param other the movie as fetched again
+     * @return true if writing the other over the movie would change nothing
+     */
+    public static boolean sameContent(MovieEntity movie, MovieEntity other){
+        for(Function<MovieEntity, String> value : CONTENT){
+            if(!sameValue(value.apply(movie), value.apply(other))){
+                return false;
+            }
+        }
+        List<RatingEntity> ratings = movie.getRatings() == null ? List.of() : movie.getRatings();
+        List<RatingEntity> otherRatings = other.getRatings() == null ? List.of() : other.getRatings();
+        if(ratings.size() != otherRatings.size()){
+            return false;
+        }
+        for(int i = 0; i < ratings.size(); i++){
+            if(!sameValue(ratings.get(i).getSource(), otherRatings.get(i).getSource())
+                    || !sameValue(ratings.get(i).getValue(), otherRatings.get(i).getValue())){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether two normalised movies have the same typed columns.
+     *
+     * @param movie the stored movie
+     * @param other the movie as fetched again
+     * @return true if normalising the other gave what is stored for the movie
+     */
+    public static boolean sameTypedValues(MovieEntity movie, MovieEntity other){
+        return Objects.equals(movie.getYearStart(), other.getYearStart())
+                && Objects.equals(movie.getImdbRatingValue(), other.getImdbRatingValue())
+                && Objects.equals(movie.getImdbVotesCount(), other.getImdbVotesCount())
+                && Objects.equals(movie.getRuntimeMinutes(), other.getRuntimeMinutes())
+                && Objects.equals(movie.getMetascoreValue(), other.getMetascoreValue())
+                && Objects.equals(movie.getBoxOfficeAmount(), other.getBoxOfficeAmount())
+                && Objects.equals(movie.getHasPoster(), other.getHasPoster());
+    }
+
+    /**
+     * Copies the OMDb values and ratings of a movie fetched again onto the stored one. The typed columns are not
+     * touched, normalise the movie afterwards.
+     *
+     * @param from the movie as fetched again
+     * @param to   the stored movie
+     */
+    public static void copyContent(MovieEntity from, MovieEntity to){
+        to.setTitle(from.getTitle());
+        to.setYear(from.getYear());
+        to.setRated(from.getRated());
+        to.setReleased(from.getReleased());
+        to.setRuntime(from.getRuntime());
+        to.setGenre(from.getGenre());
+        to.setDirector(from.getDirector());
+        to.setWriter(from.getWriter());
+        to.setActors(from.getActors());
+        to.setPlot(from.getPlot());
+        to.setLanguage(from.getLanguage());
+        to.setCountry(from.getCountry());
+        to.setAwards(from.getAwards());
+        to.setPoster(from.getPoster());
+        to.setMetascore(from.getMetascore());
+        to.setImdbRating(from.getImdbRating());
+        to.setImdbVotes(from.getImdbVotes());
+        to.setType(from.getType());
+        to.setDvd(from.getDvd());
+        to.setBoxOffice(from.getBoxOffice());
+        to.setProduction(from.getProduction());
+        to.setWebsite(from.getWebsite());
+        to.setTotalSeasons(from.getTotalSeasons());
+        // the stored list is kept, so ratings no longer returned are deleted as orphans
+        if(to.getRatings() == null){
+            to.setRatings(new ArrayList<>());
+        }
+        to.getRatings().clear();
+        if(from.getRatings() != null){
+            to.getRatings().addAll(from.getRatings());
+        }
+    }
+
+    /**
+     * Counts the OMDb values a movie is missing, out of those it could have besides its imdbID and ratings.
+     *
+     * @param movie the movie
+     * @return the share of values missing, from 0 to 1
+     */
+    public static double missingShare(MovieEntity movie){
+        int missing = 0;
+        for(Function<MovieEntity, String> value : CONTENT){
+            if(!isPresent(value.apply(movie))){
+                missing++;
+            }
+        }
+        return missing / (double) CONTENT.size();
+    }
+
+    private static boolean sameValue(String value, String other){
+        return Objects.equals(isPresent(value) ? value : null, isPresent(other) ? other : null);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.moviebackend.movie;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+
+/**
+ * What crawling a search word yielded, or the priority of a longer word queued to be crawled because a shorter
+ * one it extends was productive, see {@link CrawlQueue}.
+ */
+@Entity(name = "prefix_yields")
+@Table(name = "prefix_yields", indexes = {
+        @Index(name = "idx_prefix_yields_crawled_at_priority", columnList = "crawled_at, priority")
+})
+@Getter
+@Setter
+public class PrefixYieldEntity implements Persistable<String> {
+
+    @Id
+    @Column(name = "prefix")
+    private String prefix;
+
+    // queued as an extension of a productive word, rather than reached in the frontier
+    @Column(name = "expansion")
+    private boolean expansion;
+
+    // new movies per request expected of a queued word, the yield of the word it extends
+    @Column(name = "priority")
+    private double priority;
+
+    // null while queued
+    @Column(name = "crawled_at")
+    private Long crawledAt;
+
+    @Column(name = "total_results")
+    private int totalResults;
+
+    @Column(name = "requests")
+    private int requests;
+
+    @Column(name = "new_movies")
+    private int newMovies;
+
+    // the instance that claimed a queued word, and until when
+    @Column(name = "owner")
+    @JsonIgnore
+    private String owner;
+
+    @Column(name = "lease_expires_at")
+    @JsonIgnore
+    private long leaseExpiresAt;
+
+    // Set for rows created here, so saving inserts them and fails on a row another instance created meanwhile
+    @Transient
+    @JsonIgnore
+    private boolean newPrefix;
+
+    @Override
+    @JsonIgnore
+    public String getId(){
+        return prefix;
+    }
+
+    @Override
+    @JsonIgnore
+    public boolean isNew(){
+        return newPrefix;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markStored(){
+        newPrefix = false;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.moviebackend.movie;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PrefixYieldRepository extends JpaRepository<PrefixYieldEntity, String> {
+
+    // queued words nobody holds a live claim on, highest priority first
+    @Query("SELECT p FROM prefix_yields p WHERE p.crawledAt IS NULL AND (p.owner IS NULL OR p.leaseExpiresAt < :now) "
+            + "ORDER BY p.priority DESC, p.prefix")
+    List<PrefixYieldEntity> findClaimable(@Param("now") long now, Pageable pageable);
+
+    // compare-and-set claim of a queued word, also renewing a claim the owner still holds
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE prefix_yields p SET p.owner = :owner, p.leaseExpiresAt = :expiresAt WHERE p.prefix = :prefix "
+            + "AND p.crawledAt IS NULL AND (p.owner IS NULL OR p.owner = :owner OR p.leaseExpiresAt < :now)")
+    int claim(@Param("prefix") String prefix, @Param("owner") String owner, @Param("expiresAt") long expiresAt,
+              @Param("now") long now);
+
+    // records the yield of a word that has a row, queued or crawled before
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE prefix_yields p SET p.totalResults = :totalResults, p.requests = :requests, p.newMovies = :newMovies, "
+            + "p.crawledAt = :now, p.owner = NULL WHERE p.prefix = :prefix")
+    int record(@Param("prefix") String prefix, @Param("totalResults") int totalResults, @Param("requests") int requests,
+               @Param("newMovies") int newMovies, @Param("now") long now);
+
+    @Query("SELECT COUNT(p) FROM prefix_yields p WHERE p.prefix = :prefix AND p.crawledAt IS NOT NULL")
+    long countCrawled(@Param("prefix") String prefix);
+
+    @Query("SELECT p.prefix FROM prefix_yields p WHERE p.prefix IN :prefixes")
+    List<String> findExisting(@Param("prefixes") Collection<String> prefixes);
+
+    // (words, new movies, requests) of the crawled words, from the frontier or queued as expansions
+    @Query("SELECT COUNT(p), COALESCE(SUM(p.newMovies), 0), COALESCE(SUM(p.requests), 0) FROM prefix_yields p "
+            + "WHERE p.crawledAt IS NOT NULL AND p.expansion = :expansion")
+    List<Object[]> totals(@Param("expansion") boolean expansion);
+
+    @Query("SELECT COUNT(p) FROM prefix_yields p WHERE p.crawledAt IS NULL")
+    long countQueued();
+
+    // the most productive crawled words
+    @Query("SELECT p FROM prefix_yields p WHERE p.crawledAt IS NOT NULL ORDER BY p.newMovies DESC, p.prefix")
+    List<PrefixYieldEntity> findMostProductive(Pageable pageable);
+}
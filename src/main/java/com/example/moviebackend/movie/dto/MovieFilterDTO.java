@@ -0,0 +1,26 @@
+package com.example.moviebackend.movie.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Filter criteria of /movies/filter, bound from the query string.
+ * Several values of one facet are alternatives, different facets must all match.
+ */
+@Getter
+@Setter
+public class MovieFilterDTO {
+    List<String> genre;
+    List<String> language;
+    List<String> country;
+    List<String> type;
+    List<String> rated;
+    Integer yearFrom;
+    Integer yearTo;
+    Float minRating;
+    Float maxRating;
+    int offset = 0;
+    int limit = 20;
+}
@@ -0,0 +1,358 @@
+package com.example.moviebackend.movie.index;
+
+import com.example.moviebackend.movie.MovieCatalogChangedEvent;
+import com.example.moviebackend.movie.MovieEntity;
+import com.example.moviebackend.movie.OmdbValues;
+import com.example.moviebackend.movie.dto.MovieFilterDTO;
+import lombok.Getter;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Bitmap index answering combined filters on genre, language, country, type, rated, year and rating,
+ * together with the facet counts of the result.
+ * Every movie gets a dense row number. Each facet value has a compressed bitmap of its rows, and year and
+ * rating are range encoded: the bitmap of a value holds every row whose value is at most that value, so
+ * any range is a single AND NOT of two bitmaps. Facet counts are disjunctive: the counts of a facet apply
+ * every filter except the facet's own, so selecting a genre still shows how many movies the other genres have.
+ */
+@Component
+public class FacetIndex {
+
+    public static final String YEAR = "year";
+    public static final String RATING = "rating";
+
+    public enum Facet {
+        GENRE(MovieEntity::getGenre, MovieFilterDTO::getGenre),
+        LANGUAGE(MovieEntity::getLanguage, MovieFilterDTO::getLanguage),
+        COUNTRY(MovieEntity::getCountry, MovieFilterDTO::getCountry),
+        TYPE(MovieEntity::getType, MovieFilterDTO::getType),
+        RATED(MovieEntity::getRated, MovieFilterDTO::getRated);
+
+        private final Function<MovieEntity, String> movieValue;
+        private final Function<MovieFilterDTO, List<String>> selected;
+
+        Facet(Function<MovieEntity, String> movieValue, Function<MovieFilterDTO, List<String>> selected){
+            this.movieValue = movieValue;
+            this.selected = selected;
+        }
+
+        public String valueOf(MovieEntity movie){
+            return movieValue.apply(movie);
+        }
+
+        public String key(){
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> rowById = new HashMap<>();
+    private final List<MovieEntity> movies = new ArrayList<>();
+    private long[] votes = new long[1024];
+    private final RoaringBitmap all = new RoaringBitmap();
+
+    private final Map<Facet, Map<String, RoaringBitmap>> values = new EnumMap<>(Facet.class);
+    private final Map<Facet, Map<String, String>> labels = new EnumMap<>(Facet.class);
+    private final RangeBitmaps years = new RangeBitmaps();
+    // ratings in tenths, 7.5 is stored as 75
+    private final RangeBitmaps ratings = new RangeBitmaps();
+
+    public FacetIndex(){
+        for(Facet facet : Facet.values()){
+            values.put(facet, new HashMap<>());
+            labels.put(facet, new HashMap<>());
+        }
+    }
+
+    @EventListener
+    public void onCatalogChanged(MovieCatalogChangedEvent event){
+        lock.writeLock().lock();
+        try {
+            for(MovieEntity movie : event.getMovies()){
+                add(movie);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(MovieEntity movie){
+        Integer existing = rowById.get(movie.getImdbID());
+        int row;
+        if(existing != null){
+            row = existing;
+            unlink(row, movies.get(row));
+            movies.set(row, movie);
+        } else {
+            row = movies.size();
+            movies.add(movie);
+            rowById.put(movie.getImdbID(), row);
+            if(row == votes.length){
+                votes = Arrays.copyOf(votes, votes.length * 2);
+            }
+            all.add(row);
+        }
+        votes[row] = OmdbValues.votes(movie);
+
+        for(Facet facet : Facet.values()){
+            String raw = facet.valueOf(movie);
+            for(String token : OmdbValues.tokenize(raw)){
+                values.get(facet).computeIfAbsent(token, key -> new RoaringBitmap()).add(row);
+                labels.get(facet).putIfAbsent(token, label(raw, token));
+            }
+        }
+        int year = OmdbValues.year(movie);
+        if(year > 0){
+            years.add(row, year);
+        }
+        int rating = tenths(movie);
+        if(rating >= 0){
+            ratings.add(row, rating);
+        }
+    }
+
+    private void unlink(int row, MovieEntity previous){
+        for(Facet facet : Facet.values()){
+            for(String token : OmdbValues.tokenize(facet.valueOf(previous))){
+                RoaringBitmap bitmap = values.get(facet).get(token);
+                if(bitmap != null){
+                    bitmap.remove(row);
+                }
+            }
+        }
+        int year = OmdbValues.year(previous);
+        if(year > 0){
+            years.remove(row, year);
+        }
+        int rating = tenths(previous);
+        if(rating >= 0){
+            ratings.remove(row, rating);
+        }
+    }
+
+    // The value as first seen in the catalog, "Comedy" rather than "comedy"
+    private static String label(String raw, String token){
+        for(String part : raw.split(",")){
+            if(part.trim().toLowerCase(Locale.ROOT).equals(token)){
+                return part.trim();
+            }
+        }
+        return token;
+    }
+
+    private static int tenths(MovieEntity movie){
+        float rating = OmdbValues.rating(movie);
+        return rating < 0 ? -1 : Math.round(rating * 10);
+    }
+
+    /**
+     * Filters the catalog and counts the facet values of the result.
+     *
+     * @param filter the criteria, missing criteria do not restrict the result
+     * @return the number of matches, the requested page ordered by imdbVotes and the facet counts
+     */
+    public Result filter(MovieFilterDTO filter){
+        lock.readLock().lock();
+        try {
+            // one bitmap per criterion, null when the criterion is not set
+            Map<String, RoaringBitmap> criteria = new LinkedHashMap<>();
+            for(Facet facet : Facet.values()){
+                criteria.put(facet.key(), selected(facet, facet.selected.apply(filter)));
+            }
+            criteria.put(YEAR, filter.getYearFrom() == null && filter.getYearTo() == null ? null
+                    : years.between(filter.getYearFrom(), filter.getYearTo()));
+            criteria.put(RATING, filter.getMinRating() == null && filter.getMaxRating() == null ? null
+                    : ratings.between(filter.getMinRating() == null ? null : (int) Math.ceil(filter.getMinRating() * 10 - 1e-3),
+                    filter.getMaxRating() == null ? null : (int) Math.floor(filter.getMaxRating() * 10 + 1e-3)));
+
+            RoaringBitmap matches = intersect(criteria, null);
+            Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+            for(Facet facet : Facet.values()){
+                RoaringBitmap base = intersect(criteria, facet.key());
+                Map<String, Integer> counts = new HashMap<>();
+                for(Map.Entry<String, RoaringBitmap> value : values.get(facet).entrySet()){
+                    int count = RoaringBitmap.andCardinality(base, value.getValue());
+                    if(count > 0){
+                        counts.put(labels.get(facet).get(value.getKey()), count);
+                    }
+                }
+                facets.put(facet.key(), byCountDescending(counts));
+            }
+            facets.put(YEAR, yearCounts(intersect(criteria, YEAR)));
+            facets.put(RATING, ratingCounts(intersect(criteria, RATING)));
+
+            return new Result(matches.getCardinality(), page(matches, filter.getOffset(), filter.getLimit()), facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private RoaringBitmap selected(Facet facet, Collection<String> selected){
+        if(selected == null || selected.isEmpty()){
+            return null;
+        }
+        RoaringBitmap union = new RoaringBitmap();
+        for(String value : selected){
+            for(String token : OmdbValues.tokenize(value)){
+                RoaringBitmap bitmap = values.get(facet).get(token);
+                if(bitmap != null){
+                    union.or(bitmap);
+                }
+            }
+        }
+        return union;
+    }
+
+    // AND of every criterion except the excluded one
+    private RoaringBitmap intersect(Map<String, RoaringBitmap> criteria, String excluded){
+        RoaringBitmap result = all.clone();
+        for(Map.Entry<String, RoaringBitmap> criterion : criteria.entrySet()){
+            if(criterion.getValue() != null && !criterion.getKey().equals(excluded)){
+                result.and(criterion.getValue());
+            }
+        }
+        return result;
+    }
+
+    private Map<String, Integer> yearCounts(RoaringBitmap base){
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for(int year : years.values().descendingKeySet()){
+            int count = years.count(base, year, year);
+            if(count > 0){
+                counts.put(String.valueOf(year), count);
+            }
+        }
+        return counts;
+    }
+
+    // Counts per whole star, "7" counts ratings from 7.0 to 7.9
+    private Map<String, Integer> ratingCounts(RoaringBitmap base){
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for(int star = 10; star >= 0; star--){
+            int count = ratings.count(base, star * 10, star * 10 + 9);
+            if(count > 0){
+                counts.put(String.valueOf(star), count);
+            }
+        }
+        return counts;
+    }
+
+    private static Map<String, Integer> byCountDescending(Map<String, Integer> counts){
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(counts.entrySet());
+        entries.sort(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        Map<String, Integer> sorted = new LinkedHashMap<>();
+        for(Map.Entry<String, Integer> entry : entries){
+            sorted.put(entry.getKey(), entry.getValue());
+        }
+        return sorted;
+    }
+
+    // The requested page of the matches ordered by imdbVotes, keeping only offset + limit rows in a heap
+    private List<MovieEntity> page(RoaringBitmap matches, int offset, int limit){
+        int wanted = offset + limit;
+        if(limit <= 0 || wanted <= 0){
+            return List.of();
+        }
+        Comparator<Integer> byVotes = Comparator.<Integer>comparingLong(row -> votes[row])
+                .thenComparing(row -> movies.get(row).getImdbID(), Comparator.reverseOrder());
+        PriorityQueue<Integer> best = new PriorityQueue<>(byVotes);
+        IntIterator rows = matches.getIntIterator();
+        while(rows.hasNext()){
+            int row = rows.next();
+            if(best.size() < wanted){
+                best.add(row);
+            } else if(byVotes.compare(row, best.peek()) > 0){
+                best.poll();
+                best.add(row);
+            }
+        }
+        List<Integer> ordered = new ArrayList<>(best);
+        ordered.sort(byVotes.reversed());
+        List<MovieEntity> page = new ArrayList<>();
+        for(int i = offset; i < ordered.size(); i++){
+            page.add(movies.get(ordered.get(i)));
+        }
+        return page;
+    }
+
+    @Getter
+    public static final class Result {
+        private final int total;
+        private final List<MovieEntity> movies;
+        private final Map<String, Map<String, Integer>> facets;
+
+        Result(int total, List<MovieEntity> movies, Map<String, Map<String, Integer>> facets){
+            this.total = total;
+            this.movies = movies;
+            this.facets = facets;
+        }
+    }
+
+    /**
+     * Range encoded bitmaps: the bitmap of a value holds the rows whose value is at most that value.
+     */
+    static final class RangeBitmaps {
+        private final TreeMap<Integer, RoaringBitmap> atMost = new TreeMap<>();
+
+        void add(int row, int value){
+            if(!atMost.containsKey(value)){
+                Map.Entry<Integer, RoaringBitmap> lower = atMost.lowerEntry(value);
+                atMost.put(value, lower == null ? new RoaringBitmap() : lower.getValue().clone());
+            }
+            for(RoaringBitmap bitmap : atMost.tailMap(value, true).values()){
+                bitmap.add(row);
+            }
+        }
+
+        void remove(int row, int value){
+            for(RoaringBitmap bitmap : atMost.tailMap(value, true).values()){
+                bitmap.remove(row);
+            }
+        }
+
+        NavigableMap<Integer, RoaringBitmap> values(){
+            return atMost;
+        }
+
+        private RoaringBitmap atMost(int value){
+            Map.Entry<Integer, RoaringBitmap> entry = atMost.floorEntry(value);
+            return entry == null ? new RoaringBitmap() : entry.getValue();
+        }
+
+        /**
+         * Rows with a value in [lo, hi], either bound may be null.
+         */
+        RoaringBitmap between(Integer lo, Integer hi){
+            RoaringBitmap upTo = hi == null ? (atMost.isEmpty() ? new RoaringBitmap() : atMost.lastEntry().getValue()) : atMost(hi);
+            return lo == null ? upTo.clone() : RoaringBitmap.andNot(upTo, atMost(lo - 1));
+        }
+
+        /**
+         * Number of rows of base with a value in [lo, hi].
+         */
+        int count(RoaringBitmap base, int lo, int hi){
+            return RoaringBitmap.andCardinality(base, atMost(hi)) - RoaringBitmap.andCardinality(base, atMost(lo - 1));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.moviebackend.movie.index;
+
+import com.example.moviebackend.movie.MovieEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Materialised "latest releases" ranking: movies with a poster released in the last two years, best rated first.
+ * The ranking is an immutable list built from the current {@link MovieCatalogSnapshot} by the first request after
+ * the catalog changed or the year rolled over, so serving a page is a sublist of a precomputed list.
+ */
+@Component
+public class LatestReleasesRanking {
+
+    // movies released from this many years ago count as latest releases
+    private static final int YEARS_BACK = 2;
+
+    private final MovieCatalog movieCatalog;
+    private final Clock clock;
+    private volatile Ranking ranking;
+
+    @Autowired
+    public LatestReleasesRanking(MovieCatalog movieCatalog){
+        this(movieCatalog, Clock.systemDefaultZone());
+    }
+
+    LatestReleasesRanking(MovieCatalog movieCatalog, Clock clock){
+        this.movieCatalog = movieCatalog;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns a page of the ranking.
+     *
+     * @param offset the number of movies to skip
+     * @param limit  the maximum number of movies to return
+     */
+    public List<MovieEntity> page(int offset, int limit){
+        List<MovieEntity> movies = current().movies;
+        int from = Math.min(offset, movies.size());
+        int to = (int) Math.min((long) from + limit, movies.size());
+        return movies.subList(from, to);
+    }
+
+    public int size(){
+        return current().movies.size();
+    }
+
+    /**
+     * The first year of the ranking, two years before the current one.
+     */
+    public int sinceYear(){
+        return Year.now(clock).getValue() - YEARS_BACK;
+    }
+
+    // The ranking for the current snapshot and year, rebuilt if either changed since the last build
+    private Ranking current(){
+        Ranking current = ranking;
+        MovieCatalogSnapshot snapshot = movieCatalog.snapshot();
+        int sinceYear = sinceYear();
+        if(current != null && current.snapshot == snapshot && current.sinceYear == sinceYear){
+            return current;
+        }
+        synchronized(this){
+            current = ranking;
+            if(current == null || current.snapshot != snapshot || current.sinceYear != sinceYear){
+                current = new Ranking(snapshot, sinceYear);
+                ranking = current;
+            }
+            return current;
+        }
+    }
+
+    private static final class Ranking {
+        private final MovieCatalogSnapshot snapshot;
+        private final int sinceYear;
+        private final List<MovieEntity> movies;
+
+        Ranking(MovieCatalogSnapshot snapshot, int sinceYear){
+            this.snapshot = snapshot;
+            this.sinceYear = sinceYear;
+            int[] rows = snapshot.sortByRatingDescending(snapshot.rowsReleasedSince(sinceYear, true));
+            List<MovieEntity> movies = new ArrayList<>(rows.length);
+            for(int row : rows){
+                movies.add(snapshot.movie(row));
+            }
+            this.movies = Collections.unmodifiableList(movies);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.moviebackend.movie.index;
+
+import com.example.moviebackend.movie.MovieEntity;
+import com.example.moviebackend.movie.OmdbValues;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * MinHash signatures over the people and genres of a movie.
+ * The hash functions are fixed, so a signature computed before a restart stays valid after it
+ * and can be persisted together with the movie.
+ */
+public final class MinHash {
+
+    public static final int NUM_HASHES = 64;
+    // 16 bands of 4 rows put the LSH threshold, (1/b)^(1/r), at a Jaccard similarity of 0.5, so a shared genre
+    // alone rarely makes two movies candidates; with 2-row bands it sat around 0.18
+    public static final int BANDS = 16;
+    public static final int ROWS_PER_BAND = NUM_HASHES / BANDS;
+
+    private static final long[] SEEDS = new long[NUM_HASHES];
+
+    static {
+        long seed = 0x9E3779B97F4A7C15L;
+        for(int i = 0; i < NUM_HASHES; i++){
+            seed = mix(seed + 0x9E3779B97F4A7C15L);
+            SEEDS[i] = seed;
+        }
+    }
+
+    private MinHash(){
+    }
+
+    /**
+     * Returns the features a movie's signature is computed over:
+     * its actors, directors, writers and genres, each prefixed by its role.
+     *
+     * @param movie the movie
+     * @return the feature set
+     */
+    public static Set<String> features(MovieEntity movie){
+        Set<String> features = new HashSet<>();
+        for(String actor : OmdbValues.tokenize(movie.getActors())){
+            features.add("a:" + actor);
+        }
+        for(String director : OmdbValues.tokenize(movie.getDirector())){
+            features.add("d:" + director);
+        }
+        for(String writer : OmdbValues.tokenize(movie.getWriter())){
+            features.add("w:" + writer);
+        }
+        for(String genre : OmdbValues.tokenize(movie.getGenre())){
+            features.add("g:" + genre);
+        }
+        return features;
+    }
+
+    /**
+     * Computes the MinHash signature of a movie.
+     *
+     * @param movie the movie
+     * @return the signature, all components are Integer.MAX_VALUE if the movie has no features
+     */
+    public static int[] signature(MovieEntity movie){
+        int[] signature = new int[NUM_HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for(String feature : features(movie)){
+            long base = hash(feature);
+            for(int i = 0; i < NUM_HASHES; i++){
+                int value = (int) (mix(base ^ SEEDS[i]) >>> 33);
+                if(value < signature[i]){
+                    signature[i] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Estimates the Jaccard similarity of two feature sets from their signatures.
+     *
+     * @return the share of equal signature components
+     */
+    public static float similarity(int[] a, int[] b){
+        int equal = 0;
+        for(int i = 0; i < NUM_HASHES; i++){
+            if(a[i] == b[i] && a[i] != Integer.MAX_VALUE){
+                equal++;
+            }
+        }
+        return (float) equal / NUM_HASHES;
+    }
+
+    /**
+     * Returns the LSH bucket key of one band of a signature.
+     */
+    public static long bandKey(int[] signature, int band){
+        long key = band;
+        for(int i = band * ROWS_PER_BAND; i < (band + 1) * ROWS_PER_BAND; i++){
+            key = mix(key * 31 + signature[i]);
+        }
+        return key;
+    }
+
+    public static byte[] encode(int[] signature){
+        ByteBuffer buffer = ByteBuffer.allocate(NUM_HASHES * Integer.BYTES);
+        for(int value : signature){
+            buffer.putInt(value);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * @return the decoded signature, or null if the bytes do not hold a signature of the current size
+     */
+    public static int[] decode(byte[] bytes){
+        if(bytes == null || bytes.length != NUM_HASHES * Integer.BYTES){
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int[] signature = new int[NUM_HASHES];
+        for(int i = 0; i < NUM_HASHES; i++){
+            signature[i] = buffer.getInt();
+        }
+        return signature;
+    }
+
+    // 64-bit FNV-1a, wider than String.hashCode so distinct features rarely collide
+    private static long hash(String value){
+        long hash = 0xcbf29ce484222325L;
+        for(int i = 0; i < value.length(); i++){
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z){
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
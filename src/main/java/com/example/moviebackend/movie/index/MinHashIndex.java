@@ -0,0 +1,104 @@
+package com.example.moviebackend.movie.index;
+
+import com.example.moviebackend.movie.MovieCatalogChangedEvent;
+import com.example.moviebackend.movie.MovieEntity;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Locality-sensitive hashing index over the MinHash signatures of the catalog.
+ * Each signature is split into {@link MinHash#BANDS} bands and every band is hashed into a bucket,
+ * so movies with overlapping cast, crew and genres are found by looking up the buckets of the target
+ * instead of comparing it with every movie.
+ */
+@Component
+public class MinHashIndex {
+
+    private final Map<String, int[]> signatures = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> buckets = new ConcurrentHashMap<>();
+
+    @EventListener
+    public void onCatalogChanged(MovieCatalogChangedEvent event){
+        for(MovieEntity movie : event.getMovies()){
+            add(movie);
+        }
+    }
+
+    /**
+     * Indexes a movie, using its persisted signature when it has one.
+     *
+     * @param movie the movie to index
+     */
+    public synchronized void add(MovieEntity movie){
+        int[] signature = MinHash.decode(movie.getMinHashSignature());
+        if(signature == null){
+            signature = MinHash.signature(movie);
+        }
+
+        int[] previous = signatures.put(movie.getImdbID(), signature);
+        if(previous != null){
+            for(int band = 0; band < MinHash.BANDS; band++){
+                // drop the buckets the movie was the last one in, they would otherwise pile up as movies change
+                buckets.computeIfPresent(MinHash.bandKey(previous, band), (key, bucket) -> {
+                    bucket.remove(movie.getImdbID());
+                    return bucket.isEmpty() ? null : bucket;
+                });
+            }
+        }
+        if(signature[0] == Integer.MAX_VALUE){
+            // no people or genres to compare on
+            return;
+        }
+        for(int band = 0; band < MinHash.BANDS; band++){
+            buckets.computeIfAbsent(MinHash.bandKey(signature, band), key -> ConcurrentHashMap.newKeySet()).add(movie.getImdbID());
+        }
+    }
+
+    /**
+     * Returns the movies sharing at least one LSH bucket with the given movie,
+     * ordered by their estimated overlap, highest first.
+     *
+     * @param imdbID        the IMDb ID of the movie
+     * @param minSimilarity the minimum estimated Jaccard similarity
+     * @param limit         the maximum number of movies to return
+     * @return the imdbIDs of the overlapping movies
+     */
+    public List<String> similar(String imdbID, float minSimilarity, int limit){
+        int[] signature = signatures.get(imdbID);
+        if(signature == null || signature[0] == Integer.MAX_VALUE){
+            return Collections.emptyList();
+        }
+
+        Map<String, Float> similarities = new HashMap<>();
+        for(int band = 0; band < MinHash.BANDS; band++){
+            Set<String> bucket = buckets.get(MinHash.bandKey(signature, band));
+            if(bucket == null){
+                continue;
+            }
+            for(String candidate : bucket){
+                if(!candidate.equals(imdbID) && !similarities.containsKey(candidate)){
+                    int[] candidateSignature = signatures.get(candidate);
+                    if(candidateSignature != null){
+                        similarities.put(candidate, MinHash.similarity(signature, candidateSignature));
+                    }
+                }
+            }
+        }
+
+        List<String> result = new ArrayList<>();
+        similarities.entrySet().stream()
+                .filter(entry -> entry.getValue() >= minSimilarity)
+                .sorted(Map.Entry.<String, Float>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .forEach(entry -> result.add(entry.getKey()));
+        return result;
+    }
+}
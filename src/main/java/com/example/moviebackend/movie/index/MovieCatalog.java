@@ -0,0 +1,33 @@
+package com.example.moviebackend.movie.index;
+
+import com.example.moviebackend.movie.MovieCatalogChangedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current {@link MovieCatalogSnapshot}.
+ * Readers grab the snapshot once and work on it without locking; after each ingestion a new snapshot
+ * is derived from the current one and swapped in atomically.
+ */
+@Component
+public class MovieCatalog {
+
+    private final AtomicReference<MovieCatalogSnapshot> snapshot = new AtomicReference<>(MovieCatalogSnapshot.EMPTY);
+
+    // runs before the other listeners so the views derived from the snapshot see the change
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onCatalogChanged(MovieCatalogChangedEvent event){
+        if(!event.getMovies().isEmpty()){
+            snapshot.updateAndGet(current -> current.with(event.getMovies()));
+        }
+    }
+
+    public MovieCatalogSnapshot snapshot(){
+        return snapshot.get();
+    }
+}
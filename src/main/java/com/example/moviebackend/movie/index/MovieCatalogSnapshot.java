@@ -0,0 +1,392 @@
+package com.example.moviebackend.movie.index;
+
+import com.example.moviebackend.movie.MovieEntity;
+import com.example.moviebackend.movie.OmdbValues;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable, column oriented copy of the movie catalog.
+ * Numeric OMDb values are parsed once into primitive columns, multi valued fields are dictionary encoded
+ * into int ids, and poster presence is kept in a bitset, so filters and sorts run over primitives.
+ * A new snapshot is derived from the previous one with {@link #with(List)} whenever movies change.
+ * The columns are split into chunks of {@value #CHUNK_SIZE} rows that snapshots share, and deriving a snapshot
+ * only copies the chunks holding a changed row. Rows are never moved or removed, so the row of every imdbID is
+ * kept in one append-only map shared along a line of snapshots, each seeing the rows below its size.
+ */
+public final class MovieCatalogSnapshot {
+
+    public static final MovieCatalogSnapshot EMPTY = new MovieCatalogSnapshot();
+
+    static final int CHUNK_SIZE = 1024;
+    private static final int CHUNK_SHIFT = Integer.numberOfTrailingZeros(CHUNK_SIZE);
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int[] NO_IDS = new int[0];
+
+    private final int size;
+    private final Chunk[] chunks;
+    private final Dictionary genreDictionary;
+    private final Dictionary languageDictionary;
+    private final Dictionary countryDictionary;
+    // shared with the snapshots derived from this one, holds their rows too
+    private final Rows rows;
+
+    private MovieCatalogSnapshot(){
+        this(0, new Chunk[0], Dictionary.EMPTY, Dictionary.EMPTY, Dictionary.EMPTY, new Rows());
+    }
+
+    private MovieCatalogSnapshot(int size, Chunk[] chunks, Dictionary genreDictionary, Dictionary languageDictionary,
+                                 Dictionary countryDictionary, Rows rows){
+        this.size = size;
+        this.chunks = chunks;
+        this.genreDictionary = genreDictionary;
+        this.languageDictionary = languageDictionary;
+        this.countryDictionary = countryDictionary;
+        this.rows = rows;
+    }
+
+    /**
+     * Derives a new snapshot containing the given movies.
+     * Movies already in this snapshot keep their row and are overwritten, new movies are appended.
+     * Only the changed rows are parsed and only the chunks holding them are copied, the others are shared.
+     *
+     * @param changed the added or updated movies
+     * @return the new snapshot, this snapshot is left untouched
+     */
+    public MovieCatalogSnapshot with(List<MovieEntity> changed){
+        Map<String, MovieEntity> unique = new LinkedHashMap<>();
+        for(MovieEntity movie : changed){
+            unique.put(movie.getImdbID(), movie);
+        }
+        synchronized(rows){
+            // a snapshot derived from before holds rows of its own, they go in a copy
+            Rows newRows = rows.size() == size ? rows : rows.below(size);
+            int newSize = size;
+            for(String imdbID : unique.keySet()){
+                if(newRows.row(imdbID, newSize) < 0){
+                    newRows.add(imdbID, newSize++);
+                }
+            }
+
+            Dictionary.Builder genreBuilder = genreDictionary.extend();
+            Dictionary.Builder languageBuilder = languageDictionary.extend();
+            Dictionary.Builder countryBuilder = countryDictionary.extend();
+            Chunk[] newChunks = Arrays.copyOf(chunks, (newSize + CHUNK_MASK) >>> CHUNK_SHIFT);
+            // the chunks copied for this snapshot, written in place
+            boolean[] copied = new boolean[newChunks.length];
+            for(MovieEntity movie : unique.values()){
+                int row = newRows.row(movie.getImdbID(), newSize);
+                int index = row >>> CHUNK_SHIFT;
+                if(!copied[index]){
+                    newChunks[index] = newChunks[index] == null ? new Chunk() : newChunks[index].copy();
+                    copied[index] = true;
+                }
+                newChunks[index].set(row & CHUNK_MASK, movie, genreBuilder, languageBuilder, countryBuilder);
+            }
+            return new MovieCatalogSnapshot(newSize, newChunks, genreBuilder.build(), languageBuilder.build(),
+                    countryBuilder.build(), newRows);
+        }
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public int row(String imdbID){
+        return rows.row(imdbID, size);
+    }
+
+    public String imdbID(int row){
+        return chunk(row).imdbIDs[row & CHUNK_MASK];
+    }
+
+    public MovieEntity movie(int row){
+        return chunk(row).movies[row & CHUNK_MASK];
+    }
+
+    /**
+     * @return the rating of the row, NaN if it has none
+     */
+    public float rating(int row){
+        return chunk(row).rating[row & CHUNK_MASK];
+    }
+
+    /**
+     * @return the (first) release year of the row, 0 if unknown
+     */
+    public int year(int row){
+        return chunk(row).year[row & CHUNK_MASK];
+    }
+
+    /**
+     * @return the runtime of the row in minutes, -1 if unknown
+     */
+    public int runtimeMinutes(int row){
+        return chunk(row).runtimeMinutes[row & CHUNK_MASK];
+    }
+
+    /**
+     * @return the imdbVotes of the row, -1 if unknown
+     */
+    public long votes(int row){
+        return chunk(row).votes[row & CHUNK_MASK];
+    }
+
+    public boolean hasPoster(int row){
+        return chunk(row).posterPresent.get(row & CHUNK_MASK);
+    }
+
+    public int[] genres(int row){
+        int[] ids = chunk(row).genres[row & CHUNK_MASK];
+        return ids == null ? NO_IDS : ids;
+    }
+
+    public int[] languages(int row){
+        int[] ids = chunk(row).languages[row & CHUNK_MASK];
+        return ids == null ? NO_IDS : ids;
+    }
+
+    public int[] countries(int row){
+        int[] ids = chunk(row).countries[row & CHUNK_MASK];
+        return ids == null ? NO_IDS : ids;
+    }
+
+    private Chunk chunk(int row){
+        if(row < 0 || row >= size){
+            throw new IndexOutOfBoundsException("row " + row + " of " + size);
+        }
+        return chunks[row >>> CHUNK_SHIFT];
+    }
+
+    public Dictionary genreDictionary(){
+        return genreDictionary;
+    }
+
+    public Dictionary languageDictionary(){
+        return languageDictionary;
+    }
+
+    public Dictionary countryDictionary(){
+        return countryDictionary;
+    }
+
+    /**
+     * Returns the rows released in or after the given year.
+     *
+     * @param fromYear     the earliest year
+     * @param posterNeeded whether rows without a poster are skipped
+     * @return the matching rows in row order
+     */
+    public int[] rowsReleasedSince(int fromYear, boolean posterNeeded){
+        int[] matches = new int[size];
+        int count = 0;
+        for(int first = 0; first < size; first += CHUNK_SIZE){
+            Chunk chunk = chunks[first >>> CHUNK_SHIFT];
+            int end = Math.min(CHUNK_SIZE, size - first);
+            for(int i = 0; i < end; i++){
+                if(chunk.year[i] >= fromYear && (!posterNeeded || chunk.posterPresent.get(i))){
+                    matches[count++] = first + i;
+                }
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    /**
+     * Sorts rows by rating, highest first. Rows without a rating go last;
+     * rows with the same rating keep their relative order.
+     *
+     * @param rows the rows to sort
+     * @return the sorted rows
+     */
+    public int[] sortByRatingDescending(int[] rows){
+        // Pack (inverted rating in tenths, row) into a long so a primitive sort does the work
+        long[] keys = new long[rows.length];
+        for(int i = 0; i < rows.length; i++){
+            float value = rating(rows[i]);
+            long rank = Float.isNaN(value) ? Integer.MAX_VALUE : 1000 - Math.round(value * 10);
+            keys[i] = (rank << 32) | rows[i];
+        }
+        Arrays.sort(keys);
+        int[] sorted = new int[rows.length];
+        for(int i = 0; i < keys.length; i++){
+            sorted[i] = (int) keys[i];
+        }
+        return sorted;
+    }
+
+    /**
+     * The columns of {@value #CHUNK_SIZE} consecutive rows. A chunk is only written while the snapshot that
+     * copied it is derived, and never after it is shared.
+     */
+    private static final class Chunk {
+        private final String[] imdbIDs;
+        private final MovieEntity[] movies;
+        private final float[] rating;
+        private final short[] year;
+        private final int[] runtimeMinutes;
+        private final long[] votes;
+        private final int[][] genres;
+        private final int[][] languages;
+        private final int[][] countries;
+        private final BitSet posterPresent;
+
+        Chunk(){
+            this(new String[CHUNK_SIZE], new MovieEntity[CHUNK_SIZE], new float[CHUNK_SIZE], new short[CHUNK_SIZE],
+                    new int[CHUNK_SIZE], new long[CHUNK_SIZE], new int[CHUNK_SIZE][], new int[CHUNK_SIZE][],
+                    new int[CHUNK_SIZE][], new BitSet(CHUNK_SIZE));
+        }
+
+        private Chunk(String[] imdbIDs, MovieEntity[] movies, float[] rating, short[] year, int[] runtimeMinutes,
+                      long[] votes, int[][] genres, int[][] languages, int[][] countries, BitSet posterPresent){
+            this.imdbIDs = imdbIDs;
+            this.movies = movies;
+            this.rating = rating;
+            this.year = year;
+            this.runtimeMinutes = runtimeMinutes;
+            this.votes = votes;
+            this.genres = genres;
+            this.languages = languages;
+            this.countries = countries;
+            this.posterPresent = posterPresent;
+        }
+
+        Chunk copy(){
+            return new Chunk(imdbIDs.clone(), movies.clone(), rating.clone(), year.clone(), runtimeMinutes.clone(),
+                    votes.clone(), genres.clone(), languages.clone(), countries.clone(), (BitSet) posterPresent.clone());
+        }
+
+        void set(int i, MovieEntity movie, Dictionary.Builder genreBuilder, Dictionary.Builder languageBuilder,
+                 Dictionary.Builder countryBuilder){
+            imdbIDs[i] = movie.getImdbID();
+            movies[i] = movie;
+            float parsedRating = OmdbValues.rating(movie);
+            rating[i] = parsedRating == OmdbValues.NO_RATING ? Float.NaN : parsedRating;
+            year[i] = (short) OmdbValues.year(movie);
+            runtimeMinutes[i] = OmdbValues.runtimeMinutes(movie);
+            votes[i] = OmdbValues.votes(movie);
+            genres[i] = genreBuilder.encode(OmdbValues.tokenize(movie.getGenre()));
+            languages[i] = languageBuilder.encode(OmdbValues.tokenize(movie.getLanguage()));
+            countries[i] = countryBuilder.encode(OmdbValues.tokenize(movie.getCountry()));
+            posterPresent.set(i, OmdbValues.hasPoster(movie));
+        }
+    }
+
+    /**
+     * The row of every imdbID along a line of snapshots. Rows are only added, by the snapshot holding the most
+     * rows, so a snapshot sees its own rows as those below its size.
+     */
+    private static final class Rows {
+        private final Map<String, Integer> rowById;
+
+        Rows(){
+            this(new ConcurrentHashMap<>());
+        }
+
+        private Rows(Map<String, Integer> rowById){
+            this.rowById = rowById;
+        }
+
+        int size(){
+            return rowById.size();
+        }
+
+        int row(String imdbID, int size){
+            Integer row = rowById.get(imdbID);
+            return row == null || row >= size ? -1 : row;
+        }
+
+        void add(String imdbID, int row){
+            rowById.put(imdbID, row);
+        }
+
+        // A new line starting from the given size, for a snapshot derived from one that is not the latest
+        Rows below(int size){
+            Map<String, Integer> copy = new ConcurrentHashMap<>();
+            for(Map.Entry<String, Integer> entry : rowById.entrySet()){
+                if(entry.getValue() < size){
+                    copy.put(entry.getKey(), entry.getValue());
+                }
+            }
+            return new Rows(copy);
+        }
+    }
+
+    /**
+     * Immutable mapping between lower-cased values and dense int ids.
+     */
+    public static final class Dictionary {
+
+        static final Dictionary EMPTY = new Dictionary(new String[0], new HashMap<>());
+
+        private final String[] values;
+        private final Map<String, Integer> ids;
+
+        private Dictionary(String[] values, Map<String, Integer> ids){
+            this.values = values;
+            this.ids = ids;
+        }
+
+        public int size(){
+            return values.length;
+        }
+
+        public String value(int id){
+            return values[id];
+        }
+
+        /**
+         * @return the id of the value, -1 if the value is unknown
+         */
+        public int id(String value){
+            Integer id = ids.get(value);
+            return id == null ? -1 : id;
+        }
+
+        Builder extend(){
+            return new Builder(this);
+        }
+
+        static final class Builder {
+            private final Dictionary base;
+            private String[] values;
+            private Map<String, Integer> ids;
+
+            private Builder(Dictionary base){
+                this.base = base;
+            }
+
+            int[] encode(List<String> tokens){
+                int[] encoded = new int[tokens.size()];
+                for(int i = 0; i < encoded.length; i++){
+                    String token = tokens.get(i);
+                    int id = ids == null ? base.id(token) : ids.getOrDefault(token, -1);
+                    if(id < 0){
+                        if(ids == null){
+                            ids = new HashMap<>(base.ids);
+                            values = Arrays.copyOf(base.values, base.values.length + 8);
+                        }
+                        id = ids.size();
+                        if(id == values.length){
+                            values = Arrays.copyOf(values, values.length * 2);
+                        }
+                        values[id] = token;
+                        ids.put(token, id);
+                    }
+                    encoded[i] = id;
+                }
+                return encoded;
+            }
+
+            Dictionary build(){
+                return ids == null ? base : new Dictionary(Arrays.copyOf(values, ids.size()), ids);
+            }
+        }
+    }
+}
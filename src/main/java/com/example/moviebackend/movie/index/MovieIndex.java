@@ -0,0 +1,211 @@
+package com.example.moviebackend.movie.index;
+
+import com.example.moviebackend.movie.MovieCatalogChangedEvent;
+import com.example.moviebackend.movie.MovieEntity;
+import com.example.moviebackend.movie.OmdbValues;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+
+/**
+ * In-memory inverted index over the movie catalog.
+ * The comma separated genre, director, writer, language and actors fields are split into tokens,
+ * and each token keeps a postings list of the imdbIDs that contain it.
+ * Ratings are kept in a sorted map so a rating range can be looked up without scanning the catalog.
+ */
+@Component
+public class MovieIndex {
+
+    public enum Field {
+        GENRE(MovieEntity::getGenre),
+        DIRECTOR(MovieEntity::getDirector),
+        WRITER(MovieEntity::getWriter),
+        LANGUAGE(MovieEntity::getLanguage),
+        ACTORS(MovieEntity::getActors);
+
+        private final Function<MovieEntity, String> accessor;
+
+        Field(Function<MovieEntity, String> accessor){
+            this.accessor = accessor;
+        }
+
+        public String valueOf(MovieEntity movie){
+            return accessor.apply(movie);
+        }
+    }
+
+    /**
+     * Order of the catalog listener, right after {@link MovieCatalog}; listeners reading the index order after it.
+     */
+    public static final int CATALOG_LISTENER_ORDER = Ordered.HIGHEST_PRECEDENCE + 1;
+
+    private static final String[] NO_TOKENS = new String[0];
+
+    private final Map<String, MovieEntity> movies = new ConcurrentHashMap<>();
+    private final Map<String, String[][]> tokensById = new ConcurrentHashMap<>();
+    private final Map<Field, Map<String, Set<String>>> postings = new EnumMap<>(Field.class);
+    private final NavigableMap<Float, Set<String>> ratings = new ConcurrentSkipListMap<>();
+    private final Map<String, Float> ratingById = new ConcurrentHashMap<>();
+
+    public MovieIndex(){
+        for(Field field : Field.values()){
+            postings.put(field, new ConcurrentHashMap<>());
+        }
+    }
+
+    // runs before the listeners that read the index, such as the recommendation cache
+    @EventListener
+    @Order(CATALOG_LISTENER_ORDER)
+    public void onCatalogChanged(MovieCatalogChangedEvent event){
+        for(MovieEntity movie : event.getMovies()){
+            add(movie);
+        }
+    }
+
+    /**
+     * Adds a movie to the index, replacing any previously indexed version of it.
+     *
+     * @param movie the movie to index
+     */
+    public synchronized void add(MovieEntity movie){
+        String imdbID = movie.getImdbID();
+        MovieEntity previous = movies.put(imdbID, movie);
+        if(previous != null){
+            unlink(previous);
+        }
+
+        String[][] tokens = new String[Field.values().length][];
+        for(Field field : Field.values()){
+            Map<String, Set<String>> fieldPostings = postings.get(field);
+            List<String> fieldTokens = OmdbValues.tokenize(field.valueOf(movie));
+            tokens[field.ordinal()] = fieldTokens.toArray(NO_TOKENS);
+            for(String token : fieldTokens){
+                fieldPostings.computeIfAbsent(token, key -> ConcurrentHashMap.newKeySet()).add(imdbID);
+            }
+        }
+        tokensById.put(imdbID, tokens);
+
+        float rating = OmdbValues.rating(movie);
+        if(rating != OmdbValues.NO_RATING){
+            ratings.computeIfAbsent(rating, key -> ConcurrentHashMap.newKeySet()).add(imdbID);
+            ratingById.put(imdbID, rating);
+        }
+    }
+
+    private void unlink(MovieEntity movie){
+        String imdbID = movie.getImdbID();
+        String[][] tokens = tokensById.remove(imdbID);
+        for(Field field : Field.values()){
+            Map<String, Set<String>> fieldPostings = postings.get(field);
+            for(String token : tokens == null ? NO_TOKENS : tokens[field.ordinal()]){
+                Set<String> ids = fieldPostings.get(token);
+                if(ids != null){
+                    ids.remove(imdbID);
+                    if(ids.isEmpty()){
+                        fieldPostings.remove(token);
+                    }
+                }
+            }
+        }
+
+        Float rating = ratingById.remove(imdbID);
+        if(rating != null){
+            Set<String> ids = ratings.get(rating);
+            if(ids != null){
+                ids.remove(imdbID);
+                if(ids.isEmpty()){
+                    ratings.remove(rating);
+                }
+            }
+        }
+    }
+
+    public MovieEntity get(String imdbID){
+        return movies.get(imdbID);
+    }
+
+    public boolean contains(String imdbID){
+        return movies.containsKey(imdbID);
+    }
+
+    public int size(){
+        return movies.size();
+    }
+
+    /**
+     * Returns the tokens of a field of an indexed movie.
+     *
+     * @param imdbID the IMDb ID
+     * @param field  the field
+     * @return the lower-cased tokens, empty if the movie is not indexed
+     */
+    public String[] tokens(String imdbID, Field field){
+        String[][] tokens = tokensById.get(imdbID);
+        return tokens == null ? NO_TOKENS : tokens[field.ordinal()];
+    }
+
+    /**
+     * Returns the postings list of a single token.
+     *
+     * @param field the field to look in
+     * @param token the lower-cased token
+     * @return the imdbIDs containing the token
+     */
+    public Set<String> postings(Field field, String token){
+        return Collections.unmodifiableSet(postings.get(field).getOrDefault(token, Collections.emptySet()));
+    }
+
+    /**
+     * Returns the imdbIDs that share at least one token with the given raw field value.
+     *
+     * @param field the field to look in
+     * @param value the raw OMDb value, e.g. "Action, Crime"
+     * @return the matching imdbIDs
+     */
+    public Set<String> matching(Field field, String value){
+        List<String> tokens = OmdbValues.tokenize(value);
+        Set<String> result = new HashSet<>();
+        for(String token : tokens){
+            result.addAll(postings.get(field).getOrDefault(token, Collections.emptySet()));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the imdbIDs whose rating lies in the given inclusive range.
+     *
+     * @param lowerBound the lowest rating
+     * @param upperBound the highest rating
+     * @return the matching imdbIDs
+     */
+    public Set<String> ratedBetween(float lowerBound, float upperBound){
+        Set<String> result = new HashSet<>();
+        for(Set<String> ids : ratings.subMap(lowerBound, true, upperBound, true).values()){
+            result.addAll(ids);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the parsed rating of an indexed movie.
+     *
+     * @param imdbID the IMDb ID
+     * @return the rating, or {@link OmdbValues#NO_RATING} if it has none
+     */
+    public float rating(String imdbID){
+        Float rating = ratingById.get(imdbID);
+        return rating == null ? OmdbValues.NO_RATING : rating;
+    }
+}
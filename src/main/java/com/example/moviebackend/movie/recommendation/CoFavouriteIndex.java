@@ -0,0 +1,167 @@
+package com.example.moviebackend.movie.recommendation;
+
+import com.example.moviebackend.user.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * "Users who favourited this also favourited" index built from the movie_likes table.
+ * It keeps a sparse, symmetric co-occurrence matrix of favourited movies that is updated incrementally
+ * when a favourite is added or removed. A periodic compaction drops empty cells and recomputes the
+ * top-N neighbour list of every movie whose row changed, so a request is a single map lookup.
+ */
+@Component
+public class CoFavouriteIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(CoFavouriteIndex.class);
+
+    private final UserRepository userRepository;
+    private final int neighbourCount;
+    private final long compactionIntervalSeconds;
+
+    private final Map<String, Map<String, Integer>> coOccurrences = new ConcurrentHashMap<>();
+    private final Map<String, List<String>> neighbours = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "co-favourite-compaction");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CoFavouriteIndex(UserRepository userRepository,
+                            @Value("${movie.co-favourites.neighbours:50}") int neighbourCount,
+                            @Value("${movie.co-favourites.compaction-interval-seconds:60}") long compactionIntervalSeconds){
+        this.userRepository = userRepository;
+        this.neighbourCount = neighbourCount;
+        this.compactionIntervalSeconds = compactionIntervalSeconds;
+    }
+
+    /**
+     * Builds the matrix from every user's favourites and starts the compaction job.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load(){
+        Map<Integer, List<String>> favouritesByUser = new HashMap<>();
+        for(Object[] pair : userRepository.findAllFavourites()){
+            favouritesByUser.computeIfAbsent((Integer) pair[0], key -> new ArrayList<>()).add((String) pair[1]);
+        }
+        for(List<String> favourites : favouritesByUser.values()){
+            for(int i = 0; i < favourites.size(); i++){
+                for(int j = i + 1; j < favourites.size(); j++){
+                    adjust(favourites.get(i), favourites.get(j), 1);
+                }
+            }
+        }
+        compact();
+        logger.info("Built co-favourite index for " + coOccurrences.size() + " movies from " + favouritesByUser.size() + " users");
+
+        scheduler.scheduleWithFixedDelay(this::compact, compactionIntervalSeconds, compactionIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Records that a user favourited a movie.
+     *
+     * @param imdbID          the newly favourited movie
+     * @param otherFavourites the user's other favourites
+     */
+    public void favouriteAdded(String imdbID, List<String> otherFavourites){
+        for(String other : otherFavourites){
+            if(!Objects.equals(imdbID, other)){
+                adjust(imdbID, other, 1);
+            }
+        }
+    }
+
+    /**
+     * Records that a user removed a movie from their favourites.
+     *
+     * @param imdbID          the removed movie
+     * @param otherFavourites the user's remaining favourites
+     */
+    public void favouriteRemoved(String imdbID, List<String> otherFavourites){
+        for(String other : otherFavourites){
+            if(!Objects.equals(imdbID, other)){
+                adjust(imdbID, other, -1);
+            }
+        }
+    }
+
+    private void adjust(String a, String b, int delta){
+        adjustRow(a, b, delta);
+        adjustRow(b, a, delta);
+        dirty.add(a);
+        dirty.add(b);
+    }
+
+    // Updates a cell under the lock of its row, so compaction cannot drop the row in between
+    private void adjustRow(String imdbID, String other, int delta){
+        coOccurrences.compute(imdbID, (key, row) -> {
+            Map<String, Integer> cells = row == null ? new ConcurrentHashMap<>() : row;
+            cells.merge(other, delta, Integer::sum);
+            return cells;
+        });
+    }
+
+    /**
+     * Drops empty cells and recomputes the neighbour lists of the movies that changed since the last run.
+     */
+    public void compact(){
+        try {
+            List<String> changed = new ArrayList<>(dirty);
+            dirty.removeAll(changed);
+            for(String imdbID : changed){
+                // cleaned under the lock of the row, so an increment in between is not lost
+                Map<String, Integer> row = coOccurrences.computeIfPresent(imdbID, (key, cells) -> {
+                    cells.values().removeIf(count -> count <= 0);
+                    return cells.isEmpty() ? null : cells;
+                });
+                if(row == null){
+                    neighbours.remove(imdbID);
+                    continue;
+                }
+                List<String> ranked = new ArrayList<>(row.keySet());
+                ranked.sort((a, b) -> {
+                    int byCount = Integer.compare(row.getOrDefault(b, 0), row.getOrDefault(a, 0));
+                    return byCount != 0 ? byCount : a.compareTo(b);
+                });
+                neighbours.put(imdbID, List.copyOf(ranked.subList(0, Math.min(neighbourCount, ranked.size()))));
+            }
+        } catch (Exception e) {
+            // keep the scheduled job alive
+            logger.error("Error compacting co-favourite index", e);
+        }
+    }
+
+    /**
+     * Returns the movies most often favourited together with the given one, as of the last compaction.
+     *
+     * @param imdbID the IMDb ID of the movie
+     * @return the imdbIDs of the neighbours, most co-favourited first
+     */
+    public List<String> neighbours(String imdbID){
+        return neighbours.getOrDefault(imdbID, Collections.emptyList());
+    }
+}
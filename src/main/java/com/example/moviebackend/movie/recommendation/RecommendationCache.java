@@ -0,0 +1,341 @@
+package com.example.moviebackend.movie.recommendation;
+
+import com.example.moviebackend.movie.MovieCatalogChangedEvent;
+import com.example.moviebackend.movie.MovieEntity;
+import com.example.moviebackend.movie.OmdbValues;
+import com.example.moviebackend.movie.index.MovieIndex;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of recommendation results keyed by imdbID and page.
+ * The cache is bounded by total weight (the number of cached movies) rather than by entry count.
+ * Eviction is frequency biased: a new entry is only admitted if it has been requested more often than
+ * the least recently used entries it would replace, as estimated by a count-min sketch.
+ * When the catalog changes, only the entries that can be affected are invalidated: the entries whose
+ * target shares a token with a changed movie and the entries whose result contains a changed movie.
+ * The tokens of the cached targets are indexed, so the targets a changed movie shares a token with are
+ * looked up by its own tokens rather than by scanning every cached target.
+ */
+@Component
+public class RecommendationCache {
+
+    private final MovieIndex movieIndex;
+    private final long maxWeight;
+    private final FrequencySketch sketch;
+
+    private final LinkedHashMap<Key, List<MovieEntity>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Set<Key>> keysByTarget = new HashMap<>();
+    private final Map<String, Set<Key>> keysByResult = new HashMap<>();
+    // the cached targets by their tokens in each field, and the tokens each was indexed under
+    private final Map<MovieIndex.Field, Map<String, Set<String>>> targetsByToken = new EnumMap<>(MovieIndex.Field.class);
+    private final Map<String, String[][]> tokensByTarget = new HashMap<>();
+    private long weight;
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public RecommendationCache(MovieIndex movieIndex,
+                               @Value("${movie.recommendation.cache.max-weight:200000}") long maxWeight){
+        this.movieIndex = movieIndex;
+        this.maxWeight = maxWeight;
+        this.sketch = new FrequencySketch((int) Math.min(1 << 24, Math.max(1024, maxWeight / 4)));
+        for(MovieIndex.Field field : MovieIndex.Field.values()){
+            targetsByToken.put(field, new HashMap<>());
+        }
+    }
+
+    /**
+     * Looks up a cached page and records the request in the frequency sketch.
+     *
+     * @return the cached movies, or null on a miss
+     */
+    public synchronized List<MovieEntity> get(Key key){
+        sketch.increment(key.hashCode());
+        List<MovieEntity> movies = entries.get(key);
+        if(movies == null){
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return movies;
+    }
+
+    /**
+     * Returns a token that must be passed to {@link #put(Key, List, long)}.
+     * Results computed while the catalog changed are not cached.
+     */
+    public synchronized long generation(){
+        return generation;
+    }
+
+    /**
+     * Caches a page if the catalog did not change since {@code generation} and the frequency policy admits it.
+     */
+    public synchronized void put(Key key, List<MovieEntity> movies, long generation){
+        if(generation != this.generation || entries.containsKey(key)){
+            return;
+        }
+        long entryWeight = weightOf(movies);
+        if(entryWeight > maxWeight){
+            rejections.increment();
+            return;
+        }
+
+        // Pick the least recently used victims, but only evict them if the new entry is requested more often
+        List<Key> victims = new ArrayList<>();
+        long freed = 0;
+        int candidateFrequency = sketch.frequency(key.hashCode());
+        Iterator<Map.Entry<Key, List<MovieEntity>>> eldest = entries.entrySet().iterator();
+        while(weight - freed + entryWeight > maxWeight && eldest.hasNext()){
+            Map.Entry<Key, List<MovieEntity>> victim = eldest.next();
+            if(sketch.frequency(victim.getKey().hashCode()) >= candidateFrequency){
+                rejections.increment();
+                return;
+            }
+            victims.add(victim.getKey());
+            freed += weightOf(victim.getValue());
+        }
+        for(Key victim : victims){
+            remove(victim);
+            evictions.increment();
+        }
+
+        entries.put(key, movies);
+        weight += entryWeight;
+        Set<Key> targetKeys = keysByTarget.get(key.getImdbID());
+        if(targetKeys == null){
+            targetKeys = new HashSet<>();
+            keysByTarget.put(key.getImdbID(), targetKeys);
+            indexTarget(key.getImdbID());
+        }
+        targetKeys.add(key);
+        for(MovieEntity movie : movies){
+            keysByResult.computeIfAbsent(movie.getImdbID(), id -> new HashSet<>()).add(key);
+        }
+    }
+
+    // runs after the index has applied the change, so a page computed under the new generation reads the new index
+    @EventListener
+    @Order(MovieIndex.CATALOG_LISTENER_ORDER + 1)
+    public synchronized void onCatalogChanged(MovieCatalogChangedEvent event){
+        generation++;
+        if(entries.isEmpty()){
+            return;
+        }
+
+        Set<Key> affected = new HashSet<>();
+        for(MovieEntity changed : event.getMovies()){
+            affected.addAll(keysByTarget.getOrDefault(changed.getImdbID(), Set.of()));
+            affected.addAll(keysByResult.getOrDefault(changed.getImdbID(), Set.of()));
+
+            // a changed movie can enter the result of any cached target it shares a token with
+            for(MovieIndex.Field field : MovieIndex.Field.values()){
+                Map<String, Set<String>> targets = targetsByToken.get(field);
+                for(String token : OmdbValues.tokenize(field.valueOf(changed))){
+                    for(String target : targets.getOrDefault(token, Set.of())){
+                        affected.addAll(keysByTarget.get(target));
+                    }
+                }
+            }
+        }
+        for(Key key : affected){
+            remove(key);
+            invalidations.increment();
+        }
+    }
+
+    // Indexes the tokens of a target when its first entry is cached
+    private void indexTarget(String imdbID){
+        String[][] tokens = new String[MovieIndex.Field.values().length][];
+        for(MovieIndex.Field field : MovieIndex.Field.values()){
+            tokens[field.ordinal()] = movieIndex.tokens(imdbID, field);
+            Map<String, Set<String>> targets = targetsByToken.get(field);
+            for(String token : tokens[field.ordinal()]){
+                targets.computeIfAbsent(token, t -> new HashSet<>()).add(imdbID);
+            }
+        }
+        tokensByTarget.put(imdbID, tokens);
+    }
+
+    // Drops the tokens of a target once its last entry is gone, as they were indexed even if it changed since
+    private void unindexTarget(String imdbID){
+        String[][] tokens = tokensByTarget.remove(imdbID);
+        if(tokens == null){
+            return;
+        }
+        for(MovieIndex.Field field : MovieIndex.Field.values()){
+            Map<String, Set<String>> targets = targetsByToken.get(field);
+            for(String token : tokens[field.ordinal()]){
+                Set<String> set = targets.get(token);
+                if(set != null){
+                    set.remove(imdbID);
+                    if(set.isEmpty()){
+                        targets.remove(token);
+                    }
+                }
+            }
+        }
+    }
+
+    private void remove(Key key){
+        List<MovieEntity> movies = entries.remove(key);
+        if(movies == null){
+            return;
+        }
+        weight -= weightOf(movies);
+        detach(keysByTarget, key.getImdbID(), key);
+        if(!keysByTarget.containsKey(key.getImdbID())){
+            unindexTarget(key.getImdbID());
+        }
+        for(MovieEntity movie : movies){
+            detach(keysByResult, movie.getImdbID(), key);
+        }
+    }
+
+    private static void detach(Map<String, Set<Key>> keys, String imdbID, Key key){
+        Set<Key> set = keys.get(imdbID);
+        if(set != null){
+            set.remove(key);
+            if(set.isEmpty()){
+                keys.remove(imdbID);
+            }
+        }
+    }
+
+    private static long weightOf(List<MovieEntity> movies){
+        return movies.size() + 1L;
+    }
+
+    public synchronized Stats stats(){
+        return new Stats(entries.size(), weight, maxWeight, hits.sum(), misses.sum(), evictions.sum(),
+                rejections.sum(), invalidations.sum());
+    }
+
+    /**
+     * Cache key: the target movie and the requested page.
+     */
+    @Getter
+    public static final class Key {
+        private final String imdbID;
+        private final int offset;
+        private final int limit;
+
+        public Key(String imdbID, int offset, int limit){
+            this.imdbID = imdbID;
+            this.offset = offset;
+            this.limit = limit;
+        }
+
+        @Override
+        public boolean equals(Object o){
+            if(this == o){
+                return true;
+            }
+            if(!(o instanceof Key)){
+                return false;
+            }
+            Key key = (Key) o;
+            return offset == key.offset && limit == key.limit && imdbID.equals(key.imdbID);
+        }
+
+        @Override
+        public int hashCode(){
+            return Objects.hash(imdbID, offset, limit);
+        }
+    }
+
+    @Getter
+    public static final class Stats {
+        private final int entries;
+        private final long weight;
+        private final long maxWeight;
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long rejections;
+        private final long invalidations;
+
+        Stats(int entries, long weight, long maxWeight, long hits, long misses, long evictions, long rejections,
+              long invalidations){
+            this.entries = entries;
+            this.weight = weight;
+            this.maxWeight = maxWeight;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.rejections = rejections;
+            this.invalidations = invalidations;
+        }
+    }
+
+    /**
+     * Count-min sketch of request frequencies with 4 rows of 4-bit style saturating counters.
+     * All counters are halved periodically so old popularity fades out.
+     */
+    static final class FrequencySketch {
+        private static final int MAX_COUNT = 15;
+
+        private final int[] table;
+        private final int mask;
+        private final int resetAfter;
+        private int additions;
+
+        FrequencySketch(int width){
+            int size = Integer.highestOneBit(Math.max(16, width - 1) << 1);
+            this.table = new int[size];
+            this.mask = size - 1;
+            this.resetAfter = size * 10;
+        }
+
+        void increment(int hash){
+            boolean added = false;
+            for(int row = 0; row < 4; row++){
+                int index = indexOf(hash, row);
+                if(table[index] < MAX_COUNT){
+                    table[index]++;
+                    added = true;
+                }
+            }
+            if(added && ++additions >= resetAfter){
+                for(int i = 0; i < table.length; i++){
+                    table[i] >>>= 1;
+                }
+                additions /= 2;
+            }
+        }
+
+        int frequency(int hash){
+            int frequency = MAX_COUNT;
+            for(int row = 0; row < 4; row++){
+                frequency = Math.min(frequency, table[indexOf(hash, row)]);
+            }
+            return frequency;
+        }
+
+        private int indexOf(int hash, int row){
+            int h = hash * (0x9E3779B9 + 2 * row + 1);
+            h ^= h >>> 16;
+            return h & mask;
+        }
+    }
+}
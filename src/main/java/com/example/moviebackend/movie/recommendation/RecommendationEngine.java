@@ -0,0 +1,225 @@
+package com.example.moviebackend.movie.recommendation;
+
+import com.example.moviebackend.movie.MovieEntity;
+import com.example.moviebackend.movie.OmdbValues;
+import com.example.moviebackend.movie.index.MovieIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Scores movies by how similar they are to a target movie and returns the best ones.
+ * Each shared genre, director, writer, actor and language adds its weight to the score,
+ * and a rating close to the target's rating adds up to the rating weight.
+ * Large candidate sets are split into chunks and scored on a dedicated fork-join pool;
+ * each chunk keeps its own top-K and the chunk results are merged.
+ */
+@Component
+public class RecommendationEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecommendationEngine.class);
+    private static final float RATING_WINDOW = 2.0f;
+    private static final MovieIndex.Field[] FIELDS = MovieIndex.Field.values();
+
+    private final MovieIndex movieIndex;
+    private final float[] fieldWeights = new float[MovieIndex.Field.values().length];
+    private final float ratingWeight;
+    private final int parallelThreshold;
+    private final int chunkSize;
+    private final ForkJoinPool pool;
+
+    public RecommendationEngine(MovieIndex movieIndex,
+                                @Value("${movie.recommendation.weights.genre:3.0}") float genreWeight,
+                                @Value("${movie.recommendation.weights.director:4.0}") float directorWeight,
+                                @Value("${movie.recommendation.weights.writer:2.0}") float writerWeight,
+                                @Value("${movie.recommendation.weights.actors:1.5}") float actorsWeight,
+                                @Value("${movie.recommendation.weights.language:1.0}") float languageWeight,
+                                @Value("${movie.recommendation.weights.rating:2.0}") float ratingWeight,
+                                @Value("${movie.recommendation.parallel-threshold:20000}") int parallelThreshold,
+                                @Value("${movie.recommendation.chunk-size:4096}") int chunkSize,
+                                @Value("${movie.recommendation.parallelism:0}") int parallelism){
+        this.movieIndex = movieIndex;
+        this.fieldWeights[MovieIndex.Field.GENRE.ordinal()] = genreWeight;
+        this.fieldWeights[MovieIndex.Field.DIRECTOR.ordinal()] = directorWeight;
+        this.fieldWeights[MovieIndex.Field.WRITER.ordinal()] = writerWeight;
+        this.fieldWeights[MovieIndex.Field.ACTORS.ordinal()] = actorsWeight;
+        this.fieldWeights[MovieIndex.Field.LANGUAGE.ordinal()] = languageWeight;
+        this.ratingWeight = ratingWeight;
+        this.parallelThreshold = parallelThreshold;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        pool.shutdown();
+    }
+
+    /**
+     * Returns a page of the movies most similar to the target.
+     * Only movies sharing at least one token with the target are scored,
+     * and movies without a poster are dropped before scoring.
+     *
+     * @param target the movie to find similar movies for
+     * @param offset the number of best movies to skip
+     * @param limit  the maximum number of movies to return
+     * @return the page of recommended movies, best first
+     */
+    public List<ScoredMovie> recommend(MovieEntity target, int offset, int limit){
+        Profile profile = new Profile(target);
+        Set<String> candidateIds = new HashSet<>();
+        for(MovieIndex.Field field : MovieIndex.Field.values()){
+            if(fieldWeights[field.ordinal()] > 0){
+                candidateIds.addAll(movieIndex.matching(field, field.valueOf(target)));
+            }
+        }
+        candidateIds.remove(target.getImdbID());
+
+        // Snapshot the candidates that have a poster, scoring refers to them by position
+        List<MovieEntity> withPoster = new ArrayList<>(candidateIds.size());
+        for(String imdbID : candidateIds){
+            MovieEntity candidate = movieIndex.get(imdbID);
+            if(candidate != null && OmdbValues.hasPoster(candidate)){
+                withPoster.add(candidate);
+            }
+        }
+        MovieEntity[] candidates = withPoster.toArray(new MovieEntity[0]);
+        if(offset >= candidates.length || limit <= 0){
+            return new ArrayList<>();
+        }
+
+        // never keep more than there are candidates, however far the page is
+        int k = (int) Math.min((long) offset + limit, candidates.length);
+        TopKCollector collector;
+        if(candidates.length >= parallelThreshold){
+            collector = pool.invoke(new ScoringTask(profile, candidates, k, 0, candidates.length));
+        } else {
+            collector = scoreRange(profile, candidates, k, 0, candidates.length);
+        }
+
+        int[] ranked = new int[collector.size()];
+        float[] scores = new float[collector.size()];
+        int count = collector.drain(ranked, scores);
+        logger.debug("Scored " + candidates.length + " candidates for " + target.getImdbID());
+
+        List<ScoredMovie> page = new ArrayList<>(Math.max(0, count - offset));
+        for(int i = offset; i < count; i++){
+            page.add(new ScoredMovie(candidates[ranked[i]], scores[i]));
+        }
+        return page;
+    }
+
+    private TopKCollector scoreRange(Profile profile, MovieEntity[] candidates, int k, int from, int to){
+        TopKCollector collector = new TopKCollector(k, (a, b) -> compareTies(candidates[a], candidates[b]));
+        for(int i = from; i < to; i++){
+            collector.offer(i, score(profile, candidates[i].getImdbID()));
+        }
+        return collector;
+    }
+
+    /**
+     * Ranks movies with the same score: newest first, then by imdbID.
+     */
+    private static int compareTies(MovieEntity a, MovieEntity b){
+        String yearA = a.getYear();
+        String yearB = b.getYear();
+        if(yearA == null || yearB == null){
+            if(yearA != yearB){
+                return yearA == null ? 1 : -1;
+            }
+        } else {
+            int byYear = yearB.compareTo(yearA);
+            if(byYear != 0){
+                return byYear;
+            }
+        }
+        return a.getImdbID().compareTo(b.getImdbID());
+    }
+
+    float score(Profile profile, String imdbID){
+        float score = 0;
+        for(MovieIndex.Field field : FIELDS){
+            Set<String> targetTokens = profile.tokens.get(field.ordinal());
+            if(targetTokens.isEmpty()){
+                continue;
+            }
+            int shared = 0;
+            for(String token : movieIndex.tokens(imdbID, field)){
+                if(targetTokens.contains(token)){
+                    shared++;
+                }
+            }
+            score += shared * fieldWeights[field.ordinal()];
+        }
+
+        float rating = movieIndex.rating(imdbID);
+        if(profile.rating != OmdbValues.NO_RATING && rating != OmdbValues.NO_RATING){
+            float proximity = 1.0f - Math.abs(profile.rating - rating) / RATING_WINDOW;
+            if(proximity > 0){
+                score += proximity * ratingWeight;
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Scores a range of the candidate array, splitting it in halves until it fits in a chunk.
+     */
+    private class ScoringTask extends RecursiveTask<TopKCollector> {
+        private static final long serialVersionUID = 1L;
+
+        private final Profile profile;
+        private final MovieEntity[] candidates;
+        private final int k;
+        private final int from;
+        private final int to;
+
+        ScoringTask(Profile profile, MovieEntity[] candidates, int k, int from, int to){
+            this.profile = profile;
+            this.candidates = candidates;
+            this.k = k;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected TopKCollector compute(){
+            if(to - from <= chunkSize){
+                return scoreRange(profile, candidates, k, from, to);
+            }
+            int middle = (from + to) >>> 1;
+            ScoringTask left = new ScoringTask(profile, candidates, k, from, middle);
+            left.fork();
+            TopKCollector right = new ScoringTask(profile, candidates, k, middle, to).compute();
+            TopKCollector merged = left.join();
+            merged.merge(right);
+            return merged;
+        }
+    }
+
+    /**
+     * The target movie's tokens and rating, computed once per request.
+     */
+    static class Profile {
+        // by field ordinal
+        final List<Set<String>> tokens;
+        final float rating;
+
+        Profile(MovieEntity target){
+            tokens = new ArrayList<>(MovieIndex.Field.values().length);
+            for(MovieIndex.Field field : MovieIndex.Field.values()){
+                tokens.add(new HashSet<>(OmdbValues.tokenize(field.valueOf(target))));
+            }
+            rating = OmdbValues.rating(target);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.moviebackend.movie.recommendation;
+
+import com.example.moviebackend.movie.MovieEntity;
+import lombok.Getter;
+
+/**
+ * A candidate movie together with its similarity score.
+ */
+@Getter
+public class ScoredMovie {
+
+    private final MovieEntity movie;
+    private final float score;
+
+    public ScoredMovie(MovieEntity movie, float score){
+        this.movie = movie;
+        this.score = score;
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.moviebackend.movie.recommendation;
+
+/**
+ * Keeps the k best scored candidates seen so far in a bounded min-heap.
+ * Candidates are identified by their position in the candidate array and the heap is backed by
+ * primitive arrays, so offering a candidate does not allocate. The worst of the kept candidates sits
+ * at the head of the heap, so each offer is O(log k) and memory stays proportional to k.
+ */
+public class TopKCollector {
+
+    /**
+     * Breaks ties between candidates with the same score.
+     */
+    public interface TieBreaker {
+        /**
+         * @return a negative number if candidate a ranks before candidate b
+         */
+        int compare(int a, int b);
+    }
+
+    private final int k;
+    private final TieBreaker tieBreaker;
+    private final int[] candidates;
+    private final float[] scores;
+    private int size;
+
+    public TopKCollector(int k, TieBreaker tieBreaker){
+        this.k = Math.max(0, k);
+        this.tieBreaker = tieBreaker;
+        this.candidates = new int[this.k];
+        this.scores = new float[this.k];
+    }
+
+    public void offer(int candidate, float score){
+        if(size < k){
+            candidates[size] = candidate;
+            scores[size] = score;
+            siftUp(size++);
+        } else if(k > 0 && isBetter(candidate, score, candidates[0], scores[0])){
+            candidates[0] = candidate;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Offers every candidate kept by another collector to this one.
+     *
+     * @param other the collector to merge in
+     */
+    public void merge(TopKCollector other){
+        for(int i = 0; i < other.size; i++){
+            offer(other.candidates[i], other.scores[i]);
+        }
+    }
+
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Drains the collector into arrays ordered best first.
+     * The collector is empty afterwards.
+     *
+     * @param sortedCandidates receives the candidates, must hold at least {@link #size()} elements
+     * @param sortedScores     receives the scores, must hold at least {@link #size()} elements
+     * @return the number of drained candidates
+     */
+    public int drain(int[] sortedCandidates, float[] sortedScores){
+        int count = size;
+        for(int i = count - 1; i >= 0; i--){
+            sortedCandidates[i] = candidates[0];
+            sortedScores[i] = scores[0];
+            size--;
+            if(size > 0){
+                candidates[0] = candidates[size];
+                scores[0] = scores[size];
+                siftDown(0);
+            }
+        }
+        return count;
+    }
+
+    private boolean isBetter(int candidateA, float scoreA, int candidateB, float scoreB){
+        if(scoreA != scoreB){
+            return scoreA > scoreB;
+        }
+        return tieBreaker.compare(candidateA, candidateB) < 0;
+    }
+
+    private void siftUp(int index){
+        while(index > 0){
+            int parent = (index - 1) >>> 1;
+            if(!isBetter(candidates[parent], scores[parent], candidates[index], scores[index])){
+                break;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index){
+        while(true){
+            int left = 2 * index + 1;
+            if(left >= size){
+                break;
+            }
+            int worst = left;
+            int right = left + 1;
+            if(right < size && isBetter(candidates[left], scores[left], candidates[right], scores[right])){
+                worst = right;
+            }
+            if(!isBetter(candidates[index], scores[index], candidates[worst], scores[worst])){
+                break;
+            }
+            swap(index, worst);
+            index = worst;
+        }
+    }
+
+    private void swap(int a, int b){
+        int candidate = candidates[a];
+        candidates[a] = candidates[b];
+        candidates[b] = candidate;
+        float score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.moviebackend.movie.search;
+
+import com.example.moviebackend.movie.MovieCatalogChangedEvent;
+import com.example.moviebackend.movie.MovieEntity;
+import com.example.moviebackend.movie.OmdbValues;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Typo tolerant title search over title words, using a symmetric deletion index (as in SymSpell).
+ * Every distinct word of the catalog is stored under all the variants of its first {@value #PREFIX_LENGTH}
+ * characters with up to {@value #MAX_EDITS} characters deleted. A query word generates its own deletions,
+ * so words within the edit distance are found with a handful of map lookups whatever the catalog size,
+ * and the candidates are then verified with the real edit distance.
+ */
+@Component
+public class FuzzyTitleIndex {
+
+    public static final int MAX_EDITS = 2;
+    private static final int PREFIX_LENGTH = 7;
+
+    private final Map<String, MovieEntity> movies = new HashMap<>();
+    private final Map<String, Set<String>> moviesByWord = new HashMap<>();
+    private final Map<String, Set<String>> wordsByDeletion = new HashMap<>();
+
+    @EventListener
+    public synchronized void onCatalogChanged(MovieCatalogChangedEvent event){
+        for(MovieEntity movie : event.getMovies()){
+            MovieEntity previous = movies.put(movie.getImdbID(), movie);
+            if(previous != null){
+                for(String word : words(previous.getTitle())){
+                    unlink(word, previous.getImdbID());
+                }
+            }
+            for(String word : words(movie.getTitle())){
+                Set<String> imdbIDs = moviesByWord.computeIfAbsent(word, key -> new HashSet<>());
+                if(imdbIDs.isEmpty()){
+                    for(String deletion : deletions(word, MAX_EDITS)){
+                        wordsByDeletion.computeIfAbsent(deletion, key -> new HashSet<>()).add(word);
+                    }
+                }
+                imdbIDs.add(movie.getImdbID());
+            }
+        }
+    }
+
+    private void unlink(String word, String imdbID){
+        Set<String> imdbIDs = moviesByWord.get(word);
+        if(imdbIDs == null || !imdbIDs.remove(imdbID) || !imdbIDs.isEmpty()){
+            return;
+        }
+        moviesByWord.remove(word);
+        for(String deletion : deletions(word, MAX_EDITS)){
+            Set<String> words = wordsByDeletion.get(deletion);
+            if(words != null && words.remove(word) && words.isEmpty()){
+                wordsByDeletion.remove(deletion);
+            }
+        }
+    }
+
+    public synchronized int size(){
+        return movies.size();
+    }
+
+    /**
+     * Finds the movies whose title contains, for every word of the query, a word within the edit distance.
+     * Short words tolerate fewer edits: none up to 2 characters and one up to 5 characters.
+     *
+     * @param keyword  the possibly misspelled query
+     * @param maxEdits the maximum number of edits per word, between 1 and {@value #MAX_EDITS}
+     * @return the matching movies, fewest edits first, then by imdbVotes
+     */
+    public synchronized List<MovieEntity> search(String keyword, int maxEdits){
+        if(maxEdits < 1 || maxEdits > MAX_EDITS){
+            throw new IllegalArgumentException("maxEdits must be between 1 and " + MAX_EDITS);
+        }
+        Set<String> queryWords = words(keyword);
+        if(queryWords.isEmpty()){
+            return List.of();
+        }
+
+        // the catalog words each query word matches, and how many movies they cover at most
+        List<Map<String, Integer>> matches = new ArrayList<>(queryWords.size());
+        for(String queryWord : queryWords){
+            Map<String, Integer> similar = similarWords(queryWord, allowedEdits(queryWord, maxEdits));
+            if(similar.isEmpty()){
+                return List.of();
+            }
+            matches.add(similar);
+        }
+        matches.sort(Comparator.comparingInt(this::coverage));
+
+        // total edits per matching movie, starting from the query word matching the fewest movies; the others
+        // are checked against the title words of the movies left, so a common word never expands the catalog
+        Map<String, Integer> distances = new HashMap<>();
+        for(Map.Entry<String, Integer> match : matches.get(0).entrySet()){
+            for(String imdbID : moviesByWord.get(match.getKey())){
+                distances.merge(imdbID, match.getValue(), Math::min);
+            }
+        }
+        for(int i = 1; i < matches.size() && !distances.isEmpty(); i++){
+            Map<String, Integer> similar = matches.get(i);
+            distances.entrySet().removeIf(entry -> {
+                int best = Integer.MAX_VALUE;
+                for(String titleWord : words(movies.get(entry.getKey()).getTitle())){
+                    Integer distance = similar.get(titleWord);
+                    if(distance != null && distance < best){
+                        best = distance;
+                    }
+                }
+                if(best == Integer.MAX_VALUE){
+                    return true;
+                }
+                entry.setValue(entry.getValue() + best);
+                return false;
+            });
+        }
+        if(distances.isEmpty()){
+            return List.of();
+        }
+
+        Map<String, Integer> totals = distances;
+        List<MovieEntity> result = new ArrayList<>();
+        for(String imdbID : totals.keySet()){
+            result.add(movies.get(imdbID));
+        }
+        result.sort(Comparator.comparingInt((MovieEntity movie) -> totals.get(movie.getImdbID()))
+                .thenComparing(OmdbValues::votes, Comparator.reverseOrder())
+                .thenComparing(MovieEntity::getImdbID));
+        return result;
+    }
+
+    // The movies the matched words are found in, counting a movie once per word
+    private int coverage(Map<String, Integer> similar){
+        int coverage = 0;
+        for(String word : similar.keySet()){
+            coverage += moviesByWord.get(word).size();
+        }
+        return coverage;
+    }
+
+    static int allowedEdits(String word, int maxEdits){
+        if(word.length() <= 2){
+            return 0;
+        }
+        return word.length() <= 5 ? Math.min(1, maxEdits) : maxEdits;
+    }
+
+    // Catalog words within maxEdits of the query word, with their distance
+    private Map<String, Integer> similarWords(String queryWord, int maxEdits){
+        Set<String> candidates = new HashSet<>();
+        if(moviesByWord.containsKey(queryWord)){
+            candidates.add(queryWord);
+        }
+        for(String deletion : deletions(queryWord, maxEdits)){
+            if(moviesByWord.containsKey(deletion)){
+                candidates.add(deletion);
+            }
+            candidates.addAll(wordsByDeletion.getOrDefault(deletion, Set.of()));
+        }
+
+        Map<String, Integer> similar = new HashMap<>();
+        for(String candidate : candidates){
+            int distance = distance(queryWord, candidate, maxEdits);
+            if(distance <= maxEdits){
+                similar.put(candidate, distance);
+            }
+        }
+        return similar;
+    }
+
+    // The prefix of the word and its variants with up to maxEdits characters deleted
+    static Set<String> deletions(String word, int maxEdits){
+        Set<String> deletions = new LinkedHashSet<>();
+        String prefix = word.length() > PREFIX_LENGTH ? word.substring(0, PREFIX_LENGTH) : word;
+        deletions.add(prefix);
+        List<String> current = List.of(prefix);
+        for(int edit = 0; edit < maxEdits; edit++){
+            List<String> next = new ArrayList<>();
+            for(String variant : current){
+                for(int i = 0; i < variant.length(); i++){
+                    String deleted = variant.substring(0, i) + variant.substring(i + 1);
+                    if(deletions.add(deleted)){
+                        next.add(deleted);
+                    }
+                }
+            }
+            current = next;
+        }
+        return deletions;
+    }
+
+    /**
+     * Edit distance counting insertions, deletions, substitutions and adjacent transpositions,
+     * giving up as soon as it exceeds {@code max}.
+     *
+     * @return the distance, or {@code max + 1} when it is larger than {@code max}
+     */
+    static int distance(String a, String b, int max){
+        if(Math.abs(a.length() - b.length()) > max){
+            return max + 1;
+        }
+        int[] previousRow = new int[b.length() + 1];
+        int[] row = new int[b.length() + 1];
+        int[] nextRow = new int[b.length() + 1];
+        for(int j = 0; j <= b.length(); j++){
+            row[j] = j;
+        }
+        for(int i = 1; i <= a.length(); i++){
+            nextRow[0] = i;
+            int rowMin = i;
+            for(int j = 1; j <= b.length(); j++){
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(nextRow[j - 1] + 1, row[j] + 1), row[j - 1] + cost);
+                if(i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)){
+                    value = Math.min(value, previousRow[j - 2] + 1);
+                }
+                nextRow[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if(rowMin > max){
+                return max + 1;
+            }
+            int[] recycled = previousRow;
+            previousRow = row;
+            row = nextRow;
+            nextRow = recycled;
+        }
+        return Math.min(row[b.length()], max + 1);
+    }
+
+    static Set<String> words(String title){
+        Set<String> words = new LinkedHashSet<>();
+        for(String word : TextFolding.fold(title).split("[^\\p{L}\\p{N}]+")){
+            if(!word.isEmpty()){
+                words.add(word);
+            }
+        }
+        return words;
+    }
+}
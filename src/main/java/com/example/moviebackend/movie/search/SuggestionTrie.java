@@ -0,0 +1,310 @@
+package com.example.moviebackend.movie.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable, path compressed prefix tree over folded titles.
+ * Nodes live in parallel arrays, the children of a node are stored next to each other and ordered by
+ * their first character, and every node stores the ids of the N most popular titles below it.
+ * Suggestion ids are assigned in popularity order, so the best titles of a node are simply the N smallest
+ * ids of its subtree and a lookup is a walk down the tree followed by a copy of that list.
+ */
+final class SuggestionTrie {
+
+    static final SuggestionTrie EMPTY = build(List.of(), 1);
+
+    private static final int ROOT = 0;
+
+    private final char[] labels;
+    private final int[] labelStart;
+    private final int[] labelEnd;
+    private final int[] firstChild;
+    private final int[] childCount;
+    private final int[] topStart;
+    private final byte[] topCount;
+    private final int[] topIds;
+
+    private final String[] imdbIDs;
+    private final String[] titles;
+    private final int topN;
+    private final long footprintBytes;
+
+    private SuggestionTrie(Builder builder, String[] imdbIDs, String[] titles, int topN){
+        int nodes = builder.nodes;
+        this.labels = builder.labels.toString().toCharArray();
+        this.labelStart = Arrays.copyOf(builder.labelStart, nodes);
+        this.labelEnd = Arrays.copyOf(builder.labelEnd, nodes);
+        this.firstChild = Arrays.copyOf(builder.firstChild, nodes);
+        this.childCount = Arrays.copyOf(builder.childCount, nodes);
+        this.topStart = new int[nodes];
+        this.topCount = new byte[nodes];
+        int total = 0;
+        for(int node = 0; node < nodes; node++){
+            total += builder.tops[node].length;
+        }
+        this.topIds = new int[total];
+        int offset = 0;
+        for(int node = 0; node < nodes; node++){
+            int[] top = builder.tops[node];
+            topStart[node] = offset;
+            topCount[node] = (byte) top.length;
+            System.arraycopy(top, 0, topIds, offset, top.length);
+            offset += top.length;
+        }
+        this.imdbIDs = imdbIDs;
+        this.titles = titles;
+        this.topN = topN;
+        this.footprintBytes = measure();
+    }
+
+    /**
+     * Builds a trie keeping the {@code topN} most popular titles per prefix.
+     *
+     * @param entries the titles to index, blank titles are skipped
+     * @param topN    the number of suggestions precomputed per prefix, at most 127
+     */
+    static SuggestionTrie build(Collection<Entry> entries, int topN){
+        if(topN < 1 || topN > Byte.MAX_VALUE){
+            throw new IllegalArgumentException("topN must be between 1 and " + Byte.MAX_VALUE);
+        }
+        List<Entry> ranked = new ArrayList<>();
+        for(Entry entry : entries){
+            if(!entry.key.isEmpty()){
+                ranked.add(entry);
+            }
+        }
+        ranked.sort(Comparator.comparingLong((Entry entry) -> entry.weight).reversed()
+                .thenComparing(entry -> entry.key)
+                .thenComparing(entry -> entry.imdbID));
+
+        String[] imdbIDs = new String[ranked.size()];
+        String[] titles = new String[ranked.size()];
+        Integer[] order = new Integer[ranked.size()];
+        for(int id = 0; id < ranked.size(); id++){
+            imdbIDs[id] = ranked.get(id).imdbID;
+            titles[id] = ranked.get(id).title;
+            order[id] = id;
+        }
+        // keys in lexicographic order, equal keys by popularity
+        Arrays.sort(order, Comparator.comparing((Integer id) -> ranked.get(id).key).thenComparingInt(id -> id));
+        String[] keys = new String[order.length];
+        int[] ids = new int[order.length];
+        for(int i = 0; i < order.length; i++){
+            keys[i] = ranked.get(order[i]).key;
+            ids[i] = order[i];
+        }
+
+        Builder builder = new Builder(keys, ids, topN);
+        builder.reserve(1);
+        builder.fill(ROOT, 0, keys.length, 0);
+        return new SuggestionTrie(builder, imdbIDs, titles, topN);
+    }
+
+    /**
+     * Returns the most popular titles starting with the prefix, ignoring case and accents.
+     *
+     * @param prefix the typed text
+     * @param limit  the maximum number of suggestions, capped to the precomputed count
+     */
+    List<TitleSuggestion> lookup(String prefix, int limit){
+        String query = TextFolding.fold(prefix).stripLeading();
+        if(query.isEmpty()){
+            return List.of();
+        }
+
+        int node = ROOT;
+        int position = 0;
+        while(position < query.length()){
+            node = child(node, query.charAt(position));
+            if(node < 0){
+                return List.of();
+            }
+            for(int i = labelStart[node]; i < labelEnd[node] && position < query.length(); i++, position++){
+                if(labels[i] != query.charAt(position)){
+                    return List.of();
+                }
+            }
+        }
+
+        int count = Math.min(limit, topCount[node]);
+        List<TitleSuggestion> suggestions = new ArrayList<>(count);
+        for(int i = 0; i < count; i++){
+            int id = topIds[topStart[node] + i];
+            suggestions.add(new TitleSuggestion(imdbIDs[id], titles[id]));
+        }
+        return suggestions;
+    }
+
+    // Binary search over the children, which are ordered by the first character of their label
+    private int child(int node, char c){
+        int lo = firstChild[node];
+        int hi = lo + childCount[node] - 1;
+        while(lo <= hi){
+            int mid = (lo + hi) >>> 1;
+            char first = labels[labelStart[mid]];
+            if(first < c){
+                lo = mid + 1;
+            } else if(first > c){
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    int size(){
+        return titles.length;
+    }
+
+    int nodeCount(){
+        return labelStart.length;
+    }
+
+    int topN(){
+        return topN;
+    }
+
+    /**
+     * Estimated heap size of the trie in bytes, assuming compressed oops and Latin-1 strings.
+     */
+    long footprintBytes(){
+        return footprintBytes;
+    }
+
+    private long measure(){
+        long bytes = array(2L * labels.length)
+                + 4 * array(4L * labelStart.length)
+                + array(4L * topStart.length) + array(topCount.length) + array(4L * topIds.length)
+                + array(4L * imdbIDs.length) + array(4L * titles.length);
+        for(int id = 0; id < titles.length; id++){
+            bytes += string(imdbIDs[id]) + string(titles[id]);
+        }
+        return bytes;
+    }
+
+    private static long array(long payload){
+        return align(16 + payload);
+    }
+
+    private static long string(String value){
+        return value == null ? 0 : 24 + array(value.length());
+    }
+
+    private static long align(long bytes){
+        return (bytes + 7) & ~7L;
+    }
+
+    /**
+     * A title to index, weighted by popularity.
+     */
+    static final class Entry {
+        private final String imdbID;
+        private final String title;
+        private final String key;
+        private final long weight;
+
+        Entry(String imdbID, String title, long weight){
+            this.imdbID = imdbID;
+            this.title = title;
+            this.key = TextFolding.fold(title).strip();
+            this.weight = weight;
+        }
+    }
+
+    private static final class Builder {
+        private final String[] keys;
+        private final int[] ids;
+        private final int topN;
+
+        private final StringBuilder labels = new StringBuilder();
+        private int[] labelStart = new int[16];
+        private int[] labelEnd = new int[16];
+        private int[] firstChild = new int[16];
+        private int[] childCount = new int[16];
+        private int[][] tops = new int[16][];
+        private int nodes;
+
+        Builder(String[] keys, int[] ids, int topN){
+            this.keys = keys;
+            this.ids = ids;
+            this.topN = topN;
+        }
+
+        private int reserve(int count){
+            int first = nodes;
+            nodes += count;
+            if(nodes > labelStart.length){
+                int capacity = Math.max(nodes, labelStart.length * 2);
+                labelStart = Arrays.copyOf(labelStart, capacity);
+                labelEnd = Arrays.copyOf(labelEnd, capacity);
+                firstChild = Arrays.copyOf(firstChild, capacity);
+                childCount = Arrays.copyOf(childCount, capacity);
+                tops = Arrays.copyOf(tops, capacity);
+            }
+            return first;
+        }
+
+        // Fills the node for the sorted keys [lo, hi) that share their first depth characters
+        private int[] fill(int node, int lo, int hi, int depth){
+            // the root has an empty label, every other node holds at least one character
+            int end = node == ROOT ? depth : commonPrefix(keys[lo], keys[hi - 1], depth);
+            labelStart[node] = labels.length();
+            if(end > depth){
+                labels.append(keys[lo], depth, end);
+            }
+            labelEnd[node] = labels.length();
+
+            int i = lo;
+            while(i < hi && keys[i].length() == end){
+                i++;
+            }
+            int[] top = Arrays.copyOfRange(ids, lo, Math.min(i, lo + topN));
+
+            int groups = 0;
+            for(int j = i; j < hi; j++){
+                if(j == i || keys[j].charAt(end) != keys[j - 1].charAt(end)){
+                    groups++;
+                }
+            }
+            int first = reserve(groups);
+            firstChild[node] = first;
+            childCount[node] = groups;
+
+            int child = first;
+            int groupStart = i;
+            for(int j = i + 1; j <= hi; j++){
+                if(j == hi || keys[j].charAt(end) != keys[groupStart].charAt(end)){
+                    top = smallest(top, fill(child++, groupStart, j, end), topN);
+                    groupStart = j;
+                }
+            }
+            tops[node] = top;
+            return top;
+        }
+
+        private static int commonPrefix(String a, String b, int from){
+            int end = from;
+            int max = Math.min(a.length(), b.length());
+            while(end < max && a.charAt(end) == b.charAt(end)){
+                end++;
+            }
+            return end;
+        }
+
+        // Merges two ascending id lists keeping the n smallest
+        private static int[] smallest(int[] a, int[] b, int n){
+            int[] merged = new int[Math.min(n, a.length + b.length)];
+            int i = 0;
+            int j = 0;
+            for(int k = 0; k < merged.length; k++){
+                merged[k] = j == b.length || (i < a.length && a[i] < b[j]) ? a[i++] : b[j++];
+            }
+            return merged;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.moviebackend.movie.search;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Case and accent folding for title search, so "Amélie" matches "amelie".
+ */
+public final class TextFolding {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private TextFolding(){
+    }
+
+    /**
+     * Folds a text to lower case and strips its diacritics.
+     *
+     * @param text the text, may be null
+     * @return the folded text, empty for null
+     */
+    public static String fold(String text){
+        if(text == null){
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.moviebackend.movie.search;
+
+import com.example.moviebackend.movie.MovieCatalogChangedEvent;
+import com.example.moviebackend.movie.MovieEntity;
+import com.example.moviebackend.movie.OmdbValues;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Trigram index over movie titles answering case and accent insensitive substring queries.
+ * Every folded title is split into overlapping three character grams, each gram keeps a sorted postings
+ * list of document ids, and a query intersects the postings of its own grams before verifying the
+ * remaining candidates. Results are ranked by match quality (exact, prefix, word start, substring)
+ * and then by imdbVotes, ties keep indexing order.
+ */
+@Component
+public class TitleSearchIndex {
+
+    private static final int EXACT = 0;
+    private static final int PREFIX = 1;
+    private static final int WORD_START = 2;
+    private static final int SUBSTRING = 3;
+
+    private static final long VOTES_MASK = 0xFFFFFFFFL;
+    private static final long DOC_MASK = (1L << 29) - 1;
+    // the documents are rebuilt without the deleted ones once there are this many and they outnumber the live
+    private static final int MIN_DELETED_TO_COMPACT = 64;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // documents are append only: a re-indexed movie keeps its id while its title is unchanged, otherwise it gets
+    // a new id and the old one is marked deleted until the documents are compacted
+    private final List<MovieEntity> movies = new ArrayList<>();
+    private final List<String> foldedTitles = new ArrayList<>();
+    private long[] votes = new long[1024];
+    private final BitSet deleted = new BitSet();
+    private int deletedCount;
+    private final Map<String, Integer> docById = new HashMap<>();
+    private final Map<Long, Postings> postings = new HashMap<>();
+
+    @EventListener
+    public void onCatalogChanged(MovieCatalogChangedEvent event){
+        lock.writeLock().lock();
+        try {
+            for(MovieEntity movie : event.getMovies()){
+                add(movie);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(MovieEntity movie){
+        String folded = TextFolding.fold(movie.getTitle());
+        Integer previous = docById.get(movie.getImdbID());
+        if(previous != null){
+            if(foldedTitles.get(previous).equals(folded)){
+                // same grams, only the movie and its votes change
+                movies.set(previous, movie);
+                votes[previous] = OmdbValues.votes(movie);
+                return;
+            }
+            deleted.set(previous);
+            deletedCount++;
+        }
+        index(movie, folded);
+        if(deletedCount >= MIN_DELETED_TO_COMPACT && deletedCount > docById.size()){
+            compact();
+        }
+    }
+
+    private void index(MovieEntity movie, String folded){
+        int doc = movies.size();
+        movies.add(movie);
+        foldedTitles.add(folded);
+        if(doc == votes.length){
+            votes = Arrays.copyOf(votes, votes.length * 2);
+        }
+        votes[doc] = OmdbValues.votes(movie);
+        docById.put(movie.getImdbID(), doc);
+
+        for(long gram : trigrams(folded)){
+            postings.computeIfAbsent(gram, key -> new Postings()).add(doc);
+        }
+    }
+
+    // Renumbers the live documents in their order and rebuilds the postings without the deleted ones
+    private void compact(){
+        List<MovieEntity> live = new ArrayList<>(docById.size());
+        List<String> liveTitles = new ArrayList<>(docById.size());
+        for(int doc = 0; doc < movies.size(); doc++){
+            if(!deleted.get(doc)){
+                live.add(movies.get(doc));
+                liveTitles.add(foldedTitles.get(doc));
+            }
+        }
+        movies.clear();
+        foldedTitles.clear();
+        votes = new long[Math.max(1024, live.size())];
+        deleted.clear();
+        deletedCount = 0;
+        docById.clear();
+        postings.clear();
+        for(int i = 0; i < live.size(); i++){
+            index(live.get(i), liveTitles.get(i));
+        }
+    }
+
+    // Documents held, deleted ones included
+    int documents(){
+        lock.readLock().lock();
+        try {
+            return movies.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size(){
+        lock.readLock().lock();
+        try {
+            return docById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the movies whose title contains the keyword, ignoring case and accents.
+     *
+     * @param keyword the text to look for
+     * @param limit   the maximum number of movies to return
+     * @return the matching movies, best match first
+     */
+    public List<MovieEntity> search(String keyword, int limit){
+        String query = TextFolding.fold(keyword).trim();
+        if(query.isEmpty()){
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            long[] matches = new long[16];
+            int count = 0;
+            if(query.length() < 3){
+                // too short for a trigram, scan the folded titles
+                for(int doc = 0; doc < foldedTitles.size(); doc++){
+                    long key = sortKey(doc, query);
+                    if(key >= 0){
+                        matches = append(matches, count++, key);
+                    }
+                }
+            } else {
+                for(int doc : candidates(query)){
+                    long key = sortKey(doc, query);
+                    if(key >= 0){
+                        matches = append(matches, count++, key);
+                    }
+                }
+            }
+
+            Arrays.sort(matches, 0, count);
+            List<MovieEntity> result = new ArrayList<>(Math.min(limit, count));
+            for(int i = 0; i < count && i < limit; i++){
+                result.add(movies.get((int) (matches[i] & DOC_MASK)));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Packs match quality, inverted imdbVotes and the document id so a plain sort ranks the matches
+    private long sortKey(int doc, String query){
+        if(deleted.get(doc)){
+            return -1;
+        }
+        int quality = matchQuality(foldedTitles.get(doc), query);
+        if(quality < 0){
+            return -1;
+        }
+        long fewerVotes = VOTES_MASK - Math.min(Math.max(votes[doc], 0), VOTES_MASK);
+        return ((long) quality << 61) | (fewerVotes << 29) | doc;
+    }
+
+    private static long[] append(long[] keys, int index, long key){
+        if(index == keys.length){
+            keys = Arrays.copyOf(keys, index * 2);
+        }
+        keys[index] = key;
+        return keys;
+    }
+
+    // Intersects the postings of the query grams, rarest gram first
+    private int[] candidates(String query){
+        List<Postings> lists = new ArrayList<>();
+        for(long gram : trigrams(query)){
+            Postings list = postings.get(gram);
+            if(list == null){
+                return new int[0];
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+
+        Postings rarest = lists.get(0);
+        int[] result = Arrays.copyOf(rarest.docs, rarest.size);
+        int size = result.length;
+        for(int i = 1; i < lists.size() && size > 0; i++){
+            size = intersect(result, size, lists.get(i));
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static int intersect(int[] docs, int size, Postings other){
+        int kept = 0;
+        int j = 0;
+        for(int i = 0; i < size && j < other.size; i++){
+            int doc = docs[i];
+            while(j < other.size && other.docs[j] < doc){
+                j++;
+            }
+            if(j < other.size && other.docs[j] == doc){
+                docs[kept++] = doc;
+            }
+        }
+        return kept;
+    }
+
+    static int matchQuality(String title, String query){
+        int index = title.indexOf(query);
+        if(index < 0){
+            return -1;
+        }
+        if(index == 0){
+            return title.length() == query.length() ? EXACT : PREFIX;
+        }
+        do {
+            if(!Character.isLetterOrDigit(title.charAt(index - 1))){
+                return WORD_START;
+            }
+            index = title.indexOf(query, index + 1);
+        } while(index > 0);
+        return SUBSTRING;
+    }
+
+    static Set<Long> trigrams(String folded){
+        Set<Long> grams = new LinkedHashSet<>();
+        for(int i = 0; i + 3 <= folded.length(); i++){
+            grams.add(((long) folded.charAt(i) << 32) | ((long) folded.charAt(i + 1) << 16) | folded.charAt(i + 2));
+        }
+        return grams;
+    }
+
+    /**
+     * Growable, ascending list of document ids.
+     */
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private int size;
+
+        void add(int doc){
+            if(size == docs.length){
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            docs[size++] = doc;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.moviebackend.movie.search;
+
+import com.example.moviebackend.movie.MovieCatalogChangedEvent;
+import com.example.moviebackend.movie.MovieEntity;
+import com.example.moviebackend.movie.OmdbValues;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Title autocomplete served from an immutable {@link SuggestionTrie}.
+ * Titles are weighted by imdbVotes. The trie is rebuilt in the background when the catalog changes,
+ * changes arriving within the rebuild delay are folded into a single rebuild.
+ */
+@Component
+public class TitleSuggester {
+
+    private static final Logger logger = LoggerFactory.getLogger(TitleSuggester.class);
+
+    private final int topN;
+    private final long rebuildDelayMillis;
+
+    private final Map<String, SuggestionTrie.Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private volatile SuggestionTrie trie = SuggestionTrie.EMPTY;
+    private volatile long buildMillis;
+
+    public TitleSuggester(@Value("${movie.suggest.top-n:10}") int topN,
+                          @Value("${movie.suggest.rebuild-delay-ms:1000}") long rebuildDelayMillis){
+        this.topN = topN;
+        this.rebuildDelayMillis = rebuildDelayMillis;
+    }
+
+    @EventListener
+    public void onCatalogChanged(MovieCatalogChangedEvent event){
+        for(MovieEntity movie : event.getMovies()){
+            entries.put(movie.getImdbID(), new SuggestionTrie.Entry(movie.getImdbID(), movie.getTitle(),
+                    OmdbValues.votes(movie)));
+        }
+        if(trie.size() == 0){
+            // nothing to serve yet, build right away
+            rebuild();
+        } else if(rebuildPending.compareAndSet(false, true)){
+            scheduler.schedule(() -> {
+                rebuildPending.set(false);
+                rebuild();
+            }, rebuildDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void rebuild(){
+        try {
+            long start = System.currentTimeMillis();
+            SuggestionTrie rebuilt = SuggestionTrie.build(entries.values(), topN);
+            buildMillis = System.currentTimeMillis() - start;
+            trie = rebuilt;
+            logger.info("Built title suggestions for " + rebuilt.size() + " titles: " + rebuilt.nodeCount()
+                    + " nodes, " + rebuilt.footprintBytes() / 1024 + " KiB in " + buildMillis + " ms");
+        } catch (Exception e) {
+            // keep serving the previous trie
+            logger.error("Error building title suggestions", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Returns the most popular titles starting with the prefix.
+     *
+     * @param prefix the typed text
+     * @param limit  the maximum number of suggestions
+     */
+    public List<TitleSuggestion> suggest(String prefix, int limit){
+        return trie.lookup(prefix, limit);
+    }
+
+    public Stats stats(){
+        SuggestionTrie current = trie;
+        return new Stats(current.size(), current.nodeCount(), current.topN(), current.footprintBytes(), buildMillis);
+    }
+
+    @Getter
+    public static final class Stats {
+        private final int titles;
+        private final int nodes;
+        private final int topN;
+        private final long footprintBytes;
+        private final long buildMillis;
+
+        Stats(int titles, int nodes, int topN, long footprintBytes, long buildMillis){
+            this.titles = titles;
+            this.nodes = nodes;
+            this.topN = topN;
+            this.footprintBytes = footprintBytes;
+            this.buildMillis = buildMillis;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.moviebackend.movie.search;
+
+import lombok.Getter;
+
+/**
+ * A title suggested for a typed prefix.
+ */
+@Getter
+public class TitleSuggestion {
+    private final String imdbID;
+    private final String title;
+
+    public TitleSuggestion(String imdbID, String title){
+        this.imdbID = imdbID;
+        this.title = title;
+    }
+}
@@ -1,13 +1,33 @@
 package com.example.moviebackend.user;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface UserRepository extends JpaRepository<UserEntity, Integer> {
     UserEntity findByUsername(String username);
 
     @Query("SELECT u FROM users u WHERE u.id = ?1")
     UserEntity findByUserId(Integer userId);
+
+    // (user id, imdbID) pairs of every favourited movie
+    @Query("SELECT u.id, m.imdbID FROM users u JOIN u.lstMovie m")
+    List<Object[]> findAllFavourites();
+
+    // (imdbID, number of users) of the given movies that were favourited
+    @Query("SELECT m.imdbID, COUNT(u) FROM users u JOIN u.lstMovie m WHERE m.imdbID IN :imdbIDs GROUP BY m.imdbID")
+    List<Object[]> countFavourites(@Param("imdbIDs") Collection<String> imdbIDs);
+
+    // (imdbID, number of users) of the favourited movies due for a refresh, most favourited first
+    @Query("SELECT m.imdbID, COUNT(u) FROM users u JOIN u.lstMovie m"
+            + " WHERE (m.lastFetchedAt IS NULL OR m.lastFetchedAt < :cutoff)"
+            + " AND (m.refreshClaimedUntil IS NULL OR m.refreshClaimedUntil < :now)"
+            + " GROUP BY m.imdbID ORDER BY COUNT(u) DESC, m.imdbID")
+    List<Object[]> countFavouritesOfStale(@Param("cutoff") long cutoff, @Param("now") long now, Pageable pageable);
 }
@@ -31,6 +31,7 @@ public class UserService {
     public final ModelMapper modelMapper;
     private final PasswordEncoder passwordEncoder;
     private final JWTService jwtService;
+    private final RestTemplate restTemplate;
 
     @Value("${spring.security.oauth2.client.registration.google.client-id}")
     private String clientId;
@@ -48,12 +49,15 @@ public class UserService {
      * @param modelMapper ModelMapper
      * @param passwordEncoder PasswordEncoder
      * @param jwtService JWTService
+     * @param restTemplate RestTemplate on the shared pooled HTTP client, used for the Google calls
      */
-    public UserService(UserRepository userRepository, ModelMapper modelMapper, PasswordEncoder passwordEncoder, JWTService jwtService) {
+    public UserService(UserRepository userRepository, ModelMapper modelMapper, PasswordEncoder passwordEncoder, JWTService jwtService,
+                       RestTemplate restTemplate) {
         this.userRepository = userRepository;
         this.modelMapper = modelMapper;
         this.passwordEncoder = passwordEncoder;
         this.jwtService = jwtService;
+        this.restTemplate = restTemplate;
     }
 
     /**
@@ -161,7 +165,6 @@ public class UserService {
     }
 
     ResponseEntity<String> getRestTemplate(HttpEntity<MultiValueMap<String, String>> request){
-        RestTemplate restTemplate = new RestTemplate();
         return restTemplate.exchange("https://oauth2.googleapis.com/token", HttpMethod.POST, request, String.class);
     }
 
@@ -181,7 +184,6 @@ public class UserService {
     }
 
     public UserResponseDTO getUserInfoFromGoogle(String accessToken) {
-        RestTemplate restTemplate = new RestTemplate();
         HttpHeaders headers = new HttpHeaders();
         headers.setBearerAuth(accessToken);
         HttpEntity<String> entity = new HttpEntity<>("parameters", headers);
@@ -0,0 +1,3 @@
+-- BaseEntity allocates ids 50 at a time, databases created before that still increment by 1.
+-- A new database has no sequence yet, Hibernate creates it with the right increment.
+ALTER SEQUENCE IF EXISTS hibernate_sequence INCREMENT BY 50;
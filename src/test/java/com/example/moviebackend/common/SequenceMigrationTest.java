@@ -0,0 +1,39 @@
+package com.example.moviebackend.common;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SequenceMigrationTest {
+
+    private static final String URL = "jdbc:h2:mem:sequence-migration;DB_CLOSE_DELAY=-1";
+
+    @Test
+    void sequenceIncrementsByTheAllocationSize() throws SQLException {
+        // Given a database whose sequence predates the allocation size
+        try(Connection connection = DriverManager.getConnection(URL, "sa", "");
+            Statement statement = connection.createStatement()){
+            statement.execute("CREATE SEQUENCE hibernate_sequence START WITH 1 INCREMENT BY 1");
+            statement.execute("SELECT NEXT VALUE FOR hibernate_sequence");
+        }
+
+        // When
+        Flyway.configure().dataSource(URL, "sa", "").baselineOnMigrate(true).load().migrate();
+
+        // Then
+        try(Connection connection = DriverManager.getConnection(URL, "sa", "");
+            Statement statement = connection.createStatement();
+            ResultSet sequence = statement.executeQuery("SELECT INCREMENT FROM INFORMATION_SCHEMA.SEQUENCES"
+                    + " WHERE SEQUENCE_NAME = 'HIBERNATE_SEQUENCE'")){
+            assertTrue(sequence.next());
+            assertEquals(50, sequence.getLong(1));
+        }
+    }
+}
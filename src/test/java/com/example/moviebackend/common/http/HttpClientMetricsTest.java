@@ -0,0 +1,59 @@
+package com.example.moviebackend.common.http;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpClientMetricsTest {
+
+    @Test
+    void recordsLatencyFailuresAndPoolOccupancy() throws IOException {
+        // Given
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] body = "{}".getBytes();
+            exchange.sendResponseHeaders(200, body.length);
+            try(OutputStream out = exchange.getResponseBody()){
+                out.write(body);
+            }
+        });
+        server.start();
+        PoolingHttpClientConnectionManager connectionManager = HttpClientConfig.connectionManager(4, 2);
+        HttpClientMetrics metrics = new HttpClientMetrics(connectionManager);
+        CloseableHttpClient client = HttpClientConfig.httpClient(connectionManager, metrics, 500, 500, 30000);
+        String host = "127.0.0.1:" + server.getAddress().getPort();
+
+        // When
+        for(int i = 0; i < 3; i++){
+            try(CloseableHttpResponse response = client.execute(new HttpGet("http://" + host + "/"))){
+                EntityUtils.consume(response.getEntity());
+            }
+        }
+        server.stop(0);
+        assertThrows(IOException.class, () -> client.execute(new HttpGet("http://" + host + "/")));
+        HttpClientMetrics.Stats stats = metrics.stats();
+        client.close();
+
+        // Then
+        HttpClientMetrics.HostStats hostStats = stats.getHosts().get(0);
+        assertEquals(host, hostStats.getHost());
+        // the failed request may have been retried, every attempt counts
+        assertEquals(3, hostStats.getRequests() - hostStats.getFailures());
+        assertTrue(hostStats.getFailures() >= 1);
+        assertTrue(hostStats.getMaxMillis() >= hostStats.getMeanMillis());
+        assertEquals(4, stats.getPool().getMax());
+        assertEquals(0, stats.getPool().getLeased());
+        assertEquals(1, stats.getRoutes().size());
+        assertEquals(2, stats.getRoutes().get(0).getMax());
+    }
+}
@@ -6,9 +6,10 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.net.SocketTimeoutException;
 import java.util.List;
 
-import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 import static org.mockito.Mockito.when;
@@ -19,24 +20,91 @@ class APIDataFetcherServiceTest {
     @Mock
     private MovieService movieService;
 
+    @Mock
+    private OmdbQuota omdbQuota;
+
+    @Mock
+    private CrawlQueue crawlQueue;
+
     @InjectMocks
     private APIDataFetcherService apiDataFetcherService;
 
     @Test
     void fetchData(){
         // Test the fetchData method
-        when(movieService.getMoviesList(anyString())).thenReturn(List.of(new MovieEntity()));
+        MovieEntity movie = new MovieEntity();
+        when(crawlQueue.current()).thenReturn("aaa");
+        when(movieService.crawl(anyString())).thenReturn(new MovieService.CrawlResult(List.of(movie), 12, 3));
+        when(movieService.saveNewMovies(List.of(movie))).thenReturn(List.of(movie));
+
+        apiDataFetcherService.fetchData();
+
+        // verify that the word is crawled and the progress checkpointed with its yield
+        verify(movieService, times(1)).crawl("aaa");
+        verify(crawlQueue, times(1)).advance(12, 3, 1);
+    }
+
+    @Test
+    void fetchDataPausesAndRetriesPermutationWhenRequestLimitReached(){
+        // Given
+        when(crawlQueue.current()).thenReturn("abc");
+        when(movieService.crawl(anyString()))
+                .thenThrow(new MovieService.RequestLimitReachedException())
+                .thenReturn(new MovieService.CrawlResult(List.of(), 0, 1));
+
+        // When
+        apiDataFetcherService.fetchData();
+        verify(crawlQueue, never()).advance(anyInt(), anyInt(), anyInt());
+        when(omdbQuota.isExhausted()).thenReturn(true);
+        apiDataFetcherService.fetchData();
+        when(omdbQuota.isExhausted()).thenReturn(false);
+        apiDataFetcherService.fetchData();
 
+        // Then
+        verify(movieService, times(2)).crawl("abc");
+        verify(crawlQueue, times(1)).advance(0, 1, 0);
+    }
+
+    @Test
+    void fetchDataRetriesPermutationAfterNetworkError(){
+        // Given
+        when(crawlQueue.current()).thenReturn("abc");
+        when(movieService.crawl(anyString()))
+                .thenThrow(new RuntimeException(new SocketTimeoutException("Read timed out")))
+                .thenReturn(new MovieService.CrawlResult(List.of(), 0, 1));
+
+        // When
+        apiDataFetcherService.fetchData();
+        apiDataFetcherService.fetchData();
+
+        // Then
+        verify(movieService, times(2)).crawl("abc");
+        verify(crawlQueue, never()).skip();
+        verify(crawlQueue, times(1)).advance(0, 1, 0);
+    }
+
+    @Test
+    void fetchDataSkipsPermutationThatCannotBeCrawled(){
+        // Given
+        when(crawlQueue.current()).thenReturn("abc");
+        when(movieService.crawl(anyString())).thenThrow(new NumberFormatException("For input string: \"N/A\""));
+
+        // When
         apiDataFetcherService.fetchData();
 
-        // verify that getMoviesList is called
-        verify(movieService, times(1)).getMoviesList(anyString());
+        // Then
+        verify(crawlQueue, times(1)).skip();
     }
 
     @Test
-    void generatePermutations(){
-        // Test the generatePermutations method
-        List<String> permutations = apiDataFetcherService.generatePermutations();
-        assertEquals(17576, permutations.size());
+    void fetchDataStopsWhenFrontierIsExhausted(){
+        // Given
+        when(crawlQueue.current()).thenReturn(null);
+
+        // When
+        apiDataFetcherService.fetchData();
+
+        // Then
+        verify(movieService, never()).crawl(anyString());
     }
-}
\ No newline at end of file
+}
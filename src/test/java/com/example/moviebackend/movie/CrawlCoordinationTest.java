@@ -0,0 +1,280 @@
+package com.example.moviebackend.movie;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Several crawler instances sharing one database, each with its own {@link CrawlFrontier},
+ * {@link CrawlWorkUnits} and {@link OmdbQuota} as separate application contexts would have.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:crawl-coordination;DB_CLOSE_DELAY=-1;NON_KEYWORDS=YEAR,VALUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.show-sql=false"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+// every repository call commits on its own, as it does in the crawler
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CrawlCoordinationTest {
+
+    private static final long LEASE_MILLIS = 60_000;
+
+    @Autowired
+    private CrawlCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private CrawlUnitRepository unitRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private OmdbQuotaRepository quotaRepository;
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    private final TestClock clock = new TestClock("2024-06-01T12:00:00Z");
+
+    @BeforeEach
+    void setUp(){
+        unitRepository.deleteAll();
+        checkpointRepository.deleteAll();
+        quotaRepository.deleteAll();
+        movieRepository.deleteAll();
+    }
+
+    @Test
+    void instancesCrawlEveryWordExactlyOnce() throws Exception {
+        // Given
+        List<CrawlWorkUnits> instances = List.of(instance("a", 25), instance("b", 25), instance("c", 25));
+        Map<String, Integer> crawled = new ConcurrentHashMap<>();
+
+        // When
+        ExecutorService executor = Executors.newFixedThreadPool(instances.size());
+        List<Future<?>> futures = new ArrayList<>();
+        for(CrawlWorkUnits instance : instances){
+            futures.add(executor.submit(() -> {
+                for(String word = instance.current(); word != null; word = instance.current()){
+                    crawled.merge(word, 1, Integer::sum);
+                    instance.advance();
+                }
+            }));
+        }
+        for(Future<?> future : futures){
+            future.get();
+        }
+        executor.shutdown();
+
+        // Then
+        assertEquals(676, crawled.size());
+        assertTrue(crawled.values().stream().allMatch(count -> count == 1), "a word was crawled twice");
+        assertEquals(28, unitRepository.count());
+        assertTrue(unitRepository.findAll().stream().allMatch(CrawlUnitEntity::isCompleted));
+    }
+
+    @Test
+    void expiredLeaseIsTakenOverWhereItStopped(){
+        // Given an instance that crawled three words of its unit, then stopped
+        CrawlWorkUnits dead = instance("dead", 10);
+        assertEquals("aa", dead.current());
+        dead.advance();
+        dead.advance();
+        dead.advance();
+
+        // When the lease has not expired yet
+        CrawlWorkUnits other = instance("other", 10);
+
+        // Then the other instance gets a unit of its own
+        assertEquals("ak", other.current());
+
+        // When the lease expired, while the other instance kept its own alive
+        clock.advance(Duration.ofMillis(LEASE_MILLIS + 1));
+        other.heartbeat();
+        CrawlWorkUnits replacement = instance("replacement", 10);
+
+        // Then the unit is resumed where it stopped, and the stopped instance lost it
+        assertEquals("ad", replacement.current());
+        dead.advance();
+        assertEquals("au", dead.current());
+    }
+
+    @Test
+    void rangeIsKeptWhenItsUnitCannotBeInserted(){
+        // Given an instance whose unit insert fails
+        CrawlUnitRepository failing = mock(CrawlUnitRepository.class, delegatesTo(unitRepository));
+        doThrow(new IllegalStateException("connection lost")).when(failing).save(any(CrawlUnitEntity.class));
+        CrawlFrontier frontier = new CrawlFrontier(checkpointRepository, List.of(), 2, 2, "");
+        CrawlWorkUnits broken = new CrawlWorkUnits(frontier, failing, transactionManager, "broken", 10, LEASE_MILLIS, clock);
+
+        // When
+        assertThrows(IllegalStateException.class, broken::current);
+
+        // Then the frontier did not move past the range
+        assertEquals(0, checkpointRepository.findById("omdb").orElseThrow().getNextIndex());
+        assertEquals("aa", instance("other", 10).current());
+    }
+
+    @Test
+    void heartbeatKeepsTheLease(){
+        // Given
+        CrawlWorkUnits holder = instance("holder", 10);
+        assertEquals("aa", holder.current());
+
+        // When
+        clock.advance(Duration.ofMillis(LEASE_MILLIS / 2));
+        holder.heartbeat();
+        clock.advance(Duration.ofMillis(LEASE_MILLIS / 2 + 1));
+
+        // Then
+        assertEquals("ak", instance("other", 10).current());
+        holder.advance();
+        assertEquals("ab", holder.current());
+    }
+
+    @Test
+    void releasedUnitIsTakenOverAtOnce(){
+        // Given
+        CrawlWorkUnits stopping = instance("stopping", 10);
+        assertEquals("aa", stopping.current());
+        stopping.advance();
+
+        // When
+        stopping.shutdown();
+
+        // Then
+        assertEquals("ab", instance("other", 10).current());
+    }
+
+    @Test
+    void checkpointCreatedElsewhereIsNotOverwritten(){
+        // Given an instance that created the checkpoint and was handed out the first unit
+        assertEquals("aa", instance("first", 10).current());
+
+        // When another instance, which found no checkpoint a moment before, creates its own
+        CrawlCheckpointEntity late = new CrawlCheckpointEntity();
+        late.setId("omdb");
+        late.setNewCheckpoint(true);
+
+        // Then the insert fails rather than moving the position back
+        assertThrows(DataIntegrityViolationException.class, () -> checkpointRepository.saveAndFlush(late));
+        assertEquals(10, checkpointRepository.findById("omdb").orElseThrow().getNextIndex());
+    }
+
+    @Test
+    void instancesShareTheQuota(){
+        // Given
+        OmdbQuota first = new OmdbQuota(quotaRepository, 3, 3, clock);
+        OmdbQuota second = new OmdbQuota(quotaRepository, 3, 3, clock);
+
+        // When
+        first.reserve();
+        second.reserve();
+        first.reserve();
+
+        // Then
+        assertEquals(0, second.remaining());
+        assertThrows(MovieService.RequestLimitReachedException.class, second::reserve);
+    }
+
+    @Test
+    void staleMovieIsClaimedForRefreshOnce(){
+        // Given
+        long now = clock.millis();
+        long cutoff = now - Duration.ofDays(30).toMillis();
+        movieRepository.save(movie("tt1", null));
+        movieRepository.save(movie("tt2", cutoff - 1));
+        movieRepository.save(movie("tt3", now - 1));
+
+        // When
+        List<String> stale = movieRepository.findStaleImdbIDs(cutoff, now, Pageable.unpaged());
+        int first = movieRepository.claimRefresh("tt1", now, cutoff, now + 1000);
+        int second = movieRepository.claimRefresh("tt1", now, cutoff, now + 1000);
+
+        // Then it is not due while claimed, and not fetched before it was
+        assertEquals(List.of("tt1", "tt2"), stale.stream().sorted().toList());
+        assertEquals(1, first);
+        assertEquals(0, second);
+        assertNull(movieRepository.findByImdbID("tt1").orElseThrow().getLastFetchedAt());
+        assertEquals(List.of("tt2"), movieRepository.findStaleImdbIDs(cutoff, now, Pageable.unpaged()));
+
+        // When the claim lapses without a fetch
+        assertEquals(List.of("tt1", "tt2"), movieRepository.findStaleImdbIDs(cutoff, now + 1001, Pageable.unpaged()).stream().sorted().toList());
+        assertEquals(1, movieRepository.claimRefresh("tt1", now + 1001, cutoff, now + 2001));
+
+        // Then a fetch ends the claim and moves the last fetch time
+        movieRepository.markFetched("tt1", now + 1500);
+        assertEquals(now + 1500, movieRepository.findByImdbID("tt1").orElseThrow().getLastFetchedAt());
+        assertEquals(List.of("tt2"), movieRepository.findStaleImdbIDs(cutoff, now + 3000, Pageable.unpaged()));
+    }
+
+    @Test
+    void unusedRefreshClaimIsReleased(){
+        // Given
+        long now = clock.millis();
+        long cutoff = now - Duration.ofDays(30).toMillis();
+        movieRepository.save(movie("tt1", null));
+        movieRepository.claimRefresh("tt1", now, cutoff, now + 1000);
+
+        // When
+        int stale = movieRepository.releaseRefresh("tt1", now + 999);
+        int released = movieRepository.releaseRefresh("tt1", now + 1000);
+
+        // Then only the claim's holder releases it
+        assertEquals(0, stale);
+        assertEquals(1, released);
+        assertEquals(List.of("tt1"), movieRepository.findStaleImdbIDs(cutoff, now, Pageable.unpaged()));
+    }
+
+    @Test
+    void instancesShareTheRefreshShare(){
+        // Given
+        OmdbQuota first = new OmdbQuota(quotaRepository, 10, 10, clock);
+        OmdbQuota second = new OmdbQuota(quotaRepository, 10, 10, clock);
+
+        // When
+        boolean[] reserved = {first.tryReserveRefresh(0.2), second.tryReserveRefresh(0.2), first.tryReserveRefresh(0.2)};
+        clock.advance(Duration.ofDays(1));
+
+        // Then the share resets with the quota
+        assertArrayEquals(new boolean[]{true, true, false}, reserved);
+        assertTrue(second.tryReserveRefresh(0.2));
+    }
+
+    private static MovieEntity movie(String imdbID, Long lastFetchedAt){
+        MovieEntity movie = new MovieEntity();
+        movie.setImdbID(imdbID);
+        movie.setNewMovie(true);
+        movie.setLastFetchedAt(lastFetchedAt);
+        return movie;
+    }
+
+    private CrawlWorkUnits instance(String instanceId, int unitSize){
+        CrawlFrontier frontier = new CrawlFrontier(checkpointRepository, List.of(), 2, 2, "");
+        return new CrawlWorkUnits(frontier, unitRepository, transactionManager, instanceId, unitSize, LEASE_MILLIS, clock);
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.moviebackend.movie;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CrawlFrontierTest {
+
+    @Mock
+    private CrawlCheckpointRepository repository;
+
+    @Test
+    void threeLetterKeyspaceMatchesPermutationOrder(){
+        // Given
+        CrawlFrontier frontier = new CrawlFrontier(repository, List.of(), 3, 3, "");
+
+        // Then
+        assertEquals(17576, frontier.size());
+        assertEquals("aaa", frontier.word(0));
+        assertEquals("aab", frontier.word(1));
+        assertEquals("aba", frontier.word(26));
+        assertEquals("zzz", frontier.word(17575));
+        assertEquals(17575, frontier.indexOf("zzz"));
+        assertEquals(-1, frontier.indexOf("ab"));
+        assertEquals(-1, frontier.indexOf("a1c"));
+    }
+
+    @Test
+    void seedsAndVariableLengthsRoundTrip(){
+        // Given
+        CrawlFrontier frontier = new CrawlFrontier(repository, List.of("Matrix", " star wars ", "matrix", ""), 1, 4, "");
+
+        // Then
+        assertEquals(2 + 26 + 676 + 17576 + 456976, frontier.size());
+        assertEquals("matrix", frontier.word(0));
+        assertEquals("star wars", frontier.word(1));
+        assertEquals("a", frontier.word(2));
+        assertEquals("z", frontier.word(27));
+        assertEquals("aa", frontier.word(28));
+        assertEquals("zzzz", frontier.word(frontier.size() - 1));
+        for(long index : new long[]{0, 1, 2, 27, 28, 703, 704, 18279, 18280, frontier.size() - 1}){
+            assertEquals(index, frontier.indexOf(frontier.word(index)));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> frontier.word(frontier.size()));
+    }
+
+    @Test
+    void allocateHandsOutConsecutiveRanges(){
+        // Given
+        CrawlCheckpointEntity checkpoint = checkpoint(17570, "zzt");
+        when(repository.findById("omdb")).thenReturn(Optional.of(checkpoint));
+        when(repository.allocate("omdb", 17570, 17576, "zzz")).thenReturn(1);
+        CrawlFrontier frontier = new CrawlFrontier(repository, List.of(), 3, 3, "");
+
+        // When
+        CrawlFrontier.Range range = frontier.allocate(100);
+
+        // Then the last range is cut off at the end of the keyspace
+        assertEquals(17570, range.getStart());
+        assertEquals(17576, range.getEnd());
+
+        // When
+        checkpoint.setNextIndex(17576);
+        checkpoint.setLastWord("zzz");
+
+        // Then
+        assertNull(frontier.allocate(100));
+    }
+
+    @Test
+    void allocateRetriesWhenAnotherInstanceAllocatedFirst(){
+        // Given
+        when(repository.findById("omdb"))
+                .thenReturn(Optional.of(checkpoint(0, null)))
+                .thenReturn(Optional.of(checkpoint(10, "aaj")));
+        when(repository.allocate("omdb", 0, 10, "aaj")).thenReturn(0);
+        when(repository.allocate("omdb", 10, 20, "aat")).thenReturn(1);
+        CrawlFrontier frontier = new CrawlFrontier(repository, List.of(), 3, 3, "");
+
+        // When
+        CrawlFrontier.Range range = frontier.allocate(10);
+
+        // Then
+        assertEquals(10, range.getStart());
+        assertEquals(20, range.getEnd());
+    }
+
+    @Test
+    void resumesAfterLastWordWhenKeyspaceChanged(){
+        // Given
+        when(repository.findById("omdb")).thenReturn(Optional.of(checkpoint(29, "abc")));
+        when(repository.allocate("omdb", 29, 31, "abd")).thenReturn(1);
+
+        // When a seed was added in front of the permutations
+        CrawlFrontier frontier = new CrawlFrontier(repository, List.of("matrix"), 3, 3, "");
+        CrawlFrontier.Range range = frontier.allocate(1);
+
+        // Then
+        assertEquals("abd", frontier.word(range.getStart()));
+    }
+
+    @Test
+    void takesOverLegacyCheckpointFile(@TempDir Path directory) throws IOException {
+        // Given
+        Path legacy = directory.resolve("last_permutation.txt");
+        Files.writeString(legacy, "bcd");
+        when(repository.findById("omdb")).thenReturn(Optional.empty());
+        when(repository.allocate(eq("omdb"), anyLong(), anyLong(), anyString())).thenReturn(1);
+        CrawlFrontier frontier = new CrawlFrontier(repository, List.of(), 3, 3, legacy.toString());
+
+        // When
+        CrawlFrontier.Range range = frontier.allocate(5);
+
+        // Then
+        assertEquals("bce", frontier.word(range.getStart()));
+        verify(repository, times(1)).saveAndFlush(any(CrawlCheckpointEntity.class));
+    }
+
+    @Test
+    void rejectsInvalidWordLengths(){
+        assertThrows(IllegalArgumentException.class, () -> new CrawlFrontier(repository, List.of(), 4, 3, ""));
+        assertThrows(IllegalArgumentException.class, () -> new CrawlFrontier(repository, List.of(), 1, 14, ""));
+    }
+
+    private static CrawlCheckpointEntity checkpoint(long nextIndex, String lastWord){
+        CrawlCheckpointEntity checkpoint = new CrawlCheckpointEntity();
+        checkpoint.setId("omdb");
+        checkpoint.setNextIndex(nextIndex);
+        checkpoint.setLastWord(lastWord);
+        return checkpoint;
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.moviebackend.movie;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The crawl order of {@link CrawlQueue} over the two letter words a-z, with the yields it records in the database.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:crawl-queue;DB_CLOSE_DELAY=-1;NON_KEYWORDS=YEAR,VALUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.show-sql=false"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+// every repository call commits on its own, as it does in the crawler
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CrawlQueueTest {
+
+    private static final long LEASE_MILLIS = 60_000;
+
+    @Autowired
+    private CrawlCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private CrawlUnitRepository unitRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private PrefixYieldRepository prefixYieldRepository;
+
+    private final TestClock clock = new TestClock("2024-06-01T12:00:00Z");
+
+    @BeforeEach
+    void setUp(){
+        unitRepository.deleteAll();
+        checkpointRepository.deleteAll();
+        prefixYieldRepository.deleteAll();
+    }
+
+    @Test
+    void productiveWordsAreExtendedAheadOfTheFrontier(){
+        // Given
+        CrawlQueue queue = queue("a");
+
+        // When a word finds a new movie per request, and the next one nothing
+        assertEquals("aa", queue.current());
+        queue.advance(50, 5, 5);
+        assertEquals("ab", queue.current());
+        queue.advance(0, 1, 0);
+
+        // Then the extensions of the productive one promise more than the frontier and come first
+        assertEquals("aaa", queue.current());
+        queue.advance(10, 2, 0);
+        assertEquals("aab", queue.current());
+        assertTrue(prefixYieldRepository.findById("aba").isEmpty(), "a dead word was extended");
+        assertTrue(prefixYieldRepository.findById("aaaa").isEmpty(), "a word was extended beyond the maximum length");
+
+        CrawlQueue.Stats stats = queue.stats(1);
+        assertEquals(2, stats.getFrontierWords());
+        assertEquals(5 / 6.0, stats.getFrontierYield(), 1e-9);
+        assertEquals(1, stats.getExpansionWords());
+        assertEquals(0.0, stats.getExpansionYield());
+        assertEquals(25, stats.getQueued());
+        assertEquals("aa", stats.getMostProductive().get(0).getPrefix());
+        assertEquals(50, stats.getMostProductive().get(0).getTotalResults());
+    }
+
+    @Test
+    void frontierPassesOverWordsCrawledAsExtensions(){
+        // Given
+        crawled("ab", 0, 0);
+        CrawlQueue queue = queue("a");
+
+        // When
+        assertEquals("aa", queue.current());
+        queue.advance(1, 1, 0);
+
+        // Then
+        assertEquals("ac", queue.current());
+    }
+
+    @Test
+    void queuedWordIsClaimedByOneInstanceAtATime(){
+        // Given a frontier that yielded nothing, and a promising queued word
+        crawled("zz", 10, 0);
+        queued("xyz", 2.0);
+        CrawlQueue first = queue("first");
+        CrawlQueue second = queue("second");
+
+        // When
+        String claimed = first.current();
+        String other = second.current();
+
+        // Then
+        assertEquals("xyz", claimed);
+        assertEquals("ak", other);
+
+        // When the claim expired without being extended
+        clock.advance(Duration.ofMillis(LEASE_MILLIS + 1));
+        second.advance(1, 1, 0);
+        CrawlQueue third = queue("third");
+
+        // Then another instance takes it over, and the first moves on to the frontier
+        assertEquals("xyz", third.current());
+        assertEquals("aa", first.current());
+    }
+
+    @Test
+    void settingsAreValidated(){
+        CrawlWorkUnits workUnits = workUnits("a");
+        assertThrows(IllegalArgumentException.class,
+                () -> new CrawlQueue(workUnits, prefixYieldRepository, 0, 3, LEASE_MILLIS, clock));
+        assertThrows(IllegalArgumentException.class,
+                () -> new CrawlQueue(workUnits, prefixYieldRepository, 1, 0, LEASE_MILLIS, clock));
+        assertThrows(IllegalArgumentException.class,
+                () -> new CrawlQueue(workUnits, prefixYieldRepository, 1, 3, 2, clock));
+    }
+
+    private CrawlQueue queue(String instanceId){
+        return new CrawlQueue(workUnits(instanceId), prefixYieldRepository, 1, 3, LEASE_MILLIS, clock);
+    }
+
+    private CrawlWorkUnits workUnits(String instanceId){
+        CrawlFrontier frontier = new CrawlFrontier(checkpointRepository, List.of(), 2, 2, "");
+        return new CrawlWorkUnits(frontier, unitRepository, transactionManager, instanceId, 10, LEASE_MILLIS, clock);
+    }
+
+    private void crawled(String prefix, int requests, int newMovies){
+        PrefixYieldEntity row = new PrefixYieldEntity();
+        row.setPrefix(prefix);
+        row.setRequests(requests);
+        row.setNewMovies(newMovies);
+        row.setCrawledAt(clock.millis());
+        row.setNewPrefix(true);
+        prefixYieldRepository.save(row);
+    }
+
+    private void queued(String prefix, double priority){
+        PrefixYieldEntity row = new PrefixYieldEntity();
+        row.setPrefix(prefix);
+        row.setExpansion(true);
+        row.setPriority(priority);
+        row.setNewPrefix(true);
+        prefixYieldRepository.save(row);
+    }
+}
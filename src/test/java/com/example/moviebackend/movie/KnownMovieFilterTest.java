@@ -0,0 +1,66 @@
+package com.example.moviebackend.movie;
+
+import com.example.moviebackend.movie.index.MovieIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class KnownMovieFilterTest {
+
+    @Mock
+    private MovieRepository movieRepository;
+
+    private SimilarMovieEntity hit(String imdbID){
+        SimilarMovieEntity similarMovieEntity = new SimilarMovieEntity();
+        similarMovieEntity.setImdbID(imdbID);
+        return similarMovieEntity;
+    }
+
+    @Test
+    void unknownDropsIndexedStoredAndDuplicateHits(){
+        // Given
+        MovieIndex movieIndex = new MovieIndex();
+        MovieEntity indexed = new MovieEntity();
+        indexed.setImdbID("test1");
+        movieIndex.add(indexed);
+        KnownMovieFilter filter = new KnownMovieFilter(movieIndex, movieRepository);
+        when(movieRepository.findExistingImdbIDs(Set.of("test2", "test3"))).thenReturn(List.of("test2"));
+        SimilarMovieEntity fresh = hit("test3");
+
+        // When
+        List<SimilarMovieEntity> unknown = filter.unknown(List.of(hit("test1"), hit("test2"), fresh, hit("test3")));
+
+        // Then
+        assertEquals(List.of(fresh), unknown);
+        KnownMovieFilter.Stats stats = filter.stats();
+        assertEquals(4, stats.getHits());
+        assertEquals(3, stats.getSkippedDetailCalls());
+        assertEquals(0.75, stats.getSkippedRatio(), 1e-9);
+    }
+
+    @Test
+    void unknownSkipsQueryWhenAllHitsAreIndexed(){
+        // Given
+        MovieIndex movieIndex = new MovieIndex();
+        MovieEntity indexed = new MovieEntity();
+        indexed.setImdbID("test1");
+        movieIndex.add(indexed);
+        KnownMovieFilter filter = new KnownMovieFilter(movieIndex, movieRepository);
+
+        // When
+        List<SimilarMovieEntity> unknown = filter.unknown(List.of(hit("test1")));
+
+        // Then
+        assertTrue(unknown.isEmpty());
+        verify(movieRepository, never()).findExistingImdbIDs(anyCollection());
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.moviebackend.movie;
+
+import com.example.moviebackend.movie.index.MinHash;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieColumnsBackfillTest {
+
+    private static Flyway flyway(String url){
+        return Flyway.configure()
+                .dataSource(url, "sa", "")
+                .javaMigrations(new MovieColumnsBackfill())
+                .baselineOnMigrate(true)
+                .load();
+    }
+
+    @Test
+    void fillsInMoviesSavedBeforeTheColumns() throws SQLException {
+        // Given a table created before the typed columns, with more movies than a chunk
+        String url = "jdbc:h2:mem:backfill-old;DB_CLOSE_DELAY=-1;NON_KEYWORDS=YEAR,VALUE";
+        try(Connection connection = DriverManager.getConnection(url, "sa", "");
+            Statement statement = connection.createStatement()){
+            statement.execute("CREATE TABLE movies (imdb_id VARCHAR(255) PRIMARY KEY, year VARCHAR(255),"
+                    + " imdb_rating VARCHAR(255), imdb_votes VARCHAR(255), runtime VARCHAR(255), metascore VARCHAR(255),"
+                    + " box_office VARCHAR(255), poster VARCHAR(255), actors VARCHAR(255), director VARCHAR(255),"
+                    + " writer VARCHAR(255), genre VARCHAR(255))");
+            for(int i = 0; i < MovieColumnsBackfill.CHUNK_SIZE + 5; i++){
+                statement.execute(String.format("INSERT INTO movies VALUES ('tt%04d', '2015–2020', '7.8', '1,234',"
+                        + " '2h 15min', 'N/A', '$1,000', 'poster', 'Actor', 'Director', 'Writer', 'Action, Crime')", i));
+            }
+        }
+
+        // When
+        flyway(url).migrate();
+
+        // Then
+        try(Connection connection = DriverManager.getConnection(url, "sa", "");
+            Statement statement = connection.createStatement()){
+            try(ResultSet missing = statement.executeQuery("SELECT COUNT(*) FROM movies WHERE has_poster IS NULL OR minhash IS NULL")){
+                missing.next();
+                assertEquals(0, missing.getInt(1));
+            }
+            try(ResultSet row = statement.executeQuery("SELECT * FROM movies WHERE imdb_id = 'tt0500'")){
+                row.next();
+                assertEquals(2015, row.getInt("year_start"));
+                assertEquals(7.8f, row.getFloat("imdb_rating_value"));
+                assertEquals(1234L, row.getLong("imdb_votes_count"));
+                assertEquals(135, row.getInt("runtime_minutes"));
+                assertNull(row.getObject("metascore_value"));
+                assertEquals(1000L, row.getLong("box_office_amount"));
+                assertTrue(row.getBoolean("has_poster"));
+                assertNotNull(MinHash.decode(row.getBytes("minhash")));
+            }
+        }
+    }
+
+    @Test
+    void leavesANewDatabaseToHibernate() throws SQLException {
+        // Given
+        String url = "jdbc:h2:mem:backfill-new;DB_CLOSE_DELAY=-1;NON_KEYWORDS=YEAR,VALUE";
+
+        // When
+        flyway(url).migrate();
+
+        // Then
+        try(Connection connection = DriverManager.getConnection(url, "sa", "");
+            ResultSet tables = connection.getMetaData().getTables(null, null, "MOVIES", null)){
+            assertFalse(tables.next());
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.moviebackend.movie;
 
+import com.example.moviebackend.movie.search.TitleSuggestion;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -36,7 +37,7 @@ class MovieControllerTest {
         when(movieService.getAllMovies(title)).thenReturn(movieEntity);
 
         // Call the method under test
-        ResponseEntity<List<MovieEntity>> result = movieController.searchMovies(title);
+        ResponseEntity<List<MovieEntity>> result = movieController.searchMovies(title, false, 1);
 
         // Then
         assertEquals(movieEntity, result.getBody());
@@ -45,6 +46,40 @@ class MovieControllerTest {
         assertEquals("testTitle", result.getBody().get(0).getTitle());
     }
 
+    @Test
+    void searchMoviesFuzzy(){
+        // Given
+        MovieEntity movie = new MovieEntity();
+        movie.setTitle("The Godfather");
+        List<MovieEntity> movieEntity = List.of(movie);
+
+        // When
+        when(movieService.getAllMoviesFuzzy("godfathr", 2)).thenReturn(movieEntity);
+
+        // Call the method under test
+        ResponseEntity<List<MovieEntity>> result = movieController.searchMovies("godfathr", true, 2);
+
+        // Then
+        assertEquals(movieEntity, result.getBody());
+        verify(movieService, never()).getAllMovies(anyString());
+    }
+
+    @Test
+    void suggestTitles(){
+        // Given
+        List<TitleSuggestion> suggestions = List.of(new TitleSuggestion("tt0372784", "Batman Begins"));
+
+        // When
+        when(movieService.suggestTitles("bat", 5)).thenReturn(suggestions);
+
+        // Call the method under test
+        ResponseEntity<List<TitleSuggestion>> result = movieController.suggestTitles("bat", 5);
+
+        // Then
+        assertEquals(suggestions, result.getBody());
+        assertEquals(200, result.getStatusCodeValue());
+    }
+
     @Test
     void filterMoviesByYear(){
         // Given
@@ -54,10 +89,10 @@ class MovieControllerTest {
         movieEntity.add(movie);
 
         // When
-        when(movieService.filterMoviesByYear()).thenReturn(movieEntity);
+        when(movieService.filterMoviesByYear(0, 50)).thenReturn(movieEntity);
 
         // Call the method under test
-        ResponseEntity<List<MovieEntity>> result = movieController.filterMoviesByYear();
+        ResponseEntity<List<MovieEntity>> result = movieController.filterMoviesByYear(0, 50);
 
         // Then
         assertEquals(movieEntity, result.getBody());
@@ -75,10 +110,10 @@ class MovieControllerTest {
         movieEntity.add(movie);
 
         // When
-        when(movieService.getRecommendedMovies(imdbID)).thenReturn(movieEntity);
+        when(movieService.getRecommendedMovies(imdbID, 0, 20)).thenReturn(movieEntity);
 
         // Call the method under test
-        ResponseEntity<List<MovieEntity>> result = movieController.getMovie(imdbID);
+        ResponseEntity<List<MovieEntity>> result = movieController.getMovie(imdbID, 0, 20);
 
         // Then
         assertEquals(movieEntity, result.getBody());
@@ -0,0 +1,269 @@
+package com.example.moviebackend.movie;
+
+import com.example.moviebackend.movie.index.MovieCatalog;
+import com.example.moviebackend.movie.index.MovieCatalogSnapshot;
+import com.example.moviebackend.user.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.net.SocketTimeoutException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MovieRefresherTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2024-06-01T12:00:00Z"), ZoneOffset.UTC);
+    // a run every 864 seconds gets 2 of the 200 refreshes a day of a 0.2 share of 1000 requests
+    private static final long INTERVAL_MILLIS = 864_000;
+
+    @Mock
+    private MovieRepository movieRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private MovieService movieService;
+
+    @Mock
+    private OmdbQuota omdbQuota;
+
+    @Mock
+    private OmdbResponseStore omdbResponseStore;
+
+    private final MovieCatalog movieCatalog = new MovieCatalog();
+
+    @Test
+    void recentReleasesComeFirst(){
+        // Given
+        MovieCatalogSnapshot snapshot = MovieCatalogSnapshot.EMPTY.with(List.of(
+                movie("tt1", "1990"), movie("tt2", "2024"), movie("tt3", "2015")));
+
+        // When
+        List<String> picked = refresher(1, 0, 0).mostValuable(List.of("tt1", "tt2", "tt3"), Map.of(), snapshot, 2024, 10);
+
+        // Then
+        assertEquals(List.of("tt2", "tt3", "tt1"), picked);
+    }
+
+    @Test
+    void favouritedMoviesComeFirst(){
+        // Given
+        MovieCatalogSnapshot snapshot = MovieCatalogSnapshot.EMPTY.with(List.of(movie("tt1", "2024"), movie("tt2", "2024")));
+
+        // When
+        List<String> picked = refresher(1, 1, 0).mostValuable(List.of("tt1", "tt2", "tt3"),
+                Map.of("tt2", 40L, "tt3", 1L), snapshot, 2024, 10);
+
+        // Then tt3 is not in the catalog yet, so only its favourites count
+        assertEquals(List.of("tt2", "tt1", "tt3"), picked);
+    }
+
+    @Test
+    void incompleteMoviesComeFirst(){
+        // Given
+        MovieEntity incomplete = movie("tt2", "2020");
+        incomplete.setBoxOffice("N/A");
+        incomplete.setImdbVotes("N/A");
+        incomplete.setAwards(null);
+        MovieCatalogSnapshot snapshot = MovieCatalogSnapshot.EMPTY.with(List.of(movie("tt1", "2020"), incomplete));
+
+        // When
+        List<String> picked = refresher(0, 0, 1).mostValuable(List.of("tt1", "tt2"), Map.of(), snapshot, 2024, 10);
+
+        // Then
+        assertEquals(List.of("tt2", "tt1"), picked);
+    }
+
+    @Test
+    void mostValuableKeepsTheBestUpToTheLimit(){
+        // Given
+        MovieCatalogSnapshot snapshot = MovieCatalogSnapshot.EMPTY.with(List.of(
+                movie("tt1", "2001"), movie("tt2", "2023"), movie("tt3", "1980"), movie("tt4", "2024")));
+
+        // When
+        List<String> picked = refresher(1, 0, 0).mostValuable(List.of("tt1", "tt2", "tt3", "tt4"), Map.of(), snapshot, 2024, 2);
+
+        // Then
+        assertEquals(List.of("tt4", "tt2"), picked);
+    }
+
+    @Test
+    void refreshClaimsMoviesAndCountsChanges() throws Exception {
+        // Given
+        MovieEntity tt2 = movie("tt2", "2024");
+        MovieEntity tt3 = movie("tt3", "2024");
+        when(omdbResponseStore.mode()).thenReturn(OmdbResponseStore.Mode.RECORD);
+        when(omdbQuota.stats()).thenReturn(new OmdbQuota.Stats(1000, 0, 1000, 0, Instant.EPOCH));
+        when(omdbQuota.tryReserveRefresh(0.2)).thenReturn(true);
+        when(movieRepository.countStale(anyLong(), anyLong())).thenReturn(3L);
+        when(movieRepository.findStaleImdbIDs(anyLong(), anyLong(), any())).thenReturn(List.of("tt1", "tt2", "tt3"));
+        // another instance refreshed tt1 first
+        when(movieRepository.claimRefresh(eq("tt1"), anyLong(), anyLong(), anyLong())).thenReturn(0);
+        when(movieRepository.claimRefresh(eq("tt2"), anyLong(), anyLong(), anyLong())).thenReturn(1);
+        when(movieRepository.claimRefresh(eq("tt3"), anyLong(), anyLong(), anyLong())).thenReturn(1);
+        when(movieService.fetchMovieDetails("tt2")).thenReturn(tt2);
+        when(movieService.fetchMovieDetails("tt3")).thenReturn(tt3);
+        when(movieService.updateIfChanged(tt2)).thenReturn(true);
+        when(movieService.updateIfChanged(tt3)).thenReturn(false);
+        MovieRefresher refresher = refresher(3, 1, 2);
+
+        // When
+        refresher.refresh();
+
+        // Then the share is only drawn for the movies claimed, and both are marked fetched
+        verify(movieService, never()).fetchMovieDetails("tt1");
+        verify(omdbQuota, times(2)).tryReserveRefresh(0.2);
+        verify(movieRepository, times(1)).markFetched(eq("tt2"), anyLong());
+        verify(movieRepository, times(1)).markFetched(eq("tt3"), anyLong());
+        MovieRefresher.Stats stats = refresher.stats();
+        assertEquals(3, stats.getStale());
+        assertEquals(2, stats.getPerRun());
+        assertEquals(1, stats.getChanged());
+        assertEquals(1, stats.getUnchanged());
+        assertEquals(0, stats.getFailed());
+    }
+
+    @Test
+    void refreshStopsAtTheRefreshShare() throws Exception {
+        // Given
+        when(omdbResponseStore.mode()).thenReturn(OmdbResponseStore.Mode.RECORD);
+        when(omdbQuota.stats()).thenReturn(new OmdbQuota.Stats(1000, 0, 1000, 200, Instant.EPOCH));
+        when(omdbQuota.tryReserveRefresh(0.2)).thenReturn(false);
+        when(movieRepository.countStale(anyLong(), anyLong())).thenReturn(2L);
+        when(movieRepository.findStaleImdbIDs(anyLong(), anyLong(), any())).thenReturn(List.of("tt1", "tt2"));
+        when(movieRepository.claimRefresh(eq("tt1"), anyLong(), anyLong(), anyLong())).thenReturn(1);
+
+        // When
+        refresher(3, 1, 2).refresh();
+
+        // Then the claim is given up for the next run
+        verify(movieRepository, times(1)).releaseRefresh(eq("tt1"), anyLong());
+        verify(movieRepository, never()).claimRefresh(eq("tt2"), anyLong(), anyLong(), anyLong());
+        verify(movieService, never()).fetchMovieDetails(anyString());
+    }
+
+    @Test
+    void failedRefreshKeepsTheLastFetchTime() throws Exception {
+        // Given
+        when(omdbResponseStore.mode()).thenReturn(OmdbResponseStore.Mode.RECORD);
+        when(omdbQuota.stats()).thenReturn(new OmdbQuota.Stats(1000, 0, 1000, 0, Instant.EPOCH));
+        when(omdbQuota.tryReserveRefresh(0.2)).thenReturn(true);
+        when(movieRepository.countStale(anyLong(), anyLong())).thenReturn(1L);
+        when(movieRepository.findStaleImdbIDs(anyLong(), anyLong(), any())).thenReturn(List.of("tt1"));
+        when(movieRepository.claimRefresh(eq("tt1"), anyLong(), anyLong(), anyLong())).thenReturn(1);
+        when(movieService.fetchMovieDetails("tt1")).thenThrow(new SocketTimeoutException("Read timed out"));
+        MovieRefresher refresher = refresher(3, 1, 2);
+
+        // When
+        refresher.refresh();
+
+        // Then the claim lapses after the retry delay rather than the movie waiting to go stale again
+        verify(movieRepository, never()).markFetched(anyString(), anyLong());
+        verify(movieRepository, never()).releaseRefresh(anyString(), anyLong());
+        assertEquals(1, refresher.stats().getFailed());
+    }
+
+    @Test
+    void refreshScoresTheMostFavouritedStaleMoviesToo() throws Exception {
+        // Given an old release outside the latest releases the database picked, that many users favourited
+        MovieEntity tt9 = movie("tt9", "1980");
+        movieCatalog.onCatalogChanged(new MovieCatalogChangedEvent(List.of(movie("tt1", "2024"), tt9)));
+        when(omdbResponseStore.mode()).thenReturn(OmdbResponseStore.Mode.RECORD);
+        when(omdbQuota.stats()).thenReturn(new OmdbQuota.Stats(1000, 0, 1000, 0, Instant.EPOCH));
+        when(omdbQuota.tryReserveRefresh(0.2)).thenReturn(true);
+        when(movieRepository.countStale(anyLong(), anyLong())).thenReturn(2L);
+        when(movieRepository.findStaleImdbIDs(anyLong(), anyLong(), any())).thenReturn(List.of("tt1"));
+        when(userRepository.countFavouritesOfStale(anyLong(), anyLong(), any())).thenReturn(List.<Object[]>of(new Object[]{"tt9", 500L}));
+        when(userRepository.countFavourites(any())).thenReturn(List.<Object[]>of(new Object[]{"tt9", 500L}));
+        when(movieRepository.claimRefresh(anyString(), anyLong(), anyLong(), anyLong())).thenReturn(1);
+        when(movieService.fetchMovieDetails("tt9")).thenReturn(tt9);
+
+        // When the weights favour favourites
+        refresher(0, 1, 0).refresh();
+
+        // Then
+        verify(movieService, times(1)).fetchMovieDetails("tt9");
+    }
+
+    @Test
+    void rejectedMovieWaitsUntilItIsStaleAgain() throws Exception {
+        // Given
+        when(omdbResponseStore.mode()).thenReturn(OmdbResponseStore.Mode.RECORD);
+        when(omdbQuota.stats()).thenReturn(new OmdbQuota.Stats(1000, 0, 1000, 0, Instant.EPOCH));
+        when(omdbQuota.tryReserveRefresh(0.2)).thenReturn(true);
+        when(movieRepository.countStale(anyLong(), anyLong())).thenReturn(1L);
+        when(movieRepository.findStaleImdbIDs(anyLong(), anyLong(), any())).thenReturn(List.of("tt1"));
+        when(movieRepository.claimRefresh(eq("tt1"), anyLong(), anyLong(), anyLong())).thenReturn(1);
+        when(movieService.fetchMovieDetails("tt1")).thenReturn(null);
+        MovieRefresher refresher = refresher(3, 1, 2);
+
+        // When OMDb answers with an error
+        refresher.refresh();
+
+        // Then it is not retried every retry-after-ms
+        verify(movieRepository, times(1)).markFetched(eq("tt1"), anyLong());
+        verify(movieService, never()).updateIfChanged(any());
+        assertEquals(1, refresher.stats().getFailed());
+    }
+
+    @Test
+    void refreshIsSkippedWhileReplaying(){
+        // Given
+        when(omdbResponseStore.mode()).thenReturn(OmdbResponseStore.Mode.REPLAY);
+
+        // When
+        refresher(3, 1, 2).refresh();
+
+        // Then
+        verifyNoInteractions(movieRepository, omdbQuota);
+    }
+
+    private MovieRefresher refresher(double recencyWeight, double favouritesWeight, double missingWeight){
+        return new MovieRefresher(movieRepository, userRepository, movieCatalog, movieService, omdbQuota, omdbResponseStore,
+                0.2, Duration.ofDays(30), Duration.ofHours(1), INTERVAL_MILLIS, 0, recencyWeight, favouritesWeight,
+                missingWeight, CLOCK);
+    }
+
+    // A movie with every OMDb value present
+    private static MovieEntity movie(String imdbID, String year){
+        MovieEntity movie = new MovieEntity();
+        movie.setImdbID(imdbID);
+        movie.setYear(year);
+        movie.setTitle("Title");
+        movie.setRated("PG");
+        movie.setReleased("01 Jan " + year);
+        movie.setRuntime("2h 0min");
+        movie.setGenre("Drama");
+        movie.setDirector("Director");
+        movie.setWriter("Writer");
+        movie.setActors("Actor");
+        movie.setPlot("Plot");
+        movie.setLanguage("English");
+        movie.setCountry("USA");
+        movie.setAwards("1 win");
+        movie.setPoster("poster");
+        movie.setMetascore("70");
+        movie.setImdbRating("7.0");
+        movie.setImdbVotes("1,000");
+        movie.setType("movie");
+        movie.setDvd("01 Jun " + year);
+        movie.setBoxOffice("$1,000");
+        movie.setProduction("Studio");
+        movie.setWebsite("site");
+        movie.setTotalSeasons("1");
+        OmdbValues.normalise(movie);
+        return movie;
+    }
+}
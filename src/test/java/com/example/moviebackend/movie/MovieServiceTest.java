@@ -1,5 +1,18 @@
 package com.example.moviebackend.movie;
 
+import com.example.moviebackend.movie.dto.MovieFilterDTO;
+import com.example.moviebackend.movie.index.FacetIndex;
+import com.example.moviebackend.movie.index.LatestReleasesRanking;
+import com.example.moviebackend.movie.index.MinHash;
+import com.example.moviebackend.movie.index.MovieCatalog;
+import com.example.moviebackend.movie.index.MovieIndex;
+import com.example.moviebackend.movie.recommendation.CoFavouriteIndex;
+import com.example.moviebackend.movie.recommendation.RecommendationCache;
+import com.example.moviebackend.movie.recommendation.RecommendationEngine;
+import com.example.moviebackend.movie.recommendation.ScoredMovie;
+import com.example.moviebackend.movie.search.FuzzyTitleIndex;
+import com.example.moviebackend.movie.search.TitleSearchIndex;
+import com.example.moviebackend.movie.search.TitleSuggester;
 import com.example.moviebackend.user.UserEntity;
 import com.example.moviebackend.user.UserService;
 import org.apache.http.client.methods.HttpGet;
@@ -8,8 +21,16 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -30,6 +51,54 @@ class MovieServiceTest {
     @Mock
     private UserService userService;
 
+    @Spy
+    private MovieIndex movieIndex = new MovieIndex();
+
+    @Mock
+    private RecommendationEngine recommendationEngine;
+
+    @Spy
+    private RecommendationCache recommendationCache = new RecommendationCache(movieIndex, 1000);
+
+    @Spy
+    private MovieCatalog movieCatalog = new MovieCatalog();
+
+    @Mock
+    private CoFavouriteIndex coFavouriteIndex;
+
+    @Spy
+    private TitleSearchIndex titleSearchIndex = new TitleSearchIndex();
+
+    @Mock
+    private TitleSuggester titleSuggester;
+
+    @Spy
+    private FuzzyTitleIndex fuzzyTitleIndex = new FuzzyTitleIndex();
+
+    @Mock
+    private FacetIndex facetIndex;
+
+    @Mock
+    private LatestReleasesRanking latestReleasesRanking;
+
+    @Spy
+    private OmdbClient omdbClient = OmdbClients.omdbClient("http://127.0.0.1/", 2, 1000, 1000, 1000);
+
+    @Mock
+    private KnownMovieFilter knownMovieFilter;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private MovieEntity movie(String imdbID, String year, String imdbRating, String poster){
+        MovieEntity movieEntity = new MovieEntity();
+        movieEntity.setImdbID(imdbID);
+        movieEntity.setYear(year);
+        movieEntity.setImdbRating(imdbRating);
+        movieEntity.setPoster(poster);
+        return movieEntity;
+    }
+
     @Test
     void getAllMovies(){
         // Given
@@ -48,6 +117,61 @@ class MovieServiceTest {
         assertEquals(movieEntityList, result);
     }
 
+    @Test
+    void getAllMoviesFromTitleIndex(){
+        // Given
+        MovieEntity batman = movie("tt1", "1989", "7.5", "poster");
+        batman.setTitle("Batman");
+        batman.setImdbVotes("380,000");
+        MovieEntity returns = movie("tt2", "1992", "7.1", "poster");
+        returns.setTitle("Batman Returns");
+        returns.setImdbVotes("320,000");
+        MovieEntity lego = movie("tt3", "2017", "7.3", "poster");
+        lego.setTitle("The Lego Batman Movie");
+        lego.setImdbVotes("150,000");
+        titleSearchIndex.onCatalogChanged(new MovieCatalogChangedEvent(List.of(lego, returns, batman)));
+
+        // When
+        List<MovieEntity> result = movieService.getAllMovies("batman");
+
+        // Then
+        assertEquals(List.of(batman, returns, lego), result);
+        verify(movieRepository, never()).findByKeyword(anyString());
+    }
+
+    @Test
+    void getAllMoviesFuzzy(){
+        // Given
+        MovieEntity godfather = movie("tt1", "1972", "9.2", "poster");
+        godfather.setTitle("The Godfather");
+        MovieEntity father = movie("tt2", "1991", "6.6", "poster");
+        father.setTitle("Father of the Bride");
+        fuzzyTitleIndex.onCatalogChanged(new MovieCatalogChangedEvent(List.of(godfather, father)));
+
+        // When
+        List<MovieEntity> result = movieService.getAllMoviesFuzzy("godfathr", 5);
+
+        // Then
+        assertEquals(List.of(godfather), result);
+        verify(fuzzyTitleIndex).search("godfathr", 2);
+    }
+
+    @Test
+    void filterMoviesClampsPage(){
+        // Given
+        MovieFilterDTO filter = new MovieFilterDTO();
+        filter.setOffset(-5);
+        filter.setLimit(1000);
+
+        // When
+        movieService.filterMovies(filter);
+
+        // Then
+        verify(facetIndex).filter(filter);
+        assertEquals(0, filter.getOffset());
+        assertEquals(MovieService.MAX_RECOMMENDATIONS, filter.getLimit());
+    }
+
     @Test
     void getRecommendedMovies(){
         // Given
@@ -66,30 +190,75 @@ class MovieServiceTest {
 
         // When
         when(movieRepository.findByImdbID(imdbID)).thenReturn(Optional.of(movieEntity));
-        when(movieRepository.findAll()).thenReturn(movieEntityList);
+        when(recommendationEngine.recommend(movieEntity, 0, 20)).thenReturn(List.of(new ScoredMovie(movieEntity, 1.0f)));
 
         // Then
-        List<MovieEntity> result = movieService.getRecommendedMovies(imdbID);
+        List<MovieEntity> result = movieService.getRecommendedMovies(imdbID, 0, 20);
+        List<MovieEntity> cachedResult = movieService.getRecommendedMovies(imdbID, 0, 20);
 
         assertEquals(movieEntityList, result);
+        assertEquals(movieEntityList, cachedResult);
+        verify(recommendationEngine, times(1)).recommend(movieEntity, 0, 20);
     }
 
     @Test
-    void filterMoviesByYear(){
+    void getRecommendedMoviesBoundsHugeOffset(){
         // Given
         MovieEntity movieEntity = new MovieEntity();
-        movieEntity.setYear("test");
-        List<MovieEntity> movieEntityList = new ArrayList<>();
-        movieEntityList.add(movieEntity);
+        movieEntity.setImdbID("test");
+        when(movieRepository.findByImdbID("test")).thenReturn(Optional.of(movieEntity));
+        when(recommendationEngine.recommend(movieEntity, MovieService.MAX_RECOMMENDATION_OFFSET, 20)).thenReturn(List.of());
 
         // When
-        int currentYear = java.time.Year.now().getValue() - 2;
-        when(movieRepository.findByYear(currentYear + "")).thenReturn(movieEntityList);
+        List<MovieEntity> result = movieService.getRecommendedMovies("test", 1_000_000_000, 20);
 
         // Then
-        List<MovieEntity> result = movieService.filterMoviesByYear();
+        assertTrue(result.isEmpty());
+        verify(recommendationEngine, times(1)).recommend(movieEntity, MovieService.MAX_RECOMMENDATION_OFFSET, 20);
+    }
 
-        assertEquals(movieEntityList, result);
+    @Test
+    void filterMoviesByYear(){
+        // Given
+        MovieEntity rated = movie("test1", "2030", "7.5", "poster");
+        movieCatalog.onCatalogChanged(new MovieCatalogChangedEvent(List.of(rated)));
+
+        // When
+        when(latestReleasesRanking.page(10, MovieService.MAX_LATEST_RELEASES)).thenReturn(List.of(rated));
+
+        // Then
+        List<MovieEntity> result = movieService.filterMoviesByYear(10, 10_000);
+
+        assertEquals(List.of(rated), result);
+        verify(movieRepository, never()).findByYear(anyInt(), any());
+    }
+
+    @Test
+    void filterMoviesByYearBeforeCatalogIsLoaded(){
+        // Given
+        MovieEntity first = movie("test1", "2030", "8.5", "poster");
+        MovieEntity second = movie("test2", "2030", "7.5", "poster");
+
+        // When
+        when(latestReleasesRanking.sinceYear()).thenReturn(2028);
+        when(movieRepository.findByYear(2028, PageRequest.of(0, 3))).thenReturn(List.of(first, second));
+
+        // Then
+        assertEquals(List.of(second), movieService.filterMoviesByYear(1, 2));
+    }
+
+    @Test
+    void filterMoviesByYearCapsTheOffset(){
+        // Given
+        MovieEntity movie = movie("test1", "2030", "8.5", "poster");
+
+        // When
+        when(latestReleasesRanking.sinceYear()).thenReturn(2028);
+        when(movieRepository.findByYear(2028, PageRequest.of(0, MovieService.MAX_LATEST_RELEASES_OFFSET + 2)))
+                .thenReturn(List.of(movie));
+
+        // Then
+        assertEquals(List.of(), movieService.filterMoviesByYear(Integer.MAX_VALUE, 2));
     }
 
    // @Test
@@ -108,6 +277,65 @@ class MovieServiceTest {
 
     }
 
+    private interface OmdbResponder {
+        String respond(String uri) throws Exception;
+    }
+
+    // Answers every OMDb request with the JSON the responder returns for its URI
+    private void omdbResponds(OmdbResponder responder) throws IOException {
+        doAnswer(invocation -> OmdbDecoder.decode(
+                new ByteArrayInputStream(responder.respond(invocation.<HttpGet>getArgument(0).getURI().toString()).getBytes(StandardCharsets.UTF_8)),
+                invocation.getArgument(1)))
+                .when(omdbClient).execute(any(HttpGet.class), any());
+    }
+
+    private static String searchPage(int page, int hits, int totalResults){
+        StringBuilder json = new StringBuilder("{\"Search\":[");
+        for(int i = 0; i < hits; i++){
+            json.append(i == 0 ? "" : ",").append("{\"imdbID\":\"p").append(page).append('-').append(i).append("\"}");
+        }
+        return json.append("],\"totalResults\":\"").append(totalResults).append("\",\"Response\":\"True\"}").toString();
+    }
+
+    @Test
+    void searchMoviesFansOutPagesAndMergesInOrder() throws Exception {
+        // Given
+        omdbResponds(uri -> {
+            int page = Integer.parseInt(uri.substring(uri.lastIndexOf('=') + 1));
+            // later pages answer first
+            Thread.sleep(10L * (5 - page));
+            return searchPage(page, page < 4 ? 10 : 5, 35);
+        });
+
+        // When
+        List<SimilarMovieEntity> movies = movieService.searchMovies("test", 3);
+
+        // Then
+        assertEquals(35, movies.size());
+        assertEquals("p1-0", movies.get(0).getImdbID());
+        assertEquals("p2-0", movies.get(10).getImdbID());
+        assertEquals("p4-4", movies.get(34).getImdbID());
+        verify(omdbClient, times(4)).execute(any(HttpGet.class), any());
+    }
+
+    @Test
+    void searchMoviesStopsAtRejectedPage() throws Exception {
+        // Given
+        omdbResponds(uri -> {
+            int page = Integer.parseInt(uri.substring(uri.lastIndexOf('=') + 1));
+            if(page == 2){
+                return "{\"Response\":\"False\",\"Error\":\"Movie not found!\"}";
+            }
+            return searchPage(page, 10, 30);
+        });
+
+        // When
+        List<SimilarMovieEntity> movies = movieService.searchMovies("test", 2);
+
+        // Then
+        assertEquals(10, movies.size());
+    }
+
     @Test
     void convertRuntime(){
         // Given
@@ -121,8 +349,97 @@ class MovieServiceTest {
         assertEquals(expectedRuntime, result);
     }
 
-    //@Test
-    void getMoviesList(){
+    @Test
+    void getMoviesList() throws Exception {
+        // Given
+        when(knownMovieFilter.unknown(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        omdbResponds(uri -> {
+            if(uri.contains("&s=")){
+                return "{\"Search\":[{\"imdbID\":\"test1\"},{\"imdbID\":\"test2\"},{\"imdbID\":\"test3\"}],"
+                        + "\"totalResults\":\"3\",\"Response\":\"True\"}";
+            }
+            if(uri.endsWith("test2")){
+                return "{\"Response\":\"False\",\"Error\":\"Incorrect IMDb ID.\"}";
+            }
+            String imdbID = uri.substring(uri.lastIndexOf('=') + 1);
+            return "{\"imdbID\":\"" + imdbID + "\",\"Runtime\":\"90 min\"}";
+        });
+
+        // When
+        List<MovieEntity> movies = movieService.getMoviesList("test");
+
+        // Then
+        assertEquals(2, movies.size());
+        assertEquals("test1", movies.get(0).getImdbID());
+        assertEquals("test3", movies.get(1).getImdbID());
+        assertEquals("1h 30min", movies.get(0).getRuntime());
+    }
+
+    @Test
+    void crawlReportsTotalResultsAndRequests() throws Exception {
+        // Given two pages of hits of which one is stored already
+        when(knownMovieFilter.unknown(anyList())).thenAnswer(invocation -> {
+            List<SimilarMovieEntity> hits = invocation.getArgument(0);
+            return hits.subList(1, hits.size());
+        });
+        omdbResponds(uri -> {
+            if(uri.contains("&s=")){
+                int page = Integer.parseInt(uri.substring(uri.lastIndexOf('=') + 1));
+                return searchPage(page, page == 1 ? 10 : 2, 12);
+            }
+            String imdbID = uri.substring(uri.lastIndexOf('=') + 1);
+            return "{\"imdbID\":\"" + imdbID + "\"}";
+        });
+
+        // When
+        MovieService.CrawlResult result = movieService.crawl("test");
+
+        // Then
+        assertEquals(11, result.getMovies().size());
+        assertEquals(12, result.getTotalResults());
+        assertEquals(2 + 11, result.getRequests());
+    }
+
+    @Test
+    void getMoviesListSkipsDetailCallsForKnownMovies() throws Exception {
+        // Given
+        when(knownMovieFilter.unknown(anyList())).thenAnswer(invocation -> {
+            List<SimilarMovieEntity> hits = invocation.getArgument(0);
+            return hits.subList(2, 3);
+        });
+        omdbResponds(uri -> {
+            if(uri.contains("&s=")){
+                return "{\"Search\":[{\"imdbID\":\"test1\"},{\"imdbID\":\"test2\"},{\"imdbID\":\"test3\"}],"
+                        + "\"totalResults\":\"3\",\"Response\":\"True\"}";
+            }
+            return "{\"imdbID\":\"test3\",\"Runtime\":\"N/A\"}";
+        });
+
+        // When
+        List<MovieEntity> movies = movieService.getMoviesList("test");
+
+        // Then
+        assertEquals(1, movies.size());
+        assertEquals("test3", movies.get(0).getImdbID());
+        assertNull(movies.get(0).getRuntime());
+        verify(omdbClient, times(2)).execute(any(HttpGet.class), any());
+    }
+
+    @Test
+    void getMoviesListStopsWhenRequestLimitReached() throws Exception {
+        // Given
+        when(knownMovieFilter.unknown(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        omdbResponds(uri -> {
+            if(uri.contains("&s=")){
+                return "{\"Search\":[{\"imdbID\":\"test1\"},{\"imdbID\":\"test2\"}],"
+                        + "\"totalResults\":\"2\",\"Response\":\"True\"}";
+            }
+            // the client raises this when OMDb reports the quota used up
+            throw new MovieService.RequestLimitReachedException();
+        });
+
+        // When / Then
+        assertThrows(MovieService.RequestLimitReachedException.class, () -> movieService.getMoviesList("test"));
     }
 
     @Test
@@ -139,6 +456,179 @@ class MovieServiceTest {
 
         // Then
         verify(movieRepository, times(1)).save(movieEntity);
+        verify(eventPublisher, times(1)).publishEvent(any(MovieCatalogChangedEvent.class));
+        assertNotNull(movieEntity.getMinHashSignature());
+    }
+
+    @Test
+    void saveNewMoviesInsertsOnlyUnstoredMoviesInOneBatch(){
+        // Given
+        MovieEntity stored = movie("test1", "2020", "7.0", "poster");
+        MovieEntity fresh = movie("test2", "2021", "8.0", "poster");
+        MovieEntity duplicate = movie("test2", "2021", "8.0", "poster");
+        MovieEntity other = movie("test3", "2022", "N/A", "N/A");
+        when(movieRepository.findExistingImdbIDs(List.of("test1", "test2", "test3"))).thenReturn(List.of("test1"));
+
+        // When
+        List<MovieEntity> saved = movieService.saveNewMovies(List.of(stored, fresh, duplicate, other));
+
+        // Then
+        assertEquals(List.of(fresh, other), saved);
+        verify(movieRepository, times(1)).findExistingImdbIDs(anyList());
+        verify(movieRepository, times(1)).saveAll(List.of(fresh, other));
+        verify(movieRepository, never()).save(any(MovieEntity.class));
+        verify(eventPublisher, times(1)).publishEvent(any(MovieCatalogChangedEvent.class));
+        assertTrue(fresh.isNew());
+        assertEquals(2021, fresh.getYearStart());
+        assertNotNull(other.getMinHashSignature());
+    }
+
+    @Test
+    void saveNewMoviesSkipsBatchWhenAllStored(){
+        // Given
+        MovieEntity stored = movie("test1", "2020", "7.0", "poster");
+        when(movieRepository.findExistingImdbIDs(List.of("test1"))).thenReturn(List.of("test1"));
+
+        // When
+        List<MovieEntity> saved = movieService.saveNewMovies(List.of(stored));
+
+        // Then
+        assertTrue(saved.isEmpty());
+        verify(movieRepository, never()).saveAll(anyList());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void saveMovieNormalisesOmdbValues(){
+        // Given
+        MovieEntity movieEntity = movie("testImdbID", "2015–2019", "N/A", "poster");
+        movieEntity.setImdbVotes("1,234,567");
+        movieEntity.setRuntime("2h 15min");
+        movieEntity.setMetascore("74");
+        movieEntity.setBoxOffice("$12,345");
+
+        // When
+        movieService.saveMovie(movieEntity);
+
+        // Then
+        assertEquals(2015, movieEntity.getYearStart());
+        assertNull(movieEntity.getImdbRatingValue());
+        assertEquals(1_234_567L, movieEntity.getImdbVotesCount());
+        assertEquals(135, movieEntity.getRuntimeMinutes());
+        assertEquals(74, movieEntity.getMetascoreValue());
+        assertEquals(12_345L, movieEntity.getBoxOfficeAmount());
+        assertTrue(movieEntity.getHasPoster());
+    }
+
+    @Test
+    void updateIfChangedWritesChangedValuesAndRatings(){
+        // Given
+        MovieEntity stored = movie("tt1", "2023", "7.0", "poster");
+        stored.setImdbVotes("1,000");
+        stored.setRatings(new ArrayList<>(List.of(rating("Internet Movie Database", "7.0/10"))));
+        MovieEntity fetched = movie("tt1", "2023", "7.4", "poster");
+        fetched.setImdbVotes("25,000");
+        fetched.setRatings(List.of(rating("Internet Movie Database", "7.4/10"), rating("Metacritic", "70/100")));
+        when(movieRepository.findByImdbID("tt1")).thenReturn(Optional.of(stored));
+
+        // When
+        boolean changed = movieService.updateIfChanged(fetched);
+
+        // Then
+        assertTrue(changed);
+        assertEquals("7.4", stored.getImdbRating());
+        assertEquals(25_000L, stored.getImdbVotesCount());
+        assertEquals(2, stored.getRatings().size());
+        verify(movieRepository, times(1)).save(stored);
+        verify(eventPublisher, times(1)).publishEvent(any(MovieCatalogChangedEvent.class));
+    }
+
+    @Test
+    void updateIfChangedSkipsUnchangedMovie(){
+        // Given a stored movie with "N/A" where the fetched one has no value
+        MovieEntity stored = movie("tt1", "2023", "7.0", "poster");
+        stored.setBoxOffice("N/A");
+        stored.setRatings(new ArrayList<>(List.of(rating("Internet Movie Database", "7.0/10"))));
+        OmdbValues.normalise(stored);
+        stored.setMinHashSignature(MinHash.encode(MinHash.signature(stored)));
+        MovieEntity fetched = movie("tt1", "2023", "7.0", "poster");
+        fetched.setRatings(List.of(rating("Internet Movie Database", "7.0/10")));
+        when(movieRepository.findByImdbID("tt1")).thenReturn(Optional.of(stored));
+
+        // When
+        boolean changed = movieService.updateIfChanged(fetched);
+
+        // Then
+        assertFalse(changed);
+        verify(movieRepository, never()).save(any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void updateIfChangedMapsMovieStoredBeforeTheTypedColumns(){
+        // Given a stored movie with the same values, saved before they were normalised
+        MovieEntity stored = movie("tt1", "2023", "7.0", "poster");
+        MovieEntity fetched = movie("tt1", "2023", "7.0", "poster");
+        when(movieRepository.findByImdbID("tt1")).thenReturn(Optional.of(stored));
+
+        // When
+        boolean changed = movieService.updateIfChanged(fetched);
+
+        // Then
+        assertTrue(changed);
+        assertEquals(2023, stored.getYearStart());
+        assertEquals(7.0f, stored.getImdbRatingValue());
+        assertNotNull(stored.getMinHashSignature());
+        verify(movieRepository, times(1)).save(stored);
+    }
+
+    @Test
+    void updateIfChangedNotifiesTheCatalogAfterCommit(){
+        // Given a change made within a transaction
+        MovieEntity stored = movie("tt1", "2023", "7.0", "poster");
+        MovieEntity fetched = movie("tt1", "2023", "7.4", "poster");
+        when(movieRepository.findByImdbID("tt1")).thenReturn(Optional.of(stored));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // When
+            movieService.updateIfChanged(fetched);
+
+            // Then nothing is published before the commit
+            verify(eventPublisher, never()).publishEvent(any());
+            for(TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()){
+                synchronization.afterCommit();
+            }
+            verify(eventPublisher, times(1)).publishEvent(any(MovieCatalogChangedEvent.class));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void updateChangedNotifiesTheCatalogOnceForTheBatch(){
+        // Given tt1 changed, tt2 did not and tt3 is not stored
+        MovieEntity tt1 = movie("tt1", "2023", "7.0", "poster");
+        MovieEntity tt2 = movie("tt2", "2023", "6.0", "poster");
+        OmdbValues.normalise(tt2);
+        tt2.setMinHashSignature(MinHash.encode(MinHash.signature(tt2)));
+        when(movieRepository.findByImdbIDs(List.of("tt1", "tt2", "tt3"))).thenReturn(List.of(tt1, tt2));
+
+        // When
+        List<MovieEntity> changed = movieService.updateChanged(List.of(movie("tt1", "2023", "7.4", "poster"),
+                movie("tt2", "2023", "6.0", "poster"), movie("tt3", "2023", "5.0", "poster")));
+
+        // Then
+        assertEquals(List.of(tt1), changed);
+        assertEquals("7.4", tt1.getImdbRating());
+        verify(movieRepository, times(1)).saveAll(List.of(tt1));
+        verify(eventPublisher, times(1)).publishEvent(any(MovieCatalogChangedEvent.class));
+    }
+
+    private static RatingEntity rating(String source, String value){
+        RatingEntity rating = new RatingEntity();
+        rating.setSource(source);
+        rating.setValue(value);
+        return rating;
     }
 
     @Test
@@ -225,5 +715,6 @@ class MovieServiceTest {
 
         // Then
         verify(userService, Mockito.times(1)).save(userEntity);
+        verify(coFavouriteIndex, times(1)).favouriteRemoved(imdbID, List.of());
     }
 }
\ No newline at end of file
@@ -0,0 +1,222 @@
+package com.example.moviebackend.movie;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.client.methods.HttpGet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OmdbClientTest {
+
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        // /slow and /limit answer after 50ms, /hang waits until the test releases it
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                if(exchange.getRequestURI().getPath().startsWith("/hang")){
+                    release.await(10, TimeUnit.SECONDS);
+                } else {
+                    Thread.sleep(50);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            inFlight.decrementAndGet();
+            String path = exchange.getRequestURI().getPath();
+            byte[] body = (path.startsWith("/limit") ? "{\"Response\":\"False\",\"Error\":\"Request limit reached!\"}"
+                    : "{\"Title\":\"" + path + "\"}\n").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try(OutputStream out = exchange.getResponseBody()){
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer(){
+        release.countDown();
+        server.stop(0);
+    }
+
+    private String url(String path){
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    @Test
+    void invokeAllBoundsConcurrencyAndKeepsOrder() {
+        // Given
+        OmdbClient omdbClient = OmdbClients.omdbClient(url("/"), 3, 1000, 2000, 5000);
+        List<Callable<MovieEntity>> calls = new ArrayList<>();
+        for(int i = 0; i < 12; i++){
+            String path = "/slow/" + i;
+            calls.add(() -> omdbClient.execute(new HttpGet(url(path)), MovieEntity.class));
+        }
+
+        // When
+        List<MovieEntity> results = omdbClient.invokeAll(calls);
+        omdbClient.shutdown();
+
+        // Then
+        for(int i = 0; i < 12; i++){
+            assertEquals("/slow/" + i, results.get(i).getTitle());
+        }
+        assertTrue(maxInFlight.get() <= 3, "at most 3 requests in flight, saw " + maxInFlight.get());
+        assertTrue(maxInFlight.get() > 1, "requests ran concurrently");
+    }
+
+    @Test
+    void invokeAllWithParallelismCapsTheBatch() {
+        // Given
+        OmdbClient omdbClient = OmdbClients.omdbClient(url("/"), 8, 1000, 2000, 5000);
+        List<Callable<MovieEntity>> calls = new ArrayList<>();
+        for(int i = 0; i < 8; i++){
+            String path = "/slow/" + i;
+            calls.add(() -> omdbClient.execute(new HttpGet(url(path)), MovieEntity.class));
+        }
+
+        // When
+        List<MovieEntity> results = omdbClient.invokeAll(calls, 2);
+        omdbClient.shutdown();
+
+        // Then
+        assertEquals(8, results.size());
+        assertEquals("/slow/7", results.get(7).getTitle());
+        assertTrue(maxInFlight.get() <= 2, "at most 2 requests in flight, saw " + maxInFlight.get());
+    }
+
+    @Test
+    void invokeAllSkipsTimedOutCalls() {
+        // Given
+        OmdbClient omdbClient = OmdbClients.omdbClient(url("/"), 2, 1000, 5000, 200);
+        List<Callable<MovieEntity>> calls = List.of(
+                () -> omdbClient.execute(new HttpGet(url("/slow/1")), MovieEntity.class),
+                () -> omdbClient.execute(new HttpGet(url("/hang/2")), MovieEntity.class));
+
+        // When
+        List<MovieEntity> results = omdbClient.invokeAll(calls);
+        omdbClient.shutdown();
+
+        // Then
+        assertEquals("/slow/1", results.get(0).getTitle());
+        assertNull(results.get(1));
+    }
+
+    @Test
+    void requestLimitReachedCancelsOutstandingCalls() {
+        // Given
+        OmdbClient omdbClient = OmdbClients.omdbClient(url("/"), 2, 1000, 10000, 10000);
+        AtomicInteger started = new AtomicInteger();
+        List<Callable<MovieEntity>> calls = new ArrayList<>();
+        calls.add(() -> {
+            Thread.sleep(100);
+            throw new MovieService.RequestLimitReachedException();
+        });
+        for(int i = 0; i < 10; i++){
+            String path = "/hang/" + i;
+            calls.add(() -> {
+                started.incrementAndGet();
+                return omdbClient.execute(new HttpGet(url(path)), MovieEntity.class);
+            });
+        }
+
+        // When
+        long start = System.nanoTime();
+        assertThrows(MovieService.RequestLimitReachedException.class, () -> omdbClient.invokeAll(calls));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        omdbClient.shutdown();
+
+        // Then
+        assertTrue(elapsedMillis < 5000, "did not wait for the hanging requests");
+        assertTrue(started.get() <= 2, "queued calls were cancelled, " + started.get() + " started");
+    }
+
+    @Test
+    void requestLimitResponseExhaustsQuota(){
+        // Given
+        OmdbQuota quota = new OmdbQuota(null, 1000, 1000, Clock.systemUTC());
+        OmdbClient omdbClient = OmdbClients.omdbClient(url("/"), quota, OmdbClients.storeOff(), 2, 1000, 2000, 5000);
+
+        // When
+        assertThrows(MovieService.RequestLimitReachedException.class, () -> omdbClient.execute(new HttpGet(url("/limit")), MovieEntity.class));
+        omdbClient.shutdown();
+
+        // Then
+        assertTrue(quota.isExhausted());
+        assertThrows(MovieService.RequestLimitReachedException.class, () -> omdbClient.execute(new HttpGet(url("/slow/1")), MovieEntity.class));
+        assertEquals(1, maxInFlight.get());
+    }
+
+    @Test
+    void recordModeKeepsResponsesAndServesFreshOnes(@TempDir Path directory) throws IOException {
+        // Given
+        OmdbResponseStore store = new OmdbResponseStore(directory, OmdbResponseStore.Mode.RECORD, Duration.ofHours(1), 1 << 20, 0.5, Clock.systemUTC());
+        OmdbQuota quota = new OmdbQuota(null, 1000, 1000, Clock.systemUTC());
+        OmdbClient omdbClient = OmdbClients.omdbClient(url("/"), quota, store, 2, 1000, 2000, 5000);
+
+        // When
+        MovieEntity fetched = omdbClient.execute(new HttpGet(url("/slow/1?apikey=a&i=tt1")), MovieEntity.class);
+        MovieEntity served = omdbClient.execute(new HttpGet(url("/slow/1?apikey=b&i=tt1")), MovieEntity.class);
+        assertThrows(MovieService.RequestLimitReachedException.class,
+                () -> omdbClient.execute(new HttpGet(url("/limit?apikey=a&i=tt2")), MovieEntity.class));
+        omdbClient.shutdown();
+
+        // Then
+        assertEquals("/slow/1", fetched.getTitle());
+        assertEquals("/slow/1", served.getTitle());
+        assertEquals(2, requests.get());
+        assertEquals(Set.of("i=tt1"), store.keys());
+        assertEquals("{\"Title\":\"/slow/1\"}\n", new String(store.lookup("i=tt1"), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void replayModeNeverCallsOmdb(@TempDir Path directory) throws IOException {
+        // Given
+        OmdbResponseStore recorded = new OmdbResponseStore(directory, OmdbResponseStore.Mode.RECORD, Duration.ofHours(1), 1 << 20, 0.5, Clock.systemUTC());
+        recorded.put("i=tt1", "{\"Title\":\"Heat\"}".getBytes(StandardCharsets.UTF_8));
+        recorded.close();
+        OmdbResponseStore store = new OmdbResponseStore(directory, OmdbResponseStore.Mode.REPLAY, Duration.ofHours(1), 1 << 20, 0.5, Clock.systemUTC());
+        OmdbQuota quota = new OmdbQuota(null, 1, 1, Clock.systemUTC());
+        OmdbClient omdbClient = OmdbClients.omdbClient(url("/"), quota, store, 2, 1000, 2000, 5000);
+
+        // When
+        MovieEntity stored = omdbClient.execute(new HttpGet(url("/?apikey=a&i=tt1")), MovieEntity.class);
+        MovieEntity missing = omdbClient.execute(new HttpGet(url("/?apikey=a&i=tt2")), MovieEntity.class);
+        omdbClient.shutdown();
+
+        // Then
+        assertEquals("Heat", stored.getTitle());
+        assertNotNull(missing.getError());
+        assertEquals(0, requests.get());
+        assertEquals(1, quota.remaining());
+    }
+}
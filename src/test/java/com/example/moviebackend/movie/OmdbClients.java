@@ -0,0 +1,40 @@
+package com.example.moviebackend.movie;
+
+import com.example.moviebackend.common.http.HttpClientConfig;
+import com.example.moviebackend.common.http.HttpClientMetrics;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * OMDb clients with a pool of their own for the tests, talking to the server at the given base URL.
+ */
+final class OmdbClients {
+
+    private static final long KEEP_ALIVE_MILLIS = 30000;
+
+    private OmdbClients(){
+    }
+
+    /**
+     * A client without a quota to speak of and a store that keeps nothing.
+     */
+    static OmdbClient omdbClient(String baseUrl, int maxInFlight, int connectTimeoutMillis, int readTimeoutMillis,
+                                 long requestTimeoutMillis){
+        return omdbClient(baseUrl, new OmdbQuota(null, Integer.MAX_VALUE, Integer.MAX_VALUE, Clock.systemUTC()),
+                storeOff(), maxInFlight, connectTimeoutMillis, readTimeoutMillis, requestTimeoutMillis);
+    }
+
+    static OmdbClient omdbClient(String baseUrl, OmdbQuota quota, OmdbResponseStore store, int maxInFlight,
+                                 int connectTimeoutMillis, int readTimeoutMillis, long requestTimeoutMillis){
+        PoolingHttpClientConnectionManager connectionManager = HttpClientConfig.connectionManager(maxInFlight + 1, maxInFlight + 1);
+        return new OmdbClient(HttpClientConfig.httpClient(connectionManager, new HttpClientMetrics(connectionManager),
+                connectTimeoutMillis, readTimeoutMillis, KEEP_ALIVE_MILLIS), connectionManager, quota, store, baseUrl,
+                maxInFlight, connectTimeoutMillis, readTimeoutMillis, requestTimeoutMillis);
+    }
+
+    static OmdbResponseStore storeOff(){
+        return new OmdbResponseStore(null, OmdbResponseStore.Mode.OFF, Duration.ZERO, 0, 0, Clock.systemUTC());
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.moviebackend.movie;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OmdbDecoderTest {
+
+    private static InputStream body(String json){
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void decodesMovieAndReadsNotAvailableAsNull() throws IOException {
+        // When
+        MovieEntity movie = OmdbDecoder.decode(body("{\"Title\":\"Heat\",\"Year\":\"1995\",\"Runtime\":\"170 min\","
+                + "\"Awards\":\"N/A\",\"Poster\":\"N/A\",\"Ratings\":[{\"Source\":\"Internet Movie Database\",\"Value\":\"8.3/10\"}],"
+                + "\"imdbID\":\"tt0113277\",\"BoxOffice\":\"N/A\",\"Response\":\"True\"}"), MovieEntity.class);
+
+        // Then
+        assertNull(movie.getError());
+        assertEquals("Heat", movie.getTitle());
+        assertEquals("170 min", movie.getRuntime());
+        assertNull(movie.getAwards());
+        assertNull(movie.getPoster());
+        assertNull(movie.getBoxOffice());
+        assertEquals("8.3/10", movie.getRatings().get(0).getValue());
+    }
+
+    @Test
+    void decodesErrorEnvelope() throws IOException {
+        // When
+        MovieEntity movie = OmdbDecoder.decode(body("{\"Response\":\"False\",\"Error\":\"Incorrect IMDb ID.\"}"), MovieEntity.class);
+        MovieAPIResponse page = OmdbDecoder.decode(body("{\"Response\":\"False\",\"Error\":\"Movie not found!\"}"), MovieAPIResponse.class);
+
+        // Then
+        assertEquals("Incorrect IMDb ID.", movie.getError());
+        assertNull(movie.getImdbID());
+        assertEquals("Movie not found!", page.getError());
+        assertNull(page.getSearch());
+    }
+
+    @Test
+    void decodesSearchPage() throws IOException {
+        // When
+        MovieAPIResponse page = OmdbDecoder.decode(body("{\"Search\":[{\"Title\":\"Heat\",\"Year\":\"1995\",\"imdbID\":\"tt0113277\","
+                + "\"Type\":\"movie\",\"Poster\":\"N/A\"}],\"totalResults\":\"1\",\"Response\":\"True\"}"), MovieAPIResponse.class);
+
+        // Then
+        assertNull(page.getError());
+        assertEquals("1", page.getTotalResults());
+        assertEquals("tt0113277", page.getSearch().get(0).getImdbID());
+        assertNull(page.getSearch().get(0).getPoster());
+    }
+}
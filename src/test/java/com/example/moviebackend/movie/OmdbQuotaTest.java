@@ -0,0 +1,94 @@
+package com.example.moviebackend.movie;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class OmdbQuotaTest {
+
+    @Test
+    void reservePacesRequestsAfterTheBurst(){
+        // Given
+        TestClock clock = new TestClock("2024-06-01T10:00:00Z");
+        // 864 requests a day is one every 100 seconds
+        OmdbQuota quota = new OmdbQuota(null, 864, 2, clock);
+
+        // When / Then
+        assertEquals(0, quota.reserve());
+        assertEquals(0, quota.reserve());
+        assertEquals(100_000, quota.reserve());
+        assertEquals(200_000, quota.reserve());
+        clock.advance(Duration.ofSeconds(400));
+        assertEquals(0, quota.reserve());
+        assertEquals(859, quota.remaining());
+    }
+
+    @Test
+    void usedUpQuotaRefusesRequestsUntilReset(){
+        // Given
+        TestClock clock = new TestClock("2024-06-01T23:00:00Z");
+        OmdbQuota quota = new OmdbQuota(null, 2, 10, clock);
+        quota.reserve();
+        quota.reserve();
+
+        // When / Then
+        assertTrue(quota.isExhausted());
+        assertThrows(MovieService.RequestLimitReachedException.class, quota::reserve);
+        assertEquals(Instant.parse("2024-06-02T00:00:00Z"), quota.resetAt());
+
+        clock.advance(Duration.ofHours(1));
+        assertFalse(quota.isExhausted());
+        assertEquals(0, quota.reserve());
+        assertEquals(1, quota.remaining());
+    }
+
+    @Test
+    void exhaustedPausesUntilReset(){
+        // Given
+        TestClock clock = new TestClock("2024-06-01T12:00:00Z");
+        OmdbQuota quota = new OmdbQuota(null, 1000, 10, clock);
+        quota.reserve();
+
+        // When
+        quota.exhausted();
+
+        // Then
+        assertEquals(0, quota.stats().getRemaining());
+        assertThrows(MovieService.RequestLimitReachedException.class, quota::reserve);
+        clock.advance(Duration.ofHours(12));
+        assertEquals(1000, quota.remaining());
+    }
+
+    @Test
+    void stateSurvivesRestart(){
+        // Given
+        TestClock clock = new TestClock("2024-06-01T12:00:00Z");
+        OmdbQuotaRepository repository = mock(OmdbQuotaRepository.class);
+        when(repository.findById("omdb")).thenReturn(Optional.empty());
+        OmdbQuota quota = new OmdbQuota(repository, 864, 1, clock);
+        quota.reserve();
+        quota.reserve();
+        verify(repository, times(2)).save(any(OmdbQuotaEntity.class));
+
+        // When
+        OmdbQuotaEntity saved = new OmdbQuotaEntity();
+        saved.setId("omdb");
+        saved.setWindowStart(LocalDate.of(2024, 6, 1));
+        saved.setUsed(2);
+        saved.setTokens(-1);
+        saved.setRefilledAt(clock.millis());
+        when(repository.findById("omdb")).thenReturn(Optional.of(saved));
+        OmdbQuota restarted = new OmdbQuota(repository, 864, 1, clock);
+
+        // Then
+        assertEquals(862, restarted.remaining());
+        assertEquals(200_000, restarted.reserve());
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.moviebackend.movie;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OmdbReplayTest {
+
+    @Mock
+    private OmdbResponseStore store;
+
+    @Mock
+    private MovieService movieService;
+
+    private final OmdbClient omdbClient = OmdbClients.omdbClient("http://127.0.0.1/", 2, 1000, 1000, 1000);
+
+    private static MovieEntity movie(String imdbID){
+        MovieEntity movieEntity = new MovieEntity();
+        movieEntity.setImdbID(imdbID);
+        return movieEntity;
+    }
+
+    @Test
+    void ingestsStoredDetailResponses() throws Exception {
+        // Given
+        when(store.mode()).thenReturn(OmdbResponseStore.Mode.REPLAY);
+        when(store.keys()).thenReturn(Set.of("i=tt1", "i=tt2", "i=tt3", "i=tt4", "s=heat&page=1"));
+        when(movieService.fetchMovieDetails("tt1")).thenReturn(movie("tt1"));
+        when(movieService.fetchMovieDetails("tt2")).thenReturn(null);
+        when(movieService.fetchMovieDetails("tt3")).thenReturn(movie("tt3"));
+        when(movieService.fetchMovieDetails("tt4")).thenReturn(movie("tt4"));
+        when(movieService.saveNewMovies(anyList())).thenAnswer(invocation -> {
+            List<MovieEntity> movies = invocation.getArgument(0);
+            return movies.subList(0, 1);
+        });
+        // tt3 and tt4 are stored already, tt3 under an older mapping
+        when(movieService.updateChanged(anyList())).thenAnswer(invocation -> invocation.<List<MovieEntity>>getArgument(0)
+                .stream().filter(movie -> movie.getImdbID().equals("tt3")).toList());
+
+        // When
+        OmdbReplay.Result result = replay().ingestStoredMovies();
+        omdbClient.shutdown();
+
+        // Then
+        assertEquals(4, result.getStored());
+        assertEquals(3, result.getMapped());
+        assertEquals(1, result.getSaved());
+        assertEquals(1, result.getUpdated());
+        verify(movieService, never()).fetchMovieDetails("heat");
+        // the stored movies of the batch are updated together
+        verify(movieService, times(1)).updateChanged(argThat(movies -> movies.size() == 2
+                && movies.stream().noneMatch(movie -> movie.getImdbID().equals("tt1"))));
+        verify(movieService, never()).updateIfChanged(any());
+    }
+
+    @Test
+    void startsOneReplayAtATime() throws Exception {
+        // Given a replay that is held up
+        CountDownLatch release = new CountDownLatch(1);
+        when(store.mode()).thenReturn(OmdbResponseStore.Mode.REPLAY);
+        when(store.keys()).thenAnswer(invocation -> {
+            release.await();
+            return Set.of();
+        });
+        OmdbReplay replay = replay();
+
+        // When
+        boolean first = replay.start();
+        boolean second = replay.start();
+        release.countDown();
+
+        // Then
+        assertTrue(first);
+        assertFalse(second);
+        for(int i = 0; i < 100 && replay.status().isRunning(); i++){
+            Thread.sleep(10);
+        }
+        assertFalse(replay.status().isRunning());
+        assertEquals(0, replay.status().getLast().getStored());
+        assertTrue(replay.start());
+        replay.shutdown();
+        omdbClient.shutdown();
+    }
+
+    @Test
+    void onlyAdminsMayStartAReplay(){
+        // When
+        OmdbReplay replay = replay();
+        omdbClient.shutdown();
+
+        // Then
+        assertTrue(replay.isAdmin(7));
+        assertFalse(replay.isAdmin(8));
+        assertFalse(replay.isAdmin(null));
+    }
+
+    private OmdbReplay replay(){
+        return new OmdbReplay(store, omdbClient, movieService, List.of(7));
+    }
+
+    @Test
+    void refusesToIngestOutsideReplayMode(){
+        // Given
+        when(store.mode()).thenReturn(OmdbResponseStore.Mode.RECORD);
+
+        // When / Then
+        assertThrows(IllegalStateException.class, () -> replay().start());
+        omdbClient.shutdown();
+        verifyNoInteractions(movieService);
+    }
+}
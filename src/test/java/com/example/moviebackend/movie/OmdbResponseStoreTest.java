@@ -0,0 +1,190 @@
+package com.example.moviebackend.movie;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OmdbResponseStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private static byte[] bytes(String body){
+        return body.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] body){
+        return body == null ? null : new String(body, StandardCharsets.UTF_8);
+    }
+
+    private OmdbResponseStore store(OmdbResponseStore.Mode mode, Clock clock, long segmentBytes){
+        return new OmdbResponseStore(directory, mode, Duration.ofHours(1), segmentBytes, 0.5, clock);
+    }
+
+    @Test
+    void keyDropsTheApiKey(){
+        assertEquals("i=tt0113277", OmdbResponseStore.key(URI.create("http://www.omdbapi.com/?apikey=secret&i=tt0113277")));
+        assertEquals("s=heat&page=2", OmdbResponseStore.key(URI.create("http://localhost:8080/?apikey=other&s=heat&page=2")));
+    }
+
+    @Test
+    void latestResponseWinsAndSurvivesReopening(){
+        // Given
+        OmdbResponseStore store = store(OmdbResponseStore.Mode.RECORD, Clock.systemUTC(), 1 << 20);
+        store.put("i=tt1", bytes("{\"Title\":\"First\"}"));
+        store.put("i=tt2", bytes("{\"Title\":\"Second\"}"));
+        store.put("i=tt1", bytes("{\"Title\":\"First again\"}"));
+        store.close();
+
+        // When
+        OmdbResponseStore reopened = store(OmdbResponseStore.Mode.REPLAY, Clock.systemUTC(), 1 << 20);
+
+        // Then
+        assertEquals("{\"Title\":\"First again\"}", string(reopened.lookup("i=tt1")));
+        assertEquals("{\"Title\":\"Second\"}", string(reopened.lookup("i=tt2")));
+        assertNull(reopened.lookup("i=tt3"));
+        assertEquals(Set.of("i=tt1", "i=tt2"), reopened.keys());
+        assertEquals(2, reopened.stats().getHits());
+        assertEquals(1, reopened.stats().getMisses());
+    }
+
+    @Test
+    void recordModeServesOnlyFreshResponses(){
+        // Given
+        TestClock clock = new TestClock("2024-06-01T12:00:00Z");
+        OmdbResponseStore store = store(OmdbResponseStore.Mode.RECORD, clock, 1 << 20);
+        store.put("i=tt1", bytes("{}"));
+
+        // When
+        clock.advance(Duration.ofMinutes(59));
+        byte[] fresh = store.lookup("i=tt1");
+        clock.advance(Duration.ofMinutes(2));
+        byte[] stale = store.lookup("i=tt1");
+        store.close();
+
+        // Then
+        assertNotNull(fresh);
+        assertNull(stale);
+        assertNotNull(store(OmdbResponseStore.Mode.REPLAY, clock, 1 << 20).lookup("i=tt1"));
+    }
+
+    @Test
+    void rollsOverToNewSegments() throws IOException {
+        // Given
+        OmdbResponseStore store = store(OmdbResponseStore.Mode.RECORD, Clock.systemUTC(), 200);
+        for(int i = 0; i < 20; i++){
+            store.put("i=tt" + i, bytes("{\"Title\":\"Movie " + i + "\"}"));
+        }
+        store.close();
+
+        // When
+        OmdbResponseStore reopened = store(OmdbResponseStore.Mode.REPLAY, Clock.systemUTC(), 200);
+
+        // Then
+        try(Stream<Path> files = Files.list(directory)){
+            assertTrue(files.count() > 1);
+        }
+        for(int i = 0; i < 20; i++){
+            assertEquals("{\"Title\":\"Movie " + i + "\"}", string(reopened.lookup("i=tt" + i)));
+        }
+    }
+
+    @Test
+    void dropsRecordCutShortByACrash() throws IOException {
+        // Given
+        OmdbResponseStore store = store(OmdbResponseStore.Mode.RECORD, Clock.systemUTC(), 1 << 20);
+        store.put("i=tt1", bytes("{\"Title\":\"Kept\"}"));
+        store.put("i=tt2", bytes("{\"Title\":\"Torn\"}"));
+        store.close();
+        Path segment = directory.resolve("responses-000000.seg");
+        try(FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)){
+            channel.truncate(channel.size() - 5);
+        }
+
+        // When
+        OmdbResponseStore reopened = store(OmdbResponseStore.Mode.RECORD, Clock.systemUTC(), 1 << 20);
+
+        // Then
+        assertEquals(Set.of("i=tt1"), reopened.keys());
+        reopened.put("i=tt3", bytes("{\"Title\":\"After\"}"));
+        reopened.close();
+        OmdbResponseStore again = store(OmdbResponseStore.Mode.REPLAY, Clock.systemUTC(), 1 << 20);
+        assertEquals("{\"Title\":\"After\"}", string(again.lookup("i=tt3")));
+        assertEquals(Set.of("i=tt1", "i=tt3"), again.keys());
+    }
+
+    @Test
+    void compactionDropsReplacedResponses() throws IOException {
+        // Given segments holding mostly responses that were put again
+        OmdbResponseStore store = store(OmdbResponseStore.Mode.RECORD, Clock.systemUTC(), 200);
+        for(int round = 0; round < 5; round++){
+            for(int i = 0; i < 4; i++){
+                store.put("i=tt" + i, bytes("{\"Title\":\"Movie " + i + " take " + round + "\"}"));
+            }
+        }
+        long before = store.stats().getBytes();
+
+        // When
+        store.compact();
+
+        // Then the latest responses are kept, in fewer bytes, and survive reopening
+        assertTrue(store.stats().getCompacted() > 0);
+        assertTrue(store.stats().getBytes() < before);
+        for(int i = 0; i < 4; i++){
+            assertEquals("{\"Title\":\"Movie " + i + " take 4\"}", string(store.lookup("i=tt" + i)));
+        }
+        store.put("i=tt9", bytes("{}"));
+        store.close();
+        OmdbResponseStore reopened = store(OmdbResponseStore.Mode.REPLAY, Clock.systemUTC(), 200);
+        assertEquals(Set.of("i=tt0", "i=tt1", "i=tt2", "i=tt3", "i=tt9"), reopened.keys());
+        for(int i = 0; i < 4; i++){
+            assertEquals("{\"Title\":\"Movie " + i + " take 4\"}", string(reopened.lookup("i=tt" + i)));
+        }
+    }
+
+    @Test
+    void compactionKeepsTheFetchTime(){
+        // Given a response that was fetched an hour ago and then moved by compaction
+        TestClock clock = new TestClock("2024-06-01T12:00:00Z");
+        OmdbResponseStore store = store(OmdbResponseStore.Mode.RECORD, clock, 200);
+        store.put("i=tt1", bytes("{\"Title\":\"Kept\"}"));
+        clock.advance(Duration.ofMinutes(61));
+        for(int i = 0; i < 20; i++){
+            store.put("i=tt2", bytes("{\"Title\":\"Replaced " + i + "\"}"));
+        }
+
+        // When
+        store.compact();
+
+        // Then it is as stale as before
+        assertNull(store.lookup("i=tt1"));
+        store.close();
+        assertEquals("{\"Title\":\"Kept\"}", string(store(OmdbResponseStore.Mode.REPLAY, clock, 200).lookup("i=tt1")));
+    }
+
+    @Test
+    void offKeepsNothing(){
+        // Given
+        OmdbResponseStore store = new OmdbResponseStore(null, OmdbResponseStore.Mode.OFF, Duration.ZERO, 0, 0, Clock.systemUTC());
+
+        // When
+        store.put("i=tt1", bytes("{}"));
+
+        // Then
+        assertNull(store.lookup("i=tt1"));
+        assertTrue(store.keys().isEmpty());
+    }
+}
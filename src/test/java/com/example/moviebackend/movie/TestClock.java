@@ -0,0 +1,45 @@
+package com.example.moviebackend.movie;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A clock the tests move forward by hand. Clocks derived with {@link #withZone} share its time.
+ */
+final class TestClock extends Clock {
+
+    private final AtomicReference<Instant> now;
+    private final ZoneId zone;
+
+    TestClock(String instant){
+        this(new AtomicReference<>(Instant.parse(instant)), ZoneOffset.UTC);
+    }
+
+    private TestClock(AtomicReference<Instant> now, ZoneId zone){
+        this.now = now;
+        this.zone = zone;
+    }
+
+    void advance(Duration duration){
+        now.updateAndGet(instant -> instant.plus(duration));
+    }
+
+    @Override
+    public ZoneId getZone(){
+        return zone;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone){
+        return zone.equals(this.zone) ? this : new TestClock(now, zone);
+    }
+
+    @Override
+    public Instant instant(){
+        return now.get();
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.moviebackend.movie.index;
+
+import com.example.moviebackend.movie.MovieCatalogChangedEvent;
+import com.example.moviebackend.movie.MovieEntity;
+import com.example.moviebackend.movie.dto.MovieFilterDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FacetIndexTest {
+
+    private final FacetIndex facetIndex = new FacetIndex();
+
+    private MovieEntity movie(String imdbID, String genre, String language, String year, String imdbRating, String imdbVotes){
+        MovieEntity movieEntity = new MovieEntity();
+        movieEntity.setImdbID(imdbID);
+        movieEntity.setGenre(genre);
+        movieEntity.setLanguage(language);
+        movieEntity.setCountry("N/A");
+        movieEntity.setType("movie");
+        movieEntity.setRated("PG-13");
+        movieEntity.setYear(year);
+        movieEntity.setImdbRating(imdbRating);
+        movieEntity.setImdbVotes(imdbVotes);
+        return movieEntity;
+    }
+
+    private List<String> imdbIDs(FacetIndex.Result result){
+        List<String> imdbIDs = new ArrayList<>();
+        for(MovieEntity movie : result.getMovies()){
+            imdbIDs.add(movie.getImdbID());
+        }
+        return imdbIDs;
+    }
+
+    @BeforeEach
+    void setUp(){
+        facetIndex.onCatalogChanged(new MovieCatalogChangedEvent(List.of(
+                movie("tt1", "Comedy, Romance", "English", "2016", "7.4", "200,000"),
+                movie("tt2", "Comedy", "English, French", "2019", "6.8", "150,000"),
+                movie("tt3", "Comedy, Drama", "English", "2020", "8.1", "90,000"),
+                movie("tt4", "Drama", "English", "2018", "7.9", "500,000"),
+                movie("tt5", "Comedy", "French", "2017", "7.0", "40,000"),
+                movie("tt6", "Comedy", "English", "2012", "7.7", "300,000"),
+                movie("tt7", "Comedy", "English", "N/A", "N/A", "N/A"))));
+    }
+
+    @Test
+    void filterCombinesCriteria(){
+        // Given
+        MovieFilterDTO filter = new MovieFilterDTO();
+        filter.setGenre(List.of("Comedy"));
+        filter.setLanguage(List.of("english"));
+        filter.setYearFrom(2015);
+        filter.setYearTo(2020);
+        filter.setMinRating(7.0f);
+
+        // When
+        FacetIndex.Result result = facetIndex.filter(filter);
+
+        // Then
+        assertEquals(2, result.getTotal());
+        assertEquals(List.of("tt1", "tt3"), imdbIDs(result));
+    }
+
+    @Test
+    void filterCountsFacetsWithoutTheirOwnCriterion(){
+        // Given
+        MovieFilterDTO filter = new MovieFilterDTO();
+        filter.setGenre(List.of("Comedy"));
+        filter.setLanguage(List.of("French"));
+
+        // When
+        FacetIndex.Result result = facetIndex.filter(filter);
+
+        // Then
+        assertEquals(List.of("tt2", "tt5"), imdbIDs(result));
+        assertEquals(Map.of("Comedy", 2), result.getFacets().get("genre"));
+        assertEquals(Map.of("English", 5, "French", 2), result.getFacets().get("language"));
+        assertEquals(Map.of("2019", 1, "2017", 1), result.getFacets().get("year"));
+        assertEquals(Map.of("7", 1, "6", 1), result.getFacets().get("rating"));
+        assertEquals(List.of("English", "French"), List.copyOf(result.getFacets().get("language").keySet()));
+    }
+
+    @Test
+    void filterPagesByVotes(){
+        // Given
+        MovieFilterDTO filter = new MovieFilterDTO();
+        filter.setOffset(1);
+        filter.setLimit(2);
+
+        // When
+        FacetIndex.Result result = facetIndex.filter(filter);
+
+        // Then
+        assertEquals(7, result.getTotal());
+        assertEquals(List.of("tt6", "tt1"), imdbIDs(result));
+    }
+
+    @Test
+    void filterOnOpenRanges(){
+        // Given
+        MovieFilterDTO filter = new MovieFilterDTO();
+        filter.setYearTo(2016);
+        filter.setMaxRating(7.4f);
+
+        // Then
+        assertEquals(List.of("tt1"), imdbIDs(facetIndex.filter(filter)));
+    }
+
+    @Test
+    void updateMovesRowBetweenValues(){
+        // When
+        facetIndex.onCatalogChanged(new MovieCatalogChangedEvent(List.of(
+                movie("tt4", "Comedy", "German", "2021", "5.0", "500,000"))));
+        MovieFilterDTO filter = new MovieFilterDTO();
+        filter.setGenre(List.of("Drama"));
+        filter.setYearFrom(2018);
+        filter.setYearTo(2018);
+
+        // Then
+        assertEquals(0, facetIndex.filter(filter).getTotal());
+        filter.setGenre(List.of("Comedy"));
+        filter.setYearFrom(2021);
+        filter.setYearTo(null);
+        filter.setMaxRating(5.0f);
+        assertEquals(List.of("tt4"), imdbIDs(facetIndex.filter(filter)));
+    }
+}
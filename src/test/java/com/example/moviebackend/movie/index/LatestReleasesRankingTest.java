@@ -0,0 +1,69 @@
+package com.example.moviebackend.movie.index;
+
+import com.example.moviebackend.movie.MovieCatalogChangedEvent;
+import com.example.moviebackend.movie.MovieEntity;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatestReleasesRankingTest {
+
+    private MovieEntity movie(String imdbID, String year, String imdbRating, String poster){
+        MovieEntity movieEntity = new MovieEntity();
+        movieEntity.setImdbID(imdbID);
+        movieEntity.setYear(year);
+        movieEntity.setImdbRating(imdbRating);
+        movieEntity.setPoster(poster);
+        return movieEntity;
+    }
+
+    private static Clock clockAt(String instant){
+        return Clock.fixed(Instant.parse(instant), ZoneOffset.UTC);
+    }
+
+    @Test
+    void pageRanksLatestReleasesByRating(){
+        // Given
+        MovieCatalog movieCatalog = new MovieCatalog();
+        LatestReleasesRanking ranking = new LatestReleasesRanking(movieCatalog, clockAt("2024-06-01T00:00:00Z"));
+        MovieEntity unrated = movie("test1", "2022", "N/A", "poster");
+        MovieEntity rated = movie("test2", "2023", "7.5", "poster");
+        MovieEntity best = movie("test3", "2024", "8.5", "poster");
+        MovieEntity noPoster = movie("test4", "2022", "9.0", "N/A");
+        MovieEntity old = movie("test5", "2021", "9.0", "poster");
+
+        // When
+        movieCatalog.onCatalogChanged(new MovieCatalogChangedEvent(List.of(unrated, rated, best, noPoster, old)));
+
+        // Then
+        assertEquals(List.of(best, rated, unrated), ranking.page(0, 10));
+        assertEquals(List.of(rated), ranking.page(1, 1));
+        assertTrue(ranking.page(5, 10).isEmpty());
+        assertEquals(3, ranking.size());
+    }
+
+    @Test
+    void rankingFollowsCatalogAndYearRollover(){
+        // Given
+        MovieCatalog movieCatalog = new MovieCatalog();
+        MovieEntity lastYear = movie("test1", "2022", "7.0", "poster");
+        movieCatalog.onCatalogChanged(new MovieCatalogChangedEvent(List.of(lastYear)));
+        LatestReleasesRanking before = new LatestReleasesRanking(movieCatalog, clockAt("2024-12-31T23:59:59Z"));
+        LatestReleasesRanking after = new LatestReleasesRanking(movieCatalog, clockAt("2025-01-01T00:00:00Z"));
+        assertEquals(List.of(lastYear), before.page(0, 10));
+
+        // When
+        MovieEntity added = movie("test2", "2024", "6.0", "poster");
+        movieCatalog.onCatalogChanged(new MovieCatalogChangedEvent(List.of(added)));
+
+        // Then
+        assertEquals(List.of(lastYear, added), before.page(0, 10));
+        assertEquals(List.of(added), after.page(0, 10));
+        assertEquals(2023, after.sinceYear());
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.moviebackend.movie.index;
+
+import com.example.moviebackend.movie.MovieEntity;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MinHashIndexTest {
+
+    private MovieEntity movie(String imdbID, String actors, String director, String writer, String genre){
+        MovieEntity movieEntity = new MovieEntity();
+        movieEntity.setImdbID(imdbID);
+        movieEntity.setActors(actors);
+        movieEntity.setDirector(director);
+        movieEntity.setWriter(writer);
+        movieEntity.setGenre(genre);
+        return movieEntity;
+    }
+
+    @Test
+    void similarFindsOverlappingPeople(){
+        // Given
+        MinHashIndex minHashIndex = new MinHashIndex();
+        minHashIndex.add(movie("tt1", "Al Pacino, Marlon Brando, James Caan", "Francis Ford Coppola", "Mario Puzo", "Crime, Drama"));
+        minHashIndex.add(movie("tt2", "Al Pacino, Robert Duvall, Diane Keaton", "Francis Ford Coppola", "Mario Puzo", "Crime, Drama"));
+        minHashIndex.add(movie("tt3", "Tom Hanks, Meg Ryan", "Nora Ephron", "Nora Ephron", "Comedy, Romance"));
+
+        // When
+        List<String> result = minHashIndex.similar("tt1", 0.1f, 10);
+
+        // Then
+        assertEquals(List.of("tt2"), result);
+    }
+
+    @Test
+    void sharedGenresAloneDoNotMakeACandidate(){
+        // Given
+        MinHashIndex minHashIndex = new MinHashIndex();
+        minHashIndex.add(movie("tt1", "Al Pacino, Marlon Brando, James Caan", "Francis Ford Coppola", "Mario Puzo", "Crime, Drama"));
+        minHashIndex.add(movie("tt2", "Robert De Niro, Joe Pesci, Ray Liotta", "Martin Scorsese", "Nicholas Pileggi", "Crime, Drama"));
+
+        // When
+        List<String> result = minHashIndex.similar("tt1", 0.0f, 10);
+
+        // Then
+        assertEquals(List.of(), result);
+    }
+
+    @Test
+    void addUsesPersistedSignature(){
+        // Given
+        MovieEntity movie = movie("tt1", "Al Pacino", "Francis Ford Coppola", "Mario Puzo", "Crime");
+        MovieEntity copy = movie("tt2", "N/A", "N/A", "N/A", "N/A");
+        copy.setMinHashSignature(MinHash.encode(MinHash.signature(movie)));
+        MinHashIndex minHashIndex = new MinHashIndex();
+
+        // When
+        minHashIndex.add(movie);
+        minHashIndex.add(copy);
+
+        // Then
+        assertEquals(List.of("tt2"), minHashIndex.similar("tt1", 1.0f, 10));
+    }
+
+    @Test
+    void signatureRoundTrip(){
+        int[] signature = MinHash.signature(movie("tt1", "Al Pacino", "Francis Ford Coppola", "Mario Puzo", "Crime"));
+
+        assertArrayEquals(signature, MinHash.decode(MinHash.encode(signature)));
+        assertNull(MinHash.decode(new byte[3]));
+    }
+}
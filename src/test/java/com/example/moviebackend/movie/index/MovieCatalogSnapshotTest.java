@@ -0,0 +1,115 @@
+package com.example.moviebackend.movie.index;
+
+import com.example.moviebackend.movie.MovieEntity;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieCatalogSnapshotTest {
+
+    private MovieEntity movie(String imdbID, String year, String imdbRating, String genre){
+        MovieEntity movieEntity = new MovieEntity();
+        movieEntity.setImdbID(imdbID);
+        movieEntity.setYear(year);
+        movieEntity.setImdbRating(imdbRating);
+        movieEntity.setGenre(genre);
+        movieEntity.setRuntime("2h 15min");
+        movieEntity.setImdbVotes("1,234,567");
+        movieEntity.setPoster("poster");
+        return movieEntity;
+    }
+
+    @Test
+    void withParsesColumns(){
+        // When
+        MovieCatalogSnapshot snapshot = MovieCatalogSnapshot.EMPTY.with(List.of(movie("tt1", "2015–2020", "7.8", "Action, Crime")));
+
+        // Then
+        int row = snapshot.row("tt1");
+        assertEquals(1, snapshot.size());
+        assertEquals(7.8f, snapshot.rating(row));
+        assertEquals(2015, snapshot.year(row));
+        assertEquals(135, snapshot.runtimeMinutes(row));
+        assertEquals(1234567L, snapshot.votes(row));
+        assertTrue(snapshot.hasPoster(row));
+        assertEquals(2, snapshot.genres(row).length);
+        assertEquals("crime", snapshot.genreDictionary().value(snapshot.genres(row)[1]));
+    }
+
+    @Test
+    void withLeavesPreviousSnapshotUntouched(){
+        // Given
+        MovieCatalogSnapshot first = MovieCatalogSnapshot.EMPTY.with(List.of(movie("tt1", "2015", "7.0", "Action")));
+
+        // When
+        MovieCatalogSnapshot second = first.with(List.of(movie("tt1", "2015", "8.0", "Action"), movie("tt2", "2016", "N/A", "Drama")));
+
+        // Then
+        assertEquals(1, first.size());
+        assertEquals(7.0f, first.rating(0));
+        assertEquals(-1, first.genreDictionary().id("drama"));
+        assertEquals(2, second.size());
+        assertEquals(8.0f, second.rating(second.row("tt1")));
+        assertTrue(Float.isNaN(second.rating(second.row("tt2"))));
+        assertEquals(first.genreDictionary().id("action"), second.genreDictionary().id("action"));
+    }
+
+    @Test
+    void withUpdatesRowsAcrossChunks(){
+        // Given
+        List<MovieEntity> movies = new ArrayList<>();
+        for(int i = 0; i < MovieCatalogSnapshot.CHUNK_SIZE * 2 + 1; i++){
+            movies.add(movie("tt" + i, "2015", "7.0", "Action"));
+        }
+        MovieCatalogSnapshot first = MovieCatalogSnapshot.EMPTY.with(movies);
+
+        // When
+        MovieCatalogSnapshot second = first.with(List.of(movie("tt" + MovieCatalogSnapshot.CHUNK_SIZE, "2016", "9.0", "Drama")));
+
+        // Then
+        int row = second.row("tt" + MovieCatalogSnapshot.CHUNK_SIZE);
+        assertEquals(first.size(), second.size());
+        assertEquals(9.0f, second.rating(row));
+        assertEquals(7.0f, first.rating(row));
+        assertEquals(7.0f, second.rating(second.row("tt0")));
+        assertEquals(2015, second.year(second.row("tt" + MovieCatalogSnapshot.CHUNK_SIZE * 2)));
+        assertEquals(second.movie(0), first.movie(0));
+    }
+
+    @Test
+    void withDerivesSeparateSnapshotsFromTheSameOne(){
+        // Given
+        MovieCatalogSnapshot base = MovieCatalogSnapshot.EMPTY.with(List.of(movie("tt1", "2015", "7.0", "Action")));
+        MovieCatalogSnapshot withSecond = base.with(List.of(movie("tt2", "2016", "6.0", "Drama")));
+
+        // When
+        MovieCatalogSnapshot withThird = base.with(List.of(movie("tt3", "2017", "5.0", "Comedy")));
+
+        // Then
+        assertEquals(-1, base.row("tt2"));
+        assertEquals(-1, withThird.row("tt2"));
+        assertEquals(-1, withSecond.row("tt3"));
+        assertEquals(1, withSecond.row("tt2"));
+        assertEquals(1, withThird.row("tt3"));
+        assertEquals("tt3", withThird.imdbID(withThird.row("tt3")));
+        assertEquals(6.0f, withSecond.rating(withSecond.row("tt2")));
+    }
+
+    @Test
+    void sortByRatingDescending(){
+        // Given
+        MovieCatalogSnapshot snapshot = MovieCatalogSnapshot.EMPTY.with(List.of(
+                movie("tt1", "2020", "N/A", "Action"),
+                movie("tt2", "2021", "6.5", "Action"),
+                movie("tt3", "2019", "8.1", "Action")));
+
+        // When
+        int[] rows = snapshot.sortByRatingDescending(snapshot.rowsReleasedSince(2020, true));
+
+        // Then
+        assertArrayEquals(new int[]{snapshot.row("tt2"), snapshot.row("tt1")}, rows);
+    }
+}
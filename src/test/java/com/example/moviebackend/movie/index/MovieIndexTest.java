@@ -0,0 +1,64 @@
+package com.example.moviebackend.movie.index;
+
+import com.example.moviebackend.movie.MovieEntity;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieIndexTest {
+
+    private MovieEntity movie(String imdbID, String genre, String imdbRating){
+        MovieEntity movieEntity = new MovieEntity();
+        movieEntity.setImdbID(imdbID);
+        movieEntity.setGenre(genre);
+        movieEntity.setDirector("N/A");
+        movieEntity.setImdbRating(imdbRating);
+        return movieEntity;
+    }
+
+    @Test
+    void matching(){
+        // Given
+        MovieIndex movieIndex = new MovieIndex();
+        movieIndex.add(movie("tt1", "Action, Crime", "7.5"));
+        movieIndex.add(movie("tt2", "Crime, Drama", "8.0"));
+        movieIndex.add(movie("tt3", "Comedy", "N/A"));
+
+        // When
+        Set<String> result = movieIndex.matching(MovieIndex.Field.GENRE, "Drama, Action");
+
+        // Then
+        assertEquals(Set.of("tt1", "tt2"), result);
+        assertTrue(movieIndex.matching(MovieIndex.Field.DIRECTOR, "N/A").isEmpty());
+    }
+
+    @Test
+    void ratedBetween(){
+        // Given
+        MovieIndex movieIndex = new MovieIndex();
+        movieIndex.add(movie("tt1", "Action", "5.0"));
+        movieIndex.add(movie("tt2", "Action", "7.0"));
+        movieIndex.add(movie("tt3", "Action", "N/A"));
+
+        // Then
+        assertEquals(Set.of("tt2"), movieIndex.ratedBetween(6.0f, 8.0f));
+    }
+
+    @Test
+    void addReplacesPreviousVersion(){
+        // Given
+        MovieIndex movieIndex = new MovieIndex();
+        movieIndex.add(movie("tt1", "Action", "5.0"));
+
+        // When
+        movieIndex.add(movie("tt1", "Comedy", "9.0"));
+
+        // Then
+        assertTrue(movieIndex.postings(MovieIndex.Field.GENRE, "action").isEmpty());
+        assertEquals(Set.of("tt1"), movieIndex.postings(MovieIndex.Field.GENRE, "comedy"));
+        assertTrue(movieIndex.ratedBetween(4.0f, 6.0f).isEmpty());
+        assertEquals(1, movieIndex.size());
+    }
+}
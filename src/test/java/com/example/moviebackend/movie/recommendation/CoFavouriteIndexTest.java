@@ -0,0 +1,55 @@
+package com.example.moviebackend.movie.recommendation;
+
+import com.example.moviebackend.user.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CoFavouriteIndexTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Test
+    void loadBuildsNeighbours(){
+        // Given
+        CoFavouriteIndex coFavouriteIndex = new CoFavouriteIndex(userRepository, 2, 3600);
+        when(userRepository.findAllFavourites()).thenReturn(List.of(
+                new Object[]{1, "tt1"}, new Object[]{1, "tt2"}, new Object[]{1, "tt3"},
+                new Object[]{2, "tt1"}, new Object[]{2, "tt3"},
+                new Object[]{3, "tt1"}, new Object[]{3, "tt4"}));
+
+        // When
+        coFavouriteIndex.load();
+        coFavouriteIndex.shutdown();
+
+        // Then
+        assertEquals(List.of("tt3", "tt2"), coFavouriteIndex.neighbours("tt1"));
+        assertEquals(List.of("tt1"), coFavouriteIndex.neighbours("tt4"));
+    }
+
+    @Test
+    void neighboursFollowIncrementalUpdatesAfterCompaction(){
+        // Given
+        CoFavouriteIndex coFavouriteIndex = new CoFavouriteIndex(userRepository, 10, 3600);
+        coFavouriteIndex.favouriteAdded("tt2", List.of("tt1"));
+        coFavouriteIndex.compact();
+        assertEquals(List.of("tt2"), coFavouriteIndex.neighbours("tt1"));
+
+        // When
+        coFavouriteIndex.favouriteRemoved("tt2", List.of("tt1"));
+
+        // Then the precomputed list only changes on compaction
+        assertEquals(List.of("tt2"), coFavouriteIndex.neighbours("tt1"));
+        coFavouriteIndex.compact();
+        assertTrue(coFavouriteIndex.neighbours("tt1").isEmpty());
+        assertTrue(coFavouriteIndex.neighbours("tt2").isEmpty());
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.moviebackend.movie.recommendation;
+
+import com.example.moviebackend.movie.MovieCatalogChangedEvent;
+import com.example.moviebackend.movie.MovieEntity;
+import com.example.moviebackend.movie.index.MovieIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecommendationCacheTest {
+
+    private MovieIndex movieIndex;
+
+    private MovieEntity movie(String imdbID, String genre){
+        MovieEntity movieEntity = new MovieEntity();
+        movieEntity.setImdbID(imdbID);
+        movieEntity.setGenre(genre);
+        return movieEntity;
+    }
+
+    @BeforeEach
+    void setUp(){
+        movieIndex = new MovieIndex();
+    }
+
+    @Test
+    void getCountsHitsAndMisses(){
+        // Given
+        RecommendationCache cache = new RecommendationCache(movieIndex, 100);
+        RecommendationCache.Key key = new RecommendationCache.Key("tt1", 0, 20);
+
+        // When
+        assertNull(cache.get(key));
+        cache.put(key, List.of(movie("tt2", "Drama")), cache.generation());
+
+        // Then
+        assertNotNull(cache.get(key));
+        assertEquals(1, cache.stats().getHits());
+        assertEquals(1, cache.stats().getMisses());
+        assertEquals(2, cache.stats().getWeight());
+    }
+
+    @Test
+    void putEvictsOnlyForMoreFrequentEntries(){
+        // Given a cache that holds a single entry of weight 2
+        RecommendationCache cache = new RecommendationCache(movieIndex, 2);
+        RecommendationCache.Key cold = new RecommendationCache.Key("tt1", 0, 20);
+        RecommendationCache.Key hot = new RecommendationCache.Key("tt2", 0, 20);
+        cache.get(cold);
+        cache.put(cold, List.of(movie("tt3", "Drama")), cache.generation());
+
+        // When a key requested as often as the resident one arrives, it is rejected
+        cache.get(hot);
+        cache.put(hot, List.of(movie("tt4", "Drama")), cache.generation());
+        assertNull(cache.get(hot));
+
+        // Then once it is requested more often, it replaces the resident entry
+        cache.put(hot, List.of(movie("tt4", "Drama")), cache.generation());
+        assertNotNull(cache.get(hot));
+        assertNull(cache.get(cold));
+        assertEquals(1, cache.stats().getEvictions());
+        assertEquals(1, cache.stats().getRejections());
+    }
+
+    @Test
+    void onCatalogChangedInvalidatesOnlyAffectedEntries(){
+        // Given
+        movieIndex.add(movie("tt1", "Drama"));
+        movieIndex.add(movie("tt2", "Comedy"));
+        RecommendationCache cache = new RecommendationCache(movieIndex, 100);
+        RecommendationCache.Key drama = new RecommendationCache.Key("tt1", 0, 20);
+        RecommendationCache.Key comedy = new RecommendationCache.Key("tt2", 0, 20);
+        cache.put(drama, List.of(), cache.generation());
+        cache.put(comedy, List.of(), cache.generation());
+
+        // When a new drama is ingested
+        cache.onCatalogChanged(new MovieCatalogChangedEvent(List.of(movie("tt3", "Drama"))));
+
+        // Then
+        assertNull(cache.get(drama));
+        assertNotNull(cache.get(comedy));
+    }
+
+    @Test
+    void onCatalogChangedFollowsTheCachedTargets(){
+        // Given a cached drama that was invalidated, next to a cached comedy
+        movieIndex.add(movie("tt1", "Drama"));
+        movieIndex.add(movie("tt5", "Comedy"));
+        RecommendationCache cache = new RecommendationCache(movieIndex, 100);
+        RecommendationCache.Key drama = new RecommendationCache.Key("tt1", 0, 20);
+        RecommendationCache.Key comedy = new RecommendationCache.Key("tt5", 0, 20);
+        cache.put(drama, List.of(), cache.generation());
+        cache.put(comedy, List.of(), cache.generation());
+        cache.onCatalogChanged(new MovieCatalogChangedEvent(List.of(movie("tt2", "Drama"))));
+
+        // When another drama is ingested, and once more after the drama is cached again
+        cache.onCatalogChanged(new MovieCatalogChangedEvent(List.of(movie("tt3", "Drama"))));
+        long invalidations = cache.stats().getInvalidations();
+        cache.put(drama, List.of(), cache.generation());
+        cache.onCatalogChanged(new MovieCatalogChangedEvent(List.of(movie("tt4", "Drama"))));
+
+        // Then
+        assertEquals(1, invalidations);
+        assertEquals(2, cache.stats().getInvalidations());
+        assertNull(cache.get(drama));
+        assertNotNull(cache.get(comedy));
+    }
+
+    @Test
+    void putIgnoresResultsComputedDuringACatalogChange(){
+        // Given
+        RecommendationCache cache = new RecommendationCache(movieIndex, 100);
+        RecommendationCache.Key key = new RecommendationCache.Key("tt1", 0, 20);
+        long generation = cache.generation();
+
+        // When
+        cache.onCatalogChanged(new MovieCatalogChangedEvent(List.of(movie("tt3", "Drama"))));
+        cache.put(key, List.of(), generation);
+
+        // Then
+        assertNull(cache.get(key));
+    }
+}
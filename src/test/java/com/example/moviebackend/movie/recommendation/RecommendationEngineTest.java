@@ -0,0 +1,138 @@
+package com.example.moviebackend.movie.recommendation;
+
+import com.example.moviebackend.movie.MovieEntity;
+import com.example.moviebackend.movie.index.MovieIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecommendationEngineTest {
+
+    private MovieIndex movieIndex;
+    private RecommendationEngine recommendationEngine;
+
+    private MovieEntity movie(String imdbID, String genre, String director, String imdbRating, String poster){
+        MovieEntity movieEntity = new MovieEntity();
+        movieEntity.setImdbID(imdbID);
+        movieEntity.setGenre(genre);
+        movieEntity.setDirector(director);
+        movieEntity.setWriter("N/A");
+        movieEntity.setActors("N/A");
+        movieEntity.setLanguage("English");
+        movieEntity.setImdbRating(imdbRating);
+        movieEntity.setPoster(poster);
+        movieEntity.setYear("2020");
+        return movieEntity;
+    }
+
+    @AfterEach
+    void tearDown(){
+        recommendationEngine.shutdown();
+    }
+
+    @BeforeEach
+    void setUp(){
+        movieIndex = new MovieIndex();
+        recommendationEngine = new RecommendationEngine(movieIndex, 3.0f, 4.0f, 2.0f, 1.5f, 1.0f, 2.0f, 20000, 4096, 2);
+    }
+
+    @Test
+    void recommendOrdersByScore(){
+        // Given
+        MovieEntity target = movie("tt0", "Crime, Drama", "Coppola", "9.0", "poster");
+        movieIndex.add(target);
+        movieIndex.add(movie("tt1", "Crime, Drama", "Coppola", "8.5", "poster"));
+        movieIndex.add(movie("tt2", "Drama", "Scorsese", "8.0", "poster"));
+        movieIndex.add(movie("tt3", "Comedy", "Reiner", "6.0", "poster"));
+
+        // When
+        List<ScoredMovie> result = recommendationEngine.recommend(target, 0, 10);
+
+        // Then
+        assertEquals(3, result.size());
+        assertEquals("tt1", result.get(0).getMovie().getImdbID());
+        assertEquals("tt2", result.get(1).getMovie().getImdbID());
+        assertEquals("tt3", result.get(2).getMovie().getImdbID());
+        assertTrue(result.get(0).getScore() > result.get(1).getScore());
+    }
+
+    @Test
+    void recommendSkipsMoviesWithoutPoster(){
+        // Given
+        MovieEntity target = movie("tt0", "Crime", "Coppola", "9.0", "poster");
+        movieIndex.add(target);
+        movieIndex.add(movie("tt1", "Crime", "Coppola", "9.0", "N/A"));
+        movieIndex.add(movie("tt2", "Crime", "Scorsese", "7.0", "poster"));
+
+        // When
+        List<ScoredMovie> result = recommendationEngine.recommend(target, 0, 10);
+
+        // Then
+        assertEquals(1, result.size());
+        assertEquals("tt2", result.get(0).getMovie().getImdbID());
+    }
+
+    @Test
+    void recommendPaginatesTopK(){
+        // Given
+        MovieEntity target = movie("tt0", "Crime", "Coppola", "9.0", "poster");
+        movieIndex.add(target);
+        for(int i = 1; i <= 9; i++){
+            movieIndex.add(movie("tt" + i, "Crime", "Director" + i, "8." + i, "poster"));
+        }
+
+        // When
+        List<ScoredMovie> firstPage = recommendationEngine.recommend(target, 0, 2);
+        List<ScoredMovie> secondPage = recommendationEngine.recommend(target, 2, 2);
+
+        // Then
+        assertEquals(List.of("tt9", "tt8"), firstPage.stream().map(scored -> scored.getMovie().getImdbID()).toList());
+        assertEquals(List.of("tt7", "tt6"), secondPage.stream().map(scored -> scored.getMovie().getImdbID()).toList());
+    }
+
+    @Test
+    void recommendBeyondTheCandidatesReturnsEmptyPage(){
+        // Given
+        MovieEntity target = movie("tt0", "Crime", "Coppola", "9.0", "poster");
+        movieIndex.add(target);
+        for(int i = 1; i <= 3; i++){
+            movieIndex.add(movie("tt" + i, "Crime", "Director" + i, "8." + i, "poster"));
+        }
+
+        // When
+        List<ScoredMovie> lastPage = recommendationEngine.recommend(target, 2, Integer.MAX_VALUE);
+        List<ScoredMovie> farPage = recommendationEngine.recommend(target, 1_000_000_000, 100);
+        List<ScoredMovie> overflowingPage = recommendationEngine.recommend(target, Integer.MAX_VALUE - 10, 100);
+
+        // Then
+        assertEquals(List.of("tt1"), lastPage.stream().map(scored -> scored.getMovie().getImdbID()).toList());
+        assertTrue(farPage.isEmpty());
+        assertTrue(overflowingPage.isEmpty());
+    }
+
+    @Test
+    void recommendInParallelMatchesSequential(){
+        // Given
+        MovieEntity target = movie("tt0", "Crime, Drama", "Coppola", "8.0", "poster");
+        movieIndex.add(target);
+        for(int i = 1; i <= 500; i++){
+            String genre = i % 3 == 0 ? "Crime, Drama" : "Drama";
+            String director = i % 7 == 0 ? "Coppola" : "Director" + i;
+            movieIndex.add(movie("tt" + i, genre, director, (5 + i % 5) + "." + (i % 10), "poster"));
+        }
+        RecommendationEngine parallelEngine = new RecommendationEngine(movieIndex, 3.0f, 4.0f, 2.0f, 1.5f, 1.0f, 2.0f, 1, 16, 4);
+
+        // When
+        List<ScoredMovie> sequential = recommendationEngine.recommend(target, 5, 40);
+        List<ScoredMovie> parallel = parallelEngine.recommend(target, 5, 40);
+        parallelEngine.shutdown();
+
+        // Then
+        assertEquals(sequential.stream().map(scored -> scored.getMovie().getImdbID()).toList(),
+                parallel.stream().map(scored -> scored.getMovie().getImdbID()).toList());
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.moviebackend.movie.search;
+
+import com.example.moviebackend.movie.MovieCatalogChangedEvent;
+import com.example.moviebackend.movie.MovieEntity;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FuzzyTitleIndexTest {
+
+    private MovieEntity movie(String imdbID, String title, String imdbVotes){
+        MovieEntity movieEntity = new MovieEntity();
+        movieEntity.setImdbID(imdbID);
+        movieEntity.setTitle(title);
+        movieEntity.setImdbVotes(imdbVotes);
+        return movieEntity;
+    }
+
+    private FuzzyTitleIndex index(MovieEntity... movies){
+        FuzzyTitleIndex fuzzyTitleIndex = new FuzzyTitleIndex();
+        fuzzyTitleIndex.onCatalogChanged(new MovieCatalogChangedEvent(List.of(movies)));
+        return fuzzyTitleIndex;
+    }
+
+    @Test
+    void searchToleratesTypos(){
+        // Given
+        MovieEntity godfather = movie("tt1", "The Godfather", "1,900,000");
+        MovieEntity godfather2 = movie("tt2", "The Godfather Part II", "1,300,000");
+        MovieEntity matrix = movie("tt3", "The Matrix", "2,000,000");
+        FuzzyTitleIndex fuzzyTitleIndex = index(godfather, godfather2, matrix);
+
+        // Then
+        assertEquals(List.of(godfather, godfather2), fuzzyTitleIndex.search("godfathr", 1));
+        assertEquals(List.of(godfather, godfather2), fuzzyTitleIndex.search("gdofather", 1));
+        assertEquals(List.of(godfather2), fuzzyTitleIndex.search("godfahter prat", 1));
+        assertEquals(List.of(matrix), fuzzyTitleIndex.search("matirx", 1));
+        assertTrue(fuzzyTitleIndex.search("godfthr", 1).isEmpty());
+        assertEquals(List.of(godfather, godfather2), fuzzyTitleIndex.search("godfthr", 2));
+    }
+
+    @Test
+    void searchRanksFewerEditsFirst(){
+        // Given
+        MovieEntity heat = movie("tt1", "Heat", "700,000");
+        MovieEntity heart = movie("tt2", "Heart", "10,000");
+        FuzzyTitleIndex fuzzyTitleIndex = index(heat, heart);
+
+        // Then
+        assertEquals(List.of(heart, heat), fuzzyTitleIndex.search("heart", 1));
+        assertEquals(List.of(heat, heart), fuzzyTitleIndex.search("hear", 1));
+    }
+
+    @Test
+    void searchNarrowsCommonWordsByTheRarestOne(){
+        // Given many titles with a common word, and one with a rare word too
+        List<MovieEntity> movies = new ArrayList<>();
+        for(int i = 0; i < 200; i++){
+            movies.add(movie("tt" + i, "The Man " + i, "1,000"));
+        }
+        MovieEntity rare = movie("tt-rare", "The Iron Man", "500,000");
+        movies.add(rare);
+        FuzzyTitleIndex fuzzyTitleIndex = index(movies.toArray(new MovieEntity[0]));
+
+        // Then the result and its edit totals do not depend on the order the words are typed in
+        assertEquals(List.of(rare), fuzzyTitleIndex.search("teh man irn", 1));
+        assertEquals(List.of(rare), fuzzyTitleIndex.search("irn man teh", 1));
+        assertEquals(201, fuzzyTitleIndex.search("man the", 1).size());
+    }
+
+    @Test
+    void shortWordsMustMatchExactly(){
+        // Given
+        MovieEntity up = movie("tt1", "Up", "1,000,000");
+        FuzzyTitleIndex fuzzyTitleIndex = index(up, movie("tt2", "It", "600,000"));
+
+        // Then
+        assertEquals(List.of(up), fuzzyTitleIndex.search("UP", 2));
+        assertTrue(fuzzyTitleIndex.search("us", 2).isEmpty());
+    }
+
+    @Test
+    void reindexingReplacesWords(){
+        // Given
+        FuzzyTitleIndex fuzzyTitleIndex = index(movie("tt1", "Working Title", "1"));
+        MovieEntity renamed = movie("tt1", "Final Cut", "1");
+
+        // When
+        fuzzyTitleIndex.onCatalogChanged(new MovieCatalogChangedEvent(List.of(renamed)));
+
+        // Then
+        assertTrue(fuzzyTitleIndex.search("working", 1).isEmpty());
+        assertEquals(List.of(renamed), fuzzyTitleIndex.search("finale", 1));
+    }
+
+    @Test
+    void distance(){
+        assertEquals(0, FuzzyTitleIndex.distance("matrix", "matrix", 2));
+        assertEquals(1, FuzzyTitleIndex.distance("matrix", "matirx", 2));
+        assertEquals(2, FuzzyTitleIndex.distance("godfather", "godfthr", 2));
+        assertEquals(3, FuzzyTitleIndex.distance("godfather", "gdfthr", 2));
+        assertThrows(IllegalArgumentException.class, () -> new FuzzyTitleIndex().search("x", 3));
+    }
+}
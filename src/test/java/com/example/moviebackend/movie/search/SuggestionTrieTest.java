@@ -0,0 +1,83 @@
+package com.example.moviebackend.movie.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SuggestionTrieTest {
+
+    private SuggestionTrie trie(int topN, SuggestionTrie.Entry... entries){
+        return SuggestionTrie.build(List.of(entries), topN);
+    }
+
+    private List<String> imdbIDs(List<TitleSuggestion> suggestions){
+        List<String> imdbIDs = new ArrayList<>();
+        for(TitleSuggestion suggestion : suggestions){
+            imdbIDs.add(suggestion.getImdbID());
+        }
+        return imdbIDs;
+    }
+
+    @Test
+    void lookupRanksByPopularity(){
+        // Given
+        SuggestionTrie trie = trie(10,
+                new SuggestionTrie.Entry("tt1", "Batman", 380_000),
+                new SuggestionTrie.Entry("tt2", "Batman Begins", 1_500_000),
+                new SuggestionTrie.Entry("tt3", "Batman Returns", 320_000),
+                new SuggestionTrie.Entry("tt4", "Bad Boys", 250_000),
+                new SuggestionTrie.Entry("tt5", "Alien", 900_000));
+
+        // Then
+        assertEquals(List.of("tt2", "tt1", "tt3", "tt4"), imdbIDs(trie.lookup("ba", 10)));
+        assertEquals(List.of("tt2", "tt1", "tt3"), imdbIDs(trie.lookup("Batm", 10)));
+        assertEquals(List.of("tt2", "tt3"), imdbIDs(trie.lookup("batman ", 10)));
+        assertEquals(List.of("tt3"), imdbIDs(trie.lookup("batman r", 10)));
+        assertEquals(List.of("tt2"), imdbIDs(trie.lookup("b", 1)));
+        assertEquals("Batman Begins", trie.lookup("b", 1).get(0).getTitle());
+    }
+
+    @Test
+    void lookupIgnoresCaseAndAccents(){
+        // Given
+        SuggestionTrie trie = trie(10, new SuggestionTrie.Entry("tt1", "Amélie", 750_000));
+
+        // Then
+        assertEquals(List.of("tt1"), imdbIDs(trie.lookup("AME", 10)));
+        assertEquals(List.of("tt1"), imdbIDs(trie.lookup("amél", 10)));
+    }
+
+    @Test
+    void lookupMisses(){
+        // Given
+        SuggestionTrie trie = trie(10, new SuggestionTrie.Entry("tt1", "Batman", 1));
+
+        // Then
+        assertTrue(trie.lookup("batmen", 10).isEmpty());
+        assertTrue(trie.lookup("batman begins", 10).isEmpty());
+        assertTrue(trie.lookup("", 10).isEmpty());
+        assertTrue(SuggestionTrie.EMPTY.lookup("b", 10).isEmpty());
+    }
+
+    @Test
+    void keepsOnlyTopNPerPrefix(){
+        // Given
+        List<SuggestionTrie.Entry> entries = new ArrayList<>();
+        for(int i = 0; i < 50; i++){
+            entries.add(new SuggestionTrie.Entry("tt" + i, "Star " + i, i));
+        }
+        entries.add(new SuggestionTrie.Entry("dup1", "Star 7", 7));
+
+        // When
+        SuggestionTrie trie = SuggestionTrie.build(entries, 3);
+
+        // Then
+        assertEquals(List.of("tt49", "tt48", "tt47"), imdbIDs(trie.lookup("star", 10)));
+        assertEquals(List.of("dup1", "tt7"), imdbIDs(trie.lookup("star 7", 10)));
+        assertEquals(51, trie.size());
+        assertTrue(trie.footprintBytes() > 0);
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.moviebackend.movie.search;
+
+import com.example.moviebackend.movie.MovieCatalogChangedEvent;
+import com.example.moviebackend.movie.MovieEntity;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TitleSearchIndexTest {
+
+    private MovieEntity movie(String imdbID, String title, String imdbVotes){
+        MovieEntity movieEntity = new MovieEntity();
+        movieEntity.setImdbID(imdbID);
+        movieEntity.setTitle(title);
+        movieEntity.setImdbVotes(imdbVotes);
+        return movieEntity;
+    }
+
+    private TitleSearchIndex index(MovieEntity... movies){
+        TitleSearchIndex titleSearchIndex = new TitleSearchIndex();
+        titleSearchIndex.onCatalogChanged(new MovieCatalogChangedEvent(List.of(movies)));
+        return titleSearchIndex;
+    }
+
+    @Test
+    void searchIgnoresCaseAndAccents(){
+        // Given
+        MovieEntity amelie = movie("tt1", "Amélie", "750,000");
+        TitleSearchIndex titleSearchIndex = index(amelie, movie("tt2", "Alien", "900,000"));
+
+        // Then
+        assertEquals(List.of(amelie), titleSearchIndex.search("AMELIE", 10));
+        assertEquals(List.of(amelie), titleSearchIndex.search("amél", 10));
+    }
+
+    @Test
+    void searchRanksByMatchQualityThenVotes(){
+        // Given
+        MovieEntity substring = movie("tt1", "Superman", "900,000");
+        MovieEntity wordStart = movie("tt2", "The Iron Man", "10,000");
+        MovieEntity prefixPopular = movie("tt3", "Man of Steel", "800,000");
+        MovieEntity prefix = movie("tt4", "Man on Fire", "380,000");
+        MovieEntity exact = movie("tt5", "Man", "N/A");
+        TitleSearchIndex titleSearchIndex = index(substring, wordStart, prefix, prefixPopular, exact);
+
+        // Then
+        assertEquals(List.of(exact, prefixPopular, prefix, wordStart, substring), titleSearchIndex.search("man", 10));
+        assertEquals(List.of(exact, prefixPopular), titleSearchIndex.search("man", 2));
+    }
+
+    @Test
+    void searchVerifiesCandidates(){
+        // Given: every trigram of "abcd" occurs, but not the whole query
+        TitleSearchIndex titleSearchIndex = index(movie("tt1", "abc bcd", "1"));
+
+        // Then
+        assertTrue(titleSearchIndex.search("abcd", 10).isEmpty());
+        assertTrue(titleSearchIndex.search("xyz", 10).isEmpty());
+    }
+
+    @Test
+    void searchShortQueries(){
+        // Given
+        MovieEntity up = movie("tt1", "Up", "1,000,000");
+        TitleSearchIndex titleSearchIndex = index(up, movie("tt2", "Alien", "900,000"));
+
+        // Then
+        assertEquals(List.of(up), titleSearchIndex.search("up", 10));
+        assertTrue(titleSearchIndex.search("  ", 10).isEmpty());
+    }
+
+    @Test
+    void reindexingReplacesTitle(){
+        // Given
+        TitleSearchIndex titleSearchIndex = index(movie("tt1", "Working Title", "1"));
+        MovieEntity renamed = movie("tt1", "Final Title", "1");
+
+        // When
+        titleSearchIndex.onCatalogChanged(new MovieCatalogChangedEvent(List.of(renamed)));
+
+        // Then
+        assertTrue(titleSearchIndex.search("working", 10).isEmpty());
+        assertEquals(List.of(renamed), titleSearchIndex.search("title", 10));
+        assertEquals(1, titleSearchIndex.size());
+    }
+
+    @Test
+    void reindexingSameTitleKeepsTheDocument(){
+        // Given
+        TitleSearchIndex titleSearchIndex = index(movie("tt1", "The Matrix", "1,000"));
+        MovieEntity refreshed = movie("tt1", "The Matrix", "2,000,000");
+
+        // When
+        for(int i = 0; i < 100; i++){
+            titleSearchIndex.onCatalogChanged(new MovieCatalogChangedEvent(List.of(refreshed)));
+        }
+
+        // Then
+        assertEquals(1, titleSearchIndex.documents());
+        assertEquals(List.of(refreshed), titleSearchIndex.search("matrix", 10));
+    }
+
+    @Test
+    void renamedDocumentsAreCompacted(){
+        // Given
+        MovieEntity other = movie("tt2", "Alien", "900,000");
+        TitleSearchIndex titleSearchIndex = index(movie("tt1", "Title 0", "1"), other);
+
+        // When
+        MovieEntity renamed = null;
+        for(int i = 1; i <= 1000; i++){
+            renamed = movie("tt1", "Title " + i, "1");
+            titleSearchIndex.onCatalogChanged(new MovieCatalogChangedEvent(List.of(renamed)));
+        }
+
+        // Then
+        assertTrue(titleSearchIndex.documents() < 2 + 2 * 64, "deleted documents were kept");
+        assertEquals(List.of(renamed), titleSearchIndex.search("title 1000", 10));
+        assertTrue(titleSearchIndex.search("title 999", 10).isEmpty());
+        assertEquals(List.of(other), titleSearchIndex.search("alien", 10));
+        assertEquals(2, titleSearchIndex.size());
+    }
+}